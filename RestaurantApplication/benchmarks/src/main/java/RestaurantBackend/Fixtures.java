@@ -0,0 +1,123 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Writes the input files the benchmarks load, in the same formats as the repo's employees, menu and
+ * inventory files, so that their sizes can be varied
+ */
+final class Fixtures {
+  // large enough that no benchmark runs an ingredient low, so no reorders are requested
+  static final double PLENTY = 1e15;
+
+  private final Path dir;
+
+  /** Fixtures written to a new temporary directory */
+  Fixtures() {
+    try {
+      dir = Files.createTempDirectory("restaurant-bench");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @param i: the number of an ingredient
+   * @return the name of the ingredient
+   */
+  static String ingredientName(int i) {
+    return "Ingredient " + i;
+  }
+
+  /**
+   * Write an inventory file
+   *
+   * @param ingredients: the number of ingredients
+   * @return the path of the file
+   */
+  String inventory(int ingredients) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < ingredients; i++) {
+      sb.append(ingredientName(i)).append(" | ").append(PLENTY).append(" | 0\n");
+    }
+    return write("inventory-" + ingredients + ".txt", sb);
+  }
+
+  /**
+   * Write a menu file, whose dishes each use a few of the given ingredients
+   *
+   * @param dishes: the number of dishes
+   * @param ingredients: the number of ingredients to choose from
+   * @param perDish: the number of ingredients in each dish
+   * @return the path of the file
+   */
+  String menu(int dishes, int ingredients, int perDish) {
+    Random random = new Random(dishes);
+    StringBuilder sb = new StringBuilder();
+    for (int d = 0; d < dishes; d++) {
+      sb.append("Dish ").append(d).append(" | ").append(5 + random.nextInt(20));
+      for (Ingredient ing : recipe(random, ingredients, perDish)) {
+        sb.append(" | ").append(ing.getName()).append(", ").append(ing.getAmount());
+      }
+      sb.append('\n');
+    }
+    return write("menu-" + dishes + ".txt", sb);
+  }
+
+  /**
+   * Write an employees file
+   *
+   * @param servers: the number of servers
+   * @param cooks: the number of cooks
+   * @return the path of the file
+   */
+  String employees(int servers, int cooks) {
+    StringBuilder sb = new StringBuilder("Manager | Manager\n");
+    for (int i = 1; i <= servers; i++) {
+      sb.append("Server | Server ").append(i).append('\n');
+    }
+    for (int i = 1; i <= cooks; i++) {
+      sb.append("Cook | Cook ").append(i).append('\n');
+    }
+    return write("employees.txt", sb);
+  }
+
+  /**
+   * @param random: the source of the choices
+   * @param ingredients: the number of ingredients to choose from
+   * @param perDish: the number of ingredients to choose
+   * @return distinct ingredients, with small amounts
+   */
+  static ArrayList<Ingredient> recipe(Random random, int ingredients, int perDish) {
+    ArrayList<Ingredient> recipe = new ArrayList<>(perDish);
+    int first = random.nextInt(ingredients);
+    for (int i = 0; i < Math.min(perDish, ingredients); i++) {
+      recipe.add(new Ingredient(ingredientName((first + i * 7) % ingredients), 1 + i % 3));
+    }
+    return recipe;
+  }
+
+  /**
+   * @param name: the name of a file
+   * @return the path of a file of that name beside the fixtures, which may not exist yet
+   */
+  String path(String name) {
+    return dir.resolve(name).toString();
+  }
+
+  private String write(String name, CharSequence contents) {
+    Path path = dir.resolve(name);
+    try {
+      Files.write(path, contents.toString().getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return path.toString();
+  }
+}
@@ -0,0 +1,87 @@
+package RestaurantBackend;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Checking and deducting a dish's ingredients, as cooks and servers do for every dish, against
+ * inventories of different sizes, held in memory or in an inventory ledger file
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class KitchenBenchmark {
+
+  @Param({"16", "256", "4096"})
+  int inventorySize;
+
+  @Param({"8"})
+  int recipeSize;
+
+  @Param({"memory", "ledger"})
+  String store;
+
+  private Kitchen kitchen;
+  private ArrayList<Ingredient> ingredients;
+  private Recipe recipe;
+
+  @Setup
+  public void setUp() {
+    Fixtures fixtures = new Fixtures();
+    kitchen =
+        new Kitchen(
+            fixtures.inventory(inventorySize),
+            store.equals("ledger") ? fixtures.path("inventory.ledger") : null);
+    ingredients = Fixtures.recipe(new Random(inventorySize), inventorySize, recipeSize);
+    recipe = Recipe.compile(ingredients);
+  }
+
+  @TearDown
+  public void tearDown() {
+    kitchen.closeLedger();
+  }
+
+  /** @return true, as the inventory never runs low */
+  @Benchmark
+  public boolean sufficientIngredientsList() {
+    return kitchen.sufficientIngredients(ingredients);
+  }
+
+  /** @return true, as the inventory never runs low */
+  @Benchmark
+  public boolean sufficientIngredientsRecipe() {
+    return kitchen.sufficientIngredients(recipe);
+  }
+
+  @Benchmark
+  public void useIngredientsList() {
+    kitchen.useIngredients(ingredients);
+  }
+
+  @Benchmark
+  public void useIngredientsRecipe() {
+    kitchen.useIngredients(recipe);
+  }
+
+  /** @return true, as the inventory never runs low */
+  @Benchmark
+  public boolean reserveIngredients() {
+    return kitchen.reserveIngredients(recipe);
+  }
+}
@@ -0,0 +1,96 @@
+package RestaurantBackend;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading large menu and inventory files with RecordFile, against reading them line by line with a
+ * Scanner and splitting each line with a regular expression, as the loaders did before
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class LoaderBenchmark {
+
+  @Param({"1000", "10000", "50000"})
+  int lines;
+
+  private String menuPath;
+  private String inventoryPath;
+
+  @Setup
+  public void setUp() {
+    Fixtures fixtures = new Fixtures();
+    menuPath = fixtures.menu(lines, 2048, 8);
+    inventoryPath = fixtures.inventory(lines);
+  }
+
+  /** @return the dishes on the menu */
+  @Benchmark
+  public ArrayList<Dish> menuRecordFile() throws IOException {
+    return RecordFile.load(
+        menuPath,
+        line -> {
+          ArrayList<Ingredient> ingredients = new ArrayList<>(line.size() - 2);
+          for (int i = 2; i < line.size(); i++) {
+            ingredients.add(new Ingredient(line.name(i), line.amount(i)));
+          }
+          return new Dish(line.text(0), line.number(1), ingredients);
+        });
+  }
+
+  /** @return the dishes on the menu */
+  @Benchmark
+  public ArrayList<Dish> menuScannerSplit() throws FileNotFoundException {
+    ArrayList<Dish> items = new ArrayList<>();
+    try (Scanner sc = new Scanner(new File(menuPath))) {
+      while (sc.hasNextLine()) {
+        String[] input = sc.nextLine().split("\\s\\|\\s");
+        ArrayList<Ingredient> ingredients = new ArrayList<>();
+        for (int i = 2; i < input.length; i++) {
+          String[] ingredientString = input[i].split(",\\s");
+          ingredients.add(new Ingredient(ingredientString[0], Double.valueOf(ingredientString[1])));
+        }
+        items.add(new Dish(input[0], Double.valueOf(input[1]), ingredients));
+      }
+    }
+    return items;
+  }
+
+  /** @return the ingredients in the inventory */
+  @Benchmark
+  public ArrayList<Ingredient> inventoryRecordFile() throws IOException {
+    return RecordFile.load(inventoryPath, line -> new Ingredient(line.text(0), line.number(1)));
+  }
+
+  /** @return the ingredients in the inventory */
+  @Benchmark
+  public ArrayList<Ingredient> inventoryScannerSplit() throws FileNotFoundException {
+    ArrayList<Ingredient> ingredients = new ArrayList<>();
+    try (Scanner sc = new Scanner(new File(inventoryPath))) {
+      while (sc.hasNextLine()) {
+        String[] input = sc.nextLine().split("\\s\\|\\s");
+        ingredients.add(new Ingredient(input[0], Double.valueOf(input[1])));
+      }
+    }
+    return ingredients;
+  }
+}
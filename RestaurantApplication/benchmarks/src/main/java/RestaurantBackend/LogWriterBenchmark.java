@@ -0,0 +1,69 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing log lines, synchronously or through the asynchronous sink, from one thread and from
+ * several. The lines go to log.txt in the working directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LogWriterBenchmark {
+
+  @Param({"SYNC", "ASYNC_NONE", "ASYNC_EVERY_BATCH"})
+  String mode;
+
+  private RestaurantEvent event;
+
+  @Setup
+  public void setUp() throws IOException {
+    ArrayList<Ingredient> ingredients = new ArrayList<>();
+    ingredients.add(new Ingredient("Bread", 1));
+    ingredients.add(new Ingredient("Beef Patty", 1));
+    Dish item = new Dish("Burger", 12, ingredients);
+    event =
+        RestaurantEvent.dishServed("Server", OrderedDish.DishToOrderedDish(item), new Order(1, 1));
+    if (!mode.equals("SYNC")) {
+      AsyncLogSink.Durability durability =
+          mode.equals("ASYNC_NONE")
+              ? AsyncLogSink.Durability.NONE
+              : AsyncLogSink.Durability.EVERY_BATCH;
+      LogWriter.getInstance().startAsync(1 << 16, 50, durability);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    LogWriter.getInstance().shutdown();
+  }
+
+  @Benchmark
+  public void writeEvent() {
+    LogWriter.getInstance().write(event);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void writeEventContended() {
+    LogWriter.getInstance().write(event);
+  }
+}
@@ -0,0 +1,65 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading menus of different sizes, parsed from the menu file or read from the catalog compiled
+ * from it, and turning menu items into ordered dishes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MenuBenchmark {
+
+  @Param({"10", "100", "1000"})
+  int menuSize;
+
+  @Param({"text", "catalog"})
+  String format;
+
+  private String menuPath;
+  private Dish dish;
+
+  @Setup
+  public void setUp() throws IOException {
+    menuPath = new Fixtures().menu(menuSize, 64, 8);
+    if (format.equals("catalog")) {
+      MenuCatalog.compile(menuPath);
+    }
+    dish = new Menu(menuPath).getMenuItems().get(0);
+  }
+
+  /** @return the loaded menu */
+  @Benchmark
+  public Menu parseMenu() {
+    return new Menu(menuPath);
+  }
+
+  /** @return one menu item, looked up by name in a newly loaded menu */
+  @Benchmark
+  public Dish loadAndLookUp() {
+    return new Menu(menuPath).getDish("Dish " + (menuSize / 2));
+  }
+
+  /** @return a new ordered dish, with the next id */
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public OrderedDish dishToOrderedDish() {
+    return OrderedDish.DishToOrderedDish(dish);
+  }
+}
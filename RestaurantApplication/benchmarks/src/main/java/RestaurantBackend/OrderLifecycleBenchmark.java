@@ -0,0 +1,87 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A table's whole visit, through the calls the UI makes: the server adds the table, an order and
+ * its dishes and sends them to the kitchen, the cook sees and completes each dish, the server
+ * serves them and the order is resolved, writing its payment to the ledger. Log lines and payments
+ * go to the working directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class OrderLifecycleBenchmark {
+
+  private static final int TABLE = 1;
+
+  @Param({"1", "4", "12"})
+  int dishesPerOrder;
+
+  @Param({"false", "true"})
+  boolean asyncLog;
+
+  private Server server;
+  private Cook cook;
+  private List<Dish> items;
+
+  @Setup
+  public void setUp() throws IOException {
+    // keep the benchmark's payments, ids and log out of the working directory
+    DataFiles.useTemporaryDirectory("restaurant-bench");
+    Fixtures fixtures = new Fixtures();
+    Restaurant restaurant =
+        new Restaurant(
+            fixtures.employees(1, 1), fixtures.menu(20, 64, 8), fixtures.inventory(64));
+    server = restaurant.getServers().get(0);
+    cook = restaurant.getCooks().get(0);
+    items = restaurant.getMenu().getMenuItems();
+    if (asyncLog) {
+      LogWriter.getInstance().startAsync(1 << 16, 50, AsyncLogSink.Durability.NONE);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    LogWriter.getInstance().shutdown();
+  }
+
+  /** @return true, as the order is always resolved */
+  @Benchmark
+  public boolean orderLifecycle() {
+    server.addTable(TABLE);
+    server.addOrder(TABLE);
+    long orderNumber = server.getActiveOrdersAtTable(TABLE).get(0);
+    ArrayList<OrderedDish> dishes = new ArrayList<>(dishesPerOrder);
+    for (int i = 0; i < dishesPerOrder; i++) {
+      OrderedDish dish = OrderedDish.DishToOrderedDish(items.get(i % items.size()));
+      server.addToOrder(TABLE, orderNumber, dish);
+      dishes.add(dish);
+    }
+    server.finalizeOrdersForTable(TABLE);
+    for (OrderedDish dish : dishes) {
+      cook.markSeenAndParse();
+      cook.completeDish();
+      server.confirmServed(dish.getID(), TABLE, orderNumber);
+    }
+    return server.resolveOrder(orderNumber);
+  }
+}
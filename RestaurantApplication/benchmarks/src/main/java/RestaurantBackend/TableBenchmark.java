@@ -0,0 +1,58 @@
+package RestaurantBackend;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Printing the bill of a table with many orders, every dish of which has been served */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TableBenchmark {
+
+  @Param({"1", "10", "100"})
+  int orders;
+
+  @Param({"4"})
+  int dishesPerOrder;
+
+  private Table table;
+
+  @Setup
+  public void setUp() {
+    Menu menu = new Menu(new Fixtures().menu(20, 64, 8));
+    table = new Table(1);
+    for (int o = 0; o < orders; o++) {
+      Order order = new Order(1, IdGenerator.ORDERS.nextId());
+      table.addOrder(order);
+      for (int d = 0; d < dishesPerOrder; d++) {
+        Dish item = menu.getMenuItems().get((o + d) % menu.getMenuItems().size());
+        order.addTentativeOrderedDish(OrderedDish.DishToOrderedDish(item));
+      }
+      for (OrderedDish dish : order.finalizeTentativeItems()) {
+        // seen, ready, then served
+        dish.updateStatus(true);
+        dish.updateStatus(true);
+        dish.updateStatus(true);
+      }
+    }
+  }
+
+  /** @return the bill for every order at the table */
+  @Benchmark
+  public String getBill() {
+    return table.getBill();
+  }
+}
@@ -1,6 +1,7 @@
 import RestaurantBackend.Cook;
 import RestaurantBackend.Ingredient;
 import RestaurantBackend.Kitchen;
+import RestaurantBackend.KitchenEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Button;
@@ -72,12 +73,16 @@ class CookPane extends AnchorPane implements Observer {
     this.cook = cook;
   }
 
-  /** Update the nextDish label to display the ordered dish the kitchen passes to this CookPane */
+  /** Update the nextDish label to display the next ordered dish the kitchen announces */
   @Override
   public void update(Observable o, Object arg) {
     if ((o instanceof Kitchen))
-      if ((arg instanceof String)) {
-        this.nextDish.setText((String) arg);
+      if ((arg instanceof KitchenEvent.Batch)) {
+        for (KitchenEvent event : (KitchenEvent.Batch) arg) {
+          if (event.getType() == KitchenEvent.Type.NEXT_DISH) {
+            this.nextDish.setText(event.toString());
+          }
+        }
       }
   }
 }
@@ -1,4 +1,5 @@
 import RestaurantBackend.*;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Button;
@@ -19,6 +20,9 @@ public class MainApplicationWindow extends AnchorPane implements Observer {
   private static final String EMPLOYEE_PATH = "employees.txt";
   private static final String MENU_PATH = "menu.txt";
   private static final String INVENTORY_PATH = "inventory.txt";
+  private static final String SNAPSHOT_PATH = "state.snapshot";
+  private static final String JOURNAL_PATH = "state.wal";
+  private static final long SNAPSHOT_PERIOD_MILLIS = 60_000;
 
   /**
    * An enum of all of the jobs in the Restaurant.
@@ -66,6 +70,11 @@ public class MainApplicationWindow extends AnchorPane implements Observer {
   /** Constructor for the restaurant Controller */
   MainApplicationWindow() {
     restaurant = new Restaurant(EMPLOYEE_PATH, MENU_PATH, INVENTORY_PATH);
+    try {
+      restaurant.startJournal(SNAPSHOT_PATH, JOURNAL_PATH, SNAPSHOT_PERIOD_MILLIS);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
     FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource(FXML_PATH));
     fxmlLoader.setRoot(this);
     fxmlLoader.setController(this);
@@ -83,7 +92,7 @@ public class MainApplicationWindow extends AnchorPane implements Observer {
     managerPane = new ManagerPane();
     managerPane.setManager(restaurant.getManagers().get(0));
     cookPane = new CookPane();
-    restaurant.getKitchen().addObserver(cookPane);
+    restaurant.getKitchen().addObserver(cookPane, Platform::runLater);
     cookPane.setCook(restaurant.getCooks().get(0));
 
     employeePane.getChildren().addAll(serverPane, managerPane, cookPane);
@@ -91,6 +100,11 @@ public class MainApplicationWindow extends AnchorPane implements Observer {
     initIngredientControls();
   }
 
+  /** Write a final snapshot of the restaurant's state before the application exits */
+  void shutdown() {
+    restaurant.closeJournal();
+  }
+
   /** Initialize the jobSelect drop-down window */
   private void initJobSelect() {
     jobSelect.getItems().setAll(Jobs.MANAGER, Jobs.SERVER, Jobs.COOK);
@@ -6,13 +6,8 @@ import javafx.scene.control.DatePicker;
 import javafx.scene.control.TextArea;
 import javafx.scene.layout.AnchorPane;
 
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.Scanner;
 
 /**
  * The application GUI for Manager.
@@ -56,21 +51,8 @@ class ManagerPane extends AnchorPane {
       managerDisplay.setText(manager.getOrdersInProgress());
     });
     getPaymentRecords.setOnAction(event -> {
-      managerDisplay.clear();
-      String date = datePicker.getValue().format(DateTimeFormatter.ofPattern("yyy-MM-dd"));
-      File f = new File(String.format("PaymentRecords\\%s.txt",date));
-      if(f.exists()){
-        try {
-          Scanner sc = new Scanner(f);
-          while(sc.hasNextLine()) {
-            String line = sc.nextLine();
-            managerDisplay.appendText(line+"\r\n");
-          }
-          sc.close();
-        } catch (FileNotFoundException e) {
-          e.printStackTrace();
-        }
-      }
+      LocalDate date = datePicker.getValue();
+      managerDisplay.setText(manager.getPaymentRecords(date, date));
     });
   }
 
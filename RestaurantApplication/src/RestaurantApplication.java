@@ -1,13 +1,21 @@
+import RestaurantBackend.AsyncLogSink;
+import RestaurantBackend.LogWriter;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+
 /**
  * The application for the restaurant program.
  */
 public class RestaurantApplication extends Application {
 
   private static final String TITLE = "RESTAURANT APPLICATION";
+  private static final int LOG_CAPACITY = 4096;
+  private static final long LOG_FLUSH_INTERVAL_MILLIS = 200;
+
+  private MainApplicationWindow window;
 
   /**
    * The main method.
@@ -25,9 +33,27 @@ public class RestaurantApplication extends Application {
    */
   @Override
   public void start(Stage primaryStage) {
+    try {
+      LogWriter.getInstance()
+          .startAsync(LOG_CAPACITY, LOG_FLUSH_INTERVAL_MILLIS, AsyncLogSink.Durability.EVERY_BATCH);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
     primaryStage.setTitle(TITLE);
-    MainApplicationWindow rc = new MainApplicationWindow();
-    primaryStage.setScene(new Scene(rc, 1280, 720));
+    window = new MainApplicationWindow();
+    primaryStage.setScene(new Scene(window, 1280, 720));
     primaryStage.show();
   }
+
+  /**
+   * Stops the program, writing a final snapshot of the restaurant's state and any log lines that
+   * are still buffered.
+   */
+  @Override
+  public void stop() {
+    if (window != null) {
+      window.shutdown();
+    }
+    LogWriter.getInstance().shutdown();
+  }
 }
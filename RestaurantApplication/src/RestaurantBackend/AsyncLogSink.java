@@ -0,0 +1,236 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An asynchronous sink for log lines.
+ *
+ * <p>Producers enqueue lines into a bounded ring buffer; a single writer thread drains it in
+ * batches and appends each batch to the log file through one long-lived channel. When the buffer is
+ * full, producers wait for the writer to catch up, and each such wait is counted as a stall.
+ *
+ * <p>Producers hold the read side of a lock while they enqueue, and closing takes the write side,
+ * so once the sink is closed no line can be enqueued after the writer's final drain.
+ */
+public class AsyncLogSink {
+
+  /** When the writer forces written lines to disk */
+  public enum Durability {
+    // leave it to the operating system
+    NONE,
+    // after every batch
+    EVERY_BATCH
+  }
+
+  // the line separator used in the log file
+  private static final String LINE_SEPARATOR = "\r\n";
+  // how often an idle writer checks whether the sink has been closed
+  private static final long IDLE_POLL_MILLIS = 100;
+  // how long the writer takes to write, and force if need be, each batch
+  private static final LatencyHistogram FLUSH_TIME =
+      Metrics.getInstance().histogram("log.flush.nanos");
+
+  private final ArrayBlockingQueue<String> buffer;
+  private final FileChannel channel;
+  private final long flushIntervalNanos;
+  private final Durability durability;
+  private final Thread writer;
+  private volatile boolean closed;
+  // held shared by producers while they enqueue, and exclusively to close the sink
+  private final ReentrantReadWriteLock closing = new ReentrantReadWriteLock();
+
+  private final LongAdder enqueued = new LongAdder();
+  private final LongAdder written = new LongAdder();
+  private final LongAdder stalls = new LongAdder();
+  private final LongAdder batches = new LongAdder();
+  private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+
+  /**
+   * A new AsyncLogSink, whose writer thread is started immediately
+   *
+   * @param path: the path of the log file to append to
+   * @param capacity: the number of lines the buffer can hold
+   * @param flushIntervalMillis: how long the writer lets lines accumulate before writing a batch
+   * @param durability: when the writer forces written lines to disk
+   * @throws IOException if the log file can't be opened
+   */
+  AsyncLogSink(String path, int capacity, long flushIntervalMillis, Durability durability)
+      throws IOException {
+    this.buffer = new ArrayBlockingQueue<>(capacity);
+    this.channel =
+        FileChannel.open(
+            Paths.get(path),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    this.durability = durability;
+    this.writer = new Thread(this::run, "log-writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Enqueue a line to be written, waiting for space in the buffer if it is full
+   *
+   * @param line: the line to be written
+   * @return true if the line will be written, false if this sink has been closed or the wait for
+   *     space was interrupted
+   */
+  boolean append(String line) {
+    closing.readLock().lock();
+    try {
+      if (closed) {
+        return false;
+      }
+      if (!buffer.offer(line)) {
+        stalls.increment();
+        try {
+          buffer.put(line);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+    } finally {
+      closing.readLock().unlock();
+    }
+    enqueued.increment();
+    maxDepth.accumulate(buffer.size());
+    return true;
+  }
+
+  /**
+   * Stop accepting lines, write everything still buffered, and close the log file
+   *
+   * <p>Waits for producers already enqueueing, including those waiting for space, to finish first.
+   *
+   * @throws InterruptedException if interrupted while waiting for the writer to finish
+   */
+  void close() throws InterruptedException {
+    closing.writeLock().lock();
+    try {
+      closed = true;
+    } finally {
+      closing.writeLock().unlock();
+    }
+    writer.join();
+  }
+
+  /**
+   * The writer thread's loop.
+   *
+   * <p>The writer is never interrupted, since interrupting a thread blocked on a FileChannel closes
+   * the channel; instead it wakes up periodically to check whether the sink has been closed.
+   */
+  private void run() {
+    ArrayList<String> batch = new ArrayList<>();
+    long lastFlush = System.nanoTime();
+    try {
+      while (!closed || !buffer.isEmpty()) {
+        String first = buffer.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long wait = lastFlush + flushIntervalNanos - System.nanoTime();
+        if (wait > 0 && !closed && buffer.remainingCapacity() > 0) {
+          TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        buffer.drainTo(batch);
+        writeBatch(batch);
+        lastFlush = System.nanoTime();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    buffer.drainTo(batch);
+    writeBatch(batch);
+    try {
+      channel.force(false);
+      channel.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Write a batch of lines to the log file, and clear it
+   *
+   * @param batch: the lines to be written
+   */
+  private void writeBatch(ArrayList<String> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    long start = Metrics.startTimer();
+    StringBuilder sb = new StringBuilder();
+    for (String line : batch) {
+      sb.append(line).append(LINE_SEPARATOR);
+    }
+    ByteBuffer bytes = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+    try {
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+      if (durability == Durability.EVERY_BATCH) {
+        channel.force(false);
+      }
+      written.add(batch.size());
+      batches.increment();
+      FLUSH_TIME.recordSince(start);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    batch.clear();
+  }
+
+  /** @return the number of lines enqueued so far */
+  public long getEnqueued() {
+    return enqueued.sum();
+  }
+
+  /** @return the number of lines written to the log file so far */
+  public long getWritten() {
+    return written.sum();
+  }
+
+  /** @return the number of times a producer had to wait for space in the buffer */
+  public long getStalls() {
+    return stalls.sum();
+  }
+
+  /** @return the number of batches written so far */
+  public long getBatches() {
+    return batches.sum();
+  }
+
+  /** @return the number of lines currently waiting in the buffer */
+  public int getDepth() {
+    return buffer.size();
+  }
+
+  /** @return the largest number of lines seen waiting in the buffer */
+  public long getMaxDepth() {
+    return maxDepth.get();
+  }
+
+  /** @return a summary of this sink's statistics */
+  @Override
+  public String toString() {
+    return String.format(
+        "enqueued=%d written=%d batches=%d stalls=%d depth=%d maxDepth=%d",
+        getEnqueued(), getWritten(), getBatches(), getStalls(), getDepth(), getMaxDepth());
+  }
+}
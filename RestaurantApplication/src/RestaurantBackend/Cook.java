@@ -1,25 +1,46 @@
 package RestaurantBackend;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * A Cook
  *
- * <p>Cooks can determine whether or not to make a dish, and complete dishes
+ * <p>Cooks can determine whether or not to make a dish, and complete dishes. During a rush a cook
+ * can take several identical dishes at once and make them as one batch, which is started and
+ * completed together.
  */
 public class Cook extends Employee {
 
+  private static final Metrics.Counter BATCHES = Metrics.getInstance().counter("cook.batches");
+  private static final Metrics.Counter BATCHED_DISHES =
+      Metrics.getInstance().counter("cook.batched.dishes");
+
   private OrderedDish currentDish;
+  // the dishes being made in a batch with the current dish
+  private final ArrayList<OrderedDish> batchmates = new ArrayList<>();
   private boolean dishInProgress;
+  // the station this cook works at, or null if they have none
+  private final String station;
 
   /**
    * A new Cook
    *
    * @param name: name of Cook
    * @param r: Cook's restaurant
+   * @param station: the station the Cook works at, or null if they have none
    */
-  Cook(String name, Restaurant r) {
+  Cook(String name, Restaurant r, String station) {
     super(name, r);
     currentDish = null;
     dishInProgress = false;
+    this.station = station;
+  }
+
+  /** @return the station this cook works at, or null if they have none */
+  public String getStation() {
+    return station;
   }
 
   /**
@@ -29,34 +50,227 @@ public class Cook extends Employee {
    */
   public void markSeenAndParse() {
     if (!dishInProgress) {
-      getNextDish();
-      if (currentDish != null) {
-        if (kitchen.sufficientIngredients(currentDish.ingredients)) {
-          currentDish.updateStatus(true);
-          kitchen.useIngredients(currentDish.ingredients);
-          kitchen.addInProgress(currentDish);
-          dishInProgress = true;
-          LogWriter.getInstance()
-              .write(String.format("%s has seen %s", this.name, currentDish.toString()));
-        } else {
-          currentDish.updateStatus(false);
-          LogWriter.getInstance()
-              .write(String.format("%s has seen %s", this.name, currentDish.toString()));
+      this.currentDish = kitchen.nextOrderedDish(station);
+      parseCurrentDish();
+    }
+  }
+
+  /**
+   * Start making the next ordered dish if possible, otherwise, have it cancelled.
+   *
+   * <p>If no dish is waiting, wait up to the given timeout for one to be sent to the kitchen.
+   *
+   * @param timeout: how long to wait for a dish
+   * @param unit: the unit of the timeout
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void markSeenAndParse(long timeout, TimeUnit unit) throws InterruptedException {
+    if (!dishInProgress) {
+      this.currentDish = kitchen.awaitOrderedDish(station, timeout, unit);
+      parseCurrentDish();
+    }
+  }
+
+  /**
+   * Start making the next ordered dish, with up to batchSize - 1 more queued dishes that are the
+   * same menu item with the same ingredients, as one batch. The ingredients for the whole batch
+   * are checked and deducted in one step; the dishes there aren't sufficient ingredients for are
+   * cancelled.
+   *
+   * <p>Doesn't consider the next ordered dish unless the current one is complete (null)
+   *
+   * @param batchSize: the most dishes to make at once
+   */
+  public void markSeenAndParse(int batchSize) {
+    if (dishInProgress) {
+      return;
+    }
+    ArrayList<OrderedDish> batch = kitchen.nextOrderedDishes(station, batchSize);
+    if (batch.size() <= 1) {
+      this.currentDish = batch.isEmpty() ? null : batch.get(0);
+      parseCurrentDish();
+      return;
+    }
+    journal.beginChange();
+    try {
+      int accepted = kitchen.reserveIngredients(batch.get(0).getRecipe(), batch.size());
+      try {
+        for (int i = 0; i < batch.size(); i++) {
+          journal.dishSeen(this, batch.get(i), i < accepted);
+        }
+      } catch (IllegalStateException e) {
+        abandonSeen(batch, accepted);
+        throw e;
+      }
+      if (accepted > 0) {
+        startBatch(batch.subList(0, accepted));
+      }
+      for (OrderedDish d : batch.subList(accepted, batch.size())) {
+        cancelDish(d);
+      }
+    } finally {
+      journal.endChange();
+    }
+  }
+
+  /**
+   * Undo taking dishes from the kitchen's queue and deducting their ingredients, when seeing them
+   * couldn't be recorded; the dishes are sent to the kitchen again
+   *
+   * @param dishes: the dishes taken from the queue, all the same menu item
+   * @param accepted: the number of them whose ingredients were deducted
+   */
+  private void abandonSeen(ArrayList<OrderedDish> dishes, int accepted) {
+    if (accepted > 0) {
+      kitchen.returnIngredients(dishes.get(0).getRecipe(), accepted);
+    }
+    kitchen.addOrderedDishesToMake(dishes);
+  }
+
+  /**
+   * Start making a batch of dishes whose ingredients have been deducted
+   *
+   * @param batch: the dishes; the first becomes the current dish
+   */
+  private void startBatch(List<OrderedDish> batch) {
+    currentDish = batch.get(0);
+    for (OrderedDish d : batch) {
+      d.updateStatus(true);
+      kitchen.addInProgress(d);
+      if (d != currentDish) {
+        batchmates.add(d);
+      }
+    }
+    dishInProgress = true;
+    if (batch.size() == 1) {
+      LogWriter.getInstance().write(RestaurantEvent.dishSeen(this.name, currentDish));
+    } else {
+      BATCHES.increment();
+      BATCHED_DISHES.add(batch.size());
+      LogWriter.getInstance().write(RestaurantEvent.batchSeen(this.name, batch));
+    }
+  }
+
+  /**
+   * Cancel a dish this cook saw, for lack of ingredients
+   *
+   * @param d: the dish
+   */
+  private void cancelDish(OrderedDish d) {
+    d.updateStatus(false);
+    kitchen.markCancelled(d);
+    LogWriter.getInstance().write(RestaurantEvent.dishCancelled(this.name, d));
+  }
+
+  /** Start making the current dish if there are sufficient ingredients, otherwise cancel it */
+  private void parseCurrentDish() {
+    if (currentDish != null) {
+      journal.beginChange();
+      try {
+        boolean accepted = kitchen.reserveIngredients(currentDish.getRecipe());
+        try {
+          journal.dishSeen(this, currentDish, accepted);
+        } catch (IllegalStateException e) {
+          ArrayList<OrderedDish> seen = new ArrayList<>();
+          seen.add(currentDish);
           currentDish = null;
+          abandonSeen(seen, accepted ? 1 : 0);
+          throw e;
         }
-      } else getNextDish();
+        seeCurrentDish(accepted);
+      } finally {
+        journal.endChange();
+      }
+    }
+  }
+
+  /**
+   * Take the given dish from the kitchen's queue and start making it or cancel it, as this cook did
+   * when the state journal recorded it; its ingredients are deducted whatever the inventory holds.
+   * A dish started while this cook is making another was started in a batch with it.
+   *
+   * @param dish: the dish this cook saw
+   * @param accepted: true if this cook started making the dish, false if it was cancelled
+   */
+  void replaySeen(OrderedDish dish, boolean accepted) {
+    if (!kitchen.claimOrderedDish(dish)) {
+      return;
+    }
+    if (accepted) {
+      kitchen.useIngredients(dish.getRecipe());
+    }
+    if (!dishInProgress) {
+      currentDish = dish;
+      seeCurrentDish(accepted);
+    } else if (accepted) {
+      dish.updateStatus(true);
+      kitchen.addInProgress(dish);
+      batchmates.add(dish);
+    } else {
+      cancelDish(dish);
+    }
+  }
+
+  /**
+   * Put back the dish a snapshot recorded this cook making
+   *
+   * @param dish: the dish being made
+   */
+  void restoreCurrentDish(OrderedDish dish) {
+    currentDish = dish;
+    dishInProgress = true;
+  }
+
+  /**
+   * Put back a dish a snapshot recorded this cook making in a batch with their current dish
+   *
+   * @param dish: the dish being made
+   */
+  void restoreBatchmate(OrderedDish dish) {
+    batchmates.add(dish);
+  }
+
+  /**
+   * Start making the current dish, or cancel it
+   *
+   * @param accepted: true if its ingredients were deducted, false if there weren't enough
+   */
+  private void seeCurrentDish(boolean accepted) {
+    if (currentDish != null) {
+      if (accepted) {
+        currentDish.updateStatus(true);
+        kitchen.addInProgress(currentDish);
+        dishInProgress = true;
+        LogWriter.getInstance().write(RestaurantEvent.dishSeen(this.name, currentDish));
+      } else {
+        cancelDish(currentDish);
+        currentDish = null;
+      }
     }
   }
 
-  /** Complete the the current Dish */
+  /** Complete the the current Dish, and the rest of its batch */
   public void completeDish() {
-    if (this.currentDish != null && this.currentDish.canCook()) {
-      LogWriter.getInstance()
-          .write(String.format("%s has finished cooking %s", this.name, currentDish));
-      this.currentDish.updateStatus(true);
-      super.kitchen.moveToDeliver(this.currentDish);
-      this.currentDish = null;
-      dishInProgress = false;
+    journal.beginChange();
+    try {
+      if (this.currentDish != null && this.currentDish.canCook()) {
+        journal.dishCompleted(this);
+        ArrayList<OrderedDish> batch = getBatch();
+        if (batch.size() == 1) {
+          LogWriter.getInstance().write(RestaurantEvent.dishCompleted(this.name, currentDish));
+        } else {
+          LogWriter.getInstance().write(RestaurantEvent.batchCompleted(this.name, batch));
+        }
+        for (OrderedDish d : batch) {
+          d.updateStatus(true);
+          super.kitchen.moveToDeliver(d);
+        }
+        this.currentDish = null;
+        batchmates.clear();
+        dishInProgress = false;
+      }
+    } finally {
+      journal.endChange();
     }
   }
 
@@ -64,10 +278,13 @@ public class Cook extends Employee {
     return currentDish;
   }
 
-  /**
-   * Get the next dish and make it the current dish, assuming the current dish is null
-   */
-  private void getNextDish() {
-    this.currentDish = kitchen.nextOrderedDish();
+  /** @return the dishes this cook is making, the current dish first, or none if there is none */
+  public ArrayList<OrderedDish> getBatch() {
+    ArrayList<OrderedDish> batch = new ArrayList<>(batchmates.size() + 1);
+    if (currentDish != null) {
+      batch.add(currentDish);
+      batch.addAll(batchmates);
+    }
+    return batch;
   }
 }
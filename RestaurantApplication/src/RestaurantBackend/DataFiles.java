@@ -0,0 +1,44 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Where the restaurant keeps the files it writes as it runs: the log, the payment ledger, the
+ * high-water marks of dish ids and order numbers, and the reorder requests.
+ *
+ * <p>They are kept in the working directory, unless a simulation or load test moves them to a
+ * temporary directory of its own, so that its made-up orders, payments and requests don't end up
+ * in the real restaurant's records. The files are opened by singletons, so the directory must be
+ * chosen before any of them is first used.
+ */
+final class DataFiles {
+
+  // the directory the files are kept in; empty for the working directory
+  private static volatile Path directory = Paths.get("");
+
+  private DataFiles() {}
+
+  /**
+   * @param name: the name of one of the files
+   * @return the path of the file, in the directory the files are kept in
+   */
+  static String path(String name) {
+    return directory.resolve(name).toString();
+  }
+
+  /**
+   * Keep the files in a new temporary directory, instead of the working directory
+   *
+   * @param prefix: the prefix of the directory's name
+   * @return the directory
+   * @throws IOException if the directory can't be created
+   */
+  static Path useTemporaryDirectory(String prefix) throws IOException {
+    Path dir = Files.createTempDirectory(prefix);
+    directory = dir;
+    return dir;
+  }
+}
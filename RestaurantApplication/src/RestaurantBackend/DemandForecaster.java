@@ -0,0 +1,237 @@
+package RestaurantBackend;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Forecasts how fast the kitchen uses each ingredient, from the amounts it deducts, to decide when
+ * an ingredient should be reordered and how much of it to order.
+ *
+ * <p>Usage is kept as two exponentially decayed rates per ingredient: a short window, which picks
+ * up a rush within minutes, and a long window, which remembers the pace of the day. Recording a
+ * deduction updates both in constant time, and each ingredient needs only one small entry, indexed
+ * by the id the IngredientRegistry interns it to, so forecasting can run inline with cooking.
+ * Forecasts use the higher of the two rates, so a rush is planned for as soon as it starts, but a
+ * short lull doesn't make the kitchen forget a busy day.
+ *
+ * <p>An ingredient is running out when what is left won't last the lead time of a shipment, with a
+ * safety margin. A reorder asks for enough to cover the lead time and the cover period after it,
+ * with the same margin, less what is left. Until an ingredient has been used, the caller's fixed
+ * defaults apply.
+ */
+final class DemandForecaster {
+
+  // the time constants of the short and long windows
+  static final long SHORT_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(15);
+  static final long LONG_WINDOW_NANOS = TimeUnit.HOURS.toNanos(4);
+
+  // how long a shipment takes to arrive once it is requested
+  private volatile long leadTimeNanos = TimeUnit.HOURS.toNanos(1);
+  // how long a shipment should last once it arrives
+  private volatile long coverNanos = TimeUnit.HOURS.toNanos(8);
+  // the fraction of the forecast use kept in stock in case use is faster than forecast
+  private volatile double safetyFactor = 0.5;
+  // the time in nanoseconds
+  private volatile LongSupplier clock = System::nanoTime;
+  // the usage of each ingredient, by interned id; replaced whenever a new id is seen
+  private volatile Usage[] usageById = new Usage[0];
+
+  /**
+   * Record that the kitchen deducted an amount of an ingredient
+   *
+   * @param id: the interned id of the ingredient
+   * @param amount: the amount deducted
+   */
+  void recordUse(int id, double amount) {
+    if (amount > 0) {
+      usageOf(id).record(amount, clock.getAsLong());
+    }
+  }
+
+  /**
+   * Record that the kitchen deducted the ingredients of a recipe a number of times
+   *
+   * @param recipe: the compiled recipe
+   * @param times: the number of times it was deducted
+   */
+  void recordUse(Recipe recipe, int times) {
+    long now = clock.getAsLong();
+    for (int i = 0; i < recipe.size(); i++) {
+      double amount = recipe.amountAt(i) * times;
+      if (amount > 0) {
+        usageOf(recipe.idAt(i)).record(amount, now);
+      }
+    }
+  }
+
+  /**
+   * @param id: the interned id of an ingredient
+   * @return the forecast use of the ingredient per nanosecond, or 0 if it hasn't been used
+   */
+  double ratePerNano(int id) {
+    Usage[] usage = usageById;
+    return id < usage.length && usage[id] != null ? usage[id].rate(clock.getAsLong()) : 0;
+  }
+
+  /**
+   * @param name: the name of an ingredient
+   * @return the forecast use of the ingredient per hour, or 0 if it hasn't been used
+   */
+  double ratePerHour(String name) {
+    return ratePerNano(IngredientRegistry.getInstance().idOf(name)) * TimeUnit.HOURS.toNanos(1);
+  }
+
+  /**
+   * @param name: the name of an ingredient
+   * @param inStock: the amount of it in stock
+   * @return how many hours the stock is forecast to last, or infinity if it isn't being used
+   */
+  double hoursToStockout(String name, double inStock) {
+    double perHour = ratePerHour(name);
+    return perHour > 0 ? Math.max(inStock, 0) / perHour : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * @param id: the interned id of an ingredient
+   * @return the stock at which the ingredient should be reordered, or 0 if it hasn't been used
+   */
+  double reorderPoint(int id) {
+    return ratePerNano(id) * leadTimeNanos * (1 + safetyFactor);
+  }
+
+  /**
+   * @param id: the interned id of an ingredient
+   * @param inStock: the amount of it in stock
+   * @return true if the stock is forecast to run out before a shipment requested now could arrive,
+   *     with the safety margin
+   */
+  boolean runningOut(int id, double inStock) {
+    double point = reorderPoint(id);
+    return point > 0 && inStock <= point;
+  }
+
+  /**
+   * @param name: the name of an ingredient
+   * @param fallback: the threshold to use if the ingredient hasn't been used
+   * @return the reorder threshold to give the ingredient when it is first stocked
+   */
+  double thresholdFor(String name, double fallback) {
+    double point = reorderPoint(IngredientRegistry.getInstance().idOf(name));
+    return point > 0 ? point : fallback;
+  }
+
+  /**
+   * @param name: the name of an ingredient
+   * @param inStock: the amount of it in stock
+   * @param fallback: the amount to order if the ingredient hasn't been used
+   * @return the amount to order now, so that the stock lasts the lead time and cover period
+   */
+  long reorderQuantity(String name, double inStock, long fallback) {
+    double rate = ratePerNano(IngredientRegistry.getInstance().idOf(name));
+    if (rate <= 0) {
+      return fallback;
+    }
+    double needed = rate * (leadTimeNanos + coverNanos) * (1 + safetyFactor) - Math.max(inStock, 0);
+    return Math.max((long) Math.ceil(needed), 1);
+  }
+
+  /**
+   * Set how long shipments take to arrive, and how long they should last once they do
+   *
+   * @param leadTime: how long a shipment takes to arrive once it is requested
+   * @param cover: how long a shipment should last once it arrives
+   * @param unit: the unit of both times
+   */
+  void setPlanning(long leadTime, long cover, TimeUnit unit) {
+    leadTimeNanos = unit.toNanos(leadTime);
+    coverNanos = unit.toNanos(cover);
+  }
+
+  /**
+   * Set the fraction of the forecast use kept in stock in case use is faster than forecast
+   *
+   * @param safetyFactor: the fraction, 0 or more
+   */
+  void setSafetyFactor(double safetyFactor) {
+    this.safetyFactor = Math.max(safetyFactor, 0);
+  }
+
+  /**
+   * Set where the time comes from, for a simulation whose time passes faster than real time
+   *
+   * @param clock: the time in nanoseconds
+   */
+  void setClock(LongSupplier clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * @param id: the interned id of an ingredient
+   * @return the usage of the ingredient, added if it has none yet
+   */
+  private Usage usageOf(int id) {
+    Usage[] usage = usageById;
+    if (id < usage.length && usage[id] != null) {
+      return usage[id];
+    }
+    synchronized (this) {
+      usage = usageById;
+      if (id >= usage.length) {
+        usage = Arrays.copyOf(usage, Math.max(id + 1, usage.length * 2));
+      } else if (usage[id] == null) {
+        usage = usage.clone();
+      } else {
+        return usage[id];
+      }
+      usage[id] = new Usage();
+      usageById = usage;
+      return usage[id];
+    }
+  }
+
+  /** The decayed usage rates of one ingredient */
+  private static final class Usage {
+    // the use per nanosecond in each window, as of the last update
+    private double shortRate;
+    private double longRate;
+    // the time of the last update, or 0 if there has been none
+    private long updated;
+    private boolean started;
+
+    /**
+     * Add a deduction to both windows, after decaying them to its time
+     *
+     * @param amount: the amount deducted
+     * @param now: the time of the deduction
+     */
+    synchronized void record(double amount, long now) {
+      decayTo(now);
+      shortRate += amount / SHORT_WINDOW_NANOS;
+      longRate += amount / LONG_WINDOW_NANOS;
+    }
+
+    /**
+     * @param now: the current time
+     * @return the higher of the two rates, decayed to now
+     */
+    synchronized double rate(long now) {
+      long elapsed = Math.max(now - updated, 0);
+      return Math.max(
+          shortRate * Math.exp(-(double) elapsed / SHORT_WINDOW_NANOS),
+          longRate * Math.exp(-(double) elapsed / LONG_WINDOW_NANOS));
+    }
+
+    private void decayTo(long now) {
+      if (started && now > updated) {
+        long elapsed = now - updated;
+        shortRate *= Math.exp(-(double) elapsed / SHORT_WINDOW_NANOS);
+        longRate *= Math.exp(-(double) elapsed / LONG_WINDOW_NANOS);
+      }
+      if (!started || now > updated) {
+        updated = now;
+        started = true;
+      }
+    }
+  }
+}
@@ -7,18 +7,19 @@ import java.util.*;
  *
  * <p>Contains the name of the dish, the cost of ordering this dish, and the ingredients required to
  * make this dish
+ *
+ * <p>A dish on the menu can't be changed once it is made, so the menu shares its dishes rather than
+ * copying them.
  */
 public class Dish extends Observable {
   /** name of the dish */
   private String name;
 
-  /** cost of the dish */
-  private double cost;
+  /** cost of the dish, in cents */
+  private long costCents;
 
-  /**
-   * ArrayList of the ingredients required to make this dish
-   */
-  protected ArrayList<Ingredient> ingredients;
+  /** the ingredients required to make this dish, compiled for the kitchen */
+  private Recipe recipe;
 
   /**
    * A new dish
@@ -28,9 +29,20 @@ public class Dish extends Observable {
    * @param ingredients: The ingredients required to make this dish
    */
   Dish(String name, double cost, ArrayList<Ingredient> ingredients) {
+    this(name, Math.round(cost * 100), Recipe.compile(ingredients));
+  }
+
+  /**
+   * A new dish whose ingredients have already been compiled
+   *
+   * @param name: the name of the dish
+   * @param costCents: the cost of the dish, in cents
+   * @param recipe: the ingredients required to make this dish, compiled
+   */
+  Dish(String name, long costCents, Recipe recipe) {
     this.name = name;
-    this.cost = cost;
-    this.ingredients = ingredients;
+    this.costCents = costCents;
+    this.recipe = recipe;
   }
 
   String getName() {
@@ -41,18 +53,28 @@ public class Dish extends Observable {
    * @return cost of dish
    */
   double getCost() {
-    return cost;
+    return costCents / 100.0;
   }
 
   /**
-   * @return a deep copy of this dish
+   * @return cost of dish, in cents
    */
-  Dish deepDishCopy() {
-    ArrayList<Ingredient> ingredientsCopy = new ArrayList<>();
-    for (Ingredient i : this.ingredients) {
-      ingredientsCopy.add(new Ingredient(i.getName(), i.getAmount()));
-    }
-    return new Dish(this.name, this.cost, ingredientsCopy);
+  long getCostCents() {
+    return costCents;
+  }
+
+  /**
+   * @return the ingredients required to make this dish, compiled for the kitchen
+   */
+  Recipe getRecipe() {
+    return recipe;
+  }
+
+  /**
+   * @return a new list of the ingredients required to make this dish
+   */
+  ArrayList<Ingredient> getIngredients() {
+    return recipe.toIngredients();
   }
 
   /**
@@ -64,7 +86,7 @@ public class Dish extends Observable {
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
-    for(Ingredient i : ingredients) {
+    for(Ingredient i : getIngredients()) {
       sb.append(i.toString());
       sb.append(", ");
     }
@@ -0,0 +1,95 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where in the kitchen each menu item is made, and how long it takes to make, for scheduling
+ * cooks. Menu items with no profile are made at no particular station, in the default time.
+ */
+final class DishProfiles {
+
+  // how long a menu item with no profile takes to make
+  static final long DEFAULT_PREP_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  // the station of each menu item, by name
+  private final ConcurrentHashMap<String, String> stations = new ConcurrentHashMap<>();
+  // how long each menu item takes to make, in milliseconds, by name
+  private final ConcurrentHashMap<String, Long> prepMillis = new ConcurrentHashMap<>();
+
+  /**
+   * Load the profiles of menu items from a file; a missing file means no item has a profile
+   *
+   * <p>Each line of the file should be formatted as follows: ItemName | Station | Seconds
+   *
+   * <p>For example: Burger | grill | 420
+   *
+   * @param path: the path of the file
+   * @return the profiles in the file
+   * @throws RecordFile.FormatException if a line of the file isn't formatted as above
+   */
+  static DishProfiles load(String path) {
+    DishProfiles profiles = new DishProfiles();
+    try {
+      for (Profile profile : RecordFile.load(path, Profile::new)) {
+        profiles.put(profile.dishName, profile.station, profile.millis);
+      }
+    } catch (NoSuchFileException e) {
+      // no profiles
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    return profiles;
+  }
+
+  /**
+   * Set a menu item's profile
+   *
+   * @param dishName: the name of the menu item
+   * @param station: the station it is made at
+   * @param millis: how long it takes to make
+   */
+  void put(String dishName, String station, long millis) {
+    stations.put(dishName, station);
+    prepMillis.put(dishName, millis);
+  }
+
+  /**
+   * @param dishName: the name of a menu item
+   * @return the station the item is made at, or null if it has none
+   */
+  String stationOf(String dishName) {
+    return stations.get(dishName);
+  }
+
+  /**
+   * @param dishName: the name of a menu item
+   * @return how long the item takes to make, in milliseconds
+   */
+  long prepMillisOf(String dishName) {
+    return prepMillis.getOrDefault(dishName, DEFAULT_PREP_MILLIS);
+  }
+
+  /**
+   * @param dishName: the name of a menu item
+   * @return true if the item has a profile
+   */
+  boolean has(String dishName) {
+    return prepMillis.containsKey(dishName);
+  }
+
+  /** A line of the profiles file */
+  private static final class Profile {
+    final String dishName;
+    final String station;
+    final long millis;
+
+    Profile(RecordFile.Row line) {
+      dishName = line.text(0);
+      station = line.text(1);
+      millis = Math.round(line.number(2) * TimeUnit.SECONDS.toMillis(1));
+    }
+  }
+}
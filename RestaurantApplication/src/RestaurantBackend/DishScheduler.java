@@ -0,0 +1,585 @@
+package RestaurantBackend;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides which of the dishes waiting in the kitchen each cook makes next.
+ *
+ * <p>The order follows a policy, which can be changed while dishes are waiting:
+ *
+ * <ul>
+ *   <li>FIFO: in the order the dishes were sent to the kitchen.
+ *   <li>SHORTEST_PREP: the quickest dish first, so short dishes don't wait behind long ones.
+ *   <li>TABLE: one order at a time, oldest first, and within an order the slowest dish first, so
+ *       an order's dishes are started together and finish close together.
+ *   <li>STATION: a cook at a station takes that station's dishes, in the order they were sent,
+ *       and helps with the oldest dish anywhere once their station has none; a cook with no
+ *       station takes the oldest dish anywhere.
+ * </ul>
+ *
+ * <p>Stations and prep times come from the kitchen's DishProfiles. The scheduler is thread-safe:
+ * cooks take dishes while servers send them, and a cook can wait for a dish to arrive.
+ */
+public class DishScheduler {
+
+  /** The orders in which waiting dishes are made */
+  public enum Policy {
+    FIFO,
+    SHORTEST_PREP,
+    TABLE,
+    STATION
+  }
+
+  // quickest first, then oldest first
+  private static final Comparator<Entry> QUICKEST =
+      Comparator.<Entry>comparingLong(e -> e.prepMillis).thenComparingLong(e -> e.seq);
+  // slowest first, then oldest first
+  private static final Comparator<Entry> SLOWEST =
+      Comparator.<Entry>comparingLong(e -> -e.prepMillis).thenComparingLong(e -> e.seq);
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition available = lock.newCondition();
+  private Policy policy;
+  private Queue queue;
+  // the sequence number of the next dish sent, which orders dishes by when they were sent
+  private long sequence;
+  private volatile int size;
+  private volatile DishProfiles profiles = new DishProfiles();
+  // finds the order of a dish, or null if the scheduler doesn't know the restaurant's orders
+  private volatile OrderIndex orders;
+
+  /**
+   * A new DishScheduler
+   *
+   * @param policy: the order in which waiting dishes are made
+   */
+  DishScheduler(Policy policy) {
+    this.policy = policy;
+    this.queue = newQueue(policy);
+  }
+
+  /** @return the order in which waiting dishes are made */
+  public Policy getPolicy() {
+    lock.lock();
+    try {
+      return policy;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Change the order in which waiting dishes are made, including those waiting now
+   *
+   * @param policy: the new order
+   */
+  public void setPolicy(Policy policy) {
+    lock.lock();
+    try {
+      Queue replacement = newQueue(policy);
+      // in the order they were sent, which queues that keep them in another order don't give
+      ArrayList<Entry> entries = queue.entries();
+      entries.sort(Comparator.comparingLong(e -> e.seq));
+      for (Entry e : entries) {
+        replacement.add(e);
+      }
+      this.policy = policy;
+      this.queue = replacement;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Set where the stations and prep times of dishes are looked up; dishes already waiting keep
+   * those they had
+   *
+   * @param profiles: the profiles of the menu items
+   */
+  void setProfiles(DishProfiles profiles) {
+    this.profiles = profiles;
+  }
+
+  /** @return the profiles of the menu items */
+  DishProfiles getProfiles() {
+    return profiles;
+  }
+
+  /**
+   * Set where the orders of dishes are looked up, so dishes can be grouped by order
+   *
+   * @param orders: the restaurant's index of open orders
+   */
+  void setOrderIndex(OrderIndex orders) {
+    this.orders = orders;
+  }
+
+  /**
+   * Add dishes to those waiting, and wake the cooks waiting for one
+   *
+   * @param dishes: the dishes, in the order they were sent
+   */
+  void addAll(Collection<OrderedDish> dishes) {
+    DishProfiles p = profiles;
+    OrderIndex index = orders;
+    lock.lock();
+    try {
+      for (OrderedDish d : dishes) {
+        Order order = index == null ? null : index.getOrderOfDish(d.getID());
+        // a dish whose order isn't known is an order of its own
+        long group = order == null ? -1 - d.getID() : order.getOrderNumber();
+        String name = d.getName();
+        queue.add(new Entry(d, sequence++, p.prepMillisOf(name), p.stationOf(name), group));
+      }
+      size = queue.size();
+      if (!dishes.isEmpty()) {
+        available.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Remove the dish a cook should make next
+   *
+   * @param station: the cook's station, or null if they have none
+   * @return the dish, or null if none is waiting
+   */
+  OrderedDish poll(String station) {
+    lock.lock();
+    try {
+      return take(station);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Remove the dish a cook should make next, waiting for one to be sent if necessary
+   *
+   * @param station: the cook's station, or null if they have none
+   * @param timeout: how long to wait before giving up
+   * @param unit: the unit of the timeout
+   * @return the dish, or null if none arrived in time
+   * @throws InterruptedException if interrupted while waiting
+   */
+  OrderedDish poll(String station, long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (queue.size() == 0 && nanos > 0) {
+        nanos = available.awaitNanos(nanos);
+      }
+      return take(station);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Remove the dish a cook should make next, with up to max - 1 more waiting dishes that are the
+   * same menu item with the same ingredients, for the cook to make as one batch; takes time in the
+   * number of dishes waiting
+   *
+   * @param station: the cook's station, or null if they have none
+   * @param max: the most dishes to remove
+   * @return the dishes, the one the policy chose first, or none if none is waiting
+   */
+  ArrayList<OrderedDish> pollBatch(String station, int max) {
+    ArrayList<OrderedDish> batch = new ArrayList<>();
+    lock.lock();
+    try {
+      Entry lead = queue.poll(station);
+      if (lead != null) {
+        batch.add(lead.dish);
+        if (max > 1) {
+          queue.pollLike(lead, max - 1, batch);
+        }
+      }
+      size = queue.size();
+    } finally {
+      lock.unlock();
+    }
+    return batch;
+  }
+
+  private OrderedDish take(String station) {
+    Entry e = queue.poll(station);
+    size = queue.size();
+    return e == null ? null : e.dish;
+  }
+
+  /**
+   * Remove a particular waiting dish; takes time in the number of dishes waiting
+   *
+   * @param d: the dish
+   * @return true if the dish was waiting
+   */
+  boolean remove(OrderedDish d) {
+    lock.lock();
+    try {
+      boolean removed = queue.remove(d);
+      size = queue.size();
+      return removed;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** @return the dish a cook with no station would make next, or null if none is waiting */
+  OrderedDish peek() {
+    lock.lock();
+    try {
+      Entry e = queue.peek();
+      return e == null ? null : e.dish;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** @return the number of dishes waiting */
+  int size() {
+    return size;
+  }
+
+  /** @return the dishes waiting, in the order they were sent */
+  ArrayList<OrderedDish> toList() {
+    ArrayList<Entry> entries;
+    lock.lock();
+    try {
+      entries = queue.entries();
+    } finally {
+      lock.unlock();
+    }
+    entries.sort(Comparator.comparingLong(e -> e.seq));
+    ArrayList<OrderedDish> dishes = new ArrayList<>(entries.size());
+    for (Entry e : entries) {
+      dishes.add(e.dish);
+    }
+    return dishes;
+  }
+
+  private static Queue newQueue(Policy policy) {
+    switch (policy) {
+      case SHORTEST_PREP:
+        return new QuickestQueue();
+      case TABLE:
+        return new TableQueue();
+      case STATION:
+        return new StationQueue();
+      default:
+        return new FifoQueue();
+    }
+  }
+
+  /** A waiting dish, with what the policies order it by */
+  private static class Entry {
+    final OrderedDish dish;
+    final long seq;
+    final long prepMillis;
+    final String station;
+    final long group;
+
+    Entry(OrderedDish dish, long seq, long prepMillis, String station, long group) {
+      this.dish = dish;
+      this.seq = seq;
+      this.prepMillis = prepMillis;
+      this.station = station;
+      this.group = group;
+    }
+  }
+
+  /** The waiting dishes, in a policy's order; not thread-safe */
+  private abstract static class Queue {
+    abstract void add(Entry e);
+
+    abstract Entry poll(String station);
+
+    abstract Entry peek();
+
+    abstract boolean remove(OrderedDish d);
+
+    abstract int size();
+
+    abstract ArrayList<Entry> entries();
+
+    /**
+     * Remove waiting dishes that can be made in a batch with a given dish
+     *
+     * @param lead: the dish
+     * @param max: the most dishes to remove
+     * @param into: where to add the dishes removed
+     * @return the number of dishes removed
+     */
+    abstract int pollLike(Entry lead, int max, ArrayList<OrderedDish> into);
+
+    static int takeLike(
+        Collection<Entry> entries, Entry lead, int max, ArrayList<OrderedDish> into) {
+      String name = lead.dish.getName();
+      Recipe recipe = lead.dish.getRecipe();
+      int taken = 0;
+      for (Iterator<Entry> it = entries.iterator(); it.hasNext() && taken < max; ) {
+        OrderedDish d = it.next().dish;
+        if (d.getName().equals(name) && d.getRecipe().sameAs(recipe)) {
+          it.remove();
+          into.add(d);
+          taken++;
+        }
+      }
+      return taken;
+    }
+
+    static boolean removeFrom(Collection<Entry> entries, OrderedDish d) {
+      for (Iterator<Entry> it = entries.iterator(); it.hasNext(); ) {
+        if (it.next().dish == d) {
+          it.remove();
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static class FifoQueue extends Queue {
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+    @Override
+    void add(Entry e) {
+      entries.add(e);
+    }
+
+    @Override
+    Entry poll(String station) {
+      return entries.poll();
+    }
+
+    @Override
+    Entry peek() {
+      return entries.peek();
+    }
+
+    @Override
+    boolean remove(OrderedDish d) {
+      return removeFrom(entries, d);
+    }
+
+    @Override
+    int size() {
+      return entries.size();
+    }
+
+    @Override
+    ArrayList<Entry> entries() {
+      return new ArrayList<>(entries);
+    }
+
+    @Override
+    int pollLike(Entry lead, int max, ArrayList<OrderedDish> into) {
+      return takeLike(entries, lead, max, into);
+    }
+  }
+
+  private static class QuickestQueue extends Queue {
+    private final PriorityQueue<Entry> entries = new PriorityQueue<>(QUICKEST);
+
+    @Override
+    void add(Entry e) {
+      entries.add(e);
+    }
+
+    @Override
+    Entry poll(String station) {
+      return entries.poll();
+    }
+
+    @Override
+    Entry peek() {
+      return entries.peek();
+    }
+
+    @Override
+    boolean remove(OrderedDish d) {
+      return removeFrom(entries, d);
+    }
+
+    @Override
+    int size() {
+      return entries.size();
+    }
+
+    @Override
+    ArrayList<Entry> entries() {
+      return new ArrayList<>(entries);
+    }
+
+    @Override
+    int pollLike(Entry lead, int max, ArrayList<OrderedDish> into) {
+      return takeLike(entries, lead, max, into);
+    }
+  }
+
+  private static class TableQueue extends Queue {
+    // the dishes of each order, slowest first; orders in the order their first dish was sent
+    private final LinkedHashMap<Long, PriorityQueue<Entry>> groups = new LinkedHashMap<>();
+    private int size;
+
+    @Override
+    void add(Entry e) {
+      groups.computeIfAbsent(e.group, g -> new PriorityQueue<>(SLOWEST)).add(e);
+      size++;
+    }
+
+    @Override
+    Entry poll(String station) {
+      Iterator<PriorityQueue<Entry>> it = groups.values().iterator();
+      if (!it.hasNext()) {
+        return null;
+      }
+      PriorityQueue<Entry> oldest = it.next();
+      Entry e = oldest.poll();
+      if (oldest.isEmpty()) {
+        it.remove();
+      }
+      size--;
+      return e;
+    }
+
+    @Override
+    Entry peek() {
+      Iterator<PriorityQueue<Entry>> it = groups.values().iterator();
+      return it.hasNext() ? it.next().peek() : null;
+    }
+
+    @Override
+    boolean remove(OrderedDish d) {
+      for (Iterator<PriorityQueue<Entry>> it = groups.values().iterator(); it.hasNext(); ) {
+        PriorityQueue<Entry> group = it.next();
+        if (removeFrom(group, d)) {
+          if (group.isEmpty()) {
+            it.remove();
+          }
+          size--;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    int size() {
+      return size;
+    }
+
+    @Override
+    ArrayList<Entry> entries() {
+      ArrayList<Entry> all = new ArrayList<>(size);
+      for (PriorityQueue<Entry> group : groups.values()) {
+        all.addAll(group);
+      }
+      return all;
+    }
+
+    @Override
+    int pollLike(Entry lead, int max, ArrayList<OrderedDish> into) {
+      int taken = 0;
+      for (Iterator<PriorityQueue<Entry>> it = groups.values().iterator();
+          it.hasNext() && taken < max; ) {
+        PriorityQueue<Entry> group = it.next();
+        taken += takeLike(group, lead, max - taken, into);
+        if (group.isEmpty()) {
+          it.remove();
+        }
+      }
+      size -= taken;
+      return taken;
+    }
+  }
+
+  private static class StationQueue extends Queue {
+    // the dishes of each station, in the order they were sent; "" holds those with no station
+    private final HashMap<String, ArrayDeque<Entry>> stations = new HashMap<>();
+    private int size;
+
+    @Override
+    void add(Entry e) {
+      String station = e.station == null ? "" : e.station;
+      stations.computeIfAbsent(station, s -> new ArrayDeque<>()).add(e);
+      size++;
+    }
+
+    @Override
+    Entry poll(String station) {
+      ArrayDeque<Entry> own = station == null ? null : stations.get(station);
+      if (own == null || own.isEmpty()) {
+        own = oldest();
+      }
+      if (own == null) {
+        return null;
+      }
+      size--;
+      return own.poll();
+    }
+
+    @Override
+    Entry peek() {
+      ArrayDeque<Entry> oldest = oldest();
+      return oldest == null ? null : oldest.peek();
+    }
+
+    /** @return the station whose next dish was sent first, or null if no dish is waiting */
+    private ArrayDeque<Entry> oldest() {
+      ArrayDeque<Entry> oldest = null;
+      for (ArrayDeque<Entry> station : stations.values()) {
+        if (!station.isEmpty() && (oldest == null || station.peek().seq < oldest.peek().seq)) {
+          oldest = station;
+        }
+      }
+      return oldest;
+    }
+
+    @Override
+    boolean remove(OrderedDish d) {
+      for (ArrayDeque<Entry> station : stations.values()) {
+        if (removeFrom(station, d)) {
+          size--;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    int size() {
+      return size;
+    }
+
+    @Override
+    ArrayList<Entry> entries() {
+      ArrayList<Entry> all = new ArrayList<>(size);
+      for (ArrayDeque<Entry> station : stations.values()) {
+        all.addAll(station);
+      }
+      return all;
+    }
+
+    @Override
+    int pollLike(Entry lead, int max, ArrayList<OrderedDish> into) {
+      // the same menu item is made at the same station
+      ArrayDeque<Entry> station = stations.get(lead.station == null ? "" : lead.station);
+      int taken = station == null ? 0 : takeLike(station, lead, max, into);
+      size -= taken;
+      return taken;
+    }
+  }
+}
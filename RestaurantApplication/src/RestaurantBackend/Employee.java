@@ -12,9 +12,12 @@ public class Employee extends Observable{
 
   Kitchen kitchen;
   String name;
+  // the journal that records the changes this employee makes
+  StateJournal journal;
 
   Employee(String name, Restaurant restaurant) {
     this.kitchen = restaurant.getKitchen();
+    this.journal = restaurant.getJournal();
     this.name = name;
   }
 
@@ -24,8 +27,14 @@ public class Employee extends Observable{
    * @param ing the ingredient being received
    */
   public void receiveShipment(Ingredient ing) {
-    LogWriter.getInstance().write(String.format("%s received a shipment of %s", this.name, ing));
-    kitchen.receiveShipment(ing);
+    journal.beginChange();
+    try {
+      journal.shipmentReceived(ing);
+      LogWriter.getInstance().write(RestaurantEvent.shipmentReceived(this.name, ing));
+      kitchen.receiveShipment(ing);
+    } finally {
+      journal.endChange();
+    }
   }
 
   @Override
@@ -0,0 +1,357 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Rebuilds a restaurant's state by making the changes recorded by a stream of RestaurantEvents
+ * again, through the same employee methods that made them the first time.
+ *
+ * <p>Orders and dishes are given new numbers and ids as they are replayed; the replayer maps the
+ * recorded ones to the new ones, so logs from before order numbers and dish ids were unique across
+ * restarts replay too. Employees are found by name, and hired if the restaurant has no one by that
+ * name.
+ *
+ * <p>Like the state journal's replay, changes are made with logging, payments, reorder requests,
+ * notifications and inventory checks switched off, and they aren't journaled. Dishes are made from
+ * the menu item of the same name, with their ingredients changed to match the recorded ones.
+ *
+ * <p>Events that record no change, such as notifications, are counted as informational. Events
+ * about an employee, order or dish the replayer doesn't know of, for example because the log
+ * starts partway through a day, are counted as unresolved and otherwise ignored.
+ */
+public class EventReplayer {
+
+  private final Restaurant restaurant;
+  private final HashMap<String, Server> servers = new HashMap<>();
+  private final HashMap<String, Cook> cooks = new HashMap<>();
+  private final HashMap<String, Employee> employees = new HashMap<>();
+  // the new order numbers of the recorded ones
+  private final HashMap<Long, Long> orders = new HashMap<>();
+  // the dishes replayed for the recorded dish ids, and the recorded ids of the replayed ones
+  private final HashMap<Long, OrderedDish> dishes = new HashMap<>();
+  private final HashMap<Long, Long> recordedIds = new HashMap<>();
+  private long applied;
+  private long informational;
+  private long unresolved;
+
+  /**
+   * A new EventReplayer
+   *
+   * @param restaurant: the restaurant to make the changes in
+   */
+  public EventReplayer(Restaurant restaurant) {
+    this.restaurant = restaurant;
+    for (Manager manager : restaurant.getManagers()) {
+      employees.put(manager.name, manager);
+    }
+    for (Cook cook : restaurant.getCooks()) {
+      cooks.put(cook.name, cook);
+      employees.put(cook.name, cook);
+    }
+    for (Server server : restaurant.getServers()) {
+      servers.put(server.name, server);
+      employees.put(server.name, server);
+    }
+  }
+
+  /**
+   * Replay every event of a log file
+   *
+   * @param path: the path of the log file
+   * @return the number of lines read
+   * @throws IOException if the log file can't be read
+   */
+  public int replayLog(String path) throws IOException {
+    try (RestaurantEventReader reader = RestaurantEventReader.open(path)) {
+      replayAll(reader);
+      return reader.getLineNumber();
+    }
+  }
+
+  /**
+   * Replay every event left in a reader
+   *
+   * @param reader: the events
+   * @throws IOException if the events can't be read
+   */
+  public void replayAll(RestaurantEventReader reader) throws IOException {
+    StateJournal.setReplaying(true);
+    try {
+      RestaurantEvent event;
+      while ((event = reader.next()) != null) {
+        apply(event);
+      }
+    } finally {
+      StateJournal.setReplaying(false);
+    }
+  }
+
+  /**
+   * Replay a single event
+   *
+   * @param event: the event
+   */
+  public void replay(RestaurantEvent event) {
+    StateJournal.setReplaying(true);
+    try {
+      apply(event);
+    } finally {
+      StateJournal.setReplaying(false);
+    }
+  }
+
+  /** @return the number of events that changed the restaurant's state */
+  public long getApplied() {
+    return applied;
+  }
+
+  /** @return the number of events that record no change, such as notifications */
+  public long getInformational() {
+    return informational;
+  }
+
+  /** @return the number of events about an employee, order or dish that wasn't known */
+  public long getUnresolved() {
+    return unresolved;
+  }
+
+  /**
+   * Make the change an event records
+   *
+   * @param event: the event
+   */
+  private void apply(RestaurantEvent event) {
+    switch (event.getType()) {
+      case DISH_REJECTED:
+      case INVENTORY_CHECKED:
+      case REORDER_REQUESTED:
+      case DISH_READY:
+      case DISH_UNAVAILABLE:
+        informational++;
+        return;
+      case SHIPMENT_RECEIVED:
+        employee(event.getActor())
+            .receiveShipment(new Ingredient(event.getName(), event.getAmount()));
+        applied++;
+        return;
+      case DISH_SEEN:
+      case DISH_CANCELLED:
+      case DISH_COMPLETED:
+      case BATCH_SEEN:
+      case BATCH_COMPLETED:
+        applyToCook(event);
+        return;
+      default:
+        applyToServer(event);
+    }
+  }
+
+  /**
+   * Make the change a cook's event records
+   *
+   * @param event: the event
+   */
+  private void applyToCook(RestaurantEvent event) {
+    Cook cook = cooks.get(event.getActor());
+    if (cook == null) {
+      cook = restaurant.addCook(event.getActor());
+      cooks.put(cook.name, cook);
+      employees.putIfAbsent(cook.name, cook);
+    }
+    if (event.getType() == RestaurantEvent.Type.BATCH_SEEN) {
+      for (long id : event.getBatchIds()) {
+        OrderedDish dish = dishes.get(id);
+        if (dish == null) {
+          unresolved++;
+        } else {
+          cook.replaySeen(dish, true);
+        }
+      }
+      applied++;
+      return;
+    }
+    OrderedDish dish = dishes.get(event.getDishId());
+    if (dish == null) {
+      unresolved++;
+      return;
+    }
+    if (event.getType() == RestaurantEvent.Type.DISH_COMPLETED
+        || event.getType() == RestaurantEvent.Type.BATCH_COMPLETED) {
+      if (cook.getCurrentDish() != dish) {
+        unresolved++;
+        return;
+      }
+      cook.completeDish();
+    } else {
+      cook.replaySeen(dish, event.getType() == RestaurantEvent.Type.DISH_SEEN);
+    }
+    applied++;
+  }
+
+  /**
+   * Make the change a server's event records
+   *
+   * @param event: the event
+   */
+  private void applyToServer(RestaurantEvent event) {
+    Server server = servers.get(event.getActor());
+    if (server == null) {
+      server = restaurant.addServer(event.getActor());
+      servers.put(server.name, server);
+      employees.putIfAbsent(server.name, server);
+    }
+    int tableNumber = event.getTableNumber();
+    switch (event.getType()) {
+      case TABLE_ADDED:
+        server.addTable(tableNumber);
+        break;
+      case ORDER_ADDED:
+        {
+          long orderNumber = IdGenerator.ORDERS.nextId();
+          orders.put(event.getOrderNumber(), orderNumber);
+          server.addOrder(tableNumber, orderNumber);
+          break;
+        }
+      case DISH_ADDED:
+        {
+          Long orderNumber = orders.get(event.getOrderNumber());
+          if (orderNumber == null) {
+            unresolved++;
+            return;
+          }
+          OrderedDish dish = orderedDish(event);
+          // logs from before dish ids were unique may reuse the id of an earlier dish
+          OrderedDish previous = dishes.put(event.getDishId(), dish);
+          if (previous != null) {
+            recordedIds.remove(previous.getID());
+          }
+          recordedIds.put(dish.getID(), event.getDishId());
+          server.addToOrder(tableNumber, orderNumber, dish);
+          break;
+        }
+      case TABLE_FINALIZED:
+        server.finalizeOrdersForTable(tableNumber);
+        break;
+      case ORDER_RESOLVED:
+        {
+          Long orderNumber = orders.get(event.getOrderNumber());
+          Order order =
+              orderNumber != null ? restaurant.getOrderIndex().getOrder(orderNumber) : null;
+          if (order == null) {
+            unresolved++;
+            return;
+          }
+          ArrayList<OrderedDish> resolved = order.getOrderItems();
+          if (server.resolveOrder(orderNumber)) {
+            orders.remove(event.getOrderNumber());
+            for (OrderedDish d : resolved) {
+              forget(d);
+            }
+          }
+          break;
+        }
+      default:
+        applyToDish(server, event);
+        return;
+    }
+    applied++;
+  }
+
+  /**
+   * Make the change a server's event about a dish in an open order records
+   *
+   * @param server: the server
+   * @param event: the event
+   */
+  private void applyToDish(Server server, RestaurantEvent event) {
+    OrderedDish dish = dishes.get(event.getDishId());
+    Order order = dish != null ? restaurant.getOrderIndex().getOrderOfDish(dish.getID()) : null;
+    if (order == null) {
+      unresolved++;
+      return;
+    }
+    int tableNumber = order.getTableNumber();
+    long orderNumber = order.getOrderNumber();
+    switch (event.getType()) {
+      case INGREDIENT_ADJUSTED:
+        server.adjustIngredient(dish, new Ingredient(event.getName(), 0), event.getAmount());
+        break;
+      case TENTATIVE_DISH_REMOVED:
+        server.removeTentativeDish(tableNumber, orderNumber, dish.getID());
+        forget(dish);
+        break;
+      case DISH_SERVED:
+        server.confirmServed(dish.getID(), tableNumber, orderNumber);
+        break;
+      case DISH_RETURNED:
+        server.returnDish(tableNumber, orderNumber, dish.getID());
+        break;
+      case DISH_REMOVED:
+        server.removeOrderedDish(tableNumber, orderNumber, dish.getID());
+        forget(dish);
+        break;
+      default:
+        return;
+    }
+    applied++;
+  }
+
+  /**
+   * Make the dish a DISH_ADDED event records from the menu item of the same name, changing its
+   * ingredients to match the recorded ones
+   *
+   * @param event: the event
+   * @return a new ordered dish
+   */
+  private OrderedDish orderedDish(RestaurantEvent event) {
+    Dish item = restaurant.getMenu().getDish(event.getName());
+    if (item == null) {
+      // no longer on the menu, so its price is unknown
+      item = new Dish(event.getName(), 0L, event.getRecipe());
+    }
+    OrderedDish dish = OrderedDish.DishToOrderedDish(item);
+    Recipe recorded = event.getRecipe();
+    Recipe base = dish.getRecipe();
+    IngredientRegistry registry = IngredientRegistry.getInstance();
+    for (int i = 0; i < recorded.size(); i++) {
+      double change = recorded.amountAt(i) - base.amountOf(recorded.idAt(i));
+      if (change != 0) {
+        dish.adjustIngredient(new Ingredient(registry.nameOf(recorded.idAt(i)), 0), change);
+      }
+    }
+    for (int i = 0; i < base.size(); i++) {
+      if (recorded.amountOf(base.idAt(i)) == 0) {
+        dish.adjustIngredient(
+            new Ingredient(registry.nameOf(base.idAt(i)), 0), -base.amountAt(i));
+      }
+    }
+    return dish;
+  }
+
+  /**
+   * Stop mapping a recorded dish id to a dish that is no longer in an order
+   *
+   * @param dish: the replayed dish
+   */
+  private void forget(OrderedDish dish) {
+    Long recorded = recordedIds.remove(dish.getID());
+    if (recorded != null) {
+      dishes.remove(recorded, dish);
+    }
+  }
+
+  /**
+   * @param name: the name of an employee
+   * @return the employee with the given name, hiring them as a manager if there is none
+   */
+  private Employee employee(String name) {
+    Employee employee = employees.get(name);
+    if (employee == null) {
+      employee = restaurant.addManager(name);
+      employees.put(name, employee);
+    }
+    return employee;
+  }
+}
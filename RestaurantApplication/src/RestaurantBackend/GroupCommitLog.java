@@ -0,0 +1,283 @@
+package RestaurantBackend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * A write-ahead log file of binary records, committed in groups.
+ *
+ * <p>The file starts with a header holding the generation of the log, and each record is framed by
+ * its length and a CRC32 of its contents. A record that was cut short or corrupted by a crash ends
+ * the log when it is read back.
+ *
+ * <p>Appending a record waits until it is on disk. A single committer thread writes every record
+ * appended since its last commit in one write, and forces them to disk with one call, so threads
+ * appending at the same time share the cost of a commit.
+ *
+ * <p>If a commit fails, every record in it and every record appended while it was being written is
+ * discarded, and their appends fail. Until the log is reset, nothing more is written and every
+ * append fails, so no record is ever written after one that was reported as failed.
+ */
+class GroupCommitLog {
+
+  private static final int MAGIC = 0x5257414c;
+  // magic number, generation
+  private static final int HEADER_SIZE = 4 + 8;
+  // length, checksum
+  private static final int FRAME_SIZE = 4 + 4;
+
+  private final FileChannel channel;
+  private final Thread committer;
+  // guards everything below
+  private final Object lock = new Object();
+  // records appended and not yet committed, and the buffer the committer is writing from
+  private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  private ByteArrayOutputStream writing = new ByteArrayOutputStream();
+  // the number of records appended, and the number committed
+  private long appended;
+  private long committed;
+  // every record appended up to this one was discarded by a failed commit or a reset
+  private long discarded;
+  private long commits;
+  private boolean closed;
+  // the error a commit failed with, after which every append fails until the log is reset
+  private IOException failure;
+
+  /**
+   * A new, empty GroupCommitLog, replacing any existing log at the given path, whose committer
+   * thread is started immediately
+   *
+   * @param path: the path of the log file
+   * @param generation: the generation of the log
+   * @throws IOException if the log file can't be created
+   */
+  GroupCommitLog(String path, long generation) throws IOException {
+    this.channel =
+        FileChannel.open(
+            Paths.get(path),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    writeHeader(generation);
+    this.committer = new Thread(this::run, "state-journal");
+    this.committer.setDaemon(true);
+    this.committer.start();
+  }
+
+  /**
+   * Read every intact record of a log, if it belongs to the given generation
+   *
+   * @param path: the path of the log file
+   * @param generation: the generation the log must belong to
+   * @param handler: called with the contents of each record, in the order they were appended
+   * @return the number of records read
+   * @throws IOException if the log file can't be read
+   */
+  static int read(String path, long generation, Consumer<byte[]> handler) throws IOException {
+    Path p = Paths.get(path);
+    if (!Files.exists(p)) {
+      return 0;
+    }
+    ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(p));
+    if (buf.remaining() < HEADER_SIZE
+        || buf.getInt() != MAGIC
+        || buf.getLong() != generation) {
+      return 0;
+    }
+    int count = 0;
+    CRC32 crc = new CRC32();
+    while (buf.remaining() >= FRAME_SIZE) {
+      int length = buf.getInt();
+      int checksum = buf.getInt();
+      if (length < 0 || length > buf.remaining()) {
+        break;
+      }
+      byte[] record = new byte[length];
+      buf.get(record);
+      crc.reset();
+      crc.update(record, 0, length);
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      handler.accept(record);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Append a record, and wait until it has been committed to disk
+   *
+   * @param record: the contents of the record
+   * @throws IOException if the log has been closed, or the commit failed
+   */
+  void append(byte[] record) throws IOException {
+    CRC32 crc = new CRC32();
+    crc.update(record, 0, record.length);
+    byte[] frame =
+        ByteBuffer.allocate(FRAME_SIZE).putInt(record.length).putInt((int) crc.getValue()).array();
+    synchronized (lock) {
+      if (closed) {
+        throw new IOException("the log has been closed");
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      pending.write(frame, 0, FRAME_SIZE);
+      pending.write(record, 0, record.length);
+      long sequence = ++appended;
+      lock.notifyAll();
+      boolean interrupted = false;
+      while (committed < sequence && discarded < sequence) {
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      if (committed < sequence) {
+        throw failure != null ? failure : new IOException("the record was discarded");
+      }
+    }
+  }
+
+  /**
+   * Empty the log and start a new generation of it.
+   *
+   * <p>The caller must make sure no records are being appended. Records still pending are
+   * discarded, so none from the old generation can be written into the new one, and a failed log
+   * is written to again.
+   *
+   * @param generation: the new generation
+   * @throws IOException if the log file can't be written
+   */
+  void reset(long generation) throws IOException {
+    synchronized (lock) {
+      pending.reset();
+      discarded = appended;
+      lock.notifyAll();
+      channel.truncate(0);
+      channel.position(0);
+      writeHeader(generation);
+      failure = null;
+    }
+  }
+
+  /** @return true if a commit has failed since the log was last reset */
+  boolean hasFailed() {
+    synchronized (lock) {
+      return failure != null;
+    }
+  }
+
+  /**
+   * Commit every record still pending, and close the log file
+   *
+   * @throws InterruptedException if interrupted while waiting for the committer to finish
+   */
+  void close() throws InterruptedException {
+    synchronized (lock) {
+      closed = true;
+      lock.notifyAll();
+    }
+    committer.join();
+  }
+
+  /** @return the number of commits, each writing one or more records */
+  long getCommits() {
+    synchronized (lock) {
+      return commits;
+    }
+  }
+
+  /** @return the number of records committed */
+  long getCommitted() {
+    synchronized (lock) {
+      return committed;
+    }
+  }
+
+  /**
+   * Write the header at the current position of the log file, and force it to disk
+   *
+   * @param generation: the generation of the log
+   * @throws IOException if the log file can't be written
+   */
+  private void writeHeader(long generation) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putLong(generation);
+    header.flip();
+    while (header.hasRemaining()) {
+      channel.write(header);
+    }
+    channel.force(false);
+  }
+
+  /**
+   * The committer thread's loop.
+   *
+   * <p>Like the AsyncLogSink writer, the committer is never interrupted, since that would close the
+   * log file.
+   */
+  private void run() {
+    while (true) {
+      long target;
+      ByteArrayOutputStream batch;
+      synchronized (lock) {
+        // nothing is written after a failed commit until the log is reset
+        while ((pending.size() == 0 || failure != null) && !closed) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            // never interrupted; see above
+          }
+        }
+        if (pending.size() == 0 || failure != null) {
+          break;
+        }
+        batch = pending;
+        pending = writing;
+        writing = batch;
+        target = appended;
+      }
+      IOException error = null;
+      try {
+        ByteBuffer bytes = ByteBuffer.wrap(batch.toByteArray());
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+        channel.force(false);
+      } catch (IOException e) {
+        error = e;
+      }
+      synchronized (lock) {
+        batch.reset();
+        if (error == null) {
+          committed = target;
+          commits++;
+        } else {
+          failure = error;
+          // the records appended during the failed write would follow the failed ones
+          pending.reset();
+          discarded = appended;
+        }
+        lock.notifyAll();
+      }
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,257 @@
+package RestaurantBackend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A load test of the HTTP API on loopback.
+ *
+ * <p>Starts a RestaurantHttpServer in this process and runs a number of client threads against it
+ * for a given time. Each client is a server and a cook, hired for the test, with a table of its
+ * own, and serves one party after another through the API: it adds the table and an order, adds
+ * dishes and sends them to the kitchen, cooks whatever dish the kitchen has next until its own are
+ * ready, serves them, and resolves the order. Ingredients are restocked before the test so no dish
+ * is rejected.
+ *
+ * <p>Prints the requests answered per second, and percentiles of their latency as the clients saw
+ * it and as the server measured it.
+ */
+public class HttpLoadTest {
+
+  // enough of every ingredient for any test
+  private static final double RESTOCK_AMOUNT = 1e9;
+
+  private final String base;
+  private final List<String> dishes;
+  private final LatencyHistogram latency = new LatencyHistogram("http.client.nanos");
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder parties = new LongAdder();
+
+  /**
+   * @param port: the port the API listens on
+   * @param dishes: the names of the dishes clients order
+   */
+  private HttpLoadTest(int port, List<String> dishes) {
+    this.base = "http://127.0.0.1:" + port;
+    this.dishes = dishes;
+  }
+
+  /**
+   * Run the load test.
+   *
+   * <p>Settings are given as name=value arguments: clients, the number of client threads; seconds,
+   * how long to run for; dishes, the number of dishes per order; and employees, menu and inventory,
+   * the paths of the restaurant's files. The log, payments, ids and reorder requests of the
+   * restaurant under test are written to a temporary directory, not the working directory.
+   *
+   * @param args: the settings
+   * @throws IOException if the API can't be started
+   * @throws InterruptedException if interrupted while waiting for the clients
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    DataFiles.useTemporaryDirectory("restaurant-load");
+    Map<String, String> settings = new LinkedHashMap<>();
+    for (String arg : args) {
+      int eq = arg.indexOf('=');
+      if (eq > 0) {
+        settings.put(arg.substring(0, eq), arg.substring(eq + 1));
+      }
+    }
+    int clients = Integer.parseInt(settings.getOrDefault("clients", "16"));
+    long seconds = Long.parseLong(settings.getOrDefault("seconds", "10"));
+    int dishesPerOrder = Integer.parseInt(settings.getOrDefault("dishes", "3"));
+
+    Restaurant restaurant =
+        new Restaurant(
+            settings.getOrDefault("employees", "employees.txt"),
+            settings.getOrDefault("menu", "menu.txt"),
+            settings.getOrDefault("inventory", "inventory.txt"));
+    Manager receiver = restaurant.addManager("Load Manager");
+    for (KitchenIngredient ing : restaurant.getKitchen().getKitchenIngredients()) {
+      receiver.receiveShipment(new Ingredient(ing.getName(), RESTOCK_AMOUNT));
+    }
+    for (int i = 0; i < clients; i++) {
+      restaurant.addServer(serverName(i));
+      restaurant.addCook(cookName(i));
+    }
+    ArrayList<String> dishes = new ArrayList<>();
+    for (Dish d : restaurant.getMenu().getMenuItems()) {
+      dishes.add(d.getName());
+    }
+
+    Metrics.setEnabled(true);
+    LogWriter.getInstance().startAsync(1 << 16, 50, AsyncLogSink.Durability.NONE);
+    RestaurantHttpServer api = new RestaurantHttpServer(restaurant, 0);
+    api.start();
+    HttpLoadTest test = new HttpLoadTest(api.getPort(), dishes);
+    try {
+      test.run(clients, dishesPerOrder, TimeUnit.SECONDS.toNanos(seconds));
+    } finally {
+      api.stop(1);
+      LogWriter.getInstance().shutdown();
+    }
+  }
+
+  private static String serverName(int client) {
+    return "Load Server " + client;
+  }
+
+  private static String cookName(int client) {
+    return "Load Cook " + client;
+  }
+
+  /**
+   * Run the clients for the given time, then print the results
+   *
+   * @param clients: the number of client threads
+   * @param dishesPerOrder: the number of dishes each party orders
+   * @param durationNanos: how long to run for
+   * @throws InterruptedException if interrupted while waiting for the clients
+   */
+  private void run(int clients, int dishesPerOrder, long durationNanos)
+      throws InterruptedException {
+    long start = System.nanoTime();
+    long deadline = start + durationNanos;
+    CountDownLatch done = new CountDownLatch(clients);
+    for (int i = 0; i < clients; i++) {
+      int client = i;
+      Thread t =
+          new Thread(
+              () -> {
+                try {
+                  Random random = new Random(client);
+                  while (System.nanoTime() < deadline) {
+                    serveParty(client, dishesPerOrder, random);
+                    parties.increment();
+                  }
+                } catch (IOException | RuntimeException e) {
+                  e.printStackTrace();
+                  failures.increment();
+                } finally {
+                  done.countDown();
+                }
+              },
+              "load-client-" + i);
+      t.start();
+    }
+    done.await();
+    double elapsed = (System.nanoTime() - start) / 1e9;
+    System.out.printf(
+        "%d clients, %.1f s: %d requests (%.0f/s), %d parties, %d failed clients%n",
+        clients, elapsed, requests.sum(), requests.sum() / elapsed, parties.sum(), failures.sum());
+    System.out.println("client latency: " + latency);
+    System.out.println(
+        "server latency: " + Metrics.getInstance().getHistogram("http.request.nanos"));
+    System.out.println("server errors: " + Metrics.getInstance().getCounter("http.errors"));
+  }
+
+  /**
+   * Serve one party at a client's table, from adding the table to resolving its order
+   *
+   * @param client: the number of the client
+   * @param dishesPerOrder: the number of dishes the party orders
+   * @param random: chooses the dishes
+   * @throws IOException if a request fails
+   */
+  private void serveParty(int client, int dishesPerOrder, Random random) throws IOException {
+    int table = client + 1;
+    String server = "/servers/" + encode(serverName(client));
+    String cook = "/cooks/" + encode(cookName(client));
+    String tablePath = server + "/tables/" + table;
+    call("POST", server + "/tables", "{\"table\":" + table + "}");
+    Map<String, Object> order = call("POST", tablePath + "/orders", "");
+    String orderPath = tablePath + "/orders/" + number(order, "order");
+    for (int i = 0; i < dishesPerOrder; i++) {
+      String dish = dishes.get(random.nextInt(dishes.size()));
+      call("POST", orderPath + "/dishes", "{\"dish\":" + Json.quote(dish) + "}");
+    }
+    call("POST", tablePath + "/finalize", "");
+    while (true) {
+      boolean outstanding = false;
+      for (Object o : (List<?>) call("GET", orderPath, "").get("dishes")) {
+        Map<?, ?> dish = (Map<?, ?>) o;
+        String dishPath = orderPath + "/dishes/" + number(dish, "id");
+        switch ((String) dish.get("status")) {
+          case "READY":
+            call("POST", dishPath + "/served", "");
+            break;
+          case "CANCELLED":
+            call("DELETE", dishPath, "");
+            break;
+          case "SERVED":
+            break;
+          default:
+            outstanding = true;
+        }
+      }
+      if (!outstanding) {
+        break;
+      }
+      // help the kitchen along with whatever dish is next, which may be another client's
+      Map<String, Object> seen = call("POST", cook + "/see", "");
+      if (seen.get("dish") != null) {
+        call("POST", cook + "/complete", "");
+      }
+    }
+    call("POST", orderPath + "/resolve", "");
+  }
+
+  /**
+   * Make a request, and check that it succeeded
+   *
+   * @param method: the HTTP method
+   * @param path: the path
+   * @param body: the JSON body, or an empty String for none
+   * @return the response
+   * @throws IOException if the request fails or isn't answered with 200 OK
+   */
+  private Map<String, Object> call(String method, String path, String body) throws IOException {
+    long start = Metrics.startTimer();
+    HttpURLConnection connection = (HttpURLConnection) new URL(base + path).openConnection();
+    connection.setRequestMethod(method);
+    if (!body.isEmpty()) {
+      connection.setDoOutput(true);
+      connection.setRequestProperty("Content-Type", "application/json");
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(body.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    int status = connection.getResponseCode();
+    InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+    String response;
+    try (InputStream stream = in) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      stream.transferTo(bytes);
+      response = bytes.toString(StandardCharsets.UTF_8);
+    }
+    latency.recordSince(start);
+    requests.increment();
+    if (status != 200) {
+      throw new IOException(method + " " + path + " answered " + status + ": " + response);
+    }
+    return Json.parseObject(response);
+  }
+
+  private static long number(Map<?, ?> object, String key) {
+    return ((Double) object.get(key)).longValue();
+  }
+
+  private static String encode(String segment) {
+    return URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20");
+  }
+}
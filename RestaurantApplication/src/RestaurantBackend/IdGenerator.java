@@ -0,0 +1,125 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates unique 64-bit ids.
+ *
+ * <p>Each thread takes ids from its own block, claimed from a shared atomic counter, so threads
+ * only touch shared state once per block. Ids are unique across threads, and increase within each
+ * thread.
+ *
+ * <p>Ids stay unique across restarts: before handing out any id, the generator records a
+ * high-water mark above it in a file, and on startup it resumes from the recorded mark. Marks are
+ * recorded well ahead of use, so the file is rarely written. If a mark can't be recorded, or a
+ * recorded one can't be read, no id is handed out, since it might repeat one handed out before.
+ */
+class IdGenerator {
+
+  // the number of ids a thread claims at a time
+  private static final int BLOCK_SIZE = 64;
+  // the number of ids the high-water mark is moved ahead of the ids claimed
+  private static final long RESERVE = 1024L * BLOCK_SIZE;
+
+  /** ids of ordered dishes */
+  static final IdGenerator DISHES = new IdGenerator(DataFiles.path("dish_ids.txt"));
+
+  /** order numbers */
+  static final IdGenerator ORDERS = new IdGenerator(DataFiles.path("order_ids.txt"));
+
+  private final Path markPath;
+  // the start of the next block to be claimed
+  private final AtomicLong nextBlock;
+  // every id below the mark may have been handed out, before or after a restart
+  private volatile long highWater;
+  // the calling thread's block, as {next id, end of block}
+  private final ThreadLocal<long[]> block = ThreadLocal.withInitial(() -> new long[2]);
+
+  /**
+   * A new IdGenerator, resuming from the high-water mark in the given file if there is one
+   *
+   * @param markPath: the path of the file recording the high-water mark
+   */
+  IdGenerator(String markPath) {
+    this.markPath = Paths.get(markPath);
+    this.highWater = readMark();
+    this.nextBlock = new AtomicLong(highWater);
+  }
+
+  /**
+   * @return a new unique id
+   * @throws IllegalStateException if the high-water mark above it can't be recorded
+   */
+  long nextId() {
+    long[] b = block.get();
+    if (b[0] == b[1]) {
+      long start = nextBlock.getAndAdd(BLOCK_SIZE);
+      reserveUpTo(start + BLOCK_SIZE);
+      b[0] = start;
+      b[1] = start + BLOCK_SIZE;
+    }
+    return b[0]++;
+  }
+
+  /**
+   * Make sure the recorded high-water mark is at least the given id
+   *
+   * @param end: the end of the block about to be handed out
+   * @throws IllegalStateException if the mark can't be recorded
+   */
+  private void reserveUpTo(long end) {
+    if (end > highWater) {
+      synchronized (this) {
+        if (end > highWater) {
+          long mark = end + RESERVE;
+          writeMark(mark);
+          highWater = mark;
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the recorded high-water mark, or 0 if there is none
+   * @throws IllegalStateException if there is a mark file, but it can't be read or holds no mark
+   */
+  private long readMark() {
+    if (!Files.exists(markPath)) {
+      return 0;
+    }
+    try {
+      String text = new String(Files.readAllBytes(markPath), StandardCharsets.UTF_8).trim();
+      long mark = Long.parseLong(text);
+      if (mark < 0) {
+        throw new NumberFormatException("negative mark " + mark);
+      }
+      return mark;
+    } catch (IOException | NumberFormatException e) {
+      throw new IllegalStateException(
+          "The id high-water mark in " + markPath + " is unreadable", e);
+    }
+  }
+
+  /**
+   * Record a new high-water mark, replacing the old one in a single step
+   *
+   * @param mark: the new high-water mark
+   * @throws IllegalStateException if the mark can't be recorded
+   */
+  private void writeMark(long mark) {
+    try {
+      Path tmp = markPath.resolveSibling(markPath.getFileName() + ".tmp");
+      Files.write(tmp, Long.toString(mark).getBytes(StandardCharsets.UTF_8));
+      Files.move(
+          tmp, markPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new IllegalStateException("The id high-water mark could not be recorded", e);
+    }
+  }
+}
@@ -10,7 +10,7 @@ package RestaurantBackend;
 public class Ingredient {
 
   private String name;
-  private double amount;
+  private volatile double amount;
 
   /**
    * A new ingredient
@@ -41,6 +41,15 @@ public class Ingredient {
     this.amount = Math.max(this.amount - amount, 0);
   }
 
+  /**
+   * Set the amount of this ingredient, when restoring it from a snapshot
+   *
+   * @param amount: the new amount
+   */
+  void setAmount(double amount) {
+    this.amount = amount;
+  }
+
   double getAmount() {
     return this.amount;
   }
@@ -56,11 +65,16 @@ public class Ingredient {
    */
   @Override
   public String toString() {
-    return String.format("%s %s", this.amount, this.name);
+    return String.format("%s %s", getAmount(), this.name);
   }
 
   @Override
   public boolean equals(Object obj) {
     return obj instanceof Ingredient && this.getName().equals(((Ingredient) obj).getName());
   }
+
+  @Override
+  public int hashCode() {
+    return this.getName().hashCode();
+  }
 }
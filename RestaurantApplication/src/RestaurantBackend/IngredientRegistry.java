@@ -0,0 +1,57 @@
+package RestaurantBackend;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Interns ingredient names to dense integer ids.
+ *
+ * <p>Ids are handed out in the order names are first seen, starting at 0, so they can index arrays
+ * directly. Ids are only meaningful within the running program.
+ */
+class IngredientRegistry {
+
+  private static final IngredientRegistry INSTANCE = new IngredientRegistry();
+
+  private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+  private final CopyOnWriteArrayList<String> names = new CopyOnWriteArrayList<>();
+
+  /** @return the registry shared by the whole restaurant */
+  static IngredientRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the id of an ingredient, assigning it the next free id if it hasn't been seen before
+   *
+   * @param name: the name of the ingredient
+   * @return the id of the ingredient
+   */
+  int idOf(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+    synchronized (this) {
+      return ids.computeIfAbsent(
+          name,
+          n -> {
+            names.add(n);
+            return names.size() - 1;
+          });
+    }
+  }
+
+  /**
+   * @param id: the id of an ingredient
+   * @return the name of the ingredient with the given id
+   */
+  String nameOf(int id) {
+    return names.get(id);
+  }
+
+  /** @return the number of ingredients interned so far */
+  int size() {
+    return names.size();
+  }
+}
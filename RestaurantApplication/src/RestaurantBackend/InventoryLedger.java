@@ -0,0 +1,295 @@
+package RestaurantBackend;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file holding the kitchen's stock of each ingredient, so the stock on hand outlasts the program.
+ *
+ * <p>The file is mapped into memory: a header followed by fixed-size slots, one per ingredient, in
+ * the order the ingredients were first stocked. Each slot holds the number of times it has changed,
+ * the amount in stock and the reorder threshold (both in thousandths of a unit), the slot's id,
+ * and the ingredient's name. Amounts are changed in place by atomic compare-and-set on the mapped
+ * memory, so changes need no lock and reach the file as soon as they are made; if the program
+ * crashes, the operating system still writes them out. Reopening the file reads the slots back
+ * without parsing anything. Numbers are stored little-endian whatever the machine.
+ *
+ * <p>A new slot is written in full before the header's slot count is raised to include it, so a
+ * crash while stocking a new ingredient leaves at most an unused slot.
+ */
+final class InventoryLedger implements Closeable {
+
+  // the amounts in the ledger are whole numbers of this fraction of a unit
+  static final long UNITS = 1000;
+  // the longest ingredient name a slot holds, in UTF-8 bytes
+  static final int MAX_NAME_BYTES = 96;
+
+  private static final int MAGIC = 0x4c444752; // "LDGR"
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_BYTES = 64;
+  private static final int SLOT_BYTES = 128;
+  // header fields
+  private static final int MAGIC_AT = 0;
+  private static final int FORMAT_AT = 4;
+  private static final int COUNT_AT = 8;
+  // slot fields, relative to the start of the slot
+  private static final int VERSION_AT = 0;
+  private static final int AMOUNT_AT = 8;
+  private static final int THRESHOLD_AT = 16;
+  private static final int ID_AT = 24;
+  private static final int NAME_LENGTH_AT = 28;
+  private static final int NAME_AT = 32;
+  // the number of slots the file grows by when it is full
+  private static final int GROWTH_SLOTS = 64;
+
+  private static final VarHandle LONGS =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle INTS =
+      MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private final FileChannel channel;
+  // the mapped file; replaced by a larger mapping of the same file when it fills up
+  private volatile MappedByteBuffer buffer;
+  // the number of slots the current mapping has room for
+  private int capacity;
+
+  private InventoryLedger(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+    this.channel = channel;
+    this.buffer = buffer;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Open the ledger at the given path, creating an empty one if there is none
+   *
+   * @param path: the path of the ledger file
+   * @return the ledger
+   * @throws IOException if the file can't be opened, or isn't a ledger
+   */
+  static InventoryLedger open(String path) throws IOException {
+    FileChannel channel =
+        FileChannel.open(
+            Paths.get(path),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    try {
+      long size = channel.size();
+      int capacity =
+          size < HEADER_BYTES + SLOT_BYTES
+              ? GROWTH_SLOTS
+              : (int) ((size - HEADER_BYTES) / SLOT_BYTES);
+      MappedByteBuffer buffer =
+          channel.map(FileChannel.MapMode.READ_WRITE, 0, bytesFor(capacity));
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      if (size == 0) {
+        buffer.putInt(MAGIC_AT, MAGIC);
+        buffer.putInt(FORMAT_AT, FORMAT_VERSION);
+        INTS.setVolatile(buffer, COUNT_AT, 0);
+      } else if (buffer.getInt(MAGIC_AT) != MAGIC) {
+        throw new IOException(path + " is not an inventory ledger");
+      } else if (buffer.getInt(FORMAT_AT) != FORMAT_VERSION) {
+        throw new IOException(
+            path + " is an inventory ledger of unknown version " + buffer.getInt(FORMAT_AT));
+      }
+      return new InventoryLedger(channel, buffer, capacity);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * @param slots: a number of slots
+   * @return the size of a ledger file with room for that many slots
+   */
+  private static long bytesFor(int slots) {
+    return HEADER_BYTES + (long) slots * SLOT_BYTES;
+  }
+
+  /**
+   * @param slot: the id of a slot
+   * @return the position of the slot in the file
+   */
+  private static int at(int slot) {
+    return HEADER_BYTES + slot * SLOT_BYTES;
+  }
+
+  /**
+   * @param amount: an amount of an ingredient
+   * @return the amount in thousandths of a unit, as the ledger stores it
+   */
+  private static long toUnits(double amount) {
+    return Math.round(amount * UNITS);
+  }
+
+  /** @return the number of ingredients in the ledger */
+  int size() {
+    return (int) INTS.getVolatile(buffer, COUNT_AT);
+  }
+
+  /**
+   * Add a slot for a newly stocked ingredient
+   *
+   * @param name: the name of the ingredient
+   * @param amount: the amount in stock
+   * @param threshold: the reorder threshold
+   * @return the id of the new slot
+   * @throws IllegalArgumentException if the name is longer than a slot holds
+   */
+  synchronized int add(String name, double amount, double threshold) {
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > MAX_NAME_BYTES) {
+      throw new IllegalArgumentException(
+          "Ingredient names in the ledger are at most " + MAX_NAME_BYTES + " bytes: " + name);
+    }
+    int slot = size();
+    if (slot == capacity) {
+      grow();
+    }
+    MappedByteBuffer buf = buffer;
+    int at = at(slot);
+    buf.putLong(at + VERSION_AT, 0);
+    buf.putLong(at + AMOUNT_AT, toUnits(amount));
+    buf.putLong(at + THRESHOLD_AT, toUnits(threshold));
+    buf.putInt(at + ID_AT, slot);
+    buf.putInt(at + NAME_LENGTH_AT, bytes.length);
+    buf.put(at + NAME_AT, bytes);
+    INTS.setVolatile(buf, COUNT_AT, slot + 1);
+    return slot;
+  }
+
+  /**
+   * Map a larger region of the file, extending it by GROWTH_SLOTS slots
+   *
+   * <p>The old mapping is left to the garbage collector rather than unmapped, since other threads
+   * may still be updating slots through it; both mappings share the same pages of the file, so
+   * those updates are not lost.
+   */
+  private void grow() {
+    int grown = capacity + GROWTH_SLOTS;
+    try {
+      MappedByteBuffer larger = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytesFor(grown));
+      larger.order(ByteOrder.LITTLE_ENDIAN);
+      buffer = larger;
+      capacity = grown;
+    } catch (IOException e) {
+      throw new IllegalStateException("The inventory ledger could not grow", e);
+    }
+  }
+
+  /**
+   * @param slot: the id of a slot
+   * @return the name of the ingredient in the slot
+   */
+  String nameAt(int slot) {
+    MappedByteBuffer buf = buffer;
+    int at = at(slot);
+    byte[] bytes = new byte[buf.getInt(at + NAME_LENGTH_AT)];
+    buf.get(at + NAME_AT, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param slot: the id of a slot
+   * @return the amount of the ingredient in stock
+   */
+  double amountAt(int slot) {
+    return (long) LONGS.getVolatile(buffer, at(slot) + AMOUNT_AT) / (double) UNITS;
+  }
+
+  /**
+   * @param slot: the id of a slot
+   * @return the reorder threshold of the ingredient
+   */
+  double thresholdAt(int slot) {
+    return (long) LONGS.getVolatile(buffer, at(slot) + THRESHOLD_AT) / (double) UNITS;
+  }
+
+  /**
+   * @param slot: the id of a slot
+   * @return the number of times the slot has changed since it was added
+   */
+  long versionAt(int slot) {
+    return (long) LONGS.getVolatile(buffer, at(slot) + VERSION_AT);
+  }
+
+  /**
+   * Add to the amount of an ingredient in stock
+   *
+   * @param slot: the id of the ingredient's slot
+   * @param amount: the amount to add
+   */
+  void increment(int slot, double amount) {
+    MappedByteBuffer buf = buffer;
+    int at = at(slot);
+    LONGS.getAndAdd(buf, at + AMOUNT_AT, toUnits(amount));
+    LONGS.getAndAdd(buf, at + VERSION_AT, 1L);
+  }
+
+  /**
+   * Take from the amount of an ingredient in stock, leaving none rather than less than none
+   *
+   * @param slot: the id of the ingredient's slot
+   * @param amount: the amount to take
+   */
+  void take(int slot, double amount) {
+    MappedByteBuffer buf = buffer;
+    int at = at(slot);
+    long units = toUnits(amount);
+    long current;
+    do {
+      current = (long) LONGS.getVolatile(buf, at + AMOUNT_AT);
+    } while (!LONGS.compareAndSet(buf, at + AMOUNT_AT, current, Math.max(current - units, 0)));
+    LONGS.getAndAdd(buf, at + VERSION_AT, 1L);
+  }
+
+  /**
+   * Set the amount of an ingredient in stock
+   *
+   * @param slot: the id of the ingredient's slot
+   * @param amount: the new amount
+   */
+  void setAmount(int slot, double amount) {
+    MappedByteBuffer buf = buffer;
+    int at = at(slot);
+    LONGS.setVolatile(buf, at + AMOUNT_AT, toUnits(amount));
+    LONGS.getAndAdd(buf, at + VERSION_AT, 1L);
+  }
+
+  /**
+   * Set the reorder threshold of an ingredient
+   *
+   * @param slot: the id of the ingredient's slot
+   * @param threshold: the new threshold
+   */
+  void setThreshold(int slot, double threshold) {
+    MappedByteBuffer buf = buffer;
+    int at = at(slot);
+    LONGS.setVolatile(buf, at + THRESHOLD_AT, toUnits(threshold));
+    LONGS.getAndAdd(buf, at + VERSION_AT, 1L);
+  }
+
+  /**
+   * Write every change made so far to the storage device, so it survives the machine stopping as
+   * well as the program
+   */
+  void force() {
+    buffer.force();
+  }
+
+  /** Write every change to the storage device and close the file */
+  @Override
+  public synchronized void close() throws IOException {
+    force();
+    channel.close();
+  }
+}
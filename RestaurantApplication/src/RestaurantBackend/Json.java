@@ -0,0 +1,233 @@
+package RestaurantBackend;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Just enough JSON for the backend's HTTP API and metrics: quoting strings, and parsing request
+ * bodies into maps, lists, Strings, Doubles, Booleans and nulls.
+ */
+final class Json {
+
+  private final String text;
+  private int pos;
+
+  private Json(String text) {
+    this.text = text;
+  }
+
+  /**
+   * @param s: a String
+   * @return the String as a JSON string literal
+   */
+  static String quote(String s) {
+    StringBuilder sb = new StringBuilder(s.length() + 2);
+    appendQuoted(sb, s);
+    return sb.toString();
+  }
+
+  /**
+   * Append a String as a JSON string literal
+   *
+   * @param sb: where to append it
+   * @param s: the String
+   */
+  static void appendQuoted(StringBuilder sb, String s) {
+    sb.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c == '\n') {
+        sb.append("\\n");
+      } else if (c == '\r') {
+        sb.append("\\r");
+      } else if (c < 0x20) {
+        sb.append(String.format("\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    sb.append('"');
+  }
+
+  /**
+   * Parse a JSON object
+   *
+   * @param text: the JSON text; empty text is an empty object
+   * @return the object's members, in order
+   * @throws IllegalArgumentException if the text isn't a JSON object
+   */
+  static LinkedHashMap<String, Object> parseObject(String text) {
+    if (text.trim().isEmpty()) {
+      return new LinkedHashMap<>();
+    }
+    Json parser = new Json(text);
+    parser.skipSpace();
+    LinkedHashMap<String, Object> object = parser.object();
+    parser.skipSpace();
+    if (parser.pos != text.length()) {
+      throw parser.error("unexpected text after the object");
+    }
+    return object;
+  }
+
+  private Object value() {
+    skipSpace();
+    if (pos >= text.length()) {
+      throw error("unexpected end of text");
+    }
+    char c = text.charAt(pos);
+    switch (c) {
+      case '{':
+        return object();
+      case '[':
+        return array();
+      case '"':
+        return string();
+      case 't':
+        return literal("true", Boolean.TRUE);
+      case 'f':
+        return literal("false", Boolean.FALSE);
+      case 'n':
+        return literal("null", null);
+      default:
+        return number();
+    }
+  }
+
+  private LinkedHashMap<String, Object> object() {
+    expect('{');
+    LinkedHashMap<String, Object> object = new LinkedHashMap<>();
+    skipSpace();
+    if (peek('}')) {
+      pos++;
+      return object;
+    }
+    do {
+      skipSpace();
+      String key = string();
+      skipSpace();
+      expect(':');
+      object.put(key, value());
+      skipSpace();
+    } while (consume(','));
+    expect('}');
+    return object;
+  }
+
+  private ArrayList<Object> array() {
+    expect('[');
+    ArrayList<Object> array = new ArrayList<>();
+    skipSpace();
+    if (peek(']')) {
+      pos++;
+      return array;
+    }
+    do {
+      array.add(value());
+      skipSpace();
+    } while (consume(','));
+    expect(']');
+    return array;
+  }
+
+  private String string() {
+    expect('"');
+    StringBuilder sb = new StringBuilder();
+    while (pos < text.length()) {
+      char c = text.charAt(pos++);
+      if (c == '"') {
+        return sb.toString();
+      }
+      if (c != '\\') {
+        sb.append(c);
+        continue;
+      }
+      if (pos >= text.length()) {
+        break;
+      }
+      char e = text.charAt(pos++);
+      switch (e) {
+        case 'n':
+          sb.append('\n');
+          break;
+        case 'r':
+          sb.append('\r');
+          break;
+        case 't':
+          sb.append('\t');
+          break;
+        case 'b':
+          sb.append('\b');
+          break;
+        case 'f':
+          sb.append('\f');
+          break;
+        case 'u':
+          if (pos + 4 > text.length()) {
+            throw error("bad unicode escape");
+          }
+          try {
+            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+          } catch (NumberFormatException ex) {
+            throw error("bad unicode escape");
+          }
+          pos += 4;
+          break;
+        default:
+          sb.append(e);
+      }
+    }
+    throw error("unterminated string");
+  }
+
+  private Double number() {
+    int start = pos;
+    while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+      pos++;
+    }
+    try {
+      return Double.valueOf(text.substring(start, pos));
+    } catch (NumberFormatException e) {
+      pos = start;
+      throw error("expected a value");
+    }
+  }
+
+  private Object literal(String word, Object value) {
+    if (!text.startsWith(word, pos)) {
+      throw error("expected " + word);
+    }
+    pos += word.length();
+    return value;
+  }
+
+  private void skipSpace() {
+    while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+      pos++;
+    }
+  }
+
+  private boolean peek(char c) {
+    return pos < text.length() && text.charAt(pos) == c;
+  }
+
+  private boolean consume(char c) {
+    if (peek(c)) {
+      pos++;
+      return true;
+    }
+    return false;
+  }
+
+  private void expect(char c) {
+    if (!consume(c)) {
+      throw error("expected '" + c + "'");
+    }
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException(message + " at character " + pos);
+  }
+}
@@ -1,35 +1,126 @@
 package RestaurantBackend;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Observable;
-import java.util.Scanner;
+import java.util.Observer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A kitchen;
  *
  * <p>Contains the ingredient inventory
+ *
+ * <p>The inventory is indexed by the ids the IngredientRegistry interns ingredient names to, and is
+ * guarded by a fixed set of lock stripes, each covering the ingredients whose ids map to it, so
+ * cooks working on unrelated ingredients never wait on each other.
+ *
+ * <p>The amounts in stock can be kept in an InventoryLedger file rather than only in memory, so
+ * that they survive a restart; the kitchen then reads its inventory back from the ledger rather
+ * than the inventory file.
+ *
+ * <p>Ordered dishes move through the kitchen in three stages: queued to be made, in progress, and
+ * waiting to be delivered. Servers add to the queue and cooks take from it concurrently; cooks with
+ * nothing to do can block on the queue rather than poll it. The queue's DishScheduler decides which
+ * dish each cook takes next.
+ *
+ * <p>Observers are passed a KitchenEvent.Batch once per tick, holding every change raised during
+ * that tick with repeats collapsed. By default a tick ends with each kitchen operation; it can
+ * instead be set to a fixed period with publishEvery.
  */
 public class Kitchen extends Observable implements FileCreator {
 
-  private ArrayList<KitchenIngredient> inventory;
-  private LinkedList<OrderedDish> toMake;
-  private ArrayList<OrderedDish> inProgress;
-  private ArrayList<OrderedDish> toDeliver;
+  // the number of lock stripes guarding the inventory; a power of two no larger than 64
+  private static final int LOCK_STRIPES = 64;
+  // the reorder threshold of an ingredient first stocked by a shipment, if it hasn't been used
+  private static final double DEFAULT_THRESHOLD = 20;
+
+  private static final LatencyHistogram CHECK_TIME =
+      Metrics.getInstance().histogram("kitchen.check.nanos");
+  private static final LatencyHistogram DEDUCT_TIME =
+      Metrics.getInstance().histogram("kitchen.deduct.nanos");
+  private static final LatencyHistogram RESERVE_TIME =
+      Metrics.getInstance().histogram("kitchen.reserve.nanos");
+
+  // the inventory, in the order the ingredients were first stocked
+  private CopyOnWriteArrayList<KitchenIngredient> inventory;
+  // the inventory, indexed by interned ingredient id; replaced whenever a new ingredient is stocked
+  private volatile KitchenIngredient[] inventoryById;
+  // the lock stripes guarding the amounts of the ingredients in the inventory
+  private final ReentrantLock[] inventoryLocks;
+  // the file the amounts in stock are kept in, or null if they're only held in memory
+  private InventoryLedger ledger;
+  // dishes waiting for a cook, in the order the scheduling policy makes them
+  private DishScheduler toMake;
+  // dishes being cooked
+  private Set<OrderedDish> inProgress;
+  // dishes cooked and waiting for a server
+  private Set<OrderedDish> toDeliver;
+
+  // whether the head of toMake has changed since observers were last notified
+  private final AtomicBoolean queueChanged = new AtomicBoolean();
+  // ingredients that ran low since observers were last notified, keyed by name
+  private final LinkedHashMap<String, KitchenIngredient> lowStock = new LinkedHashMap<>();
+  // publishes events on a fixed tick, or null if they're published after every operation
+  private volatile ScheduledExecutorService ticker;
+  // how fast each ingredient is being used
+  private final DemandForecaster forecaster = new DemandForecaster();
+  // the ingredients reordered and not yet restocked
+  private final ReorderEngine reorders = new ReorderEngine(forecaster);
+  // the changes to the dishes in this kitchen, for kitchen displays
+  private final KitchenFeed feed = new KitchenFeed(KitchenFeed.DEFAULT_RETENTION);
 
   Kitchen(String inventoryFilePath) {
+    this(inventoryFilePath, null);
+  }
+
+  /**
+   * Create a kitchen whose amounts in stock are kept in a ledger file
+   *
+   * <p>If the ledger already holds ingredients, they are the inventory and the inventory file is
+   * not read; otherwise the ledger is filled from the inventory file. If the ledger can't be
+   * opened, the amounts are only held in memory.
+   *
+   * @param inventoryFilePath: the path to the file with details on the inventory
+   * @param ledgerPath: the path to the ledger file, or null to hold the amounts only in memory
+   */
+  Kitchen(String inventoryFilePath, String ledgerPath) {
+    inventoryLocks = new ReentrantLock[LOCK_STRIPES];
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      inventoryLocks[i] = new ReentrantLock();
+    }
+    if (ledgerPath != null) {
+      try {
+        ledger = InventoryLedger.open(ledgerPath);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
     initializeInventory(inventoryFilePath);
-    toMake = new LinkedList<>();
-    inProgress = new ArrayList<>();
-    toDeliver = new ArrayList<>();
+    toMake = new DishScheduler(DishScheduler.Policy.FIFO);
+    inProgress = ConcurrentHashMap.newKeySet();
+    toDeliver = ConcurrentHashMap.newKeySet();
+    Metrics metrics = Metrics.getInstance();
+    metrics.gauge("kitchen.toMake", toMake::size);
+    metrics.gauge("kitchen.inProgress", inProgress::size);
+    metrics.gauge("kitchen.toDeliver", toDeliver::size);
   }
 
   /** @return a String representation of all orders in progress */
   String inProgress() {
     StringBuilder sb = new StringBuilder();
-    for (OrderedDish d : toMake) {
+    for (OrderedDish d : toMake.toList()) {
       sb.append(d.toString());
     }
     for (OrderedDish d : toDeliver) {
@@ -48,6 +139,7 @@ public class Kitchen extends Observable implements FileCreator {
    */
   void addInProgress(OrderedDish d) {
     inProgress.add(d);
+    feed.publish(KitchenFeed.Type.STARTED, d);
   }
 
   /**
@@ -58,6 +150,26 @@ public class Kitchen extends Observable implements FileCreator {
   void moveToDeliver(OrderedDish d) {
     inProgress.remove(d);
     toDeliver.add(d);
+    feed.publish(KitchenFeed.Type.READY, d);
+  }
+
+  /**
+   * Remove the given ordered dish from those waiting to be delivered, once it has been served
+   *
+   * @param d the Ordered Dish that was served
+   */
+  void markDelivered(OrderedDish d) {
+    toDeliver.remove(d);
+    feed.publish(KitchenFeed.Type.SERVED, d);
+  }
+
+  /**
+   * Record that a cook cancelled the given ordered dish, for lack of ingredients
+   *
+   * @param d the Ordered Dish that was cancelled
+   */
+  void markCancelled(OrderedDish d) {
+    feed.publish(KitchenFeed.Type.CANCELLED, d);
   }
 
   /**
@@ -70,16 +182,29 @@ public class Kitchen extends Observable implements FileCreator {
    * <p>For example: Pasta | 19.5 | 10
    *
    * @param inventoryFilePath: the path to the file with details on the inventory
+   * @throws RecordFile.FormatException if a line of the file isn't formatted as above
    */
   private void initializeInventory(String inventoryFilePath) {
-    inventory = new ArrayList<>();
+    inventory = new CopyOnWriteArrayList<>();
+    inventoryById = new KitchenIngredient[0];
+    if (ledger != null && ledger.size() > 0) {
+      for (int slot = 0; slot < ledger.size(); slot++) {
+        addKitchenIngredient(new KitchenIngredient(ledger, slot, this));
+      }
+      return;
+    }
     try {
-      Scanner sc = new Scanner(new File(inventoryFilePath));
-      while (sc.hasNextLine()) {
-        initializeInventoryHelper(sc.nextLine());
+      for (KitchenIngredient ing :
+          RecordFile.load(inventoryFilePath, this::initializeInventoryHelper)) {
+        addKitchenIngredient(
+            ledger == null
+                ? ing
+                : newKitchenIngredient(ing.getName(), ing.getAmount(), ing.getThreshold()));
       }
-    } catch (FileNotFoundException e) {
+    } catch (NoSuchFileException e) {
       createNewFile(inventoryFilePath);
+    } catch (IOException e) {
+      e.printStackTrace();
     }
   }
 
@@ -87,11 +212,85 @@ public class Kitchen extends Observable implements FileCreator {
    * Helper for the initializeInventory method
    *
    * @param line: the line to parse.
+   * @return the ingredient on the line, held in memory
    */
-  private void initializeInventoryHelper(String line) {
-    String[] input = line.split("\\s\\|\\s");
-    inventory.add(
-        new KitchenIngredient(input[0], Double.valueOf(input[1]), Double.valueOf(input[2]), this));
+  private KitchenIngredient initializeInventoryHelper(RecordFile.Row line) {
+    return new KitchenIngredient(line.text(0), line.number(1), line.number(2), this);
+  }
+
+  /**
+   * Create a KitchenIngredient of this kitchen, in a new slot of the ledger if there is one
+   *
+   * @param name: the name of the ingredient
+   * @param amount: the amount in stock
+   * @param threshold: the reorder threshold
+   * @return the new kitchen ingredient
+   */
+  private KitchenIngredient newKitchenIngredient(String name, double amount, double threshold) {
+    if (ledger == null) {
+      return new KitchenIngredient(name, amount, threshold, this);
+    }
+    return new KitchenIngredient(ledger, ledger.add(name, amount, threshold), this);
+  }
+
+  /**
+   * Write the amounts in stock to the storage device and close the ledger, if there is one, once
+   * the kitchen is no longer in use
+   */
+  void closeLedger() {
+    if (ledger != null) {
+      try {
+        ledger.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Add a new KitchenIngredient to the inventory and its index
+   *
+   * @param ingredient: the kitchen ingredient to be added
+   */
+  private synchronized void addKitchenIngredient(KitchenIngredient ingredient) {
+    inventory.add(ingredient);
+    int id = IngredientRegistry.getInstance().idOf(ingredient.getName());
+    KitchenIngredient[] slots = inventoryById;
+    if (id >= slots.length || slots[id] == null) {
+      KitchenIngredient[] grown = Arrays.copyOf(slots, Math.max(slots.length, id + 1));
+      grown[id] = ingredient;
+      inventoryById = grown;
+    }
+  }
+
+  /** @return the ingredients in the inventory, in the order they were first stocked */
+  ArrayList<KitchenIngredient> getKitchenIngredients() {
+    return new ArrayList<>(inventory);
+  }
+
+  /**
+   * Set the amount and threshold of an ingredient to those recorded in a snapshot, stocking it if
+   * it isn't already in the inventory
+   *
+   * @param name: the name of the ingredient
+   * @param amount: the amount in stock
+   * @param threshold: the reorder threshold
+   */
+  void restoreIngredient(String name, double amount, double threshold) {
+    Ingredient ingredient = new Ingredient(name, amount);
+    long stripes = 1L << stripeOf(ingredient);
+    lockStripes(stripes);
+    try {
+      KitchenIngredient toSet = getKitchenIngredient(ingredient);
+      if (toSet == null) {
+        addKitchenIngredient(newKitchenIngredient(name, amount, threshold));
+      } else {
+        toSet.setAmount(amount);
+        toSet.setThreshold(threshold);
+      }
+    } finally {
+      unlockStripes(stripes);
+    }
   }
 
   /**
@@ -100,13 +299,59 @@ public class Kitchen extends Observable implements FileCreator {
    * @param ingredient: the new ingredient
    */
   void receiveShipment(Ingredient ingredient) {
-    KitchenIngredient toInc = getKitchenIngredient(ingredient);
-    if (toInc == null) { // add a new ingredient
-      this.inventory.add(
-          new KitchenIngredient(ingredient.getName(), ingredient.getAmount(), 20, this));
-    } else {
-      toInc.increment(ingredient.getAmount());
+    long stripes = 1L << stripeOf(ingredient);
+    lockStripes(stripes);
+    try {
+      KitchenIngredient toInc = getKitchenIngredient(ingredient);
+      if (toInc == null) { // add a new ingredient
+        String name = ingredient.getName();
+        addKitchenIngredient(
+            newKitchenIngredient(
+                name,
+                ingredient.getAmount(),
+                forecaster.thresholdFor(name, DEFAULT_THRESHOLD)));
+      } else {
+        toInc.increment(ingredient.getAmount());
+      }
+    } finally {
+      unlockStripes(stripes);
+    }
+    synchronized (lowStock) {
+      lowStock.remove(ingredient.getName());
     }
+    reorders.shipmentReceived(ingredient.getName());
+  }
+
+  /** @return the record of ingredients that have been reordered and not yet restocked */
+  ReorderEngine getReorderEngine() {
+    return reorders;
+  }
+
+  /** @return the forecaster of how fast each ingredient is being used */
+  DemandForecaster getForecaster() {
+    return forecaster;
+  }
+
+  /**
+   * @return a report of how fast each ingredient in the inventory is being used, how long it will
+   *     last, and how much of it would be ordered now
+   */
+  String forecast() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("=== Ingredient Forecast === \n");
+    for (KitchenIngredient ing : inventory) {
+      String name = ing.getName();
+      double amount = ing.getAmount();
+      sb.append(
+          String.format(
+              "%s: %.2f in stock, using %.2f/h, lasts %.1f h, order %d%n",
+              name,
+              amount,
+              forecaster.ratePerHour(name),
+              forecaster.hoursToStockout(name, amount),
+              forecaster.reorderQuantity(name, amount, ReorderEngine.REORDER_AMOUNT)));
+    }
+    return sb.toString();
   }
 
   /**
@@ -116,13 +361,25 @@ public class Kitchen extends Observable implements FileCreator {
    * @return true if sufficient ingredients, false otherwise
    */
   boolean sufficientIngredients(ArrayList<Ingredient> recipe) {
-    for (Ingredient ing : recipe) {
-      KitchenIngredient checkIng = getKitchenIngredient(ing);
-      if (checkIng == null || checkIng.getAmount() - ing.getAmount() < 0) {
-        return false;
-      }
+    return sufficientIngredients(Recipe.compile(recipe));
+  }
+
+  /**
+   * Check if there are sufficient ingredients to make a certain compiled recipe
+   *
+   * @param recipe: the compiled recipe
+   * @return true if sufficient ingredients, false otherwise
+   */
+  boolean sufficientIngredients(Recipe recipe) {
+    long start = Metrics.startTimer();
+    KitchenIngredient[] slots = inventoryById;
+    boolean sufficient = true;
+    for (int i = 0; i < recipe.size() && sufficient; i++) {
+      KitchenIngredient checkIng = slotOf(slots, recipe.idAt(i));
+      sufficient = checkIng != null && checkIng.getAmount() - recipe.amountAt(i) >= 0;
     }
-    return true;
+    CHECK_TIME.recordSince(start);
+    return sufficient;
   }
 
   /**
@@ -132,22 +389,96 @@ public class Kitchen extends Observable implements FileCreator {
    * @return the corresponding KitchenIngredient if it exists, otherwise null
    */
   private KitchenIngredient getKitchenIngredient(Ingredient ing) {
-    for (KitchenIngredient kitchenIngredient : this.inventory) {
-      if (kitchenIngredient.equals(ing)) {
-        return kitchenIngredient;
-      }
-    }
-    return null;
+    return slotOf(inventoryById, IngredientRegistry.getInstance().idOf(ing.getName()));
   }
 
   /**
-   * Notify the manager that this kitchen is running low on an ingredient
+   * @param slots: the inventory, indexed by ingredient id
+   * @param id: the id of an ingredient
+   * @return the corresponding KitchenIngredient if it exists, otherwise null
+   */
+  private static KitchenIngredient slotOf(KitchenIngredient[] slots, int id) {
+    return id < slots.length ? slots[id] : null;
+  }
+
+  /**
+   * Notify the manager that this kitchen is running low on an ingredient, at the end of this tick
+   *
+   * <p>Ingredients that have already been reordered are skipped until a shipment of them arrives.
    *
    * @param ingredient: the ingredient that the kitchen is running low on.
    */
   void notifyManager(KitchenIngredient ingredient) {
-    setChanged();
-    notifyObservers(ingredient);
+    if (reorders.isOutstanding(ingredient.getName())) {
+      return;
+    }
+    synchronized (lowStock) {
+      lowStock.put(ingredient.getName(), ingredient);
+    }
+  }
+
+  /**
+   * Pass every event raised since the last call to observers as a single batch.
+   *
+   * <p>Does nothing if no events were raised. Synchronized, since cooks and the ticker may publish
+   * at once, and Observable has a single changed flag: otherwise one batch could clear it before
+   * another is delivered, and that batch would be lost.
+   */
+  synchronized void publishEvents() {
+    ArrayList<KitchenEvent> events = new ArrayList<>();
+    if (queueChanged.getAndSet(false)) {
+      events.add(KitchenEvent.nextDish(toMake.peek()));
+    }
+    synchronized (lowStock) {
+      for (KitchenIngredient ing : lowStock.values()) {
+        events.add(KitchenEvent.lowStock(ing));
+      }
+      lowStock.clear();
+    }
+    if (!events.isEmpty()) {
+      setChanged();
+      notifyObservers(new KitchenEvent.Batch(events));
+    }
+  }
+
+  /**
+   * End the current tick after a kitchen operation, unless events are published on a fixed tick
+   */
+  private void endOperation() {
+    if (ticker == null) {
+      publishEvents();
+    }
+  }
+
+  /**
+   * Publish events to observers every given period, instead of after every kitchen operation
+   *
+   * @param periodMillis: the length of a tick
+   */
+  public synchronized void publishEvery(long periodMillis) {
+    if (ticker != null) {
+      ticker.shutdown();
+    }
+    ticker =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "kitchen-events");
+              t.setDaemon(true);
+              return t;
+            });
+    ticker.scheduleAtFixedRate(
+        this::publishEvents, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Add an observer that is updated through the given executor rather than on the thread that
+   * publishes the events; for example, a JavaFX component can pass Platform::runLater.
+   *
+   * @param o: the observer to be added
+   * @param executor: the executor that runs the observer's updates
+   */
+  public void addObserver(Observer o, Executor executor) {
+    addObserver((observable, arg) -> executor.execute(() -> o.update(observable, arg)));
   }
 
   /**
@@ -156,14 +487,233 @@ public class Kitchen extends Observable implements FileCreator {
    * @param ingredients: the ingredients to be used
    */
   public void useIngredients(ArrayList<Ingredient> ingredients) {
-    for (Ingredient toUse : ingredients) {
-      Ingredient ing = getKitchenIngredient(toUse);
+    useIngredients(Recipe.compile(ingredients));
+  }
+
+  /**
+   * Use the ingredients of a compiled recipe and deduct them from the inventory
+   *
+   * @param recipe: the compiled recipe
+   */
+  void useIngredients(Recipe recipe) {
+    long start = Metrics.startTimer();
+    long stripes = stripesOf(recipe);
+    lockStripes(stripes);
+    try {
+      KitchenIngredient[] slots = inventoryById;
+      for (int i = 0; i < recipe.size(); i++) {
+        KitchenIngredient ing = slotOf(slots, recipe.idAt(i));
+        if (ing != null) {
+          ing.take(recipe.amountAt(i));
+        }
+      }
+    } finally {
+      unlockStripes(stripes);
+    }
+    DEDUCT_TIME.recordSince(start);
+    recordUse(recipe, 1);
+    checkThresholds(recipe);
+    endOperation();
+  }
+
+  /**
+   * Check for and deduct all the ingredients needed to make a recipe as a single step.
+   *
+   * @param recipe: an ArrayList of ingredients that you need to make a recipe
+   * @return true if the ingredients were deducted, false if there were insufficient ingredients
+   */
+  boolean reserveIngredients(ArrayList<Ingredient> recipe) {
+    return reserveIngredients(Recipe.compile(recipe));
+  }
+
+  /**
+   * Check for and deduct all the ingredients needed to make a compiled recipe as a single step.
+   *
+   * <p>Either every ingredient is deducted or none are. Only the lock stripes covering the recipe
+   * are held, and they are always acquired in ascending order so that cooks reserving overlapping
+   * recipes cannot deadlock.
+   *
+   * @param recipe: the compiled recipe
+   * @return true if the ingredients were deducted, false if there were insufficient ingredients
+   */
+  boolean reserveIngredients(Recipe recipe) {
+    long start = Metrics.startTimer();
+    boolean reserved = false;
+    long stripes = stripesOf(recipe);
+    lockStripes(stripes);
+    try {
+      if (sufficientIngredients(recipe)) {
+        KitchenIngredient[] slots = inventoryById;
+        for (int i = 0; i < recipe.size(); i++) {
+          slotOf(slots, recipe.idAt(i)).take(recipe.amountAt(i));
+        }
+        reserved = true;
+      }
+    } finally {
+      unlockStripes(stripes);
+    }
+    RESERVE_TIME.recordSince(start);
+    if (reserved) {
+      recordUse(recipe, 1);
+      checkThresholds(recipe);
+      endOperation();
+    }
+    return reserved;
+  }
+
+  /**
+   * Check for and deduct the ingredients needed to make a compiled recipe several times, as many
+   * times as the inventory allows up to the given count, in a single step.
+   *
+   * <p>The lock stripes covering the recipe are held once for the whole batch, and each ingredient
+   * is deducted once, by the amount the batch needs.
+   *
+   * @param recipe: the compiled recipe
+   * @param count: the most times to make it
+   * @return the number of times the ingredients were deducted, from 0 to count
+   */
+  int reserveIngredients(Recipe recipe, int count) {
+    long start = Metrics.startTimer();
+    int reserved = count;
+    long stripes = stripesOf(recipe);
+    lockStripes(stripes);
+    try {
+      KitchenIngredient[] slots = inventoryById;
+      for (int i = 0; i < recipe.size() && reserved > 0; i++) {
+        KitchenIngredient ing = slotOf(slots, recipe.idAt(i));
+        double need = recipe.amountAt(i);
+        if (ing == null) {
+          reserved = 0;
+        } else if (need > 0) {
+          double amount = ing.getAmount();
+          int fits = (int) Math.min(reserved, Math.floor(amount / need));
+          // as many as taking one at a time would have allowed
+          while (fits > 0 && amount - fits * need < 0) {
+            fits--;
+          }
+          reserved = Math.max(fits, 0);
+        }
+      }
+      if (reserved > 0) {
+        for (int i = 0; i < recipe.size(); i++) {
+          KitchenIngredient ing = slotOf(slots, recipe.idAt(i));
+          if (ing != null) {
+            ing.take(recipe.amountAt(i) * reserved);
+          }
+        }
+      }
+    } finally {
+      unlockStripes(stripes);
+    }
+    RESERVE_TIME.recordSince(start);
+    if (reserved > 0) {
+      recordUse(recipe, reserved);
+      checkThresholds(recipe);
+      endOperation();
+    }
+    return reserved;
+  }
+
+  /**
+   * Put back the ingredients deducted for a compiled recipe, when the change they were deducted
+   * for couldn't be recorded and was abandoned
+   *
+   * @param recipe: the compiled recipe
+   * @param count: the number of times its ingredients were deducted
+   */
+  void returnIngredients(Recipe recipe, int count) {
+    long stripes = stripesOf(recipe);
+    lockStripes(stripes);
+    try {
+      KitchenIngredient[] slots = inventoryById;
+      for (int i = 0; i < recipe.size(); i++) {
+        KitchenIngredient ing = slotOf(slots, recipe.idAt(i));
+        if (ing != null) {
+          ing.increment(recipe.amountAt(i) * count);
+        }
+      }
+    } finally {
+      unlockStripes(stripes);
+    }
+  }
+
+  /**
+   * Tell the forecaster about the ingredients of a recipe just deducted, unless they are being
+   * replayed from the state journal, when they were used long ago
+   *
+   * @param recipe: the recipe whose ingredients were just deducted
+   * @param times: the number of times they were deducted
+   */
+  private void recordUse(Recipe recipe, int times) {
+    if (!StateJournal.isReplaying()) {
+      forecaster.recordUse(recipe, times);
+    }
+  }
+
+  /**
+   * Notify the manager of any of the ingredients in a recipe that the kitchen is running low on,
+   * either below their threshold or forecast to run out before a shipment could arrive.
+   *
+   * <p>Called once the inventory locks are released, so observers never run while holding them.
+   *
+   * @param recipe: the recipe whose ingredients were just deducted
+   */
+  private void checkThresholds(Recipe recipe) {
+    KitchenIngredient[] slots = inventoryById;
+    for (int i = 0; i < recipe.size(); i++) {
+      KitchenIngredient ing = slotOf(slots, recipe.idAt(i));
       if (ing != null) {
-        ing.decrement(toUse.getAmount());
+        if (forecaster.runningOut(recipe.idAt(i), ing.getAmount())) {
+          notifyManager(ing);
+        } else {
+          ing.checkThreshold();
+        }
       }
     }
   }
 
+  /**
+   * @param ing: an ingredient
+   * @return the index of the lock stripe guarding the given ingredient
+   */
+  private static int stripeOf(Ingredient ing) {
+    return IngredientRegistry.getInstance().idOf(ing.getName()) & (LOCK_STRIPES - 1);
+  }
+
+  /**
+   * @param recipe: a compiled recipe
+   * @return a bit set of the lock stripes guarding the recipe's ingredients
+   */
+  private static long stripesOf(Recipe recipe) {
+    long stripes = 0;
+    for (int i = 0; i < recipe.size(); i++) {
+      stripes |= 1L << (recipe.idAt(i) & (LOCK_STRIPES - 1));
+    }
+    return stripes;
+  }
+
+  /**
+   * Acquire the given lock stripes in ascending order
+   *
+   * @param stripes: a bit set of the lock stripes to acquire
+   */
+  private void lockStripes(long stripes) {
+    for (long s = stripes; s != 0; s &= s - 1) {
+      inventoryLocks[Long.numberOfTrailingZeros(s)].lock();
+    }
+  }
+
+  /**
+   * Release the given lock stripes
+   *
+   * @param stripes: a bit set of the lock stripes to release
+   */
+  private void unlockStripes(long stripes) {
+    for (long s = stripes; s != 0; s &= s - 1) {
+      inventoryLocks[Long.numberOfTrailingZeros(s)].unlock();
+    }
+  }
+
   /**
    * Add an ArrayList of OrderedDishes to the queue of dishes to be made.
    *
@@ -171,27 +721,140 @@ public class Kitchen extends Observable implements FileCreator {
    */
   void addOrderedDishesToMake(ArrayList<OrderedDish> dishesToAdd) {
     toMake.addAll(dishesToAdd);
-    if (toMake.size() > 0) {
-      setChanged();
-      notifyObservers(toMake.peekFirst().toString());
+    for (OrderedDish d : dishesToAdd) {
+      feed.publish(KitchenFeed.Type.ENQUEUED, d);
     }
+    if (!dishesToAdd.isEmpty()) {
+      queueChanged.set(true);
+      endOperation();
+    }
+  }
+
+  /**
+   * Remove the next ordered dish a cook should make
+   *
+   * @param station: the cook's station, or null if they have none
+   * @return the next ordered dish in the queue, or null if there is none
+   */
+  OrderedDish nextOrderedDish(String station) {
+    OrderedDish next = toMake.poll(station);
+    queueChanged.set(true);
+    endOperation();
+    return next;
   }
 
   /**
-   * Remove the next ordered dish to be made
+   * Remove the next ordered dish a cook should make, waiting for one to be sent to the kitchen if
+   * necessary
    *
-   * @return the next ordered dish in the queue
+   * @param station: the cook's station, or null if they have none
+   * @param timeout: how long to wait before giving up
+   * @param unit: the unit of the timeout
+   * @return the next ordered dish in the queue, or null if none arrived in time
+   * @throws InterruptedException if interrupted while waiting
    */
-  OrderedDish nextOrderedDish() {
-    OrderedDish next = null;
-    if (!toMake.isEmpty()) {
-      next = toMake.removeFirst();
+  OrderedDish awaitOrderedDish(String station, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    OrderedDish next = toMake.poll(station, timeout, unit);
+    if (next != null) {
+      queueChanged.set(true);
+      endOperation();
     }
-    setChanged();
-    notifyObservers(!toMake.isEmpty() ? toMake.peekFirst().toString() : "");
     return next;
   }
 
+  /**
+   * Remove the next ordered dish a cook should make, with up to max - 1 more queued dishes that
+   * are the same menu item with the same ingredients, to be made as one batch
+   *
+   * @param station: the cook's station, or null if they have none
+   * @param max: the most dishes to remove
+   * @return the dishes, the next one first, or none if none is queued
+   */
+  ArrayList<OrderedDish> nextOrderedDishes(String station, int max) {
+    ArrayList<OrderedDish> batch = toMake.pollBatch(station, max);
+    queueChanged.set(true);
+    endOperation();
+    return batch;
+  }
+
+  /**
+   * Remove a particular ordered dish from the queue of dishes to be made, as a cook did when the
+   * state journal is replayed
+   *
+   * @param d: the ordered dish
+   * @return true if the dish was in the queue
+   */
+  boolean claimOrderedDish(OrderedDish d) {
+    boolean claimed = toMake.remove(d);
+    if (claimed) {
+      queueChanged.set(true);
+      endOperation();
+    }
+    return claimed;
+  }
+
+  /** @return the scheduler deciding which waiting dish each cook makes next */
+  public DishScheduler getScheduler() {
+    return toMake;
+  }
+
+  /**
+   * Set where the orders of dishes are looked up, so the feed can say which table a dish is for
+   * and the scheduler can group dishes by order
+   *
+   * @param orders: the restaurant's index of open orders
+   */
+  void setOrderIndex(OrderIndex orders) {
+    feed.setOrderIndex(orders);
+    toMake.setOrderIndex(orders);
+  }
+
+  /** @return the feed of changes to the dishes in this kitchen */
+  public KitchenFeed getFeed() {
+    return feed;
+  }
+
+  /** @return the dishes being cooked */
+  ArrayList<OrderedDish> inProgressDishes() {
+    return new ArrayList<>(inProgress);
+  }
+
+  /** @return the dishes cooked and waiting for a server */
+  ArrayList<OrderedDish> readyDishes() {
+    return new ArrayList<>(toDeliver);
+  }
+
+  /** @return the number of dishes waiting for a cook */
+  int queuedCount() {
+    return toMake.size();
+  }
+
+  /** @return the dishes waiting for a cook, in the order they were sent to the kitchen */
+  ArrayList<OrderedDish> queuedDishes() {
+    return toMake.toList();
+  }
+
+  /**
+   * Put back the dishes recorded in a snapshot at each stage of the kitchen
+   *
+   * @param queued: the dishes waiting for a cook, in the order they will be made
+   * @param cooking: the dishes being cooked
+   * @param cooked: the dishes cooked and waiting for a server
+   */
+  void restoreDishes(
+      ArrayList<OrderedDish> queued,
+      ArrayList<OrderedDish> cooking,
+      ArrayList<OrderedDish> cooked) {
+    toMake.addAll(queued);
+    inProgress.addAll(cooking);
+    toDeliver.addAll(cooked);
+    if (!queued.isEmpty()) {
+      queueChanged.set(true);
+      endOperation();
+    }
+  }
+
   /** @return the formatted kitchen inventory */
   @Override
   public String toString() {
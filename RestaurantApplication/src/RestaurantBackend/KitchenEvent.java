@@ -0,0 +1,108 @@
+package RestaurantBackend;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A change in the kitchen that its observers may want to react to.
+ *
+ * <p>Events only hold references to the dish or ingredient concerned; observers format them if and
+ * when they need to. The kitchen delivers events to its observers in batches, with repeats of the
+ * same change collapsed into one event.
+ */
+public class KitchenEvent {
+
+  /** The kinds of change in the kitchen */
+  public enum Type {
+    // the dish at the head of the queue of dishes to be made has changed
+    NEXT_DISH,
+    // an ingredient has fallen to or below its reorder threshold
+    LOW_STOCK
+  }
+
+  private final Type type;
+  private final OrderedDish dish;
+  private final Ingredient ingredient;
+
+  /**
+   * A new KitchenEvent
+   *
+   * @param type: the kind of change
+   * @param dish: the dish concerned, if any
+   * @param ingredient: the ingredient concerned, if any
+   */
+  private KitchenEvent(Type type, OrderedDish dish, Ingredient ingredient) {
+    this.type = type;
+    this.dish = dish;
+    this.ingredient = ingredient;
+  }
+
+  /**
+   * @param dish: the dish now at the head of the queue, or null if the queue is empty
+   * @return an event announcing the next dish to be made
+   */
+  static KitchenEvent nextDish(OrderedDish dish) {
+    return new KitchenEvent(Type.NEXT_DISH, dish, null);
+  }
+
+  /**
+   * @param ingredient: the ingredient that is running low
+   * @return an event announcing that an ingredient is running low
+   */
+  static KitchenEvent lowStock(KitchenIngredient ingredient) {
+    return new KitchenEvent(Type.LOW_STOCK, null, ingredient);
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  /** @return the next dish to be made for a NEXT_DISH event, or null if there is none */
+  public OrderedDish getDish() {
+    return dish;
+  }
+
+  /** @return the ingredient running low for a LOW_STOCK event, otherwise null */
+  public Ingredient getIngredient() {
+    return ingredient;
+  }
+
+  @Override
+  public String toString() {
+    switch (type) {
+      case NEXT_DISH:
+        return dish != null ? dish.toString() : "";
+      case LOW_STOCK:
+        return String.format("Running low on %s", ingredient.getName());
+      default:
+        return type.toString();
+    }
+  }
+
+  /** The events raised in the kitchen during a single tick, passed to its observers together */
+  public static class Batch implements Iterable<KitchenEvent> {
+
+    private final List<KitchenEvent> events;
+
+    /**
+     * A new Batch
+     *
+     * @param events: the events in this batch
+     */
+    Batch(ArrayList<KitchenEvent> events) {
+      this.events = Collections.unmodifiableList(events);
+    }
+
+    /** @return the number of events in this batch */
+    public int size() {
+      return events.size();
+    }
+
+    @Override
+    public Iterator<KitchenEvent> iterator() {
+      return events.iterator();
+    }
+  }
+}
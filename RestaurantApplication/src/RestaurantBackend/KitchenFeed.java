@@ -0,0 +1,277 @@
+package RestaurantBackend;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A versioned feed of the changes to the dishes in a kitchen, for kitchen displays.
+ *
+ * <p>Every change is given the next sequence number and kept in a ring holding the most recent
+ * changes. Consumers read from a sequence number of their choosing, waiting for changes if they are
+ * up to date, and resume from where they left off; nothing is pushed to them, so the kitchen never
+ * waits for a consumer, and a consumer only ever holds the changes it asked for. A consumer that
+ * falls so far behind that the changes it needs have left the ring is told how many it missed, and
+ * should fetch the kitchen's current state and continue from there.
+ *
+ * <p>Each change holds a dish's new status, so applying a change twice does no harm: a consumer
+ * can note the next sequence number, fetch the kitchen's state, and read from the noted number.
+ * Sequence numbers start over when the backend restarts; the epoch tells one run's feed from
+ * another's.
+ */
+public class KitchenFeed {
+
+  /** The kinds of change to a dish */
+  public enum Type {
+    // sent to the kitchen, or sent back, to be made
+    ENQUEUED,
+    // seen by a cook, who started making it
+    STARTED,
+    // made, and waiting to be served
+    READY,
+    // seen by a cook, and cancelled for lack of ingredients
+    CANCELLED,
+    // served, so it has left the kitchen
+    SERVED
+  }
+
+  // the number of changes kept by default
+  static final int DEFAULT_RETENTION = 4096;
+
+  private final long epoch = System.currentTimeMillis();
+  private final Change[] ring;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition published = lock.newCondition();
+  // the sequence number of the next change
+  private long next;
+  // finds the order of a dish, or null if the feed doesn't know the restaurant's orders
+  private volatile OrderIndex orders;
+
+  /**
+   * A new KitchenFeed
+   *
+   * @param retention: the number of recent changes kept for consumers to read
+   */
+  KitchenFeed(int retention) {
+    this.ring = new Change[retention];
+  }
+
+  /**
+   * Set where the orders of dishes are looked up, so changes can say which table they are for
+   *
+   * @param orders: the restaurant's index of open orders
+   */
+  void setOrderIndex(OrderIndex orders) {
+    this.orders = orders;
+  }
+
+  /** @return the identifier of this run's feed */
+  public long getEpoch() {
+    return epoch;
+  }
+
+  /** @return the sequence number the next change will have */
+  public long getNext() {
+    lock.lock();
+    try {
+      return next;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Add a change to the feed, and wake the consumers waiting for one; replayed changes aren't
+   * added, since nobody was watching when they were made
+   *
+   * @param type: the kind of change
+   * @param dish: the dish that changed
+   */
+  void publish(Type type, OrderedDish dish) {
+    if (StateJournal.isReplaying()) {
+      return;
+    }
+    OrderIndex index = orders;
+    Order order = index == null ? null : index.getOrderOfDish(dish.getID());
+    long now = System.currentTimeMillis();
+    lock.lock();
+    try {
+      ring[(int) (next % ring.length)] = new Change(next, type, dish, order, now);
+      next++;
+      published.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Read changes from a sequence number on, waiting for one if there are none yet
+   *
+   * @param from: the sequence number of the first change wanted
+   * @param max: the most changes to return
+   * @param timeout: how long to wait for a change
+   * @param unit: the unit of the timeout
+   * @return the changes, which are none if none were made in time
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public Slice read(long from, int max, long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lock();
+    try {
+      // a sequence number from beyond the end belongs to an earlier run; start at the end
+      from = Math.min(from, next);
+      while (from >= next && nanos > 0) {
+        nanos = published.awaitNanos(nanos);
+      }
+      long oldest = Math.max(0, next - ring.length);
+      long start = Math.max(from, oldest);
+      int count = (int) Math.min(max, next - start);
+      ArrayList<Change> changes = new ArrayList<>(count);
+      for (long seq = start; seq < start + count; seq++) {
+        changes.add(ring[(int) (seq % ring.length)]);
+      }
+      return new Slice(epoch, changes, start + count, Math.max(0, oldest - from));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @param from: the sequence number of the first change wanted
+   * @return a subscription that reads changes from the given sequence number on
+   */
+  public Subscription subscribe(long from) {
+    return new Subscription(from);
+  }
+
+  /** A change to a dish; it holds what the dish was like when it changed, and never changes */
+  public static class Change {
+    private final long seq;
+    private final Type type;
+    private final long dishId;
+    private final String dishName;
+    private final Recipe recipe;
+    private final int tableNumber;
+    private final long orderNumber;
+    private final long timeMillis;
+
+    private Change(long seq, Type type, OrderedDish dish, Order order, long timeMillis) {
+      this.seq = seq;
+      this.type = type;
+      this.dishId = dish.getID();
+      this.dishName = dish.getName();
+      this.recipe = dish.getRecipe();
+      this.tableNumber = order == null ? -1 : order.getTableNumber();
+      this.orderNumber = order == null ? -1 : order.getOrderNumber();
+      this.timeMillis = timeMillis;
+    }
+
+    public long getSeq() {
+      return seq;
+    }
+
+    public Type getType() {
+      return type;
+    }
+
+    public long getDishId() {
+      return dishId;
+    }
+
+    public String getDishName() {
+      return dishName;
+    }
+
+    /** @return a new list of the dish's ingredients, with any changes applied */
+    public ArrayList<Ingredient> getIngredients() {
+      return recipe.toIngredients();
+    }
+
+    /** @return the number of the dish's table, or -1 if it isn't known */
+    public int getTableNumber() {
+      return tableNumber;
+    }
+
+    /** @return the number of the dish's order, or -1 if it isn't known */
+    public long getOrderNumber() {
+      return orderNumber;
+    }
+
+    /** @return when the change was made, in milliseconds since the epoch */
+    public long getTimeMillis() {
+      return timeMillis;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d %s #%d, %s", seq, type, dishId, dishName);
+    }
+  }
+
+  /** Changes read from the feed, and where to read from next */
+  public static class Slice {
+    private final long epoch;
+    private final List<Change> changes;
+    private final long next;
+    private final long missed;
+
+    private Slice(long epoch, ArrayList<Change> changes, long next, long missed) {
+      this.epoch = epoch;
+      this.changes = Collections.unmodifiableList(changes);
+      this.next = next;
+      this.missed = missed;
+    }
+
+    /** @return the identifier of the feed the changes were read from */
+    public long getEpoch() {
+      return epoch;
+    }
+
+    /** @return the changes, in order */
+    public List<Change> getChanges() {
+      return changes;
+    }
+
+    /** @return the sequence number to read from next */
+    public long getNext() {
+      return next;
+    }
+
+    /** @return the number of changes asked for that had already left the feed */
+    public long getMissed() {
+      return missed;
+    }
+  }
+
+  /** A consumer's place in the feed */
+  public class Subscription {
+    private long next;
+
+    private Subscription(long from) {
+      this.next = from;
+    }
+
+    /**
+     * Read the changes after those already read, waiting for one if there are none yet
+     *
+     * @param max: the most changes to return
+     * @param timeout: how long to wait for a change
+     * @param unit: the unit of the timeout
+     * @return the changes, which are none if none were made in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Slice poll(int max, long timeout, TimeUnit unit) throws InterruptedException {
+      Slice slice = read(next, max, timeout, unit);
+      next = slice.getNext();
+      return slice;
+    }
+
+    /** @return the sequence number of the next change this subscription will read */
+    public long getNext() {
+      return next;
+    }
+  }
+}
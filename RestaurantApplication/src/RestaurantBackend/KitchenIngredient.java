@@ -1,10 +1,18 @@
 package RestaurantBackend;
 
-/** A kitchen ingredient */
+/**
+ * A kitchen ingredient
+ *
+ * <p>Its amount and threshold are either held in memory or kept in a slot of an InventoryLedger.
+ */
 class KitchenIngredient extends Ingredient {
 
     private double threshold;
     private Kitchen kitchen;
+    // the ledger holding this ingredient's amount and threshold, or null if they're held here
+    private final InventoryLedger ledger;
+    // this ingredient's slot in the ledger
+    private final int slot;
 
     /**
      * Constructor for a new KitchenIngredient
@@ -18,18 +26,106 @@ class KitchenIngredient extends Ingredient {
         super(name, value);
         this.kitchen = kitchen;
         this.threshold = threshold;
+        this.ledger = null;
+        this.slot = -1;
     }
 
     /**
-     * Decrements the current amount of ingredient by the given value.
+     * Constructor for a KitchenIngredient whose amount and threshold are kept in a ledger
+     *
+     * @param ledger The ledger
+     * @param slot The ingredient's slot in the ledger
+     * @param kitchen The kitchen that this ingredient belongs to
+     */
+    KitchenIngredient(InventoryLedger ledger, int slot, Kitchen kitchen) {
+        super(ledger.nameAt(slot), 0);
+        this.kitchen = kitchen;
+        this.ledger = ledger;
+        this.slot = slot;
+    }
+
+    /**
+     * Returns the threshold at or below which this ingredient needs to be reordered.
+     *
+     * @return The reorder threshold.
+     */
+    double getThreshold() {
+        return ledger == null ? threshold : ledger.thresholdAt(slot);
+    }
+
+    /**
+     * Sets the threshold at or below which this ingredient needs to be reordered.
+     *
+     * @param threshold The new reorder threshold.
+     */
+    void setThreshold(double threshold) {
+        if (ledger == null) {
+            this.threshold = threshold;
+        } else {
+            ledger.setThreshold(slot, threshold);
+        }
+    }
+
+    @Override
+    double getAmount() {
+        return ledger == null ? super.getAmount() : ledger.amountAt(slot);
+    }
+
+    @Override
+    void setAmount(double amount) {
+        if (ledger == null) {
+            super.setAmount(amount);
+        } else {
+            ledger.setAmount(slot, amount);
+        }
+    }
+
+    @Override
+    public void increment(double amount) {
+        if (ledger == null) {
+            super.increment(amount);
+        } else {
+            ledger.increment(slot, amount);
+        }
+    }
+
+    /**
+     * Decrements the current amount of ingredient by the given value, in the ledger if it is kept
+     * in one.
      * Notifies the Manager when amount after decrementing is below the set threshold.
      *
      * @param value The amount that you want to decrement the ingredient by.
      */
     @Override
     public void decrement(double value) {
-        super.decrement(value);
-        if (this.getAmount() <= threshold) {
+        if (ledger == null) {
+            super.decrement(value);
+        } else {
+            ledger.take(slot, value);
+        }
+        checkThreshold();
+        kitchen.publishEvents();
+    }
+
+    /**
+     * Decrements the current amount of ingredient by the given value without notifying the Manager.
+     *
+     * @param value The amount that you want to decrement the ingredient by.
+     */
+    void take(double value) {
+        if (ledger == null) {
+            super.decrement(value);
+        } else {
+            ledger.take(slot, value);
+        }
+    }
+
+    /**
+     * Notifies the Manager if the current amount is at or below the set threshold, once the
+     * kitchen publishes its events.
+     */
+    void checkThreshold() {
+        if (this.getAmount() <= getThreshold()) {
             kitchen.notifyManager(this);
         }
     }
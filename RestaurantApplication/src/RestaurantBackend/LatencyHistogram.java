@@ -0,0 +1,159 @@
+package RestaurantBackend;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations, in nanoseconds, with a fixed relative error.
+ *
+ * <p>Like an HDR histogram, values below 64 each have a bucket of their own, and every power of two
+ * above that is split into 32 equal buckets, so a value is reported to within about 3% of what was
+ * recorded, across the whole range of a long, in under 2000 buckets. Recording is lock-free: it
+ * increments one bucket and never allocates.
+ *
+ * <p>Values are only recorded while Metrics are enabled.
+ */
+public class LatencyHistogram {
+
+  // values below this have a bucket of their own
+  private static final int LINEAR = 64;
+  // the number of buckets each power of two from LINEAR up is split into
+  private static final int SUB_BUCKETS = 32;
+  private static final int SUB_BITS = 5;
+  private static final int BUCKETS = LINEAR + (63 - SUB_BITS - 1) * SUB_BUCKETS;
+
+  private final String name;
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * A new, empty LatencyHistogram
+   *
+   * @param name: the name it is registered under
+   */
+  LatencyHistogram(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Record a duration
+   *
+   * @param nanos: the duration, in nanoseconds; negative durations are recorded as 0
+   */
+  public void record(long nanos) {
+    if (!Metrics.isEnabled()) {
+      return;
+    }
+    long value = Math.max(nanos, 0);
+    counts.incrementAndGet(indexOf(value));
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Record the time since a timer was started
+   *
+   * @param start: the value Metrics.startTimer returned; 0 if metrics were disabled, so nothing is
+   *     recorded
+   */
+  public void recordSince(long start) {
+    if (start != 0) {
+      record(System.nanoTime() - start);
+    }
+  }
+
+  /** @return the number of durations recorded */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /** @return the mean of the durations recorded, in nanoseconds, or 0 if there are none */
+  public double getMean() {
+    long n = count.sum();
+    return n == 0 ? 0 : (double) sum.sum() / n;
+  }
+
+  /** @return the longest duration recorded, in nanoseconds */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * @param percentile: the percentile, between 0 and 100
+   * @return the duration at the given percentile, in nanoseconds, as the largest value of its
+   *     bucket, or 0 if none were recorded
+   */
+  public long getValueAtPercentile(double percentile) {
+    long total = count.sum();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(highestValueOf(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /** Forget every recorded duration */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    count.reset();
+    sum.reset();
+    max.reset();
+  }
+
+  /**
+   * @param value: a non-negative duration
+   * @return the index of the bucket holding it
+   */
+  static int indexOf(long value) {
+    if (value < LINEAR) {
+      return (int) value;
+    }
+    // keep the top SUB_BITS + 1 bits of the value, the highest of which is always set
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    return LINEAR + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  /**
+   * @param index: the index of a bucket
+   * @return the largest value the bucket holds
+   */
+  static long highestValueOf(int index) {
+    if (index < LINEAR) {
+      return index;
+    }
+    int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+    long sub = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+    return ((sub + 1) << shift) - 1;
+  }
+
+  /** @return a summary of this histogram, in microseconds */
+  @Override
+  public String toString() {
+    return String.format(
+        "count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+        getCount(),
+        getMean() / 1e3,
+        getValueAtPercentile(50) / 1e3,
+        getValueAtPercentile(90) / 1e3,
+        getValueAtPercentile(99) / 1e3,
+        getValueAtPercentile(99.9) / 1e3,
+        getMax() / 1e3);
+  }
+}
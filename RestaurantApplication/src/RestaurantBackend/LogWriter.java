@@ -2,13 +2,42 @@ package RestaurantBackend;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.time.LocalDate;
 import java.util.Observable;
+import java.util.function.ToLongFunction;
 
+/**
+ * The restaurant's log.
+ *
+ * <p>By default every line is written to the log file on the caller's thread. Once asynchronous
+ * mode is started, lines are handed to an AsyncLogSink and written in batches by its own thread.
+ */
 public class LogWriter extends Observable{
 
   private static final LogWriter INSTANCE = new LogWriter();
-  private static final String LOG_PATH = "log.txt";
+  private static final String LOG_PATH = DataFiles.path("log.txt");
+
+  // how long callers spend writing a line, or handing it to the asynchronous sink
+  private static final LatencyHistogram WRITE_TIME =
+      Metrics.getInstance().histogram("log.write.nanos");
+
+  // the asynchronous sink, or null when writing synchronously
+  private volatile AsyncLogSink sink;
+
+  private LogWriter() {
+    Metrics metrics = Metrics.getInstance();
+    metrics.gauge("log.queue.depth", () -> sinkStat(AsyncLogSink::getDepth));
+    metrics.gauge("log.queue.maxDepth", () -> sinkStat(AsyncLogSink::getMaxDepth));
+    metrics.gauge("log.queue.stalls", () -> sinkStat(AsyncLogSink::getStalls));
+  }
+
+  /**
+   * @param stat: reads a statistic of the asynchronous sink
+   * @return the statistic, or 0 when writing synchronously
+   */
+  private long sinkStat(ToLongFunction<AsyncLogSink> stat) {
+    AsyncLogSink current = sink;
+    return current == null ? 0 : stat.applyAsLong(current);
+  }
 
   /**
    * Returns the current instance of the LogWriter.
@@ -25,26 +54,81 @@ public class LogWriter extends Observable{
    * @param line The line of text that you wish to write into
    */
   void write(String line) {
-    try {
-      this.setChanged();
-      notifyObservers(line);
-      FileWriter fw = new FileWriter(new File(LOG_PATH), true);
-      fw.write(line + "\r\n");
-      fw.close();
-    } catch (IOException e) {
-      e.printStackTrace();
+    // replayed changes were logged the first time
+    if (StateJournal.isReplaying()) {
+      return;
+    }
+    long start = Metrics.startTimer();
+    this.setChanged();
+    notifyObservers(line);
+    AsyncLogSink current = sink;
+    if (current == null || !current.append(line)) {
+      writeNow(line);
     }
+    WRITE_TIME.recordSince(start);
   }
 
   /**
-   *  Creates a new text file, its name using the current time.
-   *  The given payment record will be written into the created file.
+   * Writes the line recording the given event into the log text file, formatting it only if it
+   * will be written.
    *
-   * @param line The payment records.
+   * @param event The event that happened
    */
-  void writeToPaymentRecords(String line) {
+  void write(RestaurantEvent event) {
+    if (StateJournal.isReplaying()) {
+      return;
+    }
+    write(event.toString());
+  }
+
+  /**
+   * Start writing the log asynchronously; does nothing if already started
+   *
+   * @param capacity The number of lines that can wait to be written before writers have to wait
+   * @param flushIntervalMillis How long lines may accumulate before being written as a batch
+   * @param durability When written lines are forced to disk
+   * @throws IOException if the log file can't be opened
+   */
+  public synchronized void startAsync(
+      int capacity, long flushIntervalMillis, AsyncLogSink.Durability durability)
+      throws IOException {
+    if (sink == null) {
+      sink = new AsyncLogSink(LOG_PATH, capacity, flushIntervalMillis, durability);
+    }
+  }
+
+  /**
+   * Write every line still waiting in the asynchronous sink, and go back to writing synchronously
+   */
+  public synchronized void shutdown() {
+    AsyncLogSink current = sink;
+    if (current != null) {
+      sink = null;
+      try {
+        current.close();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Returns the asynchronous sink, whose statistics describe the backlog of unwritten lines.
+   *
+   * @return the asynchronous sink, or null when writing synchronously
+   */
+  public AsyncLogSink getAsyncSink() {
+    return sink;
+  }
+
+  /**
+   * Writes the given line of text into the log text file on the caller's thread.
+   *
+   * @param line The line of text that you wish to write into
+   */
+  private void writeNow(String line) {
     try {
-      FileWriter fw = new FileWriter(new File(String.format("PaymentRecords\\%s.txt",LocalDate.now().toString())), true);
+      FileWriter fw = new FileWriter(new File(LOG_PATH), true);
       fw.write(line + "\r\n");
       fw.close();
     } catch (IOException e) {
@@ -1,21 +1,17 @@
 package RestaurantBackend;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Observable;
 import java.util.Observer;
 
 /**
  * A Manager
  *
- * <p>Managers can view the inventory.
+ * <p>Managers can view the inventory and the payments made.
  */
 public class Manager extends Employee implements Observer {
 
-  private static final String REQUESTS_PATH = "requests.txt";
-
   /**
    * A new manager
    *
@@ -26,44 +22,60 @@ public class Manager extends Employee implements Observer {
     super(name, r);
   }
 
-  /**
-   * Writes a request for more of a kitchen ingredient to the requests.txt file
-   *
-   * @param i: the kitchen ingredient being requested
-   */
-  private void writeRequest(KitchenIngredient i) {
-    try {
-      PrintWriter pw = new PrintWriter(new FileOutputStream(new File(REQUESTS_PATH), true));
-      pw.println(String.format("I'd like to Order 20 more %s", i.getName()));
-      pw.close();
-    } catch (IOException e) {
-      e.printStackTrace();
-    }
-  }
-
   /** Returns the restaurant inventory */
   public String checkInventory() {
-    LogWriter.getInstance().write(String.format("%s requests an inventory printout.", this.name));
+    LogWriter.getInstance().write(RestaurantEvent.inventoryChecked(this.name));
     return super.kitchen.toString();
   }
 
+  /**
+   * @return how fast each ingredient is being used, how long it will last, and how much of it
+   *     would be ordered now
+   */
+  public String getForecast() {
+    return super.kitchen.forecast();
+  }
+
   /** @return A String representation of all orders in progress */
   public String getOrdersInProgress() {
     return super.kitchen.inProgress();
   }
 
+  /**
+   * Returns the payments made between two days, inclusive, as bills
+   *
+   * @param from: the first day
+   * @param to: the last day
+   * @return A String representation of the payments made between the two days
+   */
+  public String getPaymentRecords(LocalDate from, LocalDate to) {
+    StringBuilder sb = new StringBuilder();
+    for (PaymentRecord record : PaymentLedger.getInstance().query(from, to)) {
+      sb.append(record).append("\n");
+    }
+    return sb.toString();
+  }
+
   /**
    * Updates this Observer according to the given arguments.
    *
    * @param o The Observable Object(Kitchen).
-   * @param arg The argument(KitchenIngredient) that is passed to all observers.
+   * @param arg The argument(KitchenEvent.Batch) that is passed to all observers.
    */
   @Override
   public void update(Observable o, Object arg) {
-    if (o instanceof Kitchen && arg instanceof KitchenIngredient) {
-      LogWriter.getInstance().write(
-          String.format("Added a request for %s", ((KitchenIngredient) arg).getName()));
-      this.writeRequest((KitchenIngredient) arg);
+    if (o instanceof Kitchen && arg instanceof KitchenEvent.Batch) {
+      ArrayList<Ingredient> lowStock = new ArrayList<>();
+      for (KitchenEvent event : (KitchenEvent.Batch) arg) {
+        if (event.getType() == KitchenEvent.Type.LOW_STOCK) {
+          lowStock.add(event.getIngredient());
+        }
+      }
+      if (!lowStock.isEmpty()) {
+        for (Ingredient requested : super.kitchen.getReorderEngine().request(lowStock)) {
+          LogWriter.getInstance().write(RestaurantEvent.reorderRequested(requested.getName()));
+        }
+      }
     }
   }
 }
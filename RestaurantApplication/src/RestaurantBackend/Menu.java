@@ -1,27 +1,189 @@
 package RestaurantBackend;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.Scanner;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The restaurant menu
  *
  * <p>Contains the names of all menu items, and the ingredients required to make said item.
+ *
+ * <p>The items are read from the MenuCatalog compiled from the menu file when it is up to date, so
+ * only the items that are used are ever made; otherwise the menu file is parsed.
+ *
+ * <p>The menu can be reloaded while the restaurant is open, by calling reload or by watching the
+ * menu file. Each load makes a new MenuVersion, which replaces the current one whole; readers take
+ * no lock, and see either the old version or the new one. Dishes already ordered keep the recipe
+ * and price they were ordered at.
  */
 public class Menu implements FileCreator {
 
-  private ArrayList<Dish> items;
+  private static final Metrics.Counter RELOADS = Metrics.getInstance().counter("menu.reloads");
+  // how long the menu file must go unchanged before a change to it is loaded
+  private static final long SETTLE_MILLIS = 200;
 
+  // the path of the menu file
+  private final String menuPath;
+  // the current version of the menu
+  private volatile MenuVersion current;
+  // watches the menu file for changes, or null if it isn't being watched
+  private WatchService watcher;
+
+  /**
+   * The menu in the given file, read from the catalog compiled from it if there is an up-to-date
+   * one, and parsed from the file otherwise
+   *
+   * @param menuPath: the file path containing the menu items
+   * @throws RecordFile.FormatException if a line of the file isn't formatted as loadDishes expects
+   */
   Menu(String menuPath) {
-    initializeMenu(menuPath);
+    this.menuPath = menuPath;
+    MenuVersion first = new MenuVersion(1, new ArrayList<>());
+    try {
+      first = load(1);
+    } catch (NoSuchFileException e) {
+      createNewFile(menuPath);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    current = first;
+  }
+
+  /**
+   * Load the menu file
+   *
+   * @param number: the number to give the new version
+   * @return the menu in the file, read from its catalog if it is up to date
+   * @throws IOException if the file can't be read
+   * @throws RecordFile.FormatException if a line of the file isn't formatted as loadDishes expects
+   */
+  private MenuVersion load(long number) throws IOException {
+    MenuCatalog catalog = MenuCatalog.openFor(menuPath);
+    if (catalog != null) {
+      return new MenuVersion(number, catalog);
+    }
+    return new MenuVersion(number, loadDishes(menuPath));
   }
 
   /**
-   * Initializes the menu
+   * Load the menu file again, and make what it holds the current version of the menu
+   *
+   * <p>If the file can't be read or parsed, the current version is kept.
+   *
+   * @return true if a new version was loaded
+   */
+  public synchronized boolean reload() {
+    try {
+      current = load(current.getNumber() + 1);
+    } catch (IOException | RecordFile.FormatException e) {
+      e.printStackTrace();
+      return false;
+    }
+    RELOADS.increment();
+    return true;
+  }
+
+  /**
+   * Reload the menu whenever the menu file, or the catalog compiled from it, changes, until
+   * stopWatching is called
+   *
+   * <p>A change is loaded once the file has gone SETTLE_MILLIS without changing again, so that a
+   * file written in several steps is loaded once, whole.
+   *
+   * @throws IOException if the directory holding the menu file can't be watched
+   */
+  public synchronized void watch() throws IOException {
+    if (watcher != null) {
+      return;
+    }
+    Path file = Paths.get(menuPath).toAbsolutePath();
+    Path dir = file.getParent();
+    WatchService service = dir.getFileSystem().newWatchService();
+    dir.register(
+        service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    watcher = service;
+    Path catalog = Paths.get(MenuCatalog.catalogPath(file.toString())).getFileName();
+    Thread t = new Thread(() -> watch(service, file.getFileName(), catalog), "menu-watcher");
+    t.setDaemon(true);
+    t.start();
+  }
+
+  /** Stop reloading the menu when the menu file changes */
+  public synchronized void stopWatching() {
+    if (watcher != null) {
+      try {
+        watcher.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      watcher = null;
+    }
+  }
+
+  /**
+   * Reload the menu whenever one of the given files changes, until the watch service is closed
+   *
+   * @param service: the service watching the directory holding the files
+   * @param menuFile: the name of the menu file
+   * @param catalogFile: the name of the catalog compiled from it
+   */
+  private void watch(WatchService service, Path menuFile, Path catalogFile) {
+    try {
+      while (true) {
+        boolean changed = changed(service.take(), menuFile, catalogFile);
+        while (changed) {
+          WatchKey more = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+          if (more == null) {
+            break;
+          }
+          changed(more, menuFile, catalogFile);
+        }
+        if (changed) {
+          reload();
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // stopped watching
+    }
+  }
+
+  /**
+   * @param key: a key signalled by a watch service, which is reset
+   * @param menuFile: the name of the menu file
+   * @param catalogFile: the name of the catalog compiled from it
+   * @return true if one of the key's events is a change to either file
+   */
+  private static boolean changed(WatchKey key, Path menuFile, Path catalogFile) {
+    boolean changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      Object name = event.context();
+      changed |=
+          event.kind() == StandardWatchEventKinds.OVERFLOW
+              || menuFile.equals(name)
+              || catalogFile.equals(name);
+    }
+    key.reset();
+    return changed;
+  }
+
+  /** @return the current version of the menu */
+  public MenuVersion getVersion() {
+    return current;
+  }
+
+  /**
+   * Parse the menu items in a file
    *
    * <p>Each Line of the input file should be formatted as follows, where each ingredient is unique:
    * ItemName | Cost | Ingredient1, # | Ingredient2, # | ...
@@ -30,43 +192,48 @@ public class Menu implements FileCreator {
    * Lemon, 1 |
    *
    * @param menuPath: the file path containing the menu items
+   * @return the menu items, sorted by name
+   * @throws java.nio.file.NoSuchFileException if there is no such file
+   * @throws IOException if the file can't be read
+   * @throws RecordFile.FormatException if a line of the file isn't formatted as above
    */
-  private void initializeMenu(String menuPath) {
-    items = new ArrayList<>();
-    try {
-      Scanner sc = new Scanner(new File(menuPath));
-      while (sc.hasNextLine()) {
-        items.add(formatDishHelper(sc.nextLine()));
-      }
-    } catch (FileNotFoundException e) {
-      createNewFile(menuPath);
-    }
-    items.sort(Comparator.comparing(Dish::getName));
+  static ArrayList<Dish> loadDishes(String menuPath) throws IOException {
+    ArrayList<Dish> loaded = RecordFile.load(menuPath, Menu::formatDishHelper);
+    loaded.sort(Comparator.comparing(Dish::getName));
+    return loaded;
   }
 
-  /** @return a deep copy of all the menu items */
-  public ArrayList<Dish> getMenuItems() {
-    ArrayList<Dish> ret = new ArrayList<>();
-    for (Dish d : this.items) {
-      ret.add(d.deepDishCopy());
-    }
-    return ret;
+  /**
+   * Returns the menu items of the current version, sorted by name
+   *
+   * <p>The list and its dishes are shared, and can't be changed.
+   *
+   * @return a read-only view of all the menu items
+   */
+  public List<Dish> getMenuItems() {
+    return current.getMenuItems();
+  }
+
+  /**
+   * @param name: the name of a menu item
+   * @return the menu item of the current version with the given name, or null if there is none
+   */
+  Dish getDish(String name) {
+    return current.getDish(name);
   }
 
   /**
-   * Formats the given String to return a Dish with the correct properties
+   * Formats the given line of the menu file to return a Dish with the correct properties
    *
-   * @param line: the String to be formatted
+   * @param line: the line to be formatted
    * @return a Dish with the correct properties
    */
-  private Dish formatDishHelper(String line) {
-    String[] input = line.split("\\s\\|\\s");
-    String name = input[0];
-    double cost = Double.valueOf(input[1]);
-    ArrayList<Ingredient> ingredients = new ArrayList<>();
-    for (int i = 2; i < input.length; i++) {
-      String[] ingredientString = input[i].split(",\\s");
-      ingredients.add(new Ingredient(ingredientString[0], Double.valueOf(ingredientString[1])));
+  private static Dish formatDishHelper(RecordFile.Row line) {
+    String name = line.text(0);
+    double cost = line.number(1);
+    ArrayList<Ingredient> ingredients = new ArrayList<>(Math.max(line.size() - 2, 0));
+    for (int i = 2; i < line.size(); i++) {
+      ingredients.add(new Ingredient(line.name(i), line.amount(i)));
     }
     return new Dish(name, cost, ingredients);
   }
@@ -0,0 +1,326 @@
+package RestaurantBackend;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A menu compiled into a binary file, read through a read-only memory mapping.
+ *
+ * <p>The file holds a header, a string table of every dish and ingredient name, a dish table with
+ * each dish's name, cost and ingredients, sorted by name, and the recipes as parallel arrays of
+ * ingredient names and amounts. Opening it reads only the header; each Dish is made the first time
+ * it is asked for and then shared. The catalog is a read-only list of the menu's dishes.
+ *
+ * <p>The header records the size and modification time of the menu file it was compiled from, so
+ * a catalog that no longer matches its menu file is not used.
+ *
+ * <p>To compile menu.txt into menu.catalog: java RestaurantBackend.MenuCatalog menu.txt
+ */
+public final class MenuCatalog extends AbstractList<Dish> implements RandomAccess {
+
+  private static final int MAGIC = 0x5441434d; // "MCAT"
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_BYTES = 64;
+  private static final int DISH_BYTES = 24;
+  // header fields
+  private static final int MAGIC_AT = 0;
+  private static final int FORMAT_AT = 4;
+  private static final int DISH_COUNT_AT = 8;
+  private static final int STRING_COUNT_AT = 12;
+  private static final int STRINGS_AT = 16;
+  private static final int STRING_BYTES_AT = 20;
+  private static final int DISHES_AT = 24;
+  private static final int NAMES_AT = 28;
+  private static final int AMOUNTS_AT = 32;
+  private static final int SOURCE_SIZE_AT = 40;
+  private static final int SOURCE_MODIFIED_AT = 48;
+  // dish table fields, relative to the start of the dish's entry
+  private static final int DISH_NAME_AT = 0;
+  private static final int DISH_FIRST_AT = 4;
+  private static final int DISH_SIZE_AT = 8;
+  private static final int DISH_COST_AT = 16;
+
+  private final ByteBuffer buffer;
+  private final int dishCount;
+  private final int strings;
+  private final int stringBytes;
+  private final int dishes;
+  private final int names;
+  private final int amounts;
+  // the dishes made so far, by index
+  private final AtomicReferenceArray<Dish> made;
+
+  private MenuCatalog(ByteBuffer buffer) {
+    this.buffer = buffer;
+    dishCount = buffer.getInt(DISH_COUNT_AT);
+    strings = buffer.getInt(STRINGS_AT);
+    stringBytes = buffer.getInt(STRING_BYTES_AT);
+    dishes = buffer.getInt(DISHES_AT);
+    names = buffer.getInt(NAMES_AT);
+    amounts = buffer.getInt(AMOUNTS_AT);
+    made = new AtomicReferenceArray<>(dishCount);
+  }
+
+  /**
+   * @param menuPath: the path of a menu file
+   * @return the path of the catalog compiled from it: the menu file's path with its extension
+   *     replaced by .catalog
+   */
+  static String catalogPath(String menuPath) {
+    int dot = menuPath.lastIndexOf('.');
+    int slash = menuPath.lastIndexOf(File.separatorChar);
+    return (dot > slash ? menuPath.substring(0, dot) : menuPath) + ".catalog";
+  }
+
+  /**
+   * Open the catalog compiled from a menu file, if there is one and it matches the menu file
+   *
+   * @param menuPath: the path of the menu file
+   * @return the catalog, or null if there is none, it is out of date, or it can't be read
+   */
+  static MenuCatalog openFor(String menuPath) {
+    Path source = Paths.get(menuPath);
+    Path catalog = Paths.get(catalogPath(menuPath));
+    if (!Files.isRegularFile(source) || !Files.isRegularFile(catalog)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(catalog, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+        return null;
+      }
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      if (buffer.getInt(MAGIC_AT) != MAGIC
+          || buffer.getInt(FORMAT_AT) != FORMAT_VERSION
+          || buffer.getLong(SOURCE_SIZE_AT) != Files.size(source)
+          || buffer.getLong(SOURCE_MODIFIED_AT)
+              != Files.getLastModifiedTime(source).toMillis()) {
+        return null;
+      }
+      return new MenuCatalog(buffer);
+    } catch (IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  /**
+   * Compile a menu file into the catalog beside it
+   *
+   * @param menuPath: the path of the menu file
+   * @throws IOException if the menu file can't be read or the catalog can't be written
+   * @throws RecordFile.FormatException if a line of the menu file can't be parsed
+   */
+  static void compile(String menuPath) throws IOException {
+    Path source = Paths.get(menuPath);
+    long size = Files.size(source);
+    long modified = Files.getLastModifiedTime(source).toMillis();
+    ByteBuffer compiled = compile(Menu.loadDishes(menuPath), size, modified);
+    Path catalog = Paths.get(catalogPath(menuPath));
+    Path temp = Paths.get(catalog + ".tmp");
+    try (FileChannel channel =
+        FileChannel.open(
+            temp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      while (compiled.hasRemaining()) {
+        channel.write(compiled);
+      }
+      channel.force(true);
+    }
+    Files.move(temp, catalog, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Lay out a catalog of the given dishes
+   *
+   * @param menu: the dishes, sorted by name
+   * @param sourceSize: the size of the menu file they were read from
+   * @param sourceModified: when the menu file was last modified, in milliseconds since the epoch
+   * @return the catalog, ready to be written
+   */
+  private static ByteBuffer compile(List<Dish> menu, long sourceSize, long sourceModified) {
+    HashMap<String, Integer> stringIds = new HashMap<>();
+    ArrayList<byte[]> stringList = new ArrayList<>();
+    int stringTotal = 0;
+    int ingredientCount = 0;
+    int[] dishNames = new int[menu.size()];
+    ArrayList<ArrayList<Ingredient>> recipes = new ArrayList<>(menu.size());
+    for (int i = 0; i < menu.size(); i++) {
+      Dish dish = menu.get(i);
+      ArrayList<Ingredient> ingredients = dish.getIngredients();
+      recipes.add(ingredients);
+      ingredientCount += ingredients.size();
+      ArrayList<String> used = new ArrayList<>();
+      used.add(dish.getName());
+      for (Ingredient ing : ingredients) {
+        used.add(ing.getName());
+      }
+      for (String s : used) {
+        if (!stringIds.containsKey(s)) {
+          byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+          stringIds.put(s, stringList.size());
+          stringList.add(bytes);
+          stringTotal += bytes.length;
+        }
+      }
+      dishNames[i] = stringIds.get(dish.getName());
+    }
+    int stringsAt = HEADER_BYTES;
+    int stringBytesAt = stringsAt + 4 * (stringList.size() + 1);
+    int dishesAt = align(stringBytesAt + stringTotal);
+    int namesAt = dishesAt + DISH_BYTES * menu.size();
+    int amountsAt = align(namesAt + 4 * ingredientCount);
+    ByteBuffer buf = ByteBuffer.allocate(amountsAt + 8 * ingredientCount);
+    buf.order(ByteOrder.LITTLE_ENDIAN);
+    buf.putInt(MAGIC_AT, MAGIC);
+    buf.putInt(FORMAT_AT, FORMAT_VERSION);
+    buf.putInt(DISH_COUNT_AT, menu.size());
+    buf.putInt(STRING_COUNT_AT, stringList.size());
+    buf.putInt(STRINGS_AT, stringsAt);
+    buf.putInt(STRING_BYTES_AT, stringBytesAt);
+    buf.putInt(DISHES_AT, dishesAt);
+    buf.putInt(NAMES_AT, namesAt);
+    buf.putInt(AMOUNTS_AT, amountsAt);
+    buf.putLong(SOURCE_SIZE_AT, sourceSize);
+    buf.putLong(SOURCE_MODIFIED_AT, sourceModified);
+    int offset = 0;
+    for (int s = 0; s < stringList.size(); s++) {
+      buf.putInt(stringsAt + 4 * s, offset);
+      buf.put(stringBytesAt + offset, stringList.get(s));
+      offset += stringList.get(s).length;
+    }
+    buf.putInt(stringsAt + 4 * stringList.size(), offset);
+    int first = 0;
+    for (int i = 0; i < menu.size(); i++) {
+      int at = dishesAt + DISH_BYTES * i;
+      ArrayList<Ingredient> ingredients = recipes.get(i);
+      buf.putInt(at + DISH_NAME_AT, dishNames[i]);
+      buf.putInt(at + DISH_FIRST_AT, first);
+      buf.putInt(at + DISH_SIZE_AT, ingredients.size());
+      buf.putLong(at + DISH_COST_AT, menu.get(i).getCostCents());
+      for (Ingredient ing : ingredients) {
+        buf.putInt(namesAt + 4 * first, stringIds.get(ing.getName()));
+        buf.putDouble(amountsAt + 8 * first, ing.getAmount());
+        first++;
+      }
+    }
+    return buf;
+  }
+
+  /**
+   * @param offset: a position in the catalog
+   * @return the first position at or after it that is a multiple of 8
+   */
+  private static int align(int offset) {
+    return (offset + 7) & ~7;
+  }
+
+  /**
+   * @param s: the index of a string in the string table
+   * @return the string
+   */
+  private String stringAt(int s) {
+    int from = buffer.getInt(strings + 4 * s);
+    int to = buffer.getInt(strings + 4 * (s + 1));
+    byte[] bytes = new byte[to - from];
+    buffer.get(stringBytes + from, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param i: the index of a dish
+   * @return the name of the dish, read without making the dish
+   */
+  String nameAt(int i) {
+    return stringAt(buffer.getInt(dishes + DISH_BYTES * i + DISH_NAME_AT));
+  }
+
+  /**
+   * @param name: the name of a dish
+   * @return the index of the dish, or -1 if there is no such dish
+   */
+  int indexOf(String name) {
+    int low = 0;
+    int high = dishCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = nameAt(mid).compareTo(name);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param i: the index of a dish
+   * @return the dish, made from the catalog the first time it is asked for
+   */
+  @Override
+  public Dish get(int i) {
+    Dish dish = made.get(i);
+    if (dish == null) {
+      made.compareAndSet(i, null, make(i));
+      dish = made.get(i);
+    }
+    return dish;
+  }
+
+  /**
+   * @param i: the index of a dish
+   * @return a new Dish read from the dish's entry
+   */
+  private Dish make(int i) {
+    int at = dishes + DISH_BYTES * i;
+    int first = buffer.getInt(at + DISH_FIRST_AT);
+    int size = buffer.getInt(at + DISH_SIZE_AT);
+    ArrayList<Ingredient> ingredients = new ArrayList<>(size);
+    for (int k = first; k < first + size; k++) {
+      String name = stringAt(buffer.getInt(names + 4 * k));
+      ingredients.add(new Ingredient(name, buffer.getDouble(amounts + 8 * k)));
+    }
+    return new Dish(
+        stringAt(buffer.getInt(at + DISH_NAME_AT)),
+        buffer.getLong(at + DISH_COST_AT),
+        Recipe.compile(ingredients));
+  }
+
+  /** @return the number of dishes in the catalog */
+  @Override
+  public int size() {
+    return dishCount;
+  }
+
+  /**
+   * Compile a menu file into a catalog beside it
+   *
+   * @param args: the path of the menu file, menu.txt by default
+   * @throws IOException if the menu file can't be read or the catalog can't be written
+   */
+  public static void main(String[] args) throws IOException {
+    String menuPath = args.length > 0 ? args[0] : "menu.txt";
+    compile(menuPath);
+    System.out.println("Compiled " + menuPath + " into " + catalogPath(menuPath));
+  }
+}
@@ -0,0 +1,75 @@
+package RestaurantBackend;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * One version of the menu, as loaded from the menu file at one time.
+ *
+ * <p>A version never changes once it is made: when the menu file changes, the Menu makes a new
+ * version and replaces the old one whole, so anyone holding a version sees a consistent menu.
+ * Dishes already ordered keep the recipe and price of the version they were ordered from.
+ */
+public final class MenuVersion {
+
+  // the number of this version; the first version loaded is 1
+  private final long number;
+  // the menu items, sorted by name; read-only
+  private final List<Dish> items;
+  // the menu items by name, or null if they're read from a catalog
+  private final HashMap<String, Dish> itemsByName;
+  // the compiled catalog the menu items are read from, or null if they were parsed from the file
+  private final MenuCatalog catalog;
+
+  /**
+   * A version of the menu parsed from the menu file
+   *
+   * @param number: the number of the version
+   * @param items: the menu items, sorted by name
+   */
+  MenuVersion(long number, List<Dish> items) {
+    this.number = number;
+    this.items = Collections.unmodifiableList(items);
+    this.catalog = null;
+    itemsByName = new HashMap<>();
+    for (Dish d : items) {
+      itemsByName.put(d.getName(), d);
+    }
+  }
+
+  /**
+   * A version of the menu read from the catalog compiled from the menu file
+   *
+   * @param number: the number of the version
+   * @param catalog: the catalog
+   */
+  MenuVersion(long number, MenuCatalog catalog) {
+    this.number = number;
+    this.items = catalog;
+    this.catalog = catalog;
+    this.itemsByName = null;
+  }
+
+  /** @return the number of this version; the first version loaded is 1 */
+  public long getNumber() {
+    return number;
+  }
+
+  /** @return a read-only view of the menu items of this version, sorted by name */
+  public List<Dish> getMenuItems() {
+    return items;
+  }
+
+  /**
+   * @param name: the name of a menu item
+   * @return the menu item of this version with the given name, or null if there is none
+   */
+  Dish getDish(String name) {
+    if (catalog != null) {
+      int i = catalog.indexOf(name);
+      return i < 0 ? null : catalog.get(i);
+    }
+    return itemsByName.get(name);
+  }
+}
@@ -0,0 +1,288 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * The registry of the backend's metrics: counters, gauges and latency histograms, by name.
+ *
+ * <p>Counters and histograms are updated lock-free where they are counted or timed. Gauges are
+ * read from the object they describe only when the metrics are read, so they cost nothing
+ * otherwise. Metrics are disabled by default; while they are, counters and histograms ignore
+ * updates and startTimer doesn't read the clock, so instrumented code pays one volatile read per
+ * update. Histograms are in nanoseconds.
+ *
+ * <p>Metrics can be read by name, rendered as text or JSON, or dumped to a file every period.
+ */
+public class Metrics {
+
+  /** How metrics are rendered */
+  public enum Format {
+    TEXT,
+    JSON
+  }
+
+  private static final Metrics INSTANCE = new Metrics();
+
+  private static volatile boolean enabled;
+
+  private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, LatencyHistogram> histograms =
+      new ConcurrentHashMap<>();
+  // dumps the metrics every period, or null if they aren't being dumped
+  private ScheduledExecutorService dumper;
+
+  private Metrics() {}
+
+  /**
+   * Returns the instance of Metrics.
+   *
+   * @return the instance of Metrics.
+   */
+  public static Metrics getInstance() {
+    return INSTANCE;
+  }
+
+  /** @return true if counters and histograms are recording */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Start or stop recording counters and histograms; what was recorded is kept
+   *
+   * @param enabled: true to record
+   */
+  public static void setEnabled(boolean enabled) {
+    Metrics.enabled = enabled;
+  }
+
+  /**
+   * Start timing something, to be recorded with LatencyHistogram.recordSince
+   *
+   * @return the current time, in nanoseconds, or 0 if metrics are disabled
+   */
+  static long startTimer() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * @param name: the name of a counter
+   * @return the counter with the given name, registering it if there is none
+   */
+  Counter counter(String name) {
+    return counters.computeIfAbsent(name, Counter::new);
+  }
+
+  /**
+   * @param name: the name of a histogram
+   * @return the histogram with the given name, registering it if there is none
+   */
+  LatencyHistogram histogram(String name) {
+    return histograms.computeIfAbsent(name, LatencyHistogram::new);
+  }
+
+  /**
+   * Register a gauge, replacing any gauge with the same name
+   *
+   * @param name: the name of the gauge
+   * @param value: reads the gauge's current value
+   */
+  void gauge(String name, LongSupplier value) {
+    gauges.put(name, value);
+  }
+
+  /**
+   * @param name: the name of a counter
+   * @return the counter's value, or 0 if there is no such counter
+   */
+  public long getCounter(String name) {
+    Counter c = counters.get(name);
+    return c == null ? 0 : c.get();
+  }
+
+  /**
+   * @param name: the name of a gauge
+   * @return the gauge's current value, or 0 if there is no such gauge
+   */
+  public long getGauge(String name) {
+    LongSupplier g = gauges.get(name);
+    return g == null ? 0 : g.getAsLong();
+  }
+
+  /**
+   * @param name: the name of a histogram
+   * @return the histogram, or null if there is no such histogram
+   */
+  public LatencyHistogram getHistogram(String name) {
+    return histograms.get(name);
+  }
+
+  /** Reset every counter and histogram to zero */
+  public void reset() {
+    for (Counter c : counters.values()) {
+      c.adder.reset();
+    }
+    for (LatencyHistogram h : histograms.values()) {
+      h.reset();
+    }
+  }
+
+  /**
+   * Render every metric, sorted by name
+   *
+   * @param format: how to render them
+   * @return the rendered metrics
+   */
+  public String render(Format format) {
+    return format == Format.JSON ? toJson() : toString();
+  }
+
+  /**
+   * A String representation of every metric, one per line, sorted by name
+   *
+   * @return A String representation of every metric
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, Counter> e : new TreeMap<>(counters).entrySet()) {
+      sb.append("counter ").append(e.getKey()).append(' ').append(e.getValue().get()).append('\n');
+    }
+    for (Map.Entry<String, LongSupplier> e : new TreeMap<>(gauges).entrySet()) {
+      sb.append("gauge ").append(e.getKey()).append(' ');
+      sb.append(e.getValue().getAsLong()).append('\n');
+    }
+    for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(histograms).entrySet()) {
+      sb.append("histogram ").append(e.getKey()).append(' ').append(e.getValue()).append('\n');
+    }
+    return sb.toString();
+  }
+
+  /** @return every metric as a JSON object, with histograms in nanoseconds */
+  public String toJson() {
+    StringBuilder sb = new StringBuilder("{\"enabled\":").append(enabled);
+    sb.append(",\"counters\":{");
+    String sep = "";
+    for (Map.Entry<String, Counter> e : new TreeMap<>(counters).entrySet()) {
+      sb.append(sep).append(Json.quote(e.getKey())).append(':').append(e.getValue().get());
+      sep = ",";
+    }
+    sb.append("},\"gauges\":{");
+    sep = "";
+    for (Map.Entry<String, LongSupplier> e : new TreeMap<>(gauges).entrySet()) {
+      sb.append(sep).append(Json.quote(e.getKey())).append(':').append(e.getValue().getAsLong());
+      sep = ",";
+    }
+    sb.append("},\"histograms\":{");
+    sep = "";
+    for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(histograms).entrySet()) {
+      LatencyHistogram h = e.getValue();
+      sb.append(sep).append(Json.quote(e.getKey())).append(":{");
+      sb.append("\"count\":").append(h.getCount());
+      sb.append(",\"mean\":").append(Math.round(h.getMean()));
+      sb.append(",\"p50\":").append(h.getValueAtPercentile(50));
+      sb.append(",\"p90\":").append(h.getValueAtPercentile(90));
+      sb.append(",\"p99\":").append(h.getValueAtPercentile(99));
+      sb.append(",\"p999\":").append(h.getValueAtPercentile(99.9));
+      sb.append(",\"max\":").append(h.getMax()).append('}');
+      sep = ",";
+    }
+    return sb.append("}}").toString();
+  }
+
+  /**
+   * Write every metric to a file every given period, replacing what was there; replaces any
+   * earlier dump
+   *
+   * @param periodMillis: how often to write the metrics
+   * @param path: the path of the file
+   * @param format: how to render the metrics
+   */
+  public synchronized void dumpEvery(long periodMillis, String path, Format format) {
+    stopDumping();
+    dumper =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "metrics-dump");
+              t.setDaemon(true);
+              return t;
+            });
+    dumper.scheduleAtFixedRate(
+        () -> dump(Paths.get(path), format), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Stop writing the metrics to a file */
+  public synchronized void stopDumping() {
+    if (dumper != null) {
+      dumper.shutdown();
+      dumper = null;
+    }
+  }
+
+  /**
+   * Write every metric to a file, replacing it in one step so readers never see part of a dump
+   *
+   * @param path: the path of the file
+   * @param format: how to render the metrics
+   */
+  void dump(Path path, Format format) {
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      Files.write(tmp, render(format).getBytes(StandardCharsets.UTF_8));
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /** A count of events, which only counts while metrics are enabled */
+  public static class Counter {
+    private final String name;
+    private final LongAdder adder = new LongAdder();
+
+    private Counter(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /** Count one event */
+    public void increment() {
+      if (enabled) {
+        adder.increment();
+      }
+    }
+
+    /**
+     * Count several events
+     *
+     * @param n: the number of events
+     */
+    public void add(long n) {
+      if (enabled) {
+        adder.add(n);
+      }
+    }
+
+    /** @return the number of events counted */
+    public long get() {
+      return adder.sum();
+    }
+  }
+}
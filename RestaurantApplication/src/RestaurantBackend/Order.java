@@ -1,6 +1,9 @@
 package RestaurantBackend;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Observable;
 import java.util.Observer;
 
@@ -12,21 +15,39 @@ import java.util.Observer;
  * that have been sent to the kitchen.
  */
 public class Order extends Observable implements Observer {
-  //List of items already sent to kitchen
-  private ArrayList<OrderedDish> orderItems;
-  //List of tentative order items
-  private ArrayList<OrderedDish> tentativeOrderItems;
+  //Items already sent to kitchen, by id, in the order they were sent
+  private LinkedHashMap<Long, OrderedDish> orderItems;
+  //Tentative order items, by id, in the order they were added
+  private LinkedHashMap<Long, OrderedDish> tentativeOrderItems;
   //the tableNumber corresponding to this order
   private int tableNumber;
-  private int orderNumber;
-  private static int numOrders = 0;
+  private long orderNumber;
+  //the table this order was added to, which keeps a running total of its orders
+  private Table table;
+  //the number of items served, and their total cost in cents
+  private int servedCount;
+  private long servedCents;
 
-  Order(int tableNumber) {
+  /**
+   * A new order
+   *
+   * @param tableNumber: the number of the table the order is for
+   * @param orderNumber: the order number, from IdGenerator.ORDERS
+   */
+  Order(int tableNumber, long orderNumber) {
     this.tableNumber = tableNumber;
-    this.orderNumber = numOrders;
-    orderItems = new ArrayList<>();
-    tentativeOrderItems = new ArrayList<>();
-    numOrders++;
+    this.orderNumber = orderNumber;
+    orderItems = new LinkedHashMap<>();
+    tentativeOrderItems = new LinkedHashMap<>();
+  }
+
+  /**
+   * Returns the number of the table this order belongs to.
+   *
+   * @return The table number.
+   */
+  public int getTableNumber() {
+    return tableNumber;
   }
 
   /**
@@ -34,13 +55,13 @@ public class Order extends Observable implements Observer {
    *
    * @return The order number.
    */
-  public int getOrderNumber() {
+  public long getOrderNumber() {
     return orderNumber;
   }
 
   /** Get a deep copy of the tentative items in this order */
   public ArrayList<OrderedDish> getTentative(){
-    return new ArrayList<>(tentativeOrderItems);
+    return new ArrayList<>(tentativeOrderItems.values());
   }
 
   /**
@@ -49,7 +70,7 @@ public class Order extends Observable implements Observer {
    */
   void addTentativeOrderedDish(OrderedDish dish) {
     dish.addObserver(this);
-    this.tentativeOrderItems.add(dish);
+    this.tentativeOrderItems.put(dish.getID(), dish);
   }
 
   /**
@@ -57,7 +78,7 @@ public class Order extends Observable implements Observer {
    */
   public ArrayList<OrderedDish> pendingDelivery() {
     ArrayList<OrderedDish> ret = new ArrayList<>();
-    for(OrderedDish d : orderItems) {
+    for(OrderedDish d : orderItems.values()) {
       if(d.canDeliver())
         ret.add(d);
     }
@@ -69,21 +90,29 @@ public class Order extends Observable implements Observer {
    */
   public ArrayList<OrderedDish> getDeliveredItems() {
     ArrayList<OrderedDish> ret = new ArrayList<>();
-    for(OrderedDish d : orderItems) {
+    for(OrderedDish d : orderItems.values()) {
       if(d.served())
         ret.add(d);
     }
     return ret;
   }
 
+  /**
+   * @param id: the id of an ordered dish
+   * @return true if the dish is one of this order's tentative dishes
+   */
+  boolean hasTentativeOrderedDish(long id) {
+    return this.tentativeOrderItems.containsKey(id);
+  }
+
   /**
    * Remove a tentative dish from the order
    *
    * @param id: the id of the ordered dish to be removed
    * @return true if something was removed, false otherwise
    */
-  boolean removeTentativeOrderedDish(int id) {
-    return remove(id, this.tentativeOrderItems);
+  boolean removeTentativeOrderedDish(long id) {
+    return this.tentativeOrderItems.remove(id) != null;
   }
 
   /**
@@ -92,34 +121,81 @@ public class Order extends Observable implements Observer {
    * @param id: the id of the dish
    * @return true if something was removed, false otherwise
    */
-  boolean removeOrderedDish(int id) {
-    return remove(id, this.orderItems);
+  boolean removeOrderedDish(long id) {
+    OrderedDish removed = this.orderItems.remove(id);
+    if (removed != null && removed.served()) {
+      servedCount--;
+      addToSubtotal(-removed.getCostCents());
+    }
+    return removed != null;
+  }
+
+  /**
+   * Set the table this order was added to
+   *
+   * @param table: the table
+   */
+  void setTable(Table table) {
+    this.table = table;
+  }
+
+  /** @return the total cost of the items served so far, in cents */
+  long getSubtotalCents() {
+    return servedCents;
+  }
+
+  /** @return true if every item sent to the kitchen has been served */
+  boolean allServed() {
+    return servedCount == orderItems.size();
+  }
+
+  /** @return a read-only view of the items sent to the kitchen, in the order they were sent */
+  Collection<OrderedDish> orderItems() {
+    return Collections.unmodifiableCollection(orderItems.values());
+  }
+
+  /**
+   * Add to the total cost of the items served, and to the total of this order's table
+   *
+   * @param cents: the amount to add, in cents; negative to subtract
+   */
+  private void addToSubtotal(long cents) {
+    servedCents += cents;
+    if (table != null) {
+      table.addToSubtotal(cents);
+    }
   }
 
   /**
    * Get an ordered dish given an id
    * @param id: the id of the ordered dish you're searching for
-   * @return the ordered dish you're looking for
+   * @return the ordered dish you're looking for, or null if it isn't in this order
    */
-  OrderedDish getOrderedDish(int id) {
+  OrderedDish getOrderedDish(long id) {
     return this.orderItems.get(id);
   }
 
   /**
-   * Remove the given orderedDish from a list of ordered dishes
-   *
-   * @param id the id of the orderedDish to be removed
-   * @param toSearch the list of dishes to search through
-   * @return true if the OrderedDish was removed
-   */
-  private boolean remove(int id, ArrayList<OrderedDish> toSearch) {
-    for(int i = 0; i < toSearch.size(); i++) {
-      if(toSearch.get(i).getID() == id) {
-        toSearch.remove(i);
-        return true;
-      }
+   * Get an ordered dish given an id, whether or not it has been sent to the kitchen
+   * @param id: the id of the ordered dish you're searching for
+   * @return the ordered dish you're looking for, or null if it isn't in this order
+   */
+  OrderedDish findOrderedDish(long id) {
+    OrderedDish dish = this.orderItems.get(id);
+    return dish != null ? dish : this.tentativeOrderItems.get(id);
+  }
+
+  /**
+   * Put back an item recorded in a snapshot as already sent to the kitchen
+   * @param dish: the ordered dish, with its recorded status
+   */
+  void restoreOrderedDish(OrderedDish dish) {
+    dish.addObserver(this);
+    this.orderItems.put(dish.getID(), dish);
+    if (dish.served()) {
+      servedCount++;
+      addToSubtotal(dish.getCostCents());
     }
-    return false;
   }
 
   /**
@@ -128,12 +204,11 @@ public class Order extends Observable implements Observer {
    * @return an ArrayList of the finalized tentative OrderedDishes
    */
   ArrayList<OrderedDish> finalizeTentativeItems() {
-    ArrayList<OrderedDish> ret = new ArrayList<>();
-    while(!this.tentativeOrderItems.isEmpty()) {
-      OrderedDish toFinalize = tentativeOrderItems.remove(0);
-      this.orderItems.add(toFinalize);
-      ret.add(toFinalize);
+    ArrayList<OrderedDish> ret = new ArrayList<>(tentativeOrderItems.values());
+    for (OrderedDish toFinalize : ret) {
+      this.orderItems.put(toFinalize.getID(), toFinalize);
     }
+    tentativeOrderItems.clear();
     return ret;
   }
 
@@ -141,7 +216,7 @@ public class Order extends Observable implements Observer {
    * @return a deep copy of the this Order's order items
    */
   public ArrayList<OrderedDish> getOrderItems() {
-    return new ArrayList<>(orderItems);
+    return new ArrayList<>(orderItems.values());
   }
 
   /**
@@ -153,6 +228,11 @@ public class Order extends Observable implements Observer {
   @Override
   public void update(Observable o, Object arg) {
     if (o instanceof OrderedDish) {
+      OrderedDish dish = (OrderedDish) o;
+      if (dish.served() && orderItems.containsKey(dish.getID())) {
+        servedCount++;
+        addToSubtotal(dish.getCostCents());
+      }
       this.setChanged();
       this.notifyObservers(o);
     }
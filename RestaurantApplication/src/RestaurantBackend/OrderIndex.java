@@ -0,0 +1,82 @@
+package RestaurantBackend;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of every open order in a restaurant, and of the dishes in them.
+ *
+ * <p>Lets an order be found by its order number, and a dish by its id, in constant time, whichever
+ * server and table they belong to. Servers keep it up to date as orders are added, changed and
+ * resolved.
+ */
+class OrderIndex {
+
+  // open orders, by order number
+  private final ConcurrentHashMap<Long, Order> orders = new ConcurrentHashMap<>();
+  // the order holding each dish, by dish id
+  private final ConcurrentHashMap<Long, Order> dishOrders = new ConcurrentHashMap<>();
+
+  /**
+   * Add an order to the index
+   *
+   * @param order: the order to be added
+   */
+  void addOrder(Order order) {
+    orders.put(order.getOrderNumber(), order);
+  }
+
+  /**
+   * Remove an order, and every dish in it, from the index
+   *
+   * @param order: the order to be removed
+   */
+  void removeOrder(Order order) {
+    orders.remove(order.getOrderNumber());
+    for (OrderedDish d : order.getOrderItems()) {
+      dishOrders.remove(d.getID());
+    }
+    for (OrderedDish d : order.getTentative()) {
+      dishOrders.remove(d.getID());
+    }
+  }
+
+  /**
+   * Record that a dish belongs to an order
+   *
+   * @param order: the order the dish was added to
+   * @param dish: the dish that was added
+   */
+  void addDish(Order order, OrderedDish dish) {
+    dishOrders.put(dish.getID(), order);
+  }
+
+  /**
+   * Remove a dish from the index
+   *
+   * @param dishId: the id of the dish that was removed from its order
+   */
+  void removeDish(long dishId) {
+    dishOrders.remove(dishId);
+  }
+
+  /**
+   * @param orderNumber: an order number
+   * @return the open order with the given number, or null if there is none
+   */
+  Order getOrder(long orderNumber) {
+    return orders.get(orderNumber);
+  }
+
+  /**
+   * @param dishId: the id of a dish
+   * @return the open order holding the dish, or null if there is none
+   */
+  Order getOrderOfDish(long dishId) {
+    return dishOrders.get(dishId);
+  }
+
+  /** @return the number of open orders */
+  int size() {
+    return orders.size();
+  }
+}
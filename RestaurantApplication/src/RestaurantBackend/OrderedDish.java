@@ -1,25 +1,30 @@
 package RestaurantBackend;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * A ordered dish
  *
- * <p>OrderedDishes are like dishes, except they can be modified;
+ * <p>OrderedDishes are like dishes, except they can be modified; they share the recipe of the dish
+ * they were ordered from, and only record how the amounts of its ingredients were changed.
  *
- * <p>They have a status and an id which is determined by how many OrderedDishes have been created
+ * <p>They have a status and an id, unique across threads and restarts, from IdGenerator.DISHES
  */
 public class OrderedDish extends Dish {
   // the status of this dish
   private Status status;
   // the id of this dish
-  private int id;
+  private long id;
 
-  // how many orders have been created
-  private static int orderCount = 0;
-
-  // the threshold to reset the order count
-  private static final int RESET_ORDER_COUNT = 1000;
+  // the ids of the ingredients whose amounts were changed, and the change to each
+  private int[] changedIds;
+  private double[] changes;
+  private int changeCount;
+  // the recipe with the changes applied, or null if there are none
+  private Recipe modifiedRecipe;
+  // when this dish entered its status, or 0 if metrics were disabled then
+  private long statusSince;
 
   /**
    * An enum representing the current status of this OrderedDish.
@@ -31,11 +36,24 @@ public class OrderedDish extends Dish {
     READY,
     SERVED;
 
+    // how long dishes spend in each status before leaving it
+    private final LatencyHistogram timeIn =
+        Metrics.getInstance().histogram("dish.status." + name() + ".nanos");
+
     Status update() {
       return this.ordinal() < values().length ? values()[this.ordinal() + 1] : this;
     }
   }
 
+  /**
+   * Returns true if this OrderedDish is waiting to be seen by a cook.
+   *
+   * @return true if this OrderedDish is waiting to be seen by a cook.
+   */
+  boolean isOrdered() {
+    return this.status == Status.ORDERED;
+  }
+
   /**
    * Returns true if this OrderedDish can be cooked.
    *
@@ -76,27 +94,33 @@ public class OrderedDish extends Dish {
    * Resets the status of this OrderedDish to having just been ordered.
    */
   void resetStatus() {
+    leaveStatus();
     this.status = Status.ORDERED;
   }
 
   /**
    * A new ordered dish
    *
-   * @param name: name of ordered dish
-   * @param cost: cost of ordered dish
-   * @param ingredients: ingredients used in ordered dish
+   * @param dish: the dish being ordered
    */
-  private OrderedDish(String name, double cost, ArrayList<Ingredient> ingredients) {
-    super(name, cost, ingredients);
+  private OrderedDish(Dish dish) {
+    this(IdGenerator.DISHES.nextId(), dish);
+  }
+
+  /**
+   * An ordered dish with a given id, as recorded by the state journal
+   *
+   * @param id: the id of the ordered dish
+   * @param dish: the dish being ordered
+   */
+  OrderedDish(long id, Dish dish) {
+    super(dish.getName(), dish.getCostCents(), dish.getRecipe());
     this.status = Status.ORDERED;
-    this.id = orderCount;
-    orderCount++;
-    if (orderCount >= RESET_ORDER_COUNT) {
-      orderCount = 0;
-    }
+    this.id = id;
+    this.statusSince = Metrics.startTimer();
   }
 
-  public int getID() {
+  public long getID() {
     return id;
   }
 
@@ -107,12 +131,94 @@ public class OrderedDish extends Dish {
    * @return an ordered dish version of a Dish
    */
   public static OrderedDish DishToOrderedDish(Dish d) {
-    Dish deepCopy = d.deepDishCopy();
-    return new OrderedDish(deepCopy.getName(), deepCopy.getCost(), deepCopy.ingredients);
+    return new OrderedDish(d);
   }
 
+  /**
+   * @return a new list of the ingredients of this ordered dish, with any changes applied
+   */
+  @Override
   public ArrayList<Ingredient> getIngredients(){
-    return this.ingredients;
+    return getRecipe().toIngredients();
+  }
+
+  /** @return the compiled recipe of this ordered dish, with any changes applied */
+  @Override
+  Recipe getRecipe() {
+    return modifiedRecipe != null ? modifiedRecipe : super.getRecipe();
+  }
+
+  /** @return the compiled recipe of the dish this was ordered from, without any changes */
+  Recipe getBaseRecipe() {
+    return super.getRecipe();
+  }
+
+  /** @return the number of ingredients whose amounts were changed */
+  int getChangeCount() {
+    return changeCount;
+  }
+
+  /**
+   * @param i: the index of a change, less than getChangeCount()
+   * @return the id of the ingredient changed
+   */
+  int changedIdAt(int i) {
+    return changedIds[i];
+  }
+
+  /**
+   * @param i: the index of a change, less than getChangeCount()
+   * @return the amount added to the ingredient; negative if some was removed
+   */
+  double changeAt(int i) {
+    return changes[i];
+  }
+
+  /** @return the status of this dish, as a code that can be stored */
+  int getStatusCode() {
+    return status.ordinal();
+  }
+
+  /** @return the name of the status of this dish, such as ORDERED or READY */
+  String getStatusName() {
+    return status.name();
+  }
+
+  /**
+   * Set the status of this dish to one recorded by the state journal, without notifying anyone
+   *
+   * @param code: a code returned by getStatusCode()
+   */
+  void restoreStatus(int code) {
+    this.status = Status.values()[code];
+  }
+
+  /**
+   * Change the amount of an ingredient in this ordered dish
+   *
+   * @param ingredient: the ingredient to change
+   * @param change: the amount to add; negative to remove some
+   */
+  void adjustIngredient(Ingredient ingredient, double change) {
+    int id = IngredientRegistry.getInstance().idOf(ingredient.getName());
+    int i = 0;
+    while (i < changeCount && changedIds[i] != id) {
+      i++;
+    }
+    if (i == changeCount) {
+      if (changeCount == 0) {
+        changedIds = new int[2];
+        changes = new double[2];
+      } else if (changeCount == changedIds.length) {
+        changedIds = Arrays.copyOf(changedIds, changeCount * 2);
+        changes = Arrays.copyOf(changes, changeCount * 2);
+      }
+      changedIds[i] = id;
+      changeCount++;
+    }
+    // never remove more of an ingredient than the dish has
+    changes[i] = Math.max(changes[i] + change, -super.getRecipe().amountOf(id));
+    modifiedRecipe = super.getRecipe().withChanges(changedIds, changes, changeCount);
   }
 
   /**
@@ -121,9 +227,10 @@ public class OrderedDish extends Dish {
    * @param proceed: true if this order should proceed; false if it should be cancelled
    */
   void updateStatus(boolean proceed) {
+    leaveStatus();
     if (proceed) {
       this.status = this.status.update();
-      if (this.status == Status.READY) {
+      if (this.status == Status.READY || this.status == Status.SERVED) {
         setChanged();
         notifyObservers();
       }
@@ -134,6 +241,15 @@ public class OrderedDish extends Dish {
     }
   }
 
+  /** Record how long this dish spent in its current status, which it is about to leave */
+  private void leaveStatus() {
+    long now = Metrics.startTimer();
+    if (now != 0 && statusSince != 0) {
+      status.timeIn.record(now - statusSince);
+    }
+    statusSince = now;
+  }
+
   /**
    * A string representation, formatted as follows: id number,name of dish, with amount1
    * ingredient1, amount2 ingredient2 ...
@@ -0,0 +1,380 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An append-only ledger of payments.
+ *
+ * <p>Payments are stored as fixed-width binary records in the ledger file, in the order they were
+ * made, so the n-th record is always at offset n * RECORD_SIZE. A second, index file holds an entry
+ * for each run of records made on the same day, giving the day and the first record of the run. A
+ * range query scans the index for the runs made on the days asked for, which is one or two entries
+ * a day, and reads the records from the first of them to the end of the last in one pass.
+ *
+ * <p>Days normally only move forward, so each day is one run. If the clock is set back, or the time
+ * zone changes, a day can have more than one run, and the records read can include some from other
+ * days, so each record read is kept only if it was itself made on one of the days asked for.
+ *
+ * <p>The items billed are variable-length, so they are kept in a third, items file, in the same
+ * order as the records; each record holds the offset and length of its items there. A record's
+ * items are written before the record itself, so every record in the ledger has its items.
+ *
+ * <p>If the index is lost or falls behind the ledger, it is rebuilt from the ledger on startup.
+ */
+public class PaymentLedger {
+
+  private static final PaymentLedger INSTANCE =
+      new PaymentLedger(
+          DataFiles.path("payments.ledger"),
+          DataFiles.path("payments.idx"),
+          DataFiles.path("payments.items"));
+
+  // order number, table number, item count, subtotal, tax, gratuity, timestamp, items offset,
+  // items length
+  static final int RECORD_SIZE = 8 + 4 + 4 + 8 + 8 + 8 + 8 + 8 + 4;
+  // where the items offset is in a record
+  private static final int ITEMS_OFFSET_POSITION = 48;
+  // epoch day, index of the day's first record
+  private static final int INDEX_ENTRY_SIZE = 8 + 8;
+
+  private final String ledgerPath;
+  private final String indexPath;
+  private final String itemsPath;
+  private FileChannel ledger;
+  private FileChannel index;
+  private FileChannel items;
+  // the number of records in the ledger
+  private long recordCount;
+  // the end of the last record's items in the items file
+  private long itemsEnd;
+  // the day of each run of records in the index, in the order of the ledger, and the first record
+  // of each run
+  private long[] days = new long[16];
+  private long[] firstRecords = new long[16];
+  private int dayCount;
+
+  /**
+   * Returns the ledger of this restaurant's payments.
+   *
+   * @return The ledger of this restaurant's payments.
+   */
+  public static PaymentLedger getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * A new PaymentLedger; its files are opened the first time it is used
+   *
+   * @param ledgerPath: the path of the file of payment records
+   * @param indexPath: the path of the file indexing the records by day
+   * @param itemsPath: the path of the file of the items billed in each payment
+   */
+  PaymentLedger(String ledgerPath, String indexPath, String itemsPath) {
+    this.ledgerPath = ledgerPath;
+    this.indexPath = indexPath;
+    this.itemsPath = itemsPath;
+  }
+
+  /**
+   * Append a payment to the ledger and force it to disk
+   *
+   * @param record: the payment
+   */
+  synchronized void append(PaymentRecord record) {
+    try {
+      open();
+      long day = epochDay(record.getTimestamp());
+      if (dayCount == 0 || day != days[dayCount - 1]) {
+        addDay(day, recordCount, true);
+      }
+      ByteBuffer itemBuf = encodeItems(record);
+      int itemsLength = itemBuf.remaining();
+      writeFully(items, itemBuf, itemsEnd);
+      items.force(false);
+      ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+      buf.putLong(record.getOrderNumber());
+      buf.putInt(record.getTableNumber());
+      buf.putInt(record.getItemCount());
+      buf.putLong(record.getSubtotalCents());
+      buf.putLong(record.getTaxCents());
+      buf.putLong(record.getGratuityCents());
+      buf.putLong(record.getTimestamp());
+      buf.putLong(itemsEnd);
+      buf.putInt(itemsLength);
+      buf.flip();
+      writeFully(ledger, buf, recordCount * RECORD_SIZE);
+      ledger.force(false);
+      recordCount++;
+      itemsEnd += itemsLength;
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Returns every payment made between two days, inclusive, in the order they were made
+   *
+   * @param from: the first day
+   * @param to: the last day
+   * @return the payments made between the two days
+   */
+  public ArrayList<PaymentRecord> query(LocalDate from, LocalDate to) {
+    ArrayList<PaymentRecord> ret = new ArrayList<>();
+    long fromDay = from.toEpochDay();
+    long toDay = to.toEpochDay();
+    long start = Long.MAX_VALUE;
+    long end = 0;
+    synchronized (this) {
+      try {
+        open();
+      } catch (IOException e) {
+        e.printStackTrace();
+        return ret;
+      }
+      for (int i = 0; i < dayCount; i++) {
+        if (days[i] >= fromDay && days[i] <= toDay) {
+          start = Math.min(start, firstRecords[i]);
+          end = i + 1 < dayCount ? firstRecords[i + 1] : recordCount;
+        }
+      }
+    }
+    if (start >= end) {
+      return ret;
+    }
+    try {
+      ByteBuffer buf = ByteBuffer.allocate((int) ((end - start) * RECORD_SIZE));
+      readFully(ledger, buf, start * RECORD_SIZE);
+      buf.flip();
+      // the items of the records read are contiguous, so they are read in one pass too
+      long firstItems = buf.getLong(ITEMS_OFFSET_POSITION);
+      long endItems = itemsEndOf(buf, buf.limit() - RECORD_SIZE);
+      ByteBuffer itemBuf = ByteBuffer.allocate((int) (endItems - firstItems));
+      readFully(items, itemBuf, firstItems);
+      itemBuf.flip();
+      while (buf.remaining() >= RECORD_SIZE) {
+        PaymentRecord record = readRecord(buf, itemBuf, firstItems);
+        long day = epochDay(record.getTimestamp());
+        if (day >= fromDay && day <= toDay) {
+          ret.add(record);
+        }
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    return ret;
+  }
+
+  /**
+   * Open the ledger and index files, if they aren't already, and load the index
+   *
+   * @throws IOException if either file can't be opened
+   */
+  private void open() throws IOException {
+    if (ledger != null) {
+      return;
+    }
+    ledger =
+        FileChannel.open(
+            Paths.get(ledgerPath),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    index =
+        FileChannel.open(
+            Paths.get(indexPath),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    items =
+        FileChannel.open(
+            Paths.get(itemsPath),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    // a record cut short by a crash is dropped, along with any items written without a record
+    recordCount = ledger.size() / RECORD_SIZE;
+    ledger.truncate(recordCount * RECORD_SIZE);
+    if (recordCount > 0) {
+      ByteBuffer last = ByteBuffer.allocate(RECORD_SIZE);
+      readFully(ledger, last, (recordCount - 1) * RECORD_SIZE);
+      itemsEnd = itemsEndOf(last, 0);
+    }
+    items.truncate(itemsEnd);
+    loadIndex();
+    catchUpIndex();
+  }
+
+  /**
+   * Load the day index, ignoring entries for records that aren't in the ledger
+   *
+   * @throws IOException if the index can't be read
+   */
+  private void loadIndex() throws IOException {
+    int entries = (int) (index.size() / INDEX_ENTRY_SIZE);
+    ByteBuffer buf = ByteBuffer.allocate(entries * INDEX_ENTRY_SIZE);
+    readFully(index, buf, 0);
+    buf.flip();
+    for (int i = 0; i < entries; i++) {
+      long day = buf.getLong();
+      long first = buf.getLong();
+      if (first >= recordCount) {
+        break;
+      }
+      addDay(day, first, false);
+    }
+    index.truncate((long) dayCount * INDEX_ENTRY_SIZE);
+  }
+
+  /**
+   * Add index entries for any runs in the ledger after the last indexed run
+   *
+   * @throws IOException if the ledger can't be read or the index written
+   */
+  private void catchUpIndex() throws IOException {
+    long next = dayCount == 0 ? 0 : firstRecords[dayCount - 1];
+    ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+    for (long i = next; i < recordCount; i++) {
+      buf.clear();
+      readFully(ledger, buf, i * RECORD_SIZE);
+      long day = epochDay(buf.getLong(ITEMS_OFFSET_POSITION - 8));
+      if (dayCount == 0 || day != days[dayCount - 1]) {
+        addDay(day, i, true);
+      }
+    }
+  }
+
+  /**
+   * Add a run of records made on the same day to the index
+   *
+   * @param day: the epoch day
+   * @param firstRecord: the index of the run's first record
+   * @param persist: true if the entry should also be appended to the index file
+   * @throws IOException if the index file can't be written
+   */
+  private void addDay(long day, long firstRecord, boolean persist) throws IOException {
+    if (dayCount == days.length) {
+      days = Arrays.copyOf(days, dayCount * 2);
+      firstRecords = Arrays.copyOf(firstRecords, dayCount * 2);
+    }
+    days[dayCount] = day;
+    firstRecords[dayCount] = firstRecord;
+    dayCount++;
+    if (persist) {
+      ByteBuffer buf = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+      buf.putLong(day).putLong(firstRecord).flip();
+      writeFully(index, buf, (long) (dayCount - 1) * INDEX_ENTRY_SIZE);
+    }
+  }
+
+  /**
+   * @param record: a payment
+   * @return its items, each as the length of its name, its name in UTF-8, and its cost in cents
+   */
+  private static ByteBuffer encodeItems(PaymentRecord record) {
+    List<String> names = record.getItemNames();
+    byte[][] encoded = new byte[names.size()][];
+    int size = 0;
+    for (int i = 0; i < encoded.length; i++) {
+      encoded[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+      size += 4 + encoded[i].length + 8;
+    }
+    ByteBuffer buf = ByteBuffer.allocate(size);
+    for (int i = 0; i < encoded.length; i++) {
+      buf.putInt(encoded[i].length).put(encoded[i]).putLong(record.getItemCents(i));
+    }
+    return buf.flip();
+  }
+
+  /**
+   * @param buf: a buffer of records
+   * @param record: the position of a record in the buffer
+   * @return the end of the record's items in the items file
+   */
+  private static long itemsEndOf(ByteBuffer buf, int record) {
+    int offset = record + ITEMS_OFFSET_POSITION;
+    return buf.getLong(offset) + buf.getInt(offset + 8);
+  }
+
+  /**
+   * @param buf: a buffer positioned at the start of a record
+   * @param itemBuf: the items of the records being read
+   * @param itemBase: the offset in the items file of the start of itemBuf
+   * @return the record
+   */
+  private static PaymentRecord readRecord(ByteBuffer buf, ByteBuffer itemBuf, long itemBase) {
+    long orderNumber = buf.getLong();
+    int tableNumber = buf.getInt();
+    int itemCount = buf.getInt();
+    long subtotal = buf.getLong();
+    long tax = buf.getLong();
+    long gratuity = buf.getLong();
+    long timestamp = buf.getLong();
+    long itemsOffset = buf.getLong();
+    buf.getInt();
+    itemBuf.position((int) (itemsOffset - itemBase));
+    ArrayList<String> itemNames = new ArrayList<>(itemCount);
+    long[] itemCents = new long[itemCount];
+    for (int i = 0; i < itemCount; i++) {
+      byte[] name = new byte[itemBuf.getInt()];
+      itemBuf.get(name);
+      itemNames.add(new String(name, StandardCharsets.UTF_8));
+      itemCents[i] = itemBuf.getLong();
+    }
+    return new PaymentRecord(
+        orderNumber, tableNumber, itemNames, itemCents, subtotal, tax, gratuity, timestamp);
+  }
+
+  /**
+   * Read from a file until the buffer is full or the file ends
+   *
+   * @param channel: the file
+   * @param buf: the buffer
+   * @param position: where in the file to start reading
+   * @throws IOException if the file can't be read
+   */
+  private static void readFully(FileChannel channel, ByteBuffer buf, long position)
+      throws IOException {
+    while (buf.hasRemaining()) {
+      int read = channel.read(buf, position);
+      if (read < 0) break;
+      position += read;
+    }
+  }
+
+  /**
+   * Write all of a buffer to a file
+   *
+   * @param channel: the file
+   * @param buf: the buffer
+   * @param position: where in the file to start writing
+   * @throws IOException if the file can't be written
+   */
+  private static void writeFully(FileChannel channel, ByteBuffer buf, long position)
+      throws IOException {
+    while (buf.hasRemaining()) {
+      position += channel.write(buf, position);
+    }
+  }
+
+  /**
+   * @param timestamp: milliseconds since the epoch
+   * @return the day, in the local time zone, of the given time
+   */
+  private static long epochDay(long timestamp) {
+    return Instant.ofEpochMilli(timestamp)
+        .atZone(ZoneId.systemDefault())
+        .toLocalDate()
+        .toEpochDay();
+  }
+}
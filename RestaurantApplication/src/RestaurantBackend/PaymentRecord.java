@@ -0,0 +1,137 @@
+package RestaurantBackend;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A record of a payment for a resolved order, as stored in the PaymentLedger.
+ *
+ * <p>Amounts are in cents. Holds the name and cost of each item billed, so the bill can be printed
+ * again as it was paid.
+ */
+public class PaymentRecord {
+
+  private static final DateTimeFormatter TIME_FORMAT =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+  private final long orderNumber;
+  private final int tableNumber;
+  // the names and costs of the items billed, in the order they were billed
+  private final List<String> itemNames;
+  private final long[] itemCents;
+  private final long subtotalCents;
+  private final long taxCents;
+  private final long gratuityCents;
+  private final long timestamp;
+
+  /**
+   * A new PaymentRecord
+   *
+   * @param orderNumber: the number of the order paid for
+   * @param tableNumber: the number of the order's table
+   * @param itemNames: the names of the items billed
+   * @param itemCents: the cost of each item billed, in cents
+   * @param subtotalCents: the cost of the items, in cents
+   * @param taxCents: the tax, in cents
+   * @param gratuityCents: the gratuity, in cents
+   * @param timestamp: when the payment was made, in milliseconds since the epoch
+   */
+  PaymentRecord(
+      long orderNumber,
+      int tableNumber,
+      List<String> itemNames,
+      long[] itemCents,
+      long subtotalCents,
+      long taxCents,
+      long gratuityCents,
+      long timestamp) {
+    this.orderNumber = orderNumber;
+    this.tableNumber = tableNumber;
+    this.itemNames = Collections.unmodifiableList(itemNames);
+    this.itemCents = Arrays.copyOf(itemCents, itemNames.size());
+    this.subtotalCents = subtotalCents;
+    this.taxCents = taxCents;
+    this.gratuityCents = gratuityCents;
+    this.timestamp = timestamp;
+  }
+
+  public long getOrderNumber() {
+    return orderNumber;
+  }
+
+  public int getTableNumber() {
+    return tableNumber;
+  }
+
+  public int getItemCount() {
+    return itemNames.size();
+  }
+
+  /** @return the names of the items billed, in the order they were billed */
+  public List<String> getItemNames() {
+    return itemNames;
+  }
+
+  /**
+   * @param i: the position of an item in the bill
+   * @return the cost of the item, in cents
+   */
+  public long getItemCents(int i) {
+    return itemCents[i];
+  }
+
+  public long getSubtotalCents() {
+    return subtotalCents;
+  }
+
+  public long getTaxCents() {
+    return taxCents;
+  }
+
+  public long getGratuityCents() {
+    return gratuityCents;
+  }
+
+  /** @return the amount paid, in cents */
+  public long getTotalCents() {
+    return subtotalCents + taxCents + gratuityCents;
+  }
+
+  /** @return when the payment was made, in milliseconds since the epoch */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * A human-readable bill for this payment, laid out like the bills servers print
+   *
+   * @return a String representation of this payment
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    Table.appendRule(sb);
+    sb.append("\n");
+    sb.append(String.format("Table #%d, Order #%d%n", tableNumber, orderNumber));
+    sb.append(
+        LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault())
+            .format(TIME_FORMAT))
+        .append("\n");
+    for (int i = 0; i < itemNames.size(); i++) {
+      sb.append(Table.billLineFormat(itemNames.get(i), itemCents[i]));
+    }
+    sb.append(Table.billLineFormat("SUBTOTAL:", subtotalCents));
+    sb.append(Table.billLineFormat("TAX:", taxCents));
+    if (gratuityCents > 0) {
+      sb.append(Table.billLineFormat("GRATUITY:", gratuityCents));
+    }
+    sb.append(Table.billLineFormat("TOTAL:", getTotalCents()));
+    Table.appendRule(sb);
+    return sb.toString();
+  }
+}
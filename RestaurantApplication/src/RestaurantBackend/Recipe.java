@@ -0,0 +1,153 @@
+package RestaurantBackend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A compiled recipe.
+ *
+ * <p>Holds the ids of the ingredients a dish needs, as interned by the IngredientRegistry, and the
+ * amount of each in parallel arrays, so that the kitchen can check and deduct a recipe without
+ * looking up names or allocating. Recipes are immutable and may be shared between dishes.
+ */
+class Recipe {
+
+  private static final Recipe EMPTY = new Recipe(new int[0], new double[0]);
+
+  private final int[] ids;
+  private final double[] amounts;
+
+  /**
+   * A new Recipe
+   *
+   * @param ids: the ids of the ingredients
+   * @param amounts: the amount of each ingredient
+   */
+  private Recipe(int[] ids, double[] amounts) {
+    this.ids = ids;
+    this.amounts = amounts;
+  }
+
+  /**
+   * Compile a list of ingredients into a recipe
+   *
+   * @param ingredients: the ingredients, each with its name and amount
+   * @return the compiled recipe
+   */
+  static Recipe compile(ArrayList<Ingredient> ingredients) {
+    if (ingredients.isEmpty()) {
+      return EMPTY;
+    }
+    IngredientRegistry registry = IngredientRegistry.getInstance();
+    int[] ids = new int[ingredients.size()];
+    double[] amounts = new double[ingredients.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = registry.idOf(ingredients.get(i).getName());
+      amounts[i] = ingredients.get(i).getAmount();
+    }
+    return new Recipe(ids, amounts);
+  }
+
+  /** @return the number of ingredients in this recipe */
+  int size() {
+    return ids.length;
+  }
+
+  /**
+   * @param i: the index of an ingredient in this recipe
+   * @return the id of the ingredient
+   */
+  int idAt(int i) {
+    return ids[i];
+  }
+
+  /**
+   * @param i: the index of an ingredient in this recipe
+   * @return the amount of the ingredient
+   */
+  double amountAt(int i) {
+    return amounts[i];
+  }
+
+  /**
+   * @param id: the id of an ingredient
+   * @return the amount of the ingredient in this recipe, or 0 if it isn't in it
+   */
+  double amountOf(int id) {
+    for (int i = 0; i < ids.length; i++) {
+      if (ids[i] == id) {
+        return amounts[i];
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Apply a sparse set of changes to this recipe.
+   *
+   * <p>Amounts never drop below 0; changes to ingredients not in this recipe add them to it.
+   *
+   * @param changedIds: the ids of the ingredients to change
+   * @param changes: the amount to add to each ingredient; negative to remove some
+   * @param count: the number of changes
+   * @return a new recipe with the changes applied
+   */
+  Recipe withChanges(int[] changedIds, double[] changes, int count) {
+    int[] newIds = new int[ids.length + count];
+    double[] newAmounts = new double[ids.length + count];
+    System.arraycopy(ids, 0, newIds, 0, ids.length);
+    System.arraycopy(amounts, 0, newAmounts, 0, amounts.length);
+    int size = ids.length;
+    for (int c = 0; c < count; c++) {
+      int i = indexOf(newIds, size, changedIds[c]);
+      if (i < 0) {
+        i = size++;
+        newIds[i] = changedIds[c];
+      }
+      newAmounts[i] = Math.max(newAmounts[i] + changes[c], 0);
+    }
+    if (size < newIds.length) {
+      int[] trimmedIds = new int[size];
+      double[] trimmedAmounts = new double[size];
+      System.arraycopy(newIds, 0, trimmedIds, 0, size);
+      System.arraycopy(newAmounts, 0, trimmedAmounts, 0, size);
+      return new Recipe(trimmedIds, trimmedAmounts);
+    }
+    return new Recipe(newIds, newAmounts);
+  }
+
+  /**
+   * @param other: another recipe
+   * @return true if the other recipe needs the same amounts of the same ingredients, in the same
+   *     order
+   */
+  boolean sameAs(Recipe other) {
+    return other == this
+        || (Arrays.equals(ids, other.ids) && Arrays.equals(amounts, other.amounts));
+  }
+
+  /** @return this recipe as a new list of named ingredients */
+  ArrayList<Ingredient> toIngredients() {
+    IngredientRegistry registry = IngredientRegistry.getInstance();
+    ArrayList<Ingredient> ret = new ArrayList<>(ids.length);
+    for (int i = 0; i < ids.length; i++) {
+      ret.add(new Ingredient(registry.nameOf(ids[i]), amounts[i]));
+    }
+    return ret;
+  }
+
+  /**
+   * @param ids: an array of ids
+   * @param size: the number of ids in use
+   * @param id: the id to search for
+   * @return the index of the id in the array, or -1 if it isn't there
+   */
+  private static int indexOf(int[] ids, int size, int id) {
+    for (int i = 0; i < size; i++) {
+      if (ids[i] == id) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,391 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Loads the restaurant's record files: the menu, inventory, employees and stations files, whose
+ * lines are fields separated by " | ".
+ *
+ * <p>A file is read whole through a FileChannel and tokenized by scanning its bytes, with no
+ * regular expressions. Large files are cut into chunks at line ends and the chunks are parsed in
+ * parallel, in the common fork-join pool; the records come back in the order of the file's lines.
+ * Blank lines are skipped. A line that can't be parsed is reported as a FormatException naming the
+ * file, line and column.
+ *
+ * <p>Fields are split as String.split("\\s\\|\\s") would split them: at a '|' with a whitespace
+ * character on each side, dropping trailing empty fields.
+ */
+final class RecordFile {
+
+  // the size of the chunks a file is cut into to be parsed in parallel
+  static final int CHUNK_BYTES = 1 << 16;
+
+  private RecordFile() {}
+
+  /**
+   * Load every record in a file
+   *
+   * @param path: the path of the file
+   * @param parser: turns a line's fields into a record, calling Row.error for a line it can't use
+   * @param <T> the type of the records
+   * @return the records, in the order of their lines
+   * @throws java.nio.file.NoSuchFileException if there is no such file
+   * @throws IOException if the file can't be read
+   * @throws FormatException if a line can't be parsed; the first such line is reported
+   */
+  static <T> ArrayList<T> load(String path, Function<Row, T> parser) throws IOException {
+    byte[] bytes = read(path);
+    ArrayList<Integer> starts = chunkStarts(bytes);
+    if (starts.size() == 1) {
+      Chunk<T> only = parse(path, bytes, 0, bytes.length, parser);
+      only.rethrow(0);
+      return only.records;
+    }
+    List<Chunk<T>> chunks =
+        IntStream.range(0, starts.size())
+            .parallel()
+            .mapToObj(
+                c ->
+                    parse(
+                        path,
+                        bytes,
+                        starts.get(c),
+                        c + 1 < starts.size() ? starts.get(c + 1) : bytes.length,
+                        parser))
+            .collect(Collectors.toList());
+    ArrayList<T> records = new ArrayList<>();
+    int linesBefore = 0;
+    for (Chunk<T> chunk : chunks) {
+      chunk.rethrow(linesBefore);
+      records.addAll(chunk.records);
+      linesBefore += chunk.lines;
+    }
+    return records;
+  }
+
+  /**
+   * @param path: the path of a file
+   * @return the contents of the file
+   * @throws IOException if the file can't be read
+   */
+  private static byte[] read(String path) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE - 8) {
+        throw new IOException(path + " is too large to load");
+      }
+      ByteBuffer buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+        // keep reading until the buffer is full or the file ends
+      }
+      return buffer.position() == buffer.capacity()
+          ? buffer.array()
+          : Arrays.copyOf(buffer.array(), buffer.position());
+    }
+  }
+
+  /**
+   * @param bytes: the contents of a file
+   * @return the positions the chunks of the file start at: the start of the file, then the start
+   *     of the first line after every CHUNK_BYTES bytes
+   */
+  private static ArrayList<Integer> chunkStarts(byte[] bytes) {
+    ArrayList<Integer> starts = new ArrayList<>();
+    starts.add(0);
+    int at = CHUNK_BYTES;
+    while (at < bytes.length) {
+      while (at < bytes.length && bytes[at - 1] != '\n') {
+        at++;
+      }
+      if (at < bytes.length) {
+        starts.add(at);
+      }
+      at += CHUNK_BYTES;
+    }
+    return starts;
+  }
+
+  /**
+   * Parse the lines of one chunk of a file
+   *
+   * @param path: the path of the file
+   * @param bytes: the contents of the file
+   * @param from: the start of the chunk, the start of a line
+   * @param to: the end of the chunk, the end of a line or of the file
+   * @param parser: turns a line's fields into a record
+   * @param <T> the type of the records
+   * @return the records of the chunk, and the first error in it if there was one
+   */
+  private static <T> Chunk<T> parse(
+      String path, byte[] bytes, int from, int to, Function<Row, T> parser) {
+    Chunk<T> chunk = new Chunk<>();
+    Row row = new Row(path, bytes);
+    int start = from;
+    while (start < to) {
+      int end = start;
+      while (end < to && bytes[end] != '\n') {
+        end++;
+      }
+      chunk.lines++;
+      if (row.tokenize(start, end, chunk.lines)) {
+        try {
+          chunk.records.add(parser.apply(row));
+        } catch (FormatException e) {
+          chunk.error = e;
+          return chunk;
+        }
+      }
+      start = end + 1;
+    }
+    return chunk;
+  }
+
+  /**
+   * @param b: a byte of a file
+   * @return true if it is a whitespace character, as \s matches
+   */
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+  }
+
+  /** The records parsed from one chunk of a file */
+  private static class Chunk<T> {
+    final ArrayList<T> records = new ArrayList<>();
+    // the number of lines in the chunk, so far
+    int lines;
+    // the first line of the chunk that couldn't be parsed, numbered from the chunk's start
+    FormatException error;
+
+    /**
+     * Throw the error in this chunk, if there was one
+     *
+     * @param linesBefore: the number of lines in the file before this chunk
+     */
+    void rethrow(int linesBefore) {
+      if (error != null) {
+        throw new FormatException(
+            error.getPath(), linesBefore + error.getLine(), error.getColumn(), error.getReason());
+      }
+    }
+  }
+
+  /**
+   * A line of a record file, cut into fields
+   *
+   * <p>A Row is reused for each line of a chunk, so parsers must not keep it.
+   */
+  static final class Row {
+    private final String path;
+    private final byte[] bytes;
+    // the start of the line
+    private int lineStart;
+    // the number of the line, within its chunk
+    private int line;
+    // the start and end of each field
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fields;
+
+    private Row(String path, byte[] bytes) {
+      this.path = path;
+      this.bytes = bytes;
+    }
+
+    /**
+     * Cut a line into fields
+     *
+     * @param start: the start of the line
+     * @param end: the end of the line, before its line break
+     * @param line: the number of the line, within its chunk
+     * @return false if the line is blank
+     */
+    private boolean tokenize(int start, int end, int line) {
+      if (end > start && bytes[end - 1] == '\r') {
+        end--;
+      }
+      this.lineStart = start;
+      this.line = line;
+      fields = 0;
+      boolean blank = true;
+      int fieldStart = start;
+      for (int i = start; i < end; i++) {
+        byte b = bytes[i];
+        if (blank && !isWhitespace(b)) {
+          blank = false;
+        }
+        if (b == '|'
+            && i > fieldStart
+            && i + 1 < end
+            && isWhitespace(bytes[i - 1])
+            && isWhitespace(bytes[i + 1])) {
+          addField(fieldStart, i - 1);
+          fieldStart = i + 2;
+          i++;
+        }
+      }
+      if (blank) {
+        return false;
+      }
+      addField(fieldStart, end);
+      while (fields > 1 && starts[fields - 1] == ends[fields - 1]) {
+        fields--;
+      }
+      return true;
+    }
+
+    private void addField(int start, int end) {
+      if (fields == starts.length) {
+        starts = Arrays.copyOf(starts, fields * 2);
+        ends = Arrays.copyOf(ends, fields * 2);
+      }
+      starts[fields] = start;
+      ends[fields] = end;
+      fields++;
+    }
+
+    /** @return the number of fields in this line */
+    int size() {
+      return fields;
+    }
+
+    /**
+     * @param i: the index of a field
+     * @return the text of the field
+     * @throws FormatException if the line has no such field
+     */
+    String text(int i) {
+      require(i);
+      return new String(bytes, starts[i], ends[i] - starts[i], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param i: the index of a field
+     * @return the field's value, as a number
+     * @throws FormatException if the line has no such field, or it isn't a number
+     */
+    double number(int i) {
+      String text = text(i);
+      return number(i, starts[i], text);
+    }
+
+    /**
+     * @param i: the index of a field formatted as "Name, number"
+     * @return the name before the comma
+     * @throws FormatException if the line has no such field, or it has no ", "
+     */
+    String name(int i) {
+      int comma = comma(i);
+      return new String(bytes, starts[i], comma - starts[i], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param i: the index of a field formatted as "Name, number"
+     * @return the number after the comma
+     * @throws FormatException if the line has no such field, it has no ", ", or what follows it
+     *     isn't a number
+     */
+    double amount(int i) {
+      int after = comma(i) + 2;
+      return number(i, after, new String(bytes, after, ends[i] - after, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns an error about this line, for a parser to throw
+     *
+     * @param message: what is wrong with the line
+     * @return the error
+     */
+    FormatException error(String message) {
+      return new FormatException(path, line, 1, message);
+    }
+
+    private double number(int i, int at, String text) {
+      try {
+        return Double.parseDouble(text);
+      } catch (NumberFormatException e) {
+        throw errorAt(at, "expected a number in field " + (i + 1) + ", found '" + text + "'");
+      }
+    }
+
+    /**
+     * @param i: the index of a field
+     * @return the position of the first ", " in the field
+     */
+    private int comma(int i) {
+      require(i);
+      for (int at = starts[i]; at + 1 < ends[i]; at++) {
+        if (bytes[at] == ',' && isWhitespace(bytes[at + 1])) {
+          return at;
+        }
+      }
+      throw errorAt(starts[i], "expected 'Name, amount' in field " + (i + 1));
+    }
+
+    private void require(int i) {
+      if (i >= fields) {
+        throw errorAt(
+            fields == 0 ? lineStart : ends[fields - 1],
+            "expected at least " + (i + 1) + " fields, found " + fields);
+      }
+    }
+
+    private FormatException errorAt(int at, String message) {
+      return new FormatException(path, line, at - lineStart + 1, message);
+    }
+  }
+
+  /** A line of a record file that can't be parsed */
+  static class FormatException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String path;
+    private final int line;
+    private final int column;
+    private final String reason;
+
+    /**
+     * @param path: the path of the file
+     * @param line: the number of the line, from 1
+     * @param column: the position in the line, from 1, in bytes
+     * @param reason: what is wrong with the line
+     */
+    FormatException(String path, int line, int column, String reason) {
+      super(path + ":" + line + ":" + column + ": " + reason);
+      this.path = path;
+      this.line = line;
+      this.column = column;
+      this.reason = reason;
+    }
+
+    /** @return the path of the file */
+    String getPath() {
+      return path;
+    }
+
+    /** @return the number of the line, from 1 */
+    int getLine() {
+      return line;
+    }
+
+    /** @return the position in the line, from 1, in bytes */
+    int getColumn() {
+      return column;
+    }
+
+    /** @return what is wrong with the line */
+    String getReason() {
+      return reason;
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package RestaurantBackend;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the ingredients that have been reordered and not yet restocked.
+ *
+ * <p>At most one request is open per ingredient: further requests for it are ignored until a
+ * shipment of it arrives. New requests are appended to the requests file together, one batch at a
+ * time. Each asks for the amount the DemandForecaster says will last until the next shipment, or a
+ * fixed amount for an ingredient that hasn't been used yet.
+ */
+class ReorderEngine {
+
+  private static final String REQUESTS_PATH = DataFiles.path("requests.txt");
+  // the amount requested of an ingredient with no forecast
+  static final int REORDER_AMOUNT = 20;
+
+  // names of the ingredients with an open request
+  private final Set<String> outstanding = ConcurrentHashMap.newKeySet();
+  // decides how much of each ingredient to request
+  private final DemandForecaster forecaster;
+
+  /**
+   * A new ReorderEngine
+   *
+   * @param forecaster: decides how much of each ingredient to request
+   */
+  ReorderEngine(DemandForecaster forecaster) {
+    this.forecaster = forecaster;
+  }
+
+  /**
+   * Open a request for each of the given ingredients that doesn't already have one, and write the
+   * new requests to the requests file
+   *
+   * @param ingredients: the ingredients to be reordered
+   * @return the ingredients for which a new request was opened
+   */
+  synchronized ArrayList<Ingredient> request(ArrayList<Ingredient> ingredients) {
+    ArrayList<Ingredient> opened = new ArrayList<>();
+    for (Ingredient i : ingredients) {
+      if (outstanding.add(i.getName())) {
+        opened.add(i);
+      }
+    }
+    if (!opened.isEmpty()) {
+      writeRequests(opened);
+    }
+    return opened;
+  }
+
+  /**
+   * Close the open request for an ingredient, if any, now that a shipment of it has arrived
+   *
+   * @param name: the name of the ingredient received
+   */
+  void shipmentReceived(String name) {
+    outstanding.remove(name);
+  }
+
+  /**
+   * @param name: the name of an ingredient
+   * @return true if the ingredient has an open request
+   */
+  boolean isOutstanding(String name) {
+    return outstanding.contains(name);
+  }
+
+  /** @return the names of the ingredients with an open request */
+  ArrayList<String> outstanding() {
+    return new ArrayList<>(outstanding);
+  }
+
+  /**
+   * Reopen the requests recorded in a snapshot, without writing them to the requests file again
+   *
+   * @param names: the names of the ingredients with an open request
+   */
+  void restoreOutstanding(Collection<String> names) {
+    outstanding.addAll(names);
+  }
+
+  /**
+   * Append requests for the given ingredients to the requests file, unless they are being replayed
+   * from the state journal, in which case they were written the first time
+   *
+   * @param ingredients: the ingredients being requested
+   */
+  private void writeRequests(ArrayList<Ingredient> ingredients) {
+    if (StateJournal.isReplaying()) {
+      return;
+    }
+    try {
+      PrintWriter pw = new PrintWriter(new FileOutputStream(new File(REQUESTS_PATH), true));
+      for (Ingredient i : ingredients) {
+        long amount = forecaster.reorderQuantity(i.getName(), i.getAmount(), REORDER_AMOUNT);
+        pw.println(String.format("I'd like to Order %d more %s", amount, i.getName()));
+      }
+      pw.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+}
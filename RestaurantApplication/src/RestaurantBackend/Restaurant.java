@@ -1,9 +1,11 @@
 package RestaurantBackend;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 /** A Restaurant */
 public class Restaurant implements FileCreator {
 
@@ -15,18 +17,113 @@ public class Restaurant implements FileCreator {
   private Kitchen kitchen;
   // the menu
   private Menu menu;
+  // the index of open orders and their dishes
+  private OrderIndex orderIndex;
+  // the durable record of changes to this restaurant's state
+  private StateJournal journal;
 
   /**
    * Create a new instance of Restaurant
    *
+   * <p>The stations and prep times of menu items are read from stations.txt beside the menu file,
+   * if there is one.
+   *
    * @param employeePath: path to employee information file
    * @param menuPath: path to menu information file
    * @param inventoryPath: path to inventory information file
    */
   public Restaurant(String employeePath, String menuPath, String inventoryPath) {
-    menu = new Menu(menuPath);
-    kitchen = new Kitchen(inventoryPath);
-    initializeEmployees(employeePath);
+    this(employeePath, menuPath, inventoryPath, null);
+  }
+
+  /**
+   * Create a new instance of Restaurant whose stock is kept in an inventory ledger file, so that
+   * it survives a restart; the inventory file is only read to fill a new ledger
+   *
+   * <p>The menu, stations and employee files are loaded in parallel with the inventory.
+   *
+   * @param employeePath: path to employee information file
+   * @param menuPath: path to menu information file
+   * @param inventoryPath: path to inventory information file
+   * @param ledgerPath: path to the inventory ledger file, or null to keep the stock in memory
+   */
+  public Restaurant(String employeePath, String menuPath, String inventoryPath, String ledgerPath) {
+    CompletableFuture<Menu> menuLoad = CompletableFuture.supplyAsync(() -> new Menu(menuPath));
+    CompletableFuture<DishProfiles> profilesLoad =
+        CompletableFuture.supplyAsync(() -> DishProfiles.load(stationsPath(menuPath)));
+    CompletableFuture<ArrayList<String[]>> employeesLoad =
+        CompletableFuture.supplyAsync(() -> loadEmployees(employeePath));
+    kitchen = new Kitchen(inventoryPath, ledgerPath);
+    orderIndex = new OrderIndex();
+    kitchen.setOrderIndex(orderIndex);
+    menu = await(menuLoad);
+    kitchen.getScheduler().setProfiles(await(profilesLoad));
+    journal = new StateJournal(this);
+    initializeEmployees(await(employeesLoad));
+  }
+
+  /**
+   * Wait for a file to be loaded
+   *
+   * @param load: the loading of the file
+   * @param <T> what is loaded from the file
+   * @return what was loaded
+   * @throws RecordFile.FormatException if a line of the file couldn't be parsed
+   */
+  private static <T> T await(CompletableFuture<T> load) {
+    try {
+      return load.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * @param menuPath: path to menu information file
+   * @return the path of the file of menu item stations and prep times beside it
+   */
+  private static String stationsPath(String menuPath) {
+    File parent = new File(menuPath).getAbsoluteFile().getParentFile();
+    return new File(parent, "stations.txt").getPath();
+  }
+
+  /**
+   * Restore the state this restaurant was in when it last stopped, and from then on record every
+   * change to it.
+   *
+   * <p>The latest snapshot is loaded and the changes logged after it are replayed; a new snapshot
+   * is then written every given period while there are changes to record.
+   *
+   * @param snapshotPath: path to the snapshot file
+   * @param logPath: path to the write-ahead log file
+   * @param snapshotPeriodMillis: how often to write a snapshot
+   * @throws IOException if the journal files can't be read or written
+   */
+  public void startJournal(String snapshotPath, String logPath, long snapshotPeriodMillis)
+      throws IOException {
+    journal.start(snapshotPath, logPath, snapshotPeriodMillis);
+  }
+
+  /** Write a final snapshot and stop recording changes to this restaurant's state */
+  public void closeJournal() {
+    journal.close();
+  }
+
+  /** Write the stock to the storage device and close the inventory ledger, if there is one */
+  public void closeInventory() {
+    kitchen.closeLedger();
+  }
+
+  /**
+   * Returns the journal recording changes to this Restaurant's state
+   *
+   * @return the journal recording changes to this Restaurant's state
+   */
+  StateJournal getJournal() {
+    return journal;
   }
 
   /**
@@ -39,42 +136,117 @@ public class Restaurant implements FileCreator {
   }
 
   /**
-   * Initializes all employees using the given employee.txt file path
+   * Returns the index of every open order in this Restaurant
+   *
+   * @return the index of every open order in this Restaurant
+   */
+  OrderIndex getOrderIndex() {
+    return orderIndex;
+  }
+
+  /**
+   * Reads the employees in the given employee.txt file path
    *
    * <p>Each line of the input file should contain an employee and be formatted as follows:
    * Occupation | Name
    *
    * <p>For example: Server | John
+   *
+   * <p>A cook may be given a station, which the kitchen's scheduler can route dishes by:
+   * Cook | Bob | grill
+   *
+   * @param employeePath: the path of the file
+   * @return the occupation, name and station (or null) of each employee
+   * @throws RecordFile.FormatException if a line of the file isn't formatted as above
    */
-  private void initializeEmployees(String employeePath) {
+  private ArrayList<String[]> loadEmployees(String employeePath) {
+    try {
+      return RecordFile.load(
+          employeePath,
+          line ->
+              new String[] {line.text(0), line.text(1), line.size() > 2 ? line.text(2) : null});
+    } catch (NoSuchFileException e) {
+      createNewFile(employeePath);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    return new ArrayList<>();
+  }
+
+  /**
+   * Initializes all employees
+   *
+   * @param employees: the occupation, name and station (or null) of each employee
+   */
+  private void initializeEmployees(ArrayList<String[]> employees) {
     cooks = new ArrayList<>();
     servers = new ArrayList<>();
     managers = new ArrayList<>();
-    try {
-      Scanner sc = new Scanner(new File(employeePath));
-      while (sc.hasNextLine()) {
-        String[] input = sc.nextLine().split("\\s\\|\\s");
-        switch (input[0]) {
-          case "Server":
-            servers.add(new Server(input[1], this));
-            break;
-          case "Cook":
-            cooks.add(new Cook(input[1], this));
-            break;
-          case "Manager":
-            Manager toAdd = new Manager(input[1], this);
-            getKitchen().addObserver(toAdd);
-            managers.add(toAdd);
-            break;
-          default:
-            break;
-        }
+    for (String[] input : employees) {
+      switch (input[0]) {
+        case "Server":
+          addServer(input[1]);
+          break;
+        case "Cook":
+          addCook(input[1], input[2]);
+          break;
+        case "Manager":
+          addManager(input[1]);
+          break;
+        default:
+          break;
       }
-    } catch (FileNotFoundException e) {
-      createNewFile(employeePath);
     }
   }
 
+  /**
+   * Hire a new server
+   *
+   * @param name: name of server
+   * @return the new server
+   */
+  Server addServer(String name) {
+    Server toAdd = new Server(name, this);
+    servers.add(toAdd);
+    return toAdd;
+  }
+
+  /**
+   * Hire a new cook
+   *
+   * @param name: name of cook
+   * @return the new cook
+   */
+  Cook addCook(String name) {
+    return addCook(name, null);
+  }
+
+  /**
+   * Hire a new cook who works at a station
+   *
+   * @param name: name of cook
+   * @param station: the cook's station, or null if they have none
+   * @return the new cook
+   */
+  Cook addCook(String name, String station) {
+    Cook toAdd = new Cook(name, this, station);
+    cooks.add(toAdd);
+    return toAdd;
+  }
+
+  /**
+   * Hire a new manager, who is told when the kitchen runs low on ingredients
+   *
+   * @param name: name of manager
+   * @return the new manager
+   */
+  Manager addManager(String name) {
+    Manager toAdd = new Manager(name, this);
+    getKitchen().addObserver(toAdd);
+    managers.add(toAdd);
+    return toAdd;
+  }
+
   /**
    * @return a deep copy of this restaurant's servers
    */
@@ -0,0 +1,532 @@
+package RestaurantBackend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Something that happened in the restaurant, as recorded by a line of the log.
+ *
+ * <p>Employees log what they do by writing events to the LogWriter; an event is formatted as its
+ * line only if and when the line is written, and RestaurantEventReader turns the lines back into
+ * events. Events that change the restaurant's state can be made again by an EventReplayer.
+ *
+ * <p>Every event has a type and the name of the employee who caused it, if any; the other fields
+ * are set only for the types that use them. Dishes are identified by the id they had when the
+ * event happened, and carry their name and ingredients as they were then.
+ */
+public class RestaurantEvent {
+
+  /** The kinds of event */
+  public enum Type {
+    // a server added a table to their active tables
+    TABLE_ADDED,
+    // a server added an order to a table
+    ORDER_ADDED,
+    // a server added a dish to an order's tentative dishes
+    DISH_ADDED,
+    // a server couldn't add a dish to an order, for lack of ingredients
+    DISH_REJECTED,
+    // a server changed the amount of an ingredient in an ordered dish
+    INGREDIENT_ADJUSTED,
+    // a server removed a tentative dish from an order
+    TENTATIVE_DISH_REMOVED,
+    // a server sent a table's tentative dishes to the kitchen
+    TABLE_FINALIZED,
+    // a cook started making a dish
+    DISH_SEEN,
+    // a cook cancelled a dish, for lack of ingredients
+    DISH_CANCELLED,
+    // a cook finished making a dish
+    DISH_COMPLETED,
+    // a server delivered a dish to its table
+    DISH_SERVED,
+    // a server sent a served dish back to the kitchen
+    DISH_RETURNED,
+    // a server removed a cancelled dish from an order
+    DISH_REMOVED,
+    // a server resolved an order, and its payment was made
+    ORDER_RESOLVED,
+    // an employee received a shipment of an ingredient
+    SHIPMENT_RECEIVED,
+    // a manager asked for a printout of the inventory
+    INVENTORY_CHECKED,
+    // an ingredient was reordered
+    REORDER_REQUESTED,
+    // servers were told a dish is ready to be served
+    DISH_READY,
+    // servers were told a dish is unavailable
+    DISH_UNAVAILABLE,
+    // a cook started making several identical dishes at once
+    BATCH_SEEN,
+    // a cook finished making several identical dishes at once
+    BATCH_COMPLETED
+  }
+
+  private final Type type;
+  private final String actor;
+  private final int tableNumber;
+  private final long orderNumber;
+  private final long dishId;
+  // the name of the dish, or of the ingredient for an ingredient event
+  private final String name;
+  // the ingredients of the dish
+  private final Recipe recipe;
+  // the amount of the ingredient for an ingredient event
+  private final double amount;
+  // the ids of the other dishes in a batch, made with the dish concerned
+  private final long[] batchmates;
+
+  /**
+   * A new RestaurantEvent
+   *
+   * @param type: the kind of event
+   * @param actor: the name of the employee who caused it, or null
+   * @param tableNumber: the table concerned, if any
+   * @param orderNumber: the order concerned, if any
+   * @param dishId: the id of the dish concerned, if any
+   * @param name: the name of the dish or ingredient concerned, if any
+   * @param recipe: the ingredients of the dish concerned, if any
+   * @param amount: the amount of the ingredient concerned, if any
+   * @param batchmates: the ids of the other dishes in the batch concerned, if any
+   */
+  private RestaurantEvent(
+      Type type,
+      String actor,
+      int tableNumber,
+      long orderNumber,
+      long dishId,
+      String name,
+      Recipe recipe,
+      double amount,
+      long[] batchmates) {
+    this.type = type;
+    this.actor = actor;
+    this.tableNumber = tableNumber;
+    this.orderNumber = orderNumber;
+    this.dishId = dishId;
+    this.name = name;
+    this.recipe = recipe;
+    this.amount = amount;
+    this.batchmates = batchmates;
+  }
+
+  /**
+   * @param type: the kind of event
+   * @param actor: the name of the employee who caused it, or null
+   * @param tableNumber: the table concerned, if any
+   * @param orderNumber: the order concerned, if any
+   * @return an event that concerns no particular dish or ingredient
+   */
+  static RestaurantEvent of(Type type, String actor, int tableNumber, long orderNumber) {
+    return new RestaurantEvent(type, actor, tableNumber, orderNumber, 0, null, null, 0, null);
+  }
+
+  /**
+   * @param type: the kind of event
+   * @param actor: the name of the employee who caused it, or null
+   * @param tableNumber: the table concerned, if any
+   * @param orderNumber: the order concerned, if any
+   * @param dishId: the id of the dish
+   * @param dishName: the name of the dish, or null if the event records only its id
+   * @param recipe: the ingredients of the dish, or null if the event records only its id
+   * @return an event concerning a dish
+   */
+  static RestaurantEvent ofDish(
+      Type type,
+      String actor,
+      int tableNumber,
+      long orderNumber,
+      long dishId,
+      String dishName,
+      Recipe recipe) {
+    return new RestaurantEvent(
+        type, actor, tableNumber, orderNumber, dishId, dishName, recipe, 0, null);
+  }
+
+  /**
+   * @param type: the kind of event
+   * @param actor: the name of the employee who caused it, or null
+   * @param dish: the dish
+   * @param order: the order of the dish, or null
+   * @return an event concerning a dish, with its name and ingredients as they are now
+   */
+  static RestaurantEvent ofDish(Type type, String actor, OrderedDish dish, Order order) {
+    return ofDish(
+        type,
+        actor,
+        order != null ? order.getTableNumber() : 0,
+        order != null ? order.getOrderNumber() : 0,
+        dish.getID(),
+        dish.getName(),
+        dish.getRecipe());
+  }
+
+  /**
+   * @param type: the kind of event
+   * @param actor: the name of the employee who caused it, or null
+   * @param dishId: the id of the dish concerned, if any
+   * @param ingredientName: the name of the ingredient
+   * @param amount: the amount of the ingredient
+   * @return an event concerning an ingredient
+   */
+  static RestaurantEvent ofIngredient(
+      Type type, String actor, long dishId, String ingredientName, double amount) {
+    return new RestaurantEvent(type, actor, 0, 0, dishId, ingredientName, null, amount, null);
+  }
+
+  /**
+   * @param type: BATCH_SEEN or BATCH_COMPLETED
+   * @param actor: the name of the cook
+   * @param dishId: the id of the first dish in the batch
+   * @param dishName: the name of the dishes
+   * @param recipe: the ingredients of each dish
+   * @param batchmates: the ids of the other dishes in the batch
+   * @return an event concerning a batch of identical dishes
+   */
+  static RestaurantEvent ofBatch(
+      Type type, String actor, long dishId, String dishName, Recipe recipe, long[] batchmates) {
+    return new RestaurantEvent(type, actor, 0, 0, dishId, dishName, recipe, 0, batchmates);
+  }
+
+  /**
+   * @param type: BATCH_SEEN or BATCH_COMPLETED
+   * @param actor: the name of the cook
+   * @param batch: the dishes, which are the same menu item with the same ingredients
+   * @return an event concerning a batch of identical dishes
+   */
+  private static RestaurantEvent ofBatch(Type type, String actor, List<OrderedDish> batch) {
+    OrderedDish first = batch.get(0);
+    long[] batchmates = new long[batch.size() - 1];
+    for (int i = 1; i < batch.size(); i++) {
+      batchmates[i - 1] = batch.get(i).getID();
+    }
+    return ofBatch(type, actor, first.getID(), first.getName(), first.getRecipe(), batchmates);
+  }
+
+  /** @return an event recording that a server added a table */
+  static RestaurantEvent tableAdded(String server, int tableNumber) {
+    return of(Type.TABLE_ADDED, server, tableNumber, 0);
+  }
+
+  /** @return an event recording that a server added an order to a table */
+  static RestaurantEvent orderAdded(String server, int tableNumber, long orderNumber) {
+    return of(Type.ORDER_ADDED, server, tableNumber, orderNumber);
+  }
+
+  /** @return an event recording that a server added a dish to an order's tentative dishes */
+  static RestaurantEvent dishAdded(
+      String server, OrderedDish dish, int tableNumber, long orderNumber) {
+    return ofDish(
+        Type.DISH_ADDED,
+        server,
+        tableNumber,
+        orderNumber,
+        dish.getID(),
+        dish.getName(),
+        dish.getRecipe());
+  }
+
+  /** @return an event recording that a server couldn't add a dish, for lack of ingredients */
+  static RestaurantEvent dishRejected(
+      String server, OrderedDish dish, int tableNumber, long orderNumber) {
+    return ofDish(
+        Type.DISH_REJECTED,
+        server,
+        tableNumber,
+        orderNumber,
+        dish.getID(),
+        dish.getName(),
+        dish.getRecipe());
+  }
+
+  /** @return an event recording that a server changed the amount of an ingredient in a dish */
+  static RestaurantEvent ingredientAdjusted(
+      String server, OrderedDish dish, Ingredient ingredient, double change) {
+    return ofIngredient(
+        Type.INGREDIENT_ADJUSTED, server, dish.getID(), ingredient.getName(), change);
+  }
+
+  /** @return an event recording that a server removed a tentative dish from an order */
+  static RestaurantEvent tentativeDishRemoved(String server, long dishId, int tableNumber) {
+    return ofDish(Type.TENTATIVE_DISH_REMOVED, server, tableNumber, 0, dishId, null, null);
+  }
+
+  /** @return an event recording that a server sent a table's tentative dishes to the kitchen */
+  static RestaurantEvent tableFinalized(String server, int tableNumber) {
+    return of(Type.TABLE_FINALIZED, server, tableNumber, 0);
+  }
+
+  /** @return an event recording that a cook started making a dish */
+  static RestaurantEvent dishSeen(String cook, OrderedDish dish) {
+    return ofDish(Type.DISH_SEEN, cook, dish, null);
+  }
+
+  /** @return an event recording that a cook cancelled a dish, for lack of ingredients */
+  static RestaurantEvent dishCancelled(String cook, OrderedDish dish) {
+    return ofDish(Type.DISH_CANCELLED, cook, dish, null);
+  }
+
+  /** @return an event recording that a cook finished making a dish */
+  static RestaurantEvent dishCompleted(String cook, OrderedDish dish) {
+    return ofDish(Type.DISH_COMPLETED, cook, dish, null);
+  }
+
+  /** @return an event recording that a cook started making a batch of identical dishes */
+  static RestaurantEvent batchSeen(String cook, List<OrderedDish> batch) {
+    return ofBatch(Type.BATCH_SEEN, cook, batch);
+  }
+
+  /** @return an event recording that a cook finished making a batch of identical dishes */
+  static RestaurantEvent batchCompleted(String cook, List<OrderedDish> batch) {
+    return ofBatch(Type.BATCH_COMPLETED, cook, batch);
+  }
+
+  /** @return an event recording that a server delivered a dish to its table */
+  static RestaurantEvent dishServed(String server, OrderedDish dish, Order order) {
+    return ofDish(Type.DISH_SERVED, server, dish, order);
+  }
+
+  /** @return an event recording that a server sent a served dish back to the kitchen */
+  static RestaurantEvent dishReturned(String server, long dishId) {
+    return ofDish(Type.DISH_RETURNED, server, 0, 0, dishId, null, null);
+  }
+
+  /** @return an event recording that a server removed a cancelled dish from an order */
+  static RestaurantEvent dishRemoved(String server, long dishId, int tableNumber) {
+    return ofDish(Type.DISH_REMOVED, server, tableNumber, 0, dishId, null, null);
+  }
+
+  /** @return an event recording that a server resolved an order */
+  static RestaurantEvent orderResolved(String server, long orderNumber) {
+    return of(Type.ORDER_RESOLVED, server, 0, orderNumber);
+  }
+
+  /** @return an event recording that an employee received a shipment of an ingredient */
+  static RestaurantEvent shipmentReceived(String employee, Ingredient ingredient) {
+    return ofIngredient(
+        Type.SHIPMENT_RECEIVED, employee, 0, ingredient.getName(), ingredient.getAmount());
+  }
+
+  /** @return an event recording that a manager asked for a printout of the inventory */
+  static RestaurantEvent inventoryChecked(String manager) {
+    return of(Type.INVENTORY_CHECKED, manager, 0, 0);
+  }
+
+  /** @return an event recording that an ingredient was reordered */
+  static RestaurantEvent reorderRequested(String ingredientName) {
+    return ofIngredient(Type.REORDER_REQUESTED, null, 0, ingredientName, 0);
+  }
+
+  /** @return an event recording that servers were told a dish is ready to be served */
+  static RestaurantEvent dishReady(OrderedDish dish, Order order) {
+    return ofDish(Type.DISH_READY, null, dish, order);
+  }
+
+  /** @return an event recording that servers were told a dish is unavailable */
+  static RestaurantEvent dishUnavailable(OrderedDish dish, Order order) {
+    return ofDish(Type.DISH_UNAVAILABLE, null, dish, order);
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  /** @return the name of the employee who caused this event, or null if it wasn't recorded */
+  public String getActor() {
+    return actor;
+  }
+
+  public int getTableNumber() {
+    return tableNumber;
+  }
+
+  public long getOrderNumber() {
+    return orderNumber;
+  }
+
+  /** @return the id the dish concerned had when this event happened */
+  public long getDishId() {
+    return dishId;
+  }
+
+  /**
+   * @return the ids of every dish in the batch concerned, the first dish's first, or null if this
+   *     event doesn't concern a batch
+   */
+  public long[] getBatchIds() {
+    if (batchmates == null) {
+      return null;
+    }
+    long[] ids = new long[batchmates.length + 1];
+    ids[0] = dishId;
+    System.arraycopy(batchmates, 0, ids, 1, batchmates.length);
+    return ids;
+  }
+
+  /** @return the name of the dish or ingredient concerned, or null if there is none */
+  public String getName() {
+    return name;
+  }
+
+  /** @return the ingredients of the dish concerned, or null if this event doesn't record them */
+  public ArrayList<Ingredient> getIngredients() {
+    return recipe != null ? recipe.toIngredients() : null;
+  }
+
+  /** @return the compiled ingredients of the dish concerned, or null */
+  Recipe getRecipe() {
+    return recipe;
+  }
+
+  /** @return the amount of the ingredient concerned */
+  public double getAmount() {
+    return amount;
+  }
+
+  /**
+   * The line of the log that records this event.
+   *
+   * <p>Dishes are formatted as OrderedDish formats them, orders as Order does, and ingredients as
+   * Ingredient does, so the lines are the same ones employees have always logged.
+   *
+   * @return the line of the log that records this event, without a line separator
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(64);
+    if (actor != null) {
+      sb.append(actor).append(' ');
+    }
+    switch (type) {
+      case TABLE_ADDED:
+        sb.append("added table number #").append(tableNumber).append(" to the active tables.");
+        break;
+      case ORDER_ADDED:
+        sb.append("added order #").append(orderNumber);
+        sb.append(" to table #").append(tableNumber).append('.');
+        break;
+      case DISH_ADDED:
+        appendDish(sb.append("added "));
+        sb.append(" to table #").append(tableNumber);
+        sb.append(", order #").append(orderNumber).append("'s tentative order");
+        break;
+      case DISH_REJECTED:
+        appendDish(sb.append("tried to add "));
+        sb.append(" to table #").append(tableNumber);
+        sb.append("'s, order #").append(orderNumber);
+        sb.append(" tentative order, but there were insufficient ingredients");
+        break;
+      case INGREDIENT_ADJUSTED:
+        sb.append("changed the amount of ").append(name);
+        sb.append(" in dish #").append(dishId).append(" by ").append(amount);
+        break;
+      case TENTATIVE_DISH_REMOVED:
+        sb.append("removed ordered dish #").append(dishId);
+        sb.append(" from table #").append(tableNumber).append("'s tentative order.");
+        break;
+      case TABLE_FINALIZED:
+        sb.append("sent the orders for table #").append(tableNumber).append(" to the kitchen.");
+        break;
+      case DISH_SEEN:
+        appendDish(sb.append("has seen "));
+        break;
+      case DISH_CANCELLED:
+        appendDish(sb.append("has seen "));
+        sb.append(", but there were insufficient ingredients");
+        break;
+      case DISH_COMPLETED:
+        appendDish(sb.append("has finished cooking "));
+        break;
+      case DISH_SERVED:
+        appendDish(sb.append("delivered "));
+        appendOrder(sb.append(" to "));
+        break;
+      case DISH_RETURNED:
+        sb.append("found something wrong with dish #").append(dishId);
+        sb.append(", and sent it back to the kitchen.");
+        break;
+      case DISH_REMOVED:
+        sb.append("removed ordered dish #").append(dishId);
+        sb.append(" from table #").append(tableNumber).append("'s order.");
+        break;
+      case ORDER_RESOLVED:
+        sb.append("resolved order #").append(orderNumber);
+        break;
+      case SHIPMENT_RECEIVED:
+        sb.append("received a shipment of ").append(amount).append(' ').append(name);
+        break;
+      case INVENTORY_CHECKED:
+        sb.append("requests an inventory printout.");
+        break;
+      case REORDER_REQUESTED:
+        sb.append("Added a request for ").append(name);
+        break;
+      case DISH_READY:
+        appendDish(sb);
+        appendOrder(sb.append(" for "));
+        sb.append(" is ready to be served");
+        break;
+      case DISH_UNAVAILABLE:
+        appendOrder(sb.append("Tell "));
+        sb.append(" that the ").append(name).append(" is currently unavailable, and remove ");
+        appendDish(sb);
+        sb.append(" from their ordered dishes");
+        break;
+      case BATCH_SEEN:
+        sb.append("has seen a batch of ").append(batchmates.length + 1).append(": ");
+        appendBatch(sb);
+        break;
+      case BATCH_COMPLETED:
+        sb.append("has finished cooking a batch of ").append(batchmates.length + 1).append(": ");
+        appendBatch(sb);
+        break;
+      default:
+        sb.append(type);
+        break;
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Append the dish concerned, formatted as follows: #id, name of dish, with amount1 ingredient1,
+   * amount2 ingredient2 ...
+   *
+   * @param sb: the builder to append to
+   */
+  private void appendDish(StringBuilder sb) {
+    sb.append('#').append(dishId).append(", ").append(name).append(", with ");
+    IngredientRegistry registry = IngredientRegistry.getInstance();
+    for (int i = 0; i < recipe.size(); i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(recipe.amountAt(i)).append(' ').append(registry.nameOf(recipe.idAt(i)));
+    }
+  }
+
+  /**
+   * Append the batch concerned, formatted as follows: first dish as appendDish formats it; together
+   * with #id2, #id3 ...
+   *
+   * @param sb: the builder to append to
+   */
+  private void appendBatch(StringBuilder sb) {
+    appendDish(sb);
+    sb.append("; together with ");
+    for (int i = 0; i < batchmates.length; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append('#').append(batchmates[i]);
+    }
+  }
+
+  /**
+   * Append the order concerned, formatted as follows: Table #table number, Order #order number
+   *
+   * @param sb: the builder to append to
+   */
+  private void appendOrder(StringBuilder sb) {
+    sb.append("Table #").append(tableNumber).append(", Order #").append(orderNumber);
+  }
+}
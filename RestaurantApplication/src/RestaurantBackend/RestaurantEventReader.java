@@ -0,0 +1,544 @@
+package RestaurantBackend;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**
+ * Reads RestaurantEvents back from the lines of a log, one at a time.
+ *
+ * <p>Each line is parsed in a single pass by matching the fixed text of the line it could be
+ * against the line itself, without regular expressions or splitting. Lines that don't record an
+ * event are skipped and counted.
+ *
+ * <p>Logs written before cooks logged cancelled dishes differently record a cancellation as the
+ * server's notification that the dish is unavailable, followed by the cook having seen it; the
+ * reader reads that pair as a cancellation.
+ */
+public class RestaurantEventReader implements Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final String INSUFFICIENT = ", but there were insufficient ingredients";
+
+  private final BufferedReader in;
+  private int lineNumber;
+  private int skipped;
+  // the dish the last line said was unavailable, or -1
+  private long unavailableDish = -1;
+
+  /**
+   * A new RestaurantEventReader
+   *
+   * @param in: the lines of the log
+   */
+  public RestaurantEventReader(Reader in) {
+    this.in = new BufferedReader(in, BUFFER_SIZE);
+  }
+
+  /**
+   * Open a log file
+   *
+   * @param path: the path of the log file
+   * @return a reader of the events in the log file
+   * @throws IOException if the file can't be opened
+   */
+  public static RestaurantEventReader open(String path) throws IOException {
+    return new RestaurantEventReader(
+        Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Read the next event
+   *
+   * @return the next event, or null at the end of the log
+   * @throws IOException if the log can't be read
+   */
+  public RestaurantEvent next() throws IOException {
+    String line;
+    while ((line = in.readLine()) != null) {
+      lineNumber++;
+      RestaurantEvent event = parse(line);
+      if (event == null) {
+        skipped++;
+        continue;
+      }
+      if (event.getType() == RestaurantEvent.Type.DISH_UNAVAILABLE) {
+        unavailableDish = event.getDishId();
+      } else {
+        if (event.getType() == RestaurantEvent.Type.DISH_SEEN
+            && event.getDishId() == unavailableDish) {
+          event =
+              RestaurantEvent.ofDish(
+                  RestaurantEvent.Type.DISH_CANCELLED,
+                  event.getActor(),
+                  0,
+                  0,
+                  event.getDishId(),
+                  event.getName(),
+                  event.getRecipe());
+        }
+        unavailableDish = -1;
+      }
+      return event;
+    }
+    return null;
+  }
+
+  /** @return the number of the last line read, starting at 1 */
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  /** @return the number of lines read that don't record an event */
+  public int getSkipped() {
+    return skipped;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  /**
+   * Parse a line of the log
+   *
+   * @param line: the line, without its line separator
+   * @return the event the line records, or null if it doesn't record one
+   */
+  public static RestaurantEvent parse(String line) {
+    Cursor c = new Cursor(line);
+    if (c.skip("Added a request for ")) {
+      return RestaurantEvent.reorderRequested(c.rest());
+    }
+    if (c.skip("Tell ")) {
+      return parseUnavailable(c);
+    }
+    if (line.startsWith("#") && line.endsWith(" is ready to be served")) {
+      return parseReady(c);
+    }
+    // the actor's name ends at the first space followed by a verb this parser knows
+    for (int space = line.indexOf(' '); space > 0; space = line.indexOf(' ', space + 1)) {
+      RestaurantEvent event =
+          parseAction(line.substring(0, space), new Cursor(line, space + 1, line.length()));
+      if (event != null) {
+        return event;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Parse what an employee did
+   *
+   * @param actor: the employee's name
+   * @param c: a cursor at the verb following the employee's name
+   * @return the event, or null if the rest of the line doesn't match any known action
+   */
+  private static RestaurantEvent parseAction(String actor, Cursor c) {
+    switch (c.peek()) {
+      case 'a':
+        if (c.skip("added table number #")) {
+          int table = c.readInt();
+          return c.skip(" to the active tables.") && c.atEnd()
+              ? RestaurantEvent.tableAdded(actor, table)
+              : null;
+        }
+        if (c.skip("added order #")) {
+          long order = c.readLong();
+          if (!c.skip(" to table #")) return null;
+          int table = c.readInt();
+          return c.skip(".") && c.atEnd()
+              ? RestaurantEvent.orderAdded(actor, table, order)
+              : null;
+        }
+        if (c.skip("added ")) {
+          int end = c.line.lastIndexOf(" to table #");
+          return parseAddition(
+              RestaurantEvent.Type.DISH_ADDED, actor, c, end, ", order #", "'s tentative order");
+        }
+        return null;
+      case 't':
+        if (c.skip("tried to add ")) {
+          int end = c.line.lastIndexOf(" to table #");
+          return c.line.endsWith(INSUFFICIENT)
+              ? parseAddition(
+                  RestaurantEvent.Type.DISH_REJECTED,
+                  actor,
+                  c,
+                  end,
+                  "'s, order #",
+                  " tentative order" + INSUFFICIENT)
+              : null;
+        }
+        return null;
+      case 'c':
+        if (c.skip("changed the amount of ")) {
+          int at = c.line.lastIndexOf(" in dish #");
+          if (at < c.pos) return null;
+          String ingredient = c.until(at);
+          c.skip(" in dish #");
+          long dishId = c.readLong();
+          if (!c.skip(" by ")) return null;
+          double change = c.readDouble(c.line.length());
+          return c.ok()
+              ? RestaurantEvent.ofIngredient(
+                  RestaurantEvent.Type.INGREDIENT_ADJUSTED, actor, dishId, ingredient, change)
+              : null;
+        }
+        return null;
+      case 'r':
+        if (c.skip("removed ordered dish #")) {
+          long dishId = c.readLong();
+          if (!c.skip(" from table #")) return null;
+          int table = c.readInt();
+          RestaurantEvent.Type type;
+          if (c.skip("'s tentative order.")) {
+            type = RestaurantEvent.Type.TENTATIVE_DISH_REMOVED;
+          } else if (c.skip("'s order.")) {
+            type = RestaurantEvent.Type.DISH_REMOVED;
+          } else {
+            return null;
+          }
+          return c.atEnd()
+              ? RestaurantEvent.ofDish(type, actor, table, 0, dishId, null, null)
+              : null;
+        }
+        if (c.skip("resolved order #")) {
+          long order = c.readLong();
+          return c.atEnd()
+              ? RestaurantEvent.orderResolved(actor, order)
+              : null;
+        }
+        if (c.skip("received a shipment of ")) {
+          int space = c.line.indexOf(' ', c.pos);
+          if (space < 0) return null;
+          double amount = c.readDouble(space);
+          String ingredient = c.line.substring(space + 1);
+          return c.ok()
+              ? RestaurantEvent.shipmentReceived(actor, new Ingredient(ingredient, amount))
+              : null;
+        }
+        if (c.skip("requests an inventory printout.") && c.atEnd()) {
+          return RestaurantEvent.inventoryChecked(actor);
+        }
+        return null;
+      case 's':
+        if (c.skip("sent the orders for table #")) {
+          int table = c.readInt();
+          return c.skip(" to the kitchen.") && c.atEnd()
+              ? RestaurantEvent.tableFinalized(actor, table)
+              : null;
+        }
+        return null;
+      case 'f':
+        if (c.skip("found something wrong with dish #")) {
+          long dishId = c.readLong();
+          return c.skip(", and sent it back to the kitchen.") && c.atEnd()
+              ? RestaurantEvent.dishReturned(actor, dishId)
+              : null;
+        }
+        return null;
+      case 'd':
+        if (c.skip("delivered ")) {
+          int to = c.line.lastIndexOf(" to Table #");
+          if (to < c.pos) return null;
+          Cursor dish = c.sub(to);
+          c.pos = to;
+          c.skip(" to ");
+          return parseDishAt(RestaurantEvent.Type.DISH_SERVED, actor, dish, c);
+        }
+        return null;
+      case 'h':
+        if (c.skip("has seen a batch of ")) {
+          return parseBatch(RestaurantEvent.Type.BATCH_SEEN, actor, c);
+        }
+        if (c.skip("has finished cooking a batch of ")) {
+          return parseBatch(RestaurantEvent.Type.BATCH_COMPLETED, actor, c);
+        }
+        if (c.skip("has seen ")) {
+          if (c.line.endsWith(INSUFFICIENT)) {
+            return parseDishAt(
+                RestaurantEvent.Type.DISH_CANCELLED,
+                actor,
+                c.sub(c.line.length() - INSUFFICIENT.length()),
+                null);
+          }
+          return parseDishAt(RestaurantEvent.Type.DISH_SEEN, actor, c, null);
+        }
+        if (c.skip("has finished cooking ")) {
+          return parseDishAt(RestaurantEvent.Type.DISH_COMPLETED, actor, c, null);
+        }
+        return null;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Parse a server adding, or trying to add, a dish to an order
+   *
+   * @param type: DISH_ADDED or DISH_REJECTED
+   * @param actor: the server's name
+   * @param c: a cursor at the dish
+   * @param end: the index where the dish ends, at " to table #"
+   * @param orderMarker: the text between the table number and the order number
+   * @param suffix: the text after the order number
+   * @return the event, or null if the line doesn't match
+   */
+  private static RestaurantEvent parseAddition(
+      RestaurantEvent.Type type,
+      String actor,
+      Cursor c,
+      int end,
+      String orderMarker,
+      String suffix) {
+    if (end < c.pos) return null;
+    Cursor dish = c.sub(end);
+    c.pos = end;
+    c.skip(" to table #");
+    int table = c.readInt();
+    if (!c.skip(orderMarker)) return null;
+    long order = c.readLong();
+    if (!c.skip(suffix) || !c.atEnd()) return null;
+    return parseDish(type, actor, table, order, dish);
+  }
+
+  /**
+   * Parse an event about a dish, optionally followed by its order
+   *
+   * @param type: the kind of event
+   * @param actor: the name of the employee, or null
+   * @param dish: a cursor over exactly the dish
+   * @param order: a cursor over exactly the order, or null if the event has none
+   * @return the event, or null if the line doesn't match
+   */
+  private static RestaurantEvent parseDishAt(
+      RestaurantEvent.Type type, String actor, Cursor dish, Cursor order) {
+    int table = 0;
+    long orderNumber = 0;
+    if (order != null) {
+      if (!order.skip("Table #")) return null;
+      table = order.readInt();
+      if (!order.skip(", Order #")) return null;
+      orderNumber = order.readLong();
+      if (!order.atEnd()) return null;
+    }
+    return parseDish(type, actor, table, orderNumber, dish);
+  }
+
+  /**
+   * Parse a dish, formatted as follows: #id, name of dish, with amount1 ingredient1, amount2
+   * ingredient2 ...
+   *
+   * @param type: the kind of event
+   * @param actor: the name of the employee, or null
+   * @param table: the table concerned
+   * @param order: the order concerned
+   * @param c: a cursor over exactly the dish
+   * @return the event, or null if the dish can't be parsed
+   */
+  private static RestaurantEvent parseDish(
+      RestaurantEvent.Type type, String actor, int table, long order, Cursor c) {
+    if (!c.skip("#")) return null;
+    long dishId = c.readLong();
+    if (!c.skip(", ")) return null;
+    int with = c.line.indexOf(", with ", c.pos);
+    if (with < 0 || with > c.end) return null;
+    String name = c.until(with);
+    c.skip(", with ");
+    ArrayList<Ingredient> ingredients = new ArrayList<>();
+    while (!c.atEnd()) {
+      int space = c.line.indexOf(' ', c.pos);
+      if (space < 0 || space >= c.end) return null;
+      double amount = c.readDouble(space);
+      c.pos = space + 1;
+      int comma = c.line.indexOf(", ", c.pos);
+      int next = comma < 0 || comma > c.end ? c.end : comma;
+      ingredients.add(new Ingredient(c.until(next), amount));
+      c.skip(", ");
+    }
+    if (!c.ok()) return null;
+    return RestaurantEvent.ofDish(
+        type, actor, table, order, dishId, name, Recipe.compile(ingredients));
+  }
+
+  /**
+   * Parse a batch of dishes a cook saw or finished: count: first dish; together with #id2, #id3 ...
+   *
+   * @param type: BATCH_SEEN or BATCH_COMPLETED
+   * @param actor: the cook's name
+   * @param c: a cursor at the number of dishes in the batch
+   * @return the event, or null if the line doesn't match
+   */
+  private static RestaurantEvent parseBatch(RestaurantEvent.Type type, String actor, Cursor c) {
+    int count = c.readInt();
+    // every dish after the first takes at least two characters of the line
+    if (!c.skip(": ") || count < 2 || count > c.line.length()) return null;
+    int together = c.line.lastIndexOf("; together with ");
+    if (together < c.pos) return null;
+    RestaurantEvent first = parseDish(type, actor, 0, 0, c.sub(together));
+    if (first == null) return null;
+    c.pos = together + "; together with ".length();
+    long[] batchmates = new long[count - 1];
+    for (int i = 0; i < batchmates.length; i++) {
+      if ((i > 0 && !c.skip(", ")) || !c.skip("#")) return null;
+      batchmates[i] = c.readLong();
+    }
+    return c.atEnd()
+        ? RestaurantEvent.ofBatch(
+            type, actor, first.getDishId(), first.getName(), first.getRecipe(), batchmates)
+        : null;
+  }
+
+  /**
+   * Parse a notification that a dish is ready: dish for order is ready to be served
+   *
+   * @param c: a cursor at the start of the line
+   * @return the event, or null if the line doesn't match
+   */
+  private static RestaurantEvent parseReady(Cursor c) {
+    int end = c.line.length() - " is ready to be served".length();
+    int forIndex = c.line.lastIndexOf(" for Table #", end);
+    if (forIndex < 0) return null;
+    Cursor order = c.sub(end);
+    order.pos = forIndex + " for ".length();
+    return parseDishAt(RestaurantEvent.Type.DISH_READY, null, c.sub(forIndex), order);
+  }
+
+  /**
+   * Parse a notification that a dish is unavailable: Tell order that the name of dish is currently
+   * unavailable, and remove dish from their ordered dishes
+   *
+   * @param c: a cursor after "Tell "
+   * @return the event, or null if the line doesn't match
+   */
+  private static RestaurantEvent parseUnavailable(Cursor c) {
+    int that = c.line.indexOf(" that the ", c.pos);
+    int remove = c.line.lastIndexOf(" is currently unavailable, and remove ");
+    String suffix = " from their ordered dishes";
+    if (that < 0 || remove < that || !c.line.endsWith(suffix)) return null;
+    Cursor order = c.sub(that);
+    c.pos = remove + " is currently unavailable, and remove ".length();
+    return parseDishAt(
+        RestaurantEvent.Type.DISH_UNAVAILABLE,
+        null,
+        c.sub(c.line.length() - suffix.length()),
+        order);
+  }
+
+  /**
+   * A position in a line, and the end of the part of it being parsed.
+   *
+   * <p>Reading a number that isn't there marks the cursor as failed, rather than throwing, since
+   * malformed lines are simply skipped.
+   */
+  private static class Cursor {
+    final String line;
+    final int end;
+    int pos;
+    boolean failed;
+
+    Cursor(String line) {
+      this(line, 0, line.length());
+    }
+
+    Cursor(String line, int pos, int end) {
+      this.line = line;
+      this.pos = pos;
+      this.end = end;
+    }
+
+    /**
+     * @param end: the end of the new cursor's part of the line
+     * @return a new cursor over this one's line from its position to the given end
+     */
+    Cursor sub(int end) {
+      return new Cursor(line, pos, end);
+    }
+
+    /** @return the character at the position, or 0 at the end */
+    char peek() {
+      return pos < end ? line.charAt(pos) : 0;
+    }
+
+    /** @return true if the whole part was parsed without error */
+    boolean atEnd() {
+      return pos == end && !failed;
+    }
+
+    /** @return true if nothing failed to parse */
+    boolean ok() {
+      return !failed;
+    }
+
+    /**
+     * Move past the given text if it is at the position
+     *
+     * @param text: the text expected
+     * @return true if the text was there
+     */
+    boolean skip(String text) {
+      if (pos + text.length() <= end && line.startsWith(text, pos)) {
+        pos += text.length();
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * @param index: where the text ends
+     * @return the text from the position to the given index, moving the position to it
+     */
+    String until(int index) {
+      String ret = line.substring(pos, index);
+      pos = index;
+      return ret;
+    }
+
+    /** @return the rest of the part */
+    String rest() {
+      return until(end);
+    }
+
+    /** @return the decimal integer at the position */
+    long readLong() {
+      int start = pos;
+      boolean negative = pos < end && line.charAt(pos) == '-';
+      if (negative) pos++;
+      long value = 0;
+      while (pos < end) {
+        char ch = line.charAt(pos);
+        if (ch < '0' || ch > '9') break;
+        value = value * 10 + (ch - '0');
+        pos++;
+      }
+      if (pos == start || (negative && pos == start + 1)) {
+        failed = true;
+      }
+      return negative ? -value : value;
+    }
+
+    /** @return the decimal integer at the position */
+    int readInt() {
+      return (int) readLong();
+    }
+
+    /**
+     * @param index: where the number ends
+     * @return the decimal number from the position to the given index
+     */
+    double readDouble(int index) {
+      try {
+        return Double.parseDouble(until(index));
+      } catch (NumberFormatException e) {
+        failed = true;
+        return 0;
+      }
+    }
+  }
+}
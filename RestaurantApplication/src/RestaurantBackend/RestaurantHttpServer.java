@@ -0,0 +1,886 @@
+package RestaurantBackend;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An HTTP server exposing a restaurant's Server, Cook and Manager operations as JSON endpoints, so
+ * that stations can work headless, from tablets, against one backend.
+ *
+ * <p>Every path starts with the role and name of the employee making the request, as in
+ * /servers/John/tables/4/orders. Bodies are JSON objects; every response is a JSON object, and
+ * errors have an "error" member. Operations that can't be done, such as adding a table while a
+ * server has dishes waiting to be delivered, are answered with 409 Conflict.
+ *
+ * <p>Requests are handled on virtual threads where the JDK has them, or on a cached pool of
+ * platform threads otherwise. The floor objects, Servers with their tables and orders and Cooks
+ * with their dishes, are not thread-safe, and a cook finishing a dish updates its server, so every
+ * request that touches them holds one floor lock while it does, as the UI's single thread does.
+ * Reading and parsing requests and writing responses are done outside it, as are requests that
+ * only touch the thread-safe kitchen inventory, menu and payment ledger.
+ */
+public class RestaurantHttpServer {
+
+  private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+  private static final LatencyHistogram REQUEST_TIME =
+      Metrics.getInstance().histogram("http.request.nanos");
+  private static final Metrics.Counter REQUESTS = Metrics.getInstance().counter("http.requests");
+  private static final Metrics.Counter ERRORS = Metrics.getInstance().counter("http.errors");
+  // the longest a request to the kitchen feed may wait for a change
+  private static final long MAX_FEED_WAIT_MILLIS = 30_000;
+
+  private final Restaurant restaurant;
+  private final HttpServer http;
+  private final ExecutorService executor;
+  private final ReentrantLock floor = new ReentrantLock();
+  private final HashMap<String, Server> servers = new HashMap<>();
+  private final HashMap<String, Cook> cooks = new HashMap<>();
+  private final HashMap<String, Manager> managers = new HashMap<>();
+  private final HashMap<String, Employee> employees = new HashMap<>();
+
+  /**
+   * A new RestaurantHttpServer, which doesn't accept requests until started
+   *
+   * @param restaurant: the restaurant whose operations are exposed
+   * @param port: the port to listen on, or 0 for any free port
+   * @throws IOException if the port can't be bound
+   */
+  public RestaurantHttpServer(Restaurant restaurant, int port) throws IOException {
+    this.restaurant = restaurant;
+    for (Manager m : restaurant.getManagers()) {
+      managers.put(m.name, m);
+      employees.put(m.name, m);
+    }
+    for (Cook c : restaurant.getCooks()) {
+      cooks.put(c.name, c);
+      employees.put(c.name, c);
+    }
+    for (Server s : restaurant.getServers()) {
+      servers.put(s.name, s);
+      employees.put(s.name, s);
+    }
+    // the JDK server writes headers and body separately, so with Nagle's algorithm on, every
+    // response waits for the client's delayed acknowledgement; read once, when the first is created
+    if (System.getProperty(NODELAY_PROPERTY) == null) {
+      System.setProperty(NODELAY_PROPERTY, "true");
+    }
+    this.http = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+    this.executor = newExecutor();
+    http.setExecutor(executor);
+    http.createContext("/", this::handle);
+  }
+
+  /**
+   * @return an executor that runs each task on a new virtual thread, if the JDK has them,
+   *     otherwise a cached pool of platform threads
+   */
+  private static ExecutorService newExecutor() {
+    try {
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool(
+          r -> {
+            Thread t = new Thread(r, "http-worker");
+            t.setDaemon(true);
+            return t;
+          });
+    }
+  }
+
+  /** Start accepting requests */
+  public void start() {
+    http.start();
+  }
+
+  /**
+   * Stop accepting requests, and wait up to the given time for those in progress to finish
+   *
+   * @param delaySeconds: how long to wait
+   */
+  public void stop(int delaySeconds) {
+    http.stop(delaySeconds);
+    executor.shutdown();
+    try {
+      executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** @return the port this server listens on */
+  public int getPort() {
+    return http.getAddress().getPort();
+  }
+
+  /**
+   * Answer a request
+   *
+   * @param exchange: the request and its response
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    long start = Metrics.startTimer();
+    REQUESTS.increment();
+    int status = 200;
+    String response;
+    try {
+      String[] path = segments(exchange.getRequestURI().getRawPath());
+      Map<String, Object> body = Json.parseObject(readBody(exchange));
+      response = route(exchange.getRequestMethod(), path, exchange.getRequestURI(), body);
+    } catch (HttpError e) {
+      status = e.status;
+      response = error(e.getMessage());
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      status = 400;
+      response = error(e.getMessage());
+    } catch (RuntimeException e) {
+      e.printStackTrace();
+      status = 500;
+      response = error(e.toString());
+    }
+    if (status != 200) {
+      ERRORS.increment();
+    }
+    byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+    REQUEST_TIME.recordSince(start);
+  }
+
+  /**
+   * @param method: the HTTP method
+   * @param path: the decoded segments of the path
+   * @param uri: the request's URI, for its query
+   * @param body: the request's body
+   * @return the response, as JSON
+   */
+  private String route(String method, String[] path, URI uri, Map<String, Object> body) {
+    if (path.length == 0) {
+      throw new HttpError(404, "no such resource");
+    }
+    switch (path[0]) {
+      case "menu":
+        expect(method, "GET", path, 1);
+        return menu();
+      case "employees":
+        if (path.length == 1) {
+          expect(method, "GET", path, 1);
+          return employees();
+        }
+        expect(method, "POST", path, 3);
+        if (!path[2].equals("shipments")) {
+          throw new HttpError(404, "no such resource");
+        }
+        return shipment(find(employees, path[1], "employee"), body);
+      case "metrics":
+        expect(method, "GET", path, 1);
+        return Metrics.getInstance().toJson();
+      case "kitchen":
+        return kitchenRoute(method, path, uri);
+      case "servers":
+        return serverRoute(method, path, body);
+      case "cooks":
+        return cookRoute(method, path, body);
+      case "managers":
+        return managerRoute(method, path, uri);
+      default:
+        throw new HttpError(404, "no such resource");
+    }
+  }
+
+  /**
+   * Answer a request to /servers/{name}/...
+   *
+   * @param method: the HTTP method
+   * @param path: the decoded segments of the path
+   * @param body: the request's body
+   * @return the response, as JSON
+   */
+  private String serverRoute(String method, String[] path, Map<String, Object> body) {
+    if (path.length < 3) {
+      throw new HttpError(404, "no such resource");
+    }
+    Server server = find(servers, path[1], "server");
+    if (path[2].equals("notifications")) {
+      expect(method, "GET", path, 3);
+      floor.lock();
+      try {
+        return strings("notifications", server.getActiveNotifications());
+      } finally {
+        floor.unlock();
+      }
+    }
+    if (!path[2].equals("tables")) {
+      throw new HttpError(404, "no such resource");
+    }
+    if (path.length == 3) {
+      if (method.equals("GET")) {
+        return tables(server);
+      }
+      expect(method, "POST", path, 3);
+      return addTable(server, (int) number(body, "table"));
+    }
+    int table = integer(path[3], "table");
+    if (path.length == 5 && path[4].equals("finalize")) {
+      expect(method, "POST", path, 5);
+      floor.lock();
+      try {
+        requireTable(server, table);
+        server.finalizeOrdersForTable(table);
+        return tableJson(server, table);
+      } finally {
+        floor.unlock();
+      }
+    }
+    if (path.length == 5 && path[4].equals("bill")) {
+      expect(method, "GET", path, 5);
+      floor.lock();
+      try {
+        return bill(server.getBill(table));
+      } finally {
+        floor.unlock();
+      }
+    }
+    if (path.length < 5 || !path[4].equals("orders")) {
+      throw new HttpError(404, "no such resource");
+    }
+    if (path.length == 5) {
+      expect(method, "POST", path, 5);
+      return addOrder(server, table);
+    }
+    long order = integer(path[5], "order");
+    return orderRoute(method, path, body, server, table, order);
+  }
+
+  /**
+   * Answer a request to /servers/{name}/tables/{table}/orders/{order}/...
+   *
+   * @param method: the HTTP method
+   * @param path: the decoded segments of the path
+   * @param body: the request's body
+   * @param server: the server making the request
+   * @param table: the table number
+   * @param order: the order number
+   * @return the response, as JSON
+   */
+  private String orderRoute(
+      String method,
+      String[] path,
+      Map<String, Object> body,
+      Server server,
+      int table,
+      long order) {
+    if (path.length == 6) {
+      expect(method, "GET", path, 6);
+      floor.lock();
+      try {
+        return orderJson(requireOrder(server, table, order));
+      } finally {
+        floor.unlock();
+      }
+    }
+    switch (path[6]) {
+      case "bill":
+        expect(method, "GET", path, 7);
+        floor.lock();
+        try {
+          requireOrder(server, table, order);
+          return bill(server.getIndividualBill(table, order));
+        } finally {
+          floor.unlock();
+        }
+      case "resolve":
+        expect(method, "POST", path, 7);
+        floor.lock();
+        try {
+          requireOrder(server, table, order);
+          if (!server.resolveOrder(order)) {
+            throw new HttpError(409, "not every dish in the order has been served");
+          }
+          return "{\"resolved\":" + order + "}";
+        } finally {
+          floor.unlock();
+        }
+      case "dishes":
+        break;
+      default:
+        throw new HttpError(404, "no such resource");
+    }
+    if (path.length == 7) {
+      expect(method, "POST", path, 7);
+      return addDish(server, table, order, body);
+    }
+    long dish = integer(path[7], "dish");
+    if (path.length == 8) {
+      expect(method, "DELETE", path, 8);
+      return removeDish(server, table, order, dish);
+    }
+    expect(method, "POST", path, 9);
+    floor.lock();
+    try {
+      OrderedDish d = requireDish(requireOrder(server, table, order), dish);
+      switch (path[8]) {
+        case "served":
+          if (!d.canDeliver()) {
+            throw new HttpError(409, "the dish is not ready to be served");
+          }
+          server.confirmServed(dish, table, order);
+          break;
+        case "returned":
+          if (!d.served()) {
+            throw new HttpError(409, "the dish has not been served");
+          }
+          server.returnDish(table, order, dish);
+          break;
+        default:
+          throw new HttpError(404, "no such resource");
+      }
+      return dishJson(d);
+    } finally {
+      floor.unlock();
+    }
+  }
+
+  /**
+   * Answer a request to /cooks/{name}/...
+   *
+   * @param method: the HTTP method
+   * @param path: the decoded segments of the path
+   * @param body: the request's body, which may give the most dishes to see as a batch
+   * @return the response, as JSON
+   */
+  private String cookRoute(String method, String[] path, Map<String, Object> body) {
+    if (path.length < 2) {
+      throw new HttpError(404, "no such resource");
+    }
+    Cook cook = find(cooks, path[1], "cook");
+    floor.lock();
+    try {
+      if (path.length == 2) {
+        expect(method, "GET", path, 2);
+      } else if (path[2].equals("see")) {
+        expect(method, "POST", path, 3);
+        if (body.containsKey("batch")) {
+          int batchSize = (int) number(body, "batch");
+          if (batchSize < 1) {
+            throw new IllegalArgumentException("batch must be at least 1");
+          }
+          cook.markSeenAndParse(batchSize);
+        } else {
+          cook.markSeenAndParse();
+        }
+      } else if (path[2].equals("complete")) {
+        expect(method, "POST", path, 3);
+        ArrayList<OrderedDish> batch = cook.getBatch();
+        if (batch.isEmpty()) {
+          throw new HttpError(409, "the cook is not making a dish");
+        }
+        cook.completeDish();
+        StringBuilder sb = new StringBuilder("{\"completed\":").append(dishJson(batch.get(0)));
+        sb.append(",\"batch\":");
+        appendDishes(sb, batch);
+        return sb.append('}').toString();
+      } else {
+        throw new HttpError(404, "no such resource");
+      }
+      ArrayList<OrderedDish> batch = cook.getBatch();
+      StringBuilder sb = new StringBuilder("{\"dish\":");
+      sb.append(batch.isEmpty() ? "null" : dishJson(batch.get(0))).append(",\"batch\":");
+      appendDishes(sb, batch);
+      return sb.append('}').toString();
+    } finally {
+      floor.unlock();
+    }
+  }
+
+  /**
+   * Answer a request to /kitchen, for the kitchen's current dishes, or to /kitchen/feed, for the
+   * changes to them from a sequence number on. Neither holds the floor lock: the kitchen is
+   * thread-safe, and a request to the feed may wait for a change.
+   *
+   * @param method: the HTTP method
+   * @param path: the decoded segments of the path
+   * @param uri: the request's URI, for its query
+   * @return the response, as JSON
+   */
+  private String kitchenRoute(String method, String[] path, URI uri) {
+    KitchenFeed feed = restaurant.getKitchen().getFeed();
+    if (path.length == 1) {
+      expect(method, "GET", path, 1);
+      // read before the dishes, so a display reading the feed from here misses no change
+      long next = feed.getNext();
+      Kitchen kitchen = restaurant.getKitchen();
+      StringBuilder sb = new StringBuilder("{\"epoch\":").append(feed.getEpoch());
+      sb.append(",\"next\":").append(next).append(",\"queued\":");
+      appendDishes(sb, kitchen.queuedDishes());
+      sb.append(",\"inProgress\":");
+      appendDishes(sb, kitchen.inProgressDishes());
+      sb.append(",\"ready\":");
+      appendDishes(sb, kitchen.readyDishes());
+      return sb.append('}').toString();
+    }
+    expect(method, "GET", path, 2);
+    if (!path[1].equals("feed")) {
+      throw new HttpError(404, "no such resource");
+    }
+    Map<String, String> query = query(uri.getRawQuery());
+    long from = Long.parseLong(query.getOrDefault("from", String.valueOf(feed.getNext())));
+    int max = Integer.parseInt(query.getOrDefault("max", "256"));
+    long wait = Long.parseLong(query.getOrDefault("wait", "0"));
+    if (from < 0 || max <= 0 || wait < 0 || wait > MAX_FEED_WAIT_MILLIS) {
+      throw new IllegalArgumentException(
+          "from must not be negative, max must be positive, and wait at most "
+              + MAX_FEED_WAIT_MILLIS);
+    }
+    KitchenFeed.Slice slice;
+    try {
+      slice = feed.read(from, max, wait, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HttpError(503, "interrupted while waiting for a change");
+    }
+    StringBuilder sb = new StringBuilder("{\"epoch\":").append(slice.getEpoch());
+    sb.append(",\"next\":").append(slice.getNext());
+    sb.append(",\"missed\":").append(slice.getMissed()).append(",\"changes\":[");
+    String sep = "";
+    for (KitchenFeed.Change c : slice.getChanges()) {
+      sb.append(sep).append("{\"seq\":").append(c.getSeq());
+      sb.append(",\"type\":\"").append(c.getType()).append("\",\"dish\":").append(c.getDishId());
+      sb.append(",\"name\":");
+      Json.appendQuoted(sb, c.getDishName());
+      sb.append(",\"ingredients\":");
+      appendIngredients(sb, c.getIngredients());
+      sb.append(",\"table\":").append(c.getTableNumber());
+      sb.append(",\"order\":").append(c.getOrderNumber());
+      sb.append(",\"time\":").append(c.getTimeMillis()).append('}');
+      sep = ",";
+    }
+    return sb.append("]}").toString();
+  }
+
+  /**
+   * Answer a request to /managers/{name}/...
+   *
+   * @param method: the HTTP method
+   * @param path: the decoded segments of the path
+   * @param uri: the request's URI, for its query
+   * @return the response, as JSON
+   */
+  private String managerRoute(String method, String[] path, URI uri) {
+    if (path.length != 3) {
+      throw new HttpError(404, "no such resource");
+    }
+    Manager manager = find(managers, path[1], "manager");
+    expect(method, "GET", path, 3);
+    switch (path[2]) {
+      case "inventory":
+        {
+          manager.checkInventory();
+          StringBuilder sb = new StringBuilder("{\"inventory\":[");
+          String sep = "";
+          for (KitchenIngredient ing : restaurant.getKitchen().getKitchenIngredients()) {
+            sb.append(sep).append("{\"name\":");
+            Json.appendQuoted(sb, ing.getName());
+            sb.append(",\"amount\":").append(ing.getAmount()).append('}');
+            sep = ",";
+          }
+          return sb.append("]}").toString();
+        }
+      case "orders":
+        return "{\"inProgress\":" + Json.quote(manager.getOrdersInProgress()) + "}";
+      case "payments":
+        {
+          Map<String, String> query = query(uri.getRawQuery());
+          LocalDate today = LocalDate.now();
+          LocalDate from = LocalDate.parse(query.getOrDefault("from", today.toString()));
+          LocalDate to = LocalDate.parse(query.getOrDefault("to", from.toString()));
+          return "{\"payments\":" + Json.quote(manager.getPaymentRecords(from, to)) + "}";
+        }
+      default:
+        throw new HttpError(404, "no such resource");
+    }
+  }
+
+  private String menu() {
+    StringBuilder sb = new StringBuilder("{\"menu\":[");
+    String sep = "";
+    for (Dish d : restaurant.getMenu().getMenuItems()) {
+      sb.append(sep).append("{\"name\":");
+      Json.appendQuoted(sb, d.getName());
+      sb.append(",\"price\":").append(d.getCost()).append(",\"ingredients\":");
+      appendIngredients(sb, d.getIngredients());
+      sb.append('}');
+      sep = ",";
+    }
+    return sb.append("]}").toString();
+  }
+
+  private String employees() {
+    return "{\"servers\":"
+        + names(servers.keySet())
+        + ",\"cooks\":"
+        + names(cooks.keySet())
+        + ",\"managers\":"
+        + names(managers.keySet())
+        + "}";
+  }
+
+  private String shipment(Employee employee, Map<String, Object> body) {
+    String name = string(body, "ingredient");
+    double amount = number(body, "amount");
+    if (amount <= 0) {
+      throw new IllegalArgumentException("amount must be positive");
+    }
+    employee.receiveShipment(new Ingredient(name, amount));
+    return "{\"received\":{\"name\":" + Json.quote(name) + ",\"amount\":" + amount + "}}";
+  }
+
+  private String addTable(Server server, int table) {
+    floor.lock();
+    try {
+      if (server.hasDishesWaiting()) {
+        throw new HttpError(409, "the server has dishes waiting to be delivered");
+      }
+      server.addTable(table);
+      if (!server.getActiveTableNumbers().contains(table)) {
+        throw new HttpError(409, "table " + table + " could not be added");
+      }
+      return tableJson(server, table);
+    } finally {
+      floor.unlock();
+    }
+  }
+
+  private String addOrder(Server server, int table) {
+    floor.lock();
+    try {
+      requireTable(server, table);
+      server.addOrder(table);
+      ArrayList<Long> orders = server.getActiveOrdersAtTable(table);
+      return orderJson(server.getOrder(table, orders.get(orders.size() - 1)));
+    } finally {
+      floor.unlock();
+    }
+  }
+
+  private String addDish(Server server, int table, long order, Map<String, Object> body) {
+    Dish item = restaurant.getMenu().getDish(string(body, "dish"));
+    if (item == null) {
+      throw new HttpError(404, "no such dish on the menu");
+    }
+    Object changes = body.get("changes");
+    if (changes != null && !(changes instanceof Map)) {
+      throw new IllegalArgumentException("changes must be an object");
+    }
+    OrderedDish dish = OrderedDish.DishToOrderedDish(item);
+    floor.lock();
+    try {
+      Order o = requireOrder(server, table, order);
+      if (server.hasDishesWaiting()) {
+        throw new HttpError(409, "the server has dishes waiting to be delivered");
+      }
+      server.addToOrder(table, order, dish);
+      if (o.findOrderedDish(dish.getID()) == null) {
+        throw new HttpError(409, "there are not enough ingredients for the dish");
+      }
+      if (changes != null) {
+        for (Map.Entry<?, ?> e : ((Map<?, ?>) changes).entrySet()) {
+          if (!(e.getValue() instanceof Double)) {
+            throw new IllegalArgumentException("changes must be numbers");
+          }
+          server.adjustIngredient(
+              dish, new Ingredient((String) e.getKey(), 0), (Double) e.getValue());
+        }
+      }
+      return dishJson(dish);
+    } finally {
+      floor.unlock();
+    }
+  }
+
+  private String removeDish(Server server, int table, long order, long dish) {
+    floor.lock();
+    try {
+      Order o = requireOrder(server, table, order);
+      OrderedDish d = requireDish(o, dish);
+      if (o.getOrderedDish(dish) == null) {
+        server.removeTentativeDish(table, order, dish);
+      } else if (d.shouldCancel()) {
+        server.removeOrderedDish(table, order, dish);
+      } else {
+        throw new HttpError(409, "only tentative or cancelled dishes can be removed");
+      }
+      return "{\"removed\":" + dish + "}";
+    } finally {
+      floor.unlock();
+    }
+  }
+
+  private String tables(Server server) {
+    floor.lock();
+    try {
+      StringBuilder sb = new StringBuilder("{\"tables\":[");
+      String sep = "";
+      for (int table : server.getActiveTableNumbers()) {
+        sb.append(sep).append(tableJson(server, table));
+        sep = ",";
+      }
+      return sb.append("]}").toString();
+    } finally {
+      floor.unlock();
+    }
+  }
+
+  private static String tableJson(Server server, int table) {
+    StringBuilder sb = new StringBuilder("{\"table\":").append(table).append(",\"orders\":[");
+    String sep = "";
+    for (long order : server.getActiveOrdersAtTable(table)) {
+      sb.append(sep).append(order);
+      sep = ",";
+    }
+    return sb.append("]}").toString();
+  }
+
+  private static String orderJson(Order order) {
+    StringBuilder sb = new StringBuilder("{\"order\":").append(order.getOrderNumber());
+    sb.append(",\"table\":").append(order.getTableNumber()).append(",\"dishes\":[");
+    String sep = "";
+    for (OrderedDish d : order.getTentative()) {
+      sb.append(sep).append(dishJson(d, "TENTATIVE"));
+      sep = ",";
+    }
+    for (OrderedDish d : order.getOrderItems()) {
+      sb.append(sep).append(dishJson(d));
+      sep = ",";
+    }
+    return sb.append("]}").toString();
+  }
+
+  private static String dishJson(OrderedDish dish) {
+    return dishJson(dish, dish.getStatusName());
+  }
+
+  private static String dishJson(OrderedDish dish, String status) {
+    StringBuilder sb = new StringBuilder("{\"id\":").append(dish.getID()).append(",\"name\":");
+    Json.appendQuoted(sb, dish.getName());
+    sb.append(",\"status\":\"").append(status).append("\",\"price\":").append(dish.getCost());
+    sb.append(",\"ingredients\":");
+    appendIngredients(sb, dish.getIngredients());
+    return sb.append('}').toString();
+  }
+
+  private static void appendDishes(StringBuilder sb, Collection<OrderedDish> dishes) {
+    sb.append('[');
+    String sep = "";
+    for (OrderedDish d : dishes) {
+      sb.append(sep).append(dishJson(d));
+      sep = ",";
+    }
+    sb.append(']');
+  }
+
+  private static void appendIngredients(StringBuilder sb, List<Ingredient> ingredients) {
+    sb.append('{');
+    String sep = "";
+    for (Ingredient ing : ingredients) {
+      sb.append(sep);
+      Json.appendQuoted(sb, ing.getName());
+      sb.append(':').append(ing.getAmount());
+      sep = ",";
+    }
+    sb.append('}');
+  }
+
+  private static String bill(String bill) {
+    if (bill == null) {
+      throw new HttpError(404, "no such table");
+    }
+    return "{\"bill\":" + Json.quote(bill) + "}";
+  }
+
+  private static String strings(String key, Collection<String> values) {
+    return "{\"" + key + "\":" + names(values) + "}";
+  }
+
+  private static String names(Collection<String> values) {
+    StringBuilder sb = new StringBuilder("[");
+    String sep = "";
+    for (String v : values) {
+      sb.append(sep);
+      Json.appendQuoted(sb, v);
+      sep = ",";
+    }
+    return sb.append(']').toString();
+  }
+
+  private static String error(String message) {
+    return "{\"error\":" + Json.quote(String.valueOf(message)) + "}";
+  }
+
+  private static void requireTable(Server server, int table) {
+    if (!server.getActiveTableNumbers().contains(table)) {
+      throw new HttpError(404, "the server has no table " + table);
+    }
+  }
+
+  private static Order requireOrder(Server server, int table, long order) {
+    Order o = server.getOrder(table, order);
+    if (o == null) {
+      throw new HttpError(404, "no order " + order + " at table " + table);
+    }
+    return o;
+  }
+
+  private static OrderedDish requireDish(Order order, long dish) {
+    OrderedDish d = order.findOrderedDish(dish);
+    if (d == null) {
+      throw new HttpError(404, "no dish " + dish + " in order " + order.getOrderNumber());
+    }
+    return d;
+  }
+
+  private static <T> T find(Map<String, T> employees, String name, String role) {
+    T employee = employees.get(name);
+    if (employee == null) {
+      throw new HttpError(404, "no " + role + " named " + name);
+    }
+    return employee;
+  }
+
+  /**
+   * Check a request's method and the length of its path
+   *
+   * @param method: the request's method
+   * @param expected: the method the resource accepts
+   * @param path: the decoded segments of the path
+   * @param length: the number of segments the resource's path has
+   */
+  private static void expect(String method, String expected, String[] path, int length) {
+    if (path.length != length) {
+      throw new HttpError(404, "no such resource");
+    }
+    if (!method.equals(expected)) {
+      throw new HttpError(405, "use " + expected);
+    }
+  }
+
+  private static String string(Map<String, Object> body, String key) {
+    Object value = body.get(key);
+    if (!(value instanceof String)) {
+      throw new IllegalArgumentException(key + " must be a string");
+    }
+    return (String) value;
+  }
+
+  private static double number(Map<String, Object> body, String key) {
+    Object value = body.get(key);
+    if (!(value instanceof Double)) {
+      throw new IllegalArgumentException(key + " must be a number");
+    }
+    return (Double) value;
+  }
+
+  private static int integer(String segment, String name) {
+    try {
+      return Integer.parseInt(segment);
+    } catch (NumberFormatException e) {
+      throw new HttpError(404, "no such " + name);
+    }
+  }
+
+  private static String[] segments(String rawPath) {
+    ArrayList<String> segments = new ArrayList<>();
+    for (String s : rawPath.split("/")) {
+      if (!s.isEmpty()) {
+        segments.add(URLDecoder.decode(s, StandardCharsets.UTF_8));
+      }
+    }
+    return segments.toArray(new String[0]);
+  }
+
+  private static Map<String, String> query(String rawQuery) {
+    LinkedHashMap<String, String> query = new LinkedHashMap<>();
+    if (rawQuery != null) {
+      for (String pair : rawQuery.split("&")) {
+        int eq = pair.indexOf('=');
+        if (eq > 0) {
+          query.put(
+              URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+              URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+      }
+    }
+    return query;
+  }
+
+  private static String readBody(HttpExchange exchange) throws IOException {
+    try (InputStream in = exchange.getRequestBody()) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Serve the restaurant described by the usual files, restoring and journaling its state as the
+   * application does, and keeping its stock in inventory.ledger, until the process is stopped;
+   * the menu is reloaded whenever menu.txt changes
+   *
+   * @param args: the port, 8080 by default
+   * @throws IOException if the port can't be bound, the log or journal can't be opened, or the
+   *     menu file can't be watched
+   */
+  public static void main(String[] args) throws IOException {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+    Restaurant restaurant =
+        new Restaurant("employees.txt", "menu.txt", "inventory.txt", "inventory.ledger");
+    restaurant.startJournal("state.snapshot", "state.wal", 60_000);
+    restaurant.getMenu().watch();
+    LogWriter.getInstance().startAsync(4096, 200, AsyncLogSink.Durability.EVERY_BATCH);
+    RestaurantHttpServer server = new RestaurantHttpServer(restaurant, port);
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  server.stop(1);
+                  restaurant.closeJournal();
+                  restaurant.closeInventory();
+                  LogWriter.getInstance().shutdown();
+                }));
+    server.start();
+    System.out.println("Listening on http://127.0.0.1:" + server.getPort() + "/");
+  }
+
+  /** A request that can't be answered, with the status to answer it with */
+  private static class HttpError extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    final int status;
+
+    HttpError(int status, String message) {
+      super(message);
+      this.status = status;
+    }
+  }
+}
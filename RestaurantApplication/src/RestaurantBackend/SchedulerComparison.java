@@ -0,0 +1,59 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the kitchen's scheduling policies by simulating the same evening under each.
+ *
+ * <p>Each policy gets a restaurant freshly loaded from the same files and a Simulator with the
+ * same settings and seed, so the same parties arrive and order the same dishes; only the order
+ * cooks make them in differs. Prints, for each policy, the parties and dishes served per hour and
+ * how long tables waited from sending their order to the kitchen to being served their last dish.
+ */
+public class SchedulerComparison {
+
+  /**
+   * Run the comparison.
+   *
+   * <p>Settings are given as name=value arguments, as for Simulator.main; policy is ignored, and
+   * the clock is always VIRTUAL. As for Simulator.main, the files the simulated restaurants write
+   * go to a temporary directory.
+   *
+   * @param args: the settings
+   * @throws IOException if the log can't be opened
+   * @throws InterruptedException never, since the clock is virtual
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    DataFiles.useTemporaryDirectory("restaurant-sim");
+    Map<String, String> settings = Simulator.parseSettings(args);
+    long minutes = Long.parseLong(settings.getOrDefault("duration", "480"));
+    LogWriter.getInstance().startAsync(1 << 16, 50, AsyncLogSink.Durability.NONE);
+    try {
+      System.out.printf(
+          "%-14s %10s %10s %14s %14s %14s %14s%n",
+          "policy", "parties/h", "dishes/h", "table mean ms", "table p50 ms", "table p99 ms",
+          "visit mean ms");
+      for (DishScheduler.Policy policy : DishScheduler.Policy.values()) {
+        HashMap<String, String> run = new HashMap<>(settings);
+        run.put("policy", policy.name());
+        SimulationReport report =
+            Simulator.fromSettings(run)
+                .run(Simulator.Clock.VIRTUAL, TimeUnit.MINUTES.toMillis(minutes));
+        System.out.printf(
+            "%-14s %10.1f %10.1f %14.0f %14.0f %14.0f %14.0f%n",
+            policy,
+            report.getPartiesPerSecond() * 3600,
+            report.getDishesPerSecond() * 3600,
+            report.getMeanLatencyMillis(Simulator.Stage.TABLE),
+            report.getLatencyMillis(Simulator.Stage.TABLE, 50),
+            report.getLatencyMillis(Simulator.Stage.TABLE, 99),
+            report.getMeanLatencyMillis(Simulator.Stage.VISIT));
+      }
+    } finally {
+      LogWriter.getInstance().shutdown();
+    }
+  }
+}
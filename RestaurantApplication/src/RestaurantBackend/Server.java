@@ -1,9 +1,12 @@
 package RestaurantBackend;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A server at a Restaurant.
@@ -16,15 +19,22 @@ import java.util.Observer;
  */
 public class Server extends Employee implements Observer {
 
-  // active tables this server handles
-  private ArrayList<Table> activeTables;
+  // active tables this server handles, by table number, in the order they were added
+  private LinkedHashMap<Integer, Table> activeTables;
+
+  // the restaurant-wide index of open orders and their dishes
+  private OrderIndex orderIndex;
 
   private LinkedList<String> activeNotifications;
 
   private static final int MAX_NOTIFICATIONS = 20;
 
-  // the number of dishes waiting to be delivered
-  private int numWaiting;
+  private static final Metrics.Counter NOTIFICATIONS =
+      Metrics.getInstance().counter("server.notifications");
+
+  // the number of dishes waiting to be delivered; updated by the cooks' threads through update, as
+  // well as by this server, and read by the metrics
+  private final AtomicInteger numWaiting = new AtomicInteger();
 
   /**
    * A new server
@@ -34,9 +44,11 @@ public class Server extends Employee implements Observer {
    */
   Server(String name, Restaurant r) {
     super(name, r);
-    activeTables = new ArrayList<>();
+    activeTables = new LinkedHashMap<>();
+    orderIndex = r.getOrderIndex();
     activeNotifications = new LinkedList<>();
-    numWaiting = 0;
+    Metrics.getInstance().gauge("server." + name + ".waiting", numWaiting::get);
+    Metrics.getInstance().gauge("server." + name + ".notifications", activeNotifications::size);
   }
 
   /** @return a deep copy of active notifications */
@@ -49,6 +61,7 @@ public class Server extends Employee implements Observer {
    * notifications
    */
   private void addNotification(String notification) {
+    NOTIFICATIONS.increment();
     activeNotifications.add(notification);
     if (activeNotifications.size() > MAX_NOTIFICATIONS) {
       activeNotifications.removeFirst();
@@ -61,23 +74,36 @@ public class Server extends Employee implements Observer {
    * @param tableNumber: the table number of the table to be associated with the order
    */
   public void addOrder(int tableNumber) {
-    Table table = getTable(tableNumber);
-    if (table != null) {
-      Order r = new Order(tableNumber);
-      r.addObserver(this);
-      table.addOrder(r);
-      LogWriter.getInstance()
-          .write(
-              String.format(
-                  "%s added order #%d to table #%d.", this.name, r.getOrderNumber(), tableNumber));
+    addOrder(tableNumber, IdGenerator.ORDERS.nextId());
+  }
+
+  /**
+   * Create a new order with a given order number and add it to the given table
+   *
+   * @param tableNumber: the table number of the table to be associated with the order
+   * @param orderNumber: the order number of the new order
+   */
+  void addOrder(int tableNumber, long orderNumber) {
+    journal.beginChange();
+    try {
+      Table table = getTable(tableNumber);
+      if (table != null) {
+        journal.orderAdded(this, tableNumber, orderNumber);
+        Order r = new Order(tableNumber, orderNumber);
+        r.addObserver(this);
+        table.addOrder(r);
+        orderIndex.addOrder(r);
+        LogWriter.getInstance()
+            .write(RestaurantEvent.orderAdded(this.name, tableNumber, orderNumber));
+      }
+    } finally {
+      journal.endChange();
     }
   }
 
   /** @return a list of all active table numbers */
   public ArrayList<Integer> getActiveTableNumbers() {
-    ArrayList<Integer> ret = new ArrayList<>();
-    for (Table t : activeTables) ret.add(t.getTableNumber());
-    return ret;
+    return new ArrayList<>(activeTables.keySet());
   }
 
   /**
@@ -87,23 +113,55 @@ public class Server extends Employee implements Observer {
    * @param tableNumber the table to be added
    */
   public void addTable(int tableNumber) {
-    if (numWaiting <= 0) {
-      Table active = new Table(tableNumber);
-      for (Table t : activeTables) if (t.getTableNumber() == tableNumber) return;
-      activeTables.add(active);
-      LogWriter.getInstance()
-          .write(
-              String.format(
-                  "%s added table number #%d to the active tables.", this.name, tableNumber));
+    journal.beginChange();
+    try {
+      if (numWaiting.get() <= 0) {
+        if (activeTables.containsKey(tableNumber)) return;
+        journal.tableAdded(this, tableNumber);
+        activeTables.put(tableNumber, new Table(tableNumber));
+        LogWriter.getInstance().write(RestaurantEvent.tableAdded(this.name, tableNumber));
+      }
+    } finally {
+      journal.endChange();
     }
   }
 
+  /**
+   * Put back a table recorded in a snapshot, with its orders
+   *
+   * @param table: the table
+   */
+  void restoreTable(Table table) {
+    activeTables.put(table.getTableNumber(), table);
+    for (Order r : table.getOrders()) {
+      r.addObserver(this);
+      orderIndex.addOrder(r);
+      for (OrderedDish d : r.getOrderItems()) {
+        orderIndex.addDish(r, d);
+        if (d.canDeliver()) numWaiting.incrementAndGet();
+      }
+      for (OrderedDish d : r.getTentative()) {
+        orderIndex.addDish(r, d);
+      }
+    }
+  }
+
+  /** @return true if dishes are waiting to be delivered, so no tables or dishes can be added */
+  boolean hasDishesWaiting() {
+    return numWaiting.get() > 0;
+  }
+
+  /** @return the tables this server handles, in the order they were added */
+  Collection<Table> getTables() {
+    return new ArrayList<>(activeTables.values());
+  }
+
   /**
    * @param tableNumber the table number pertaining to the table
    * @return a list of all order numbers pertaining to a table
    */
-  public ArrayList<Integer> getActiveOrdersAtTable(int tableNumber) {
-    ArrayList<Integer> ret = new ArrayList<>();
+  public ArrayList<Long> getActiveOrdersAtTable(int tableNumber) {
+    ArrayList<Long> ret = new ArrayList<>();
     Table table = this.getTable(tableNumber);
     if(table != null) {
       for (Order r : table.getOrders()) ret.add(r.getOrderNumber());
@@ -117,14 +175,17 @@ public class Server extends Employee implements Observer {
    * @param tableNumber: the tableNumber corresponding with the order to finalize
    */
   public void finalizeOrdersForTable(int tableNumber) {
-    Table active = getTable(tableNumber);
-    if (active != null) {
-      for (Order order : active.getOrders())
-        super.kitchen.addOrderedDishesToMake(order.finalizeTentativeItems());
-      LogWriter.getInstance()
-          .write(
-              String.format(
-                  "%s sent the orders for table #%d to the kitchen.", this.name, tableNumber));
+    journal.beginChange();
+    try {
+      Table active = getTable(tableNumber);
+      if (active != null) {
+        journal.tableFinalized(this, tableNumber);
+        for (Order order : active.getOrders())
+          super.kitchen.addOrderedDishesToMake(order.finalizeTentativeItems());
+        LogWriter.getInstance().write(RestaurantEvent.tableFinalized(this.name, tableNumber));
+      }
+    } finally {
+      journal.endChange();
     }
   }
 
@@ -135,21 +196,24 @@ public class Server extends Employee implements Observer {
    * @param orderNumber the order number corresponding to this table
    * @param dishID the dishID of the dish to be sent back
    */
-  public void returnDish(int tableNumber, int orderNumber, int dishID) {
-    Order order = getOrder(tableNumber, orderNumber);
-    if (order != null) {
-      OrderedDish dish = order.getOrderedDish(dishID);
-      if (dish.served()) {
-        order.removeOrderedDish(dishID);
-        dish.resetStatus();
-        order.addTentativeOrderedDish(dish);
-        super.kitchen.addOrderedDishesToMake(order.finalizeTentativeItems());
-        LogWriter.getInstance()
-            .write(
-                String.format(
-                    "%s found something wrong with dish #%d, and sent it back to the kitchen.",
-                    this.name, dishID));
+  public void returnDish(int tableNumber, long orderNumber, long dishID) {
+    journal.beginChange();
+    try {
+      Order order = getOrder(tableNumber, orderNumber);
+      if (order != null) {
+        OrderedDish dish = order.getOrderedDish(dishID);
+        if (dish != null && dish.served()) {
+          journal.dishReturned(this, tableNumber, orderNumber, dishID);
+          order.removeOrderedDish(dishID);
+          dish.resetStatus();
+          order.addTentativeOrderedDish(dish);
+          orderIndex.addDish(order, dish);
+          super.kitchen.addOrderedDishesToMake(order.finalizeTentativeItems());
+          LogWriter.getInstance().write(RestaurantEvent.dishReturned(this.name, dishID));
+        }
       }
+    } finally {
+      journal.endChange();
     }
   }
 
@@ -162,24 +226,48 @@ public class Server extends Employee implements Observer {
    * @param orderNumber the orderNumber pertaining to the order
    * @param dishToAdd the dish to be added
    */
-  public void addToOrder(int tableNumber, int orderNumber, OrderedDish dishToAdd) {
-    if (numWaiting <= 0) {
-      Order addTo = getOrder(tableNumber, orderNumber);
-      if (addTo != null) {
-        if (super.kitchen.sufficientIngredients(dishToAdd.ingredients)) {
-          addTo.addTentativeOrderedDish(dishToAdd);
-          LogWriter.getInstance()
-              .write(
-                  String.format(
-                      "%s added %s to table #%d, order #%d's tentative order",
-                      this.name, dishToAdd.toString(), tableNumber, orderNumber));
+  public void addToOrder(int tableNumber, long orderNumber, OrderedDish dishToAdd) {
+    journal.beginChange();
+    try {
+      if (numWaiting.get() <= 0) {
+        Order addTo = getOrder(tableNumber, orderNumber);
+        if (addTo != null) {
+          // a replayed dish was added the first time, whatever the inventory holds now
+          if (StateJournal.isReplaying()
+              || super.kitchen.sufficientIngredients(dishToAdd.getRecipe())) {
+            journal.dishAdded(this, tableNumber, orderNumber, dishToAdd);
+            addTo.addTentativeOrderedDish(dishToAdd);
+            orderIndex.addDish(addTo, dishToAdd);
+            LogWriter.getInstance()
+                .write(RestaurantEvent.dishAdded(this.name, dishToAdd, tableNumber, orderNumber));
+          } else {
+            LogWriter.getInstance()
+                .write(
+                    RestaurantEvent.dishRejected(this.name, dishToAdd, tableNumber, orderNumber));
+          }
         }
-        LogWriter.getInstance()
-            .write(
-                String.format(
-                    "%s tried to add %s to table #%d's, order #%d tentative order, but there were insufficient ingredients",
-                    this.name, dishToAdd.toString(), tableNumber, orderNumber));
       }
+    } finally {
+      journal.endChange();
+    }
+  }
+
+  /**
+   * Change the amount of an ingredient in an ordered dish
+   *
+   * @param dish: the ordered dish
+   * @param ingredient: the ingredient to change
+   * @param change: the amount to add; negative to remove some
+   */
+  public void adjustIngredient(OrderedDish dish, Ingredient ingredient, double change) {
+    journal.beginChange();
+    try {
+      journal.ingredientAdjusted(dish, ingredient, change);
+      dish.adjustIngredient(ingredient, change);
+      LogWriter.getInstance()
+          .write(RestaurantEvent.ingredientAdjusted(this.name, dish, ingredient, change));
+    } finally {
+      journal.endChange();
     }
   }
 
@@ -192,18 +280,25 @@ public class Server extends Employee implements Observer {
    * @param orderNumber the orderNumber pertaining to this order
    * @param dishId the id of the dish you are trying to remove
    */
-  public boolean removeOrderedDish(int tableNumber, int orderNumber, int dishId) {
-    Order order = getOrder(tableNumber, orderNumber);
-    if (order != null) {
-      if (order.getOrderedDish(dishId).shouldCancel() && order.removeOrderedDish(dishId))
-        LogWriter.getInstance()
-            .write(
-                String.format(
-                    "%s removed ordered dish #%d from table #%d's order.",
-                    this.name, dishId, tableNumber));
-      return true;
+  public boolean removeOrderedDish(int tableNumber, long orderNumber, long dishId) {
+    journal.beginChange();
+    try {
+      Order order = getOrder(tableNumber, orderNumber);
+      if (order != null) {
+        OrderedDish dish = order.getOrderedDish(dishId);
+        if (dish != null && dish.shouldCancel()) {
+          journal.dishRemoved(this, tableNumber, orderNumber, dishId);
+          order.removeOrderedDish(dishId);
+          orderIndex.removeDish(dishId);
+          LogWriter.getInstance()
+              .write(RestaurantEvent.dishRemoved(this.name, dishId, tableNumber));
+        }
+        return true;
+      }
+      return false;
+    } finally {
+      journal.endChange();
     }
-    return false;
   }
   /**
    * Remove a tentative ordered dish from an order;
@@ -214,15 +309,19 @@ public class Server extends Employee implements Observer {
    * @param orderNumber the orderNumber pertaining to the order
    * @param dishId the id of the dish you are trying to remove
    */
-  public void removeTentativeDish(int tableNumber, int orderNumber, int dishId) {
-    Order order = getOrder(tableNumber, orderNumber);
-    if (order != null) {
-      if (order.removeTentativeOrderedDish(dishId))
+  public void removeTentativeDish(int tableNumber, long orderNumber, long dishId) {
+    journal.beginChange();
+    try {
+      Order order = getOrder(tableNumber, orderNumber);
+      if (order != null && order.hasTentativeOrderedDish(dishId)) {
+        journal.tentativeDishRemoved(this, tableNumber, orderNumber, dishId);
+        order.removeTentativeOrderedDish(dishId);
+        orderIndex.removeDish(dishId);
         LogWriter.getInstance()
-            .write(
-                String.format(
-                    "%s removed ordered dish #%d from table #%d's tentative order.",
-                    this.name, dishId, tableNumber));
+            .write(RestaurantEvent.tentativeDishRemoved(this.name, dishId, tableNumber));
+      }
+    } finally {
+      journal.endChange();
     }
   }
 
@@ -244,7 +343,7 @@ public class Server extends Employee implements Observer {
    * @param orderNumber the order number corrsesponding to an order
    * @return an individual bill for a given order
    */
-  public String getIndividualBill(int tableNumber, int orderNumber) {
+  public String getIndividualBill(int tableNumber, long orderNumber) {
     Table t = getTable(tableNumber);
     return t != null ? t.getBill(orderNumber) : null;
   }
@@ -256,12 +355,7 @@ public class Server extends Employee implements Observer {
    * @return the table corresponding to the given table number
    */
   private Table getTable(int tableNumber) {
-    for (Table t : this.activeTables) {
-      if (t.getTableNumber() == tableNumber) {
-        return t;
-      }
-    }
-    return null;
+    return activeTables.get(tableNumber);
   }
 
   /**
@@ -272,19 +366,23 @@ public class Server extends Employee implements Observer {
    * @param tableNumber the table number of the table that was served
    * @param orderNumber the order number of the order pertaining to the dish
    */
-  public void confirmServed(int dishID, int tableNumber, int orderNumber) {
-    Order confirmOrder = getOrder(tableNumber, orderNumber);
-    if (confirmOrder != null) {
-      OrderedDish toConfirm = confirmOrder.getOrderedDish(dishID);
-      if (toConfirm != null && toConfirm.canDeliver()) {
-        LogWriter.getInstance()
-            .write(
-                String.format(
-                    "%s delivered %s to %s",
-                    this.name, toConfirm.toString(), confirmOrder.toString()));
-        toConfirm.updateStatus(true);
-        numWaiting--;
+  public void confirmServed(long dishID, int tableNumber, long orderNumber) {
+    journal.beginChange();
+    try {
+      Order confirmOrder = getOrder(tableNumber, orderNumber);
+      if (confirmOrder != null) {
+        OrderedDish toConfirm = confirmOrder.getOrderedDish(dishID);
+        if (toConfirm != null && toConfirm.canDeliver()) {
+          journal.dishServed(this, tableNumber, orderNumber, dishID);
+          LogWriter.getInstance()
+              .write(RestaurantEvent.dishServed(this.name, toConfirm, confirmOrder));
+          toConfirm.updateStatus(true);
+          super.kitchen.markDelivered(toConfirm);
+          numWaiting.decrementAndGet();
+        }
       }
+    } finally {
+      journal.endChange();
     }
   }
 
@@ -295,7 +393,7 @@ public class Server extends Employee implements Observer {
    * @param orderNumber the order number corresponding to the order you are looking for
    * @return the order corresponding to the table number and order number, null if it doesn't exist
    */
-  public Order getOrder(int tableNumber, int orderNumber) {
+  public Order getOrder(int tableNumber, long orderNumber) {
     Table t = getTable(tableNumber);
     if (t != null) {
       Order r = t.getOrder(orderNumber);
@@ -310,30 +408,35 @@ public class Server extends Employee implements Observer {
    * @param orderNumber: the order number to be resolved
    * @return true if an order was resolved, false otherwise
    */
-  public boolean resolveOrder(int orderNumber) {
-    for (int i = 0; i < activeTables.size(); i++) {
-      Table table = activeTables.get(i);
-      if (table.resolveOrder(orderNumber)) {
-        if (table.getOrders().isEmpty()) activeTables.remove(i);
-        LogWriter.getInstance().write(String.format("%s resolved order #%d", this.name, orderNumber));
+  public boolean resolveOrder(long orderNumber) {
+    journal.beginChange();
+    try {
+      Order order = orderIndex.getOrder(orderNumber);
+      if (order == null) return false;
+      Table table = getTable(order.getTableNumber());
+      if (table != null && table.getOrder(orderNumber) == order && order.allServed()) {
+        journal.orderResolved(this, orderNumber);
+        table.resolveOrder(orderNumber);
+        orderIndex.removeOrder(order);
+        if (table.isEmpty()) activeTables.remove(table.getTableNumber());
+        LogWriter.getInstance().write(RestaurantEvent.orderResolved(this.name, orderNumber));
         return true;
       }
+      return false;
+    } finally {
+      journal.endChange();
     }
-    return false;
   }
 
   /**
-   * The notification text that tells a server that a dish for an order is ready, increments the
-   * total number of dishes to be delivered
+   * The notification text that tells a server that a dish for an order is ready
    *
    * @param dish: the dish in question
    * @param order: the order associated with that dish
    * @return the notification
    */
   private String notifyServeToTable(OrderedDish dish, Order order) {
-    numWaiting++;
-    String notification =
-        String.format("%s for %s is ready to be served", dish.toString(), order.toString());
+    String notification = RestaurantEvent.dishReady(dish, order).toString();
     addNotification(notification);
     setChanged();
     notifyObservers(notification);
@@ -349,10 +452,7 @@ public class Server extends Employee implements Observer {
    * @return the notification
    */
   private String notifyCancelled(OrderedDish dish, Order order) {
-    String notification =
-        String.format(
-            "Tell %s that the %s is currently unavailable, and remove %s from their ordered dishes",
-            order, dish.getName(), dish.toString());
+    String notification = RestaurantEvent.dishUnavailable(dish, order).toString();
     addNotification(notification);
     setChanged();
     notifyObservers(notification);
@@ -370,9 +470,13 @@ public class Server extends Employee implements Observer {
     if (o instanceof Order && arg instanceof OrderedDish) {
       Order order = (Order) o;
       OrderedDish dish = (OrderedDish) arg;
+      // replayed notifications were delivered the first time
       if (dish.canDeliver()) {
-        LogWriter.getInstance().write(notifyServeToTable(dish, order));
-      } else if (dish.shouldCancel()) {
+        numWaiting.incrementAndGet();
+        if (!StateJournal.isReplaying()) {
+          LogWriter.getInstance().write(notifyServeToTable(dish, order));
+        }
+      } else if (dish.shouldCancel() && !StateJournal.isReplaying()) {
         LogWriter.getInstance().write(notifyCancelled(dish, order));
       }
     }
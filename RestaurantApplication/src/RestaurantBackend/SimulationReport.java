@@ -0,0 +1,220 @@
+package RestaurantBackend;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+
+/**
+ * The results of a Simulator run.
+ *
+ * <p>For each stage of a party's visit, the report holds how long the stage took, in simulated
+ * time, and how long the backend calls the stage made took, in real time. Percentiles are exact,
+ * computed from every sample.
+ */
+public class SimulationReport {
+
+  private final Simulator.Clock clock;
+  private final long elapsedNanos;
+  private final long wallNanos;
+  private final long arrived;
+  private final long completed;
+  private final long turnedAway;
+  private final long unfinished;
+  private final long dishesServed;
+  private final long dishesCancelled;
+  private final long dishesRejected;
+  // the samples of each stage, sorted
+  private final EnumMap<Simulator.Stage, long[]> latencies;
+  private final EnumMap<Simulator.Stage, long[]> backendTimes;
+
+  /**
+   * A new SimulationReport
+   *
+   * @param clock: how time passed in the run
+   * @param elapsedNanos: the simulated length of the run
+   * @param wallNanos: the real time the run took
+   * @param arrived: the number of parties that arrived
+   * @param completed: the number of parties that paid and left
+   * @param turnedAway: the number of parties that left without being served, for lack of
+   *     ingredients
+   * @param unfinished: the number of parties still in the restaurant when the run ended
+   * @param dishesServed: the number of dishes served
+   * @param dishesCancelled: the number of dishes cooks cancelled
+   * @param dishesRejected: the number of dishes servers couldn't add to orders
+   * @param latencies: how long each stage took, in nanoseconds of simulated time
+   * @param backendTimes: how long each stage's backend calls took, in real nanoseconds
+   */
+  SimulationReport(
+      Simulator.Clock clock,
+      long elapsedNanos,
+      long wallNanos,
+      long arrived,
+      long completed,
+      long turnedAway,
+      long unfinished,
+      long dishesServed,
+      long dishesCancelled,
+      long dishesRejected,
+      EnumMap<Simulator.Stage, long[]> latencies,
+      EnumMap<Simulator.Stage, long[]> backendTimes) {
+    this.clock = clock;
+    this.elapsedNanos = elapsedNanos;
+    this.wallNanos = wallNanos;
+    this.arrived = arrived;
+    this.completed = completed;
+    this.turnedAway = turnedAway;
+    this.unfinished = unfinished;
+    this.dishesServed = dishesServed;
+    this.dishesCancelled = dishesCancelled;
+    this.dishesRejected = dishesRejected;
+    this.latencies = latencies;
+    this.backendTimes = backendTimes;
+    for (long[] samples : latencies.values()) Arrays.sort(samples);
+    for (long[] samples : backendTimes.values()) Arrays.sort(samples);
+  }
+
+  public long getArrived() {
+    return arrived;
+  }
+
+  public long getCompleted() {
+    return completed;
+  }
+
+  public long getTurnedAway() {
+    return turnedAway;
+  }
+
+  public long getUnfinished() {
+    return unfinished;
+  }
+
+  public long getDishesServed() {
+    return dishesServed;
+  }
+
+  public long getDishesCancelled() {
+    return dishesCancelled;
+  }
+
+  public long getDishesRejected() {
+    return dishesRejected;
+  }
+
+  /** @return the number of parties that paid and left per second of simulated time */
+  public double getPartiesPerSecond() {
+    return completed / seconds(elapsedNanos);
+  }
+
+  /** @return the number of dishes served per second of simulated time */
+  public double getDishesPerSecond() {
+    return dishesServed / seconds(elapsedNanos);
+  }
+
+  /** @return the number of backend calls made per second of real time */
+  public double getBackendCallsPerSecond() {
+    long calls = 0;
+    for (long[] samples : backendTimes.values()) calls += samples.length;
+    return calls / seconds(wallNanos);
+  }
+
+  /**
+   * @param stage: a stage of a party's visit
+   * @return the number of times the stage was completed
+   */
+  public int getCount(Simulator.Stage stage) {
+    return latencies.get(stage).length;
+  }
+
+  /**
+   * @param stage: a stage of a party's visit
+   * @param percentile: the percentile, between 0 and 100
+   * @return how long the stage took at the given percentile, in milliseconds of simulated time
+   */
+  public double getLatencyMillis(Simulator.Stage stage, double percentile) {
+    return percentileOf(latencies.get(stage), percentile) / 1e6;
+  }
+
+  /**
+   * @param stage: a stage of a party's visit
+   * @return how long the stage took on average, in milliseconds of simulated time, or 0 if it was
+   *     never completed
+   */
+  public double getMeanLatencyMillis(Simulator.Stage stage) {
+    long[] samples = latencies.get(stage);
+    if (samples.length == 0) {
+      return 0;
+    }
+    double total = 0;
+    for (long sample : samples) total += sample;
+    return total / samples.length / 1e6;
+  }
+
+  /**
+   * @param stage: a stage of a party's visit
+   * @param percentile: the percentile, between 0 and 100
+   * @return how long the stage's backend calls took at the given percentile, in microseconds
+   */
+  public double getBackendMicros(Simulator.Stage stage, double percentile) {
+    return percentileOf(backendTimes.get(stage), percentile) / 1e3;
+  }
+
+  /**
+   * @param sorted: sorted samples
+   * @param percentile: the percentile, between 0 and 100
+   * @return the sample at the given percentile, by the nearest-rank method, or 0 if there are none
+   */
+  private static long percentileOf(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+    return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+  }
+
+  private static double seconds(long nanos) {
+    return Math.max(nanos, 1) / 1e9;
+  }
+
+  /**
+   * A String representation of this report: a summary of the run, then a line for each stage
+   *
+   * @return A String representation of this report
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(
+        String.format(
+            "%s clock: %.1f s simulated in %.1f s%n",
+            clock, seconds(elapsedNanos), seconds(wallNanos)));
+    sb.append(
+        String.format(
+            "parties: %d arrived, %d completed, %d turned away, %d unfinished%n",
+            arrived, completed, turnedAway, unfinished));
+    sb.append(
+        String.format(
+            "dishes: %d served, %d cancelled, %d rejected%n",
+            dishesServed, dishesCancelled, dishesRejected));
+    sb.append(
+        String.format(
+            "throughput: %.4f parties/s, %.4f dishes/s, %.0f backend calls/s%n",
+            getPartiesPerSecond(), getDishesPerSecond(), getBackendCallsPerSecond()));
+    sb.append(
+        String.format(
+            "%-9s %8s %12s %12s %12s %14s %14s%n",
+            "stage", "count", "p50 ms", "p99 ms", "max ms", "backend p50 us", "backend p99 us"));
+    for (Simulator.Stage stage : Simulator.Stage.values()) {
+      sb.append(
+          String.format(
+              "%-9s %8d %12.1f %12.1f %12.1f %14.1f %14.1f%n",
+              stage,
+              getCount(stage),
+              getLatencyMillis(stage, 50),
+              getLatencyMillis(stage, 99),
+              getLatencyMillis(stage, 100),
+              getBackendMicros(stage, 50),
+              getBackendMicros(stage, 99)));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,883 @@
+package RestaurantBackend;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Observer;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A headless driver for the backend, which simulates parties of customers visiting a restaurant.
+ *
+ * <p>Parties arrive at random, at a given average rate, and wait for a free table. The server of
+ * the table's section seats them, takes their order and sends it to the kitchen; cooks see and
+ * make the dishes in turn, and the server delivers them as they are ready. Once every dish has been
+ * served and the party has eaten, the server resolves their order and the table is freed. Servers
+ * do one task at a time, delivering ready dishes before anything else, and cooks make one dish at a
+ * time, so parties queue for both. Ingredients are restocked to their starting amounts every so
+ * often.
+ *
+ * <p>Every step is made through the same Server, Cook and Employee methods the UI calls, on a
+ * single thread, as the UI makes them. The simulation is driven by a queue of timed events. With a
+ * VIRTUAL clock, time jumps from one event to the next, so hours of service take only as long as
+ * the backend calls do. With a WALL clock, each event waits for its time to come and time is the
+ * real time elapsed, so slow backend calls hold up everything after them.
+ *
+ * <p>The report gives, for each stage of a visit, how long it took in simulated time and how long
+ * its backend calls took in real time.
+ */
+public class Simulator {
+
+  /** How time passes in a simulation */
+  public enum Clock {
+    // time jumps from one event to the next
+    VIRTUAL,
+    // events wait for real time to pass
+    WALL
+  }
+
+  /** The stages of a party's visit */
+  public enum Stage {
+    // from arriving to being seated at a table
+    SEAT,
+    // from being seated to the order being sent to the kitchen
+    ORDER,
+    // from a dish being sent to the kitchen to a cook seeing it
+    SEE,
+    // from a cook seeing a dish to finishing it
+    COMPLETE,
+    // from a dish being ready to it being served
+    SERVE,
+    // from the order being sent to the kitchen to its last dish being served
+    TABLE,
+    // from asking for the bill to the order being resolved
+    RESOLVE,
+    // from arriving to leaving
+    VISIT
+  }
+
+  private static final int LOG_CAPACITY = 1 << 16;
+  private static final long LOG_FLUSH_INTERVAL_MILLIS = 50;
+
+  private final Restaurant restaurant;
+  private final ArrayList<Waiter> waiters = new ArrayList<>();
+  private final ArrayList<Cook> cooks;
+  // the employee who receives restocks
+  private final Employee receiver;
+  private final Random random;
+  // told when a dish in a simulated order is ready or cancelled
+  private final Observer observer = (o, arg) -> dishChanged((OrderedDish) arg);
+
+  // the mean time between arrivals, and how long each task takes, in nanoseconds
+  private long arrivalNanos = seconds(240);
+  private long seatNanos = seconds(30);
+  private long orderNanos = seconds(120);
+  private long cookNanos = seconds(300);
+  private long serveNanos = seconds(30);
+  private long eatNanos = seconds(1800);
+  private long payNanos = seconds(120);
+  private long restockNanos = seconds(900);
+  private int tables = 20;
+  private int minDishes = 1;
+  private int maxDishes = 4;
+  // the most identical dishes a cook makes at once, and the extra time each dish after the first
+  // adds to a batch, as a fraction of the time to make one
+  private int batchSize = 1;
+  private double batchExtra = 0.25;
+  // the menu items parties order from, and the running total of their weights
+  private Dish[] mix;
+  private double[] cumulativeWeights;
+
+  // the state of a run
+  private PriorityQueue<Event> events;
+  private long sequence;
+  private long now;
+  private long end;
+  private ArrayDeque<Integer> freeTables;
+  private ArrayDeque<Party> lobby;
+  private ArrayDeque<Cook> idleCooks;
+  private HashMap<Long, Track> tracks;
+  private HashMap<String, Double> startingAmounts;
+  private EnumMap<Stage, Samples> latencies;
+  private EnumMap<Stage, Samples> backendTimes;
+  private boolean cancelledNow;
+  private long present;
+  private long arrived;
+  private long completed;
+  private long turnedAway;
+  private long dishesServed;
+  private long dishesCancelled;
+  private long dishesRejected;
+
+  /**
+   * A new Simulator, which hires servers and cooks for the restaurant if it doesn't have enough
+   *
+   * @param restaurant: the restaurant to simulate
+   * @param servers: the number of servers to simulate
+   * @param cooks: the number of cooks to simulate
+   * @param seed: the seed of the random numbers, so that runs can be repeated
+   */
+  public Simulator(Restaurant restaurant, int servers, int cooks, long seed) {
+    this.restaurant = restaurant;
+    ArrayList<Server> hiredServers = restaurant.getServers();
+    for (int i = hiredServers.size(); i < servers; i++) {
+      hiredServers.add(restaurant.addServer("Server " + (i + 1)));
+    }
+    for (int i = 0; i < servers; i++) {
+      waiters.add(new Waiter(hiredServers.get(i)));
+    }
+    ArrayList<Cook> hiredCooks = restaurant.getCooks();
+    for (int i = hiredCooks.size(); i < cooks; i++) {
+      hiredCooks.add(restaurant.addCook("Cook " + (i + 1)));
+    }
+    this.cooks = new ArrayList<>(hiredCooks.subList(0, cooks));
+    ArrayList<Manager> managers = restaurant.getManagers();
+    this.receiver = managers.isEmpty() ? waiters.get(0).server : managers.get(0);
+    this.random = new Random(seed);
+    LinkedHashMap<String, Double> uniform = new LinkedHashMap<>();
+    for (Dish d : restaurant.getMenu().getMenuItems()) {
+      uniform.put(d.getName(), 1.0);
+    }
+    setMenuMix(uniform);
+  }
+
+  /**
+   * Set how often parties arrive
+   *
+   * @param partiesPerHour: the average number of parties arriving per hour
+   */
+  public void setArrivalRate(double partiesPerHour) {
+    this.arrivalNanos = (long) (TimeUnit.HOURS.toNanos(1) / partiesPerHour);
+  }
+
+  /**
+   * Set how often each menu item is ordered
+   *
+   * @param weights: the relative weight of each menu item, by name; items left out aren't ordered
+   * @throws IllegalArgumentException if an item isn't on the menu
+   */
+  public void setMenuMix(Map<String, Double> weights) {
+    mix = new Dish[weights.size()];
+    cumulativeWeights = new double[weights.size()];
+    double total = 0;
+    int i = 0;
+    for (Map.Entry<String, Double> e : weights.entrySet()) {
+      Dish item = restaurant.getMenu().getDish(e.getKey());
+      if (item == null) {
+        throw new IllegalArgumentException(e.getKey() + " is not on the menu");
+      }
+      total += e.getValue();
+      mix[i] = item;
+      cumulativeWeights[i] = total;
+      i++;
+    }
+  }
+
+  /**
+   * Set how many tables there are, numbered from 1; each server has every n-th table
+   *
+   * @param tables: the number of tables
+   */
+  public void setTables(int tables) {
+    this.tables = tables;
+  }
+
+  /**
+   * Set how many dishes a party orders, chosen uniformly between the bounds
+   *
+   * @param min: the fewest dishes a party orders
+   * @param max: the most dishes a party orders
+   */
+  public void setDishesPerParty(int min, int max) {
+    this.minDishes = min;
+    this.maxDishes = max;
+  }
+
+  /**
+   * Set how long servers take to seat a party, take their order, deliver a dish and take payment
+   *
+   * @param seatMillis: how long seating a party takes
+   * @param orderMillis: how long taking an order takes
+   * @param serveMillis: how long delivering a dish takes
+   * @param payMillis: how long taking payment takes
+   */
+  public void setServerTimes(long seatMillis, long orderMillis, long serveMillis, long payMillis) {
+    this.seatNanos = TimeUnit.MILLISECONDS.toNanos(seatMillis);
+    this.orderNanos = TimeUnit.MILLISECONDS.toNanos(orderMillis);
+    this.serveNanos = TimeUnit.MILLISECONDS.toNanos(serveMillis);
+    this.payNanos = TimeUnit.MILLISECONDS.toNanos(payMillis);
+  }
+
+  /**
+   * Set the average time a cook takes to make a dish with no prep time in the kitchen's dish
+   * profiles; the times are exponentially distributed, and average a dish's prep time if it has one
+   *
+   * @param cookMillis: the average time to make a dish
+   */
+  public void setCookTime(long cookMillis) {
+    this.cookNanos = TimeUnit.MILLISECONDS.toNanos(cookMillis);
+  }
+
+  /**
+   * Let cooks make several identical dishes at once
+   *
+   * @param batchSize: the most dishes a cook makes at once; 1 for none
+   * @param extraPerDish: the time each dish after the first adds to a batch, as a fraction of the
+   *     time to make one
+   */
+  public void setBatching(int batchSize, double extraPerDish) {
+    this.batchSize = batchSize;
+    this.batchExtra = extraPerDish;
+  }
+
+  /**
+   * Set the average time a party takes to eat once served; the times are exponentially distributed
+   *
+   * @param eatMillis: the average time to eat
+   */
+  public void setEatTime(long eatMillis) {
+    this.eatNanos = TimeUnit.MILLISECONDS.toNanos(eatMillis);
+  }
+
+  /**
+   * Set how often ingredients are restocked to the amounts the kitchen started with
+   *
+   * @param restockMillis: the time between restocks
+   */
+  public void setRestockPeriod(long restockMillis) {
+    this.restockNanos = TimeUnit.MILLISECONDS.toNanos(restockMillis);
+  }
+
+  /**
+   * Let parties arrive for the given time, then let those still in the restaurant finish, for up to
+   * the same time again
+   *
+   * @param clock: how time passes
+   * @param durationMillis: how long parties arrive for
+   * @return the report of the run
+   * @throws InterruptedException if interrupted while waiting for real time to pass
+   */
+  public SimulationReport run(Clock clock, long durationMillis) throws InterruptedException {
+    events = new PriorityQueue<>();
+    now = 0;
+    end = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+    // forecast ingredient use in simulated time, which may pass faster than real time
+    restaurant.getKitchen().getForecaster().setClock(() -> now);
+    freeTables = new ArrayDeque<>();
+    for (int t = 1; t <= tables; t++) {
+      freeTables.add(t);
+    }
+    lobby = new ArrayDeque<>();
+    idleCooks = new ArrayDeque<>(cooks);
+    tracks = new HashMap<>();
+    startingAmounts = new HashMap<>();
+    for (KitchenIngredient ing : restaurant.getKitchen().getKitchenIngredients()) {
+      startingAmounts.put(ing.getName(), ing.getAmount());
+    }
+    latencies = new EnumMap<>(Stage.class);
+    backendTimes = new EnumMap<>(Stage.class);
+    for (Stage stage : Stage.values()) {
+      latencies.put(stage, new Samples());
+      backendTimes.put(stage, new Samples());
+    }
+    present = arrived = completed = turnedAway = 0;
+    dishesServed = dishesCancelled = dishesRejected = 0;
+
+    schedule(exponential(arrivalNanos), this::arrive);
+    schedule(restockNanos, this::restock);
+    long limit = 2 * end;
+    long wallStart = System.nanoTime();
+    while (!events.isEmpty() && events.peek().time <= limit) {
+      Event e = events.poll();
+      if (clock == Clock.WALL) {
+        long wait = e.time - (System.nanoTime() - wallStart);
+        if (wait > 0) {
+          TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        now = Math.max(e.time, System.nanoTime() - wallStart);
+      } else {
+        now = e.time;
+      }
+      e.action.run();
+    }
+    long wallNanos = System.nanoTime() - wallStart;
+    EnumMap<Stage, long[]> latencySamples = new EnumMap<>(Stage.class);
+    EnumMap<Stage, long[]> backendSamples = new EnumMap<>(Stage.class);
+    for (Stage stage : Stage.values()) {
+      latencySamples.put(stage, latencies.get(stage).toArray());
+      backendSamples.put(stage, backendTimes.get(stage).toArray());
+    }
+    return new SimulationReport(
+        clock,
+        Math.max(now, end),
+        wallNanos,
+        arrived,
+        completed,
+        turnedAway,
+        present,
+        dishesServed,
+        dishesCancelled,
+        dishesRejected,
+        latencySamples,
+        backendSamples);
+  }
+
+  /** A party arrives, and is seated if a table is free; the next party's arrival is scheduled */
+  private void arrive() {
+    if (now >= end) {
+      return;
+    }
+    schedule(exponential(arrivalNanos), this::arrive);
+    arrived++;
+    present++;
+    Party party = new Party(now);
+    if (freeTables.isEmpty()) {
+      lobby.add(party);
+    } else {
+      seat(party, freeTables.poll());
+    }
+  }
+
+  /**
+   * Give a party a table, and ask its server to seat them
+   *
+   * @param party: the party
+   * @param table: the table number
+   */
+  private void seat(Party party, int table) {
+    party.table = table;
+    party.waiter = waiters.get(table % waiters.size());
+    party.waiter.submit(false, seatNanos, () -> takeSeat(party));
+  }
+
+  /**
+   * The server adds the party's table and an order for it
+   *
+   * @param party: the party
+   */
+  private void takeSeat(Party party) {
+    Server server = party.waiter.server;
+    if (server.hasDishesWaiting()) {
+      // servers can't add tables until they have delivered every ready dish
+      party.waiter.submit(false, 0, () -> takeSeat(party));
+      return;
+    }
+    long start = System.nanoTime();
+    server.addTable(party.table);
+    server.addOrder(party.table);
+    ArrayList<Long> orders = server.getActiveOrdersAtTable(party.table);
+    backend(Stage.SEAT, start);
+    party.orderNumber = orders.get(orders.size() - 1);
+    party.order = server.getOrder(party.table, party.orderNumber);
+    party.order.addObserver(observer);
+    party.seated = now;
+    record(Stage.SEAT, now - party.arrived);
+    party.waiter.submit(false, orderNanos, () -> takeOrder(party));
+  }
+
+  /**
+   * The server adds the dishes the party chooses to their order, and sends it to the kitchen
+   *
+   * @param party: the party
+   */
+  private void takeOrder(Party party) {
+    Server server = party.waiter.server;
+    if (server.hasDishesWaiting()) {
+      party.waiter.submit(false, 0, () -> takeOrder(party));
+      return;
+    }
+    int count = minDishes + random.nextInt(maxDishes - minDishes + 1);
+    ArrayList<OrderedDish> added = new ArrayList<>(count);
+    long start = System.nanoTime();
+    for (int i = 0; i < count; i++) {
+      OrderedDish dish = OrderedDish.DishToOrderedDish(chooseDish());
+      server.addToOrder(party.table, party.orderNumber, dish);
+      if (party.order.findOrderedDish(dish.getID()) != null) {
+        added.add(dish);
+      } else {
+        dishesRejected++;
+      }
+    }
+    server.finalizeOrdersForTable(party.table);
+    backend(Stage.ORDER, start);
+    record(Stage.ORDER, now - party.seated);
+    for (OrderedDish dish : added) {
+      tracks.put(dish.getID(), new Track(party, now));
+    }
+    party.outstanding = added.size();
+    party.ordered = now;
+    if (added.isEmpty()) {
+      askForBill(party);
+    } else {
+      dispatchCooks();
+    }
+  }
+
+  /** Idle cooks see the dishes waiting in the kitchen, until all are busy or none are waiting */
+  private void dispatchCooks() {
+    Kitchen kitchen = restaurant.getKitchen();
+    while (!idleCooks.isEmpty() && kitchen.queuedCount() > 0) {
+      Cook cook = idleCooks.peek();
+      cancelledNow = false;
+      long start = System.nanoTime();
+      if (batchSize > 1) {
+        cook.markSeenAndParse(batchSize);
+      } else {
+        cook.markSeenAndParse();
+      }
+      backend(Stage.SEE, start);
+      ArrayList<OrderedDish> batch = cook.getBatch();
+      if (!batch.isEmpty()) {
+        idleCooks.poll();
+        for (OrderedDish dish : batch) {
+          Track track = tracks.get(dish.getID());
+          if (track != null) {
+            track.seen = now;
+            record(Stage.SEE, now - track.sent);
+          }
+        }
+        long cookTime = exponential(cookNanosOf(batch.get(0)));
+        schedule(
+            (long) (cookTime * (1 + batchExtra * (batch.size() - 1))), () -> complete(cook));
+      } else if (!cancelledNow) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @param dish: a dish
+   * @return the average time a cook takes to make it, in nanoseconds
+   */
+  private long cookNanosOf(OrderedDish dish) {
+    DishProfiles profiles = restaurant.getKitchen().getScheduler().getProfiles();
+    String name = dish.getName();
+    return profiles.has(name)
+        ? TimeUnit.MILLISECONDS.toNanos(profiles.prepMillisOf(name))
+        : cookNanos;
+  }
+
+  /**
+   * A cook finishes their dish, and sees the next one
+   *
+   * @param cook: the cook
+   */
+  private void complete(Cook cook) {
+    long start = System.nanoTime();
+    cook.completeDish();
+    backend(Stage.COMPLETE, start);
+    idleCooks.add(cook);
+    dispatchCooks();
+  }
+
+  /**
+   * Called when a dish in a simulated order is ready or cancelled; asks the server to deliver or
+   * remove it
+   *
+   * @param dish: the dish
+   */
+  private void dishChanged(OrderedDish dish) {
+    Track track = tracks.get(dish.getID());
+    if (track == null) {
+      return;
+    }
+    if (dish.canDeliver()) {
+      track.ready = now;
+      record(Stage.COMPLETE, now - track.seen);
+      track.party.waiter.submit(true, serveNanos, () -> deliver(track, dish));
+    } else if (dish.shouldCancel()) {
+      cancelledNow = true;
+      dishesCancelled++;
+      record(Stage.SEE, now - track.sent);
+      track.party.waiter.submit(true, serveNanos, () -> removeCancelled(track, dish));
+    }
+  }
+
+  /**
+   * The server delivers a ready dish
+   *
+   * @param track: the dish's progress
+   * @param dish: the dish
+   */
+  private void deliver(Track track, OrderedDish dish) {
+    Party party = track.party;
+    long start = System.nanoTime();
+    party.waiter.server.confirmServed(dish.getID(), party.table, party.orderNumber);
+    backend(Stage.SERVE, start);
+    record(Stage.SERVE, now - track.ready);
+    dishesServed++;
+    party.served++;
+    dishDone(party, dish);
+  }
+
+  /**
+   * The server removes a cancelled dish from the party's order
+   *
+   * @param track: the dish's progress
+   * @param dish: the dish
+   */
+  private void removeCancelled(Track track, OrderedDish dish) {
+    Party party = track.party;
+    party.waiter.server.removeOrderedDish(party.table, party.orderNumber, dish.getID());
+    dishDone(party, dish);
+  }
+
+  /**
+   * Stop tracking a dish that was served or removed; once a party has all its dishes, they eat
+   *
+   * @param party: the party
+   * @param dish: the dish
+   */
+  private void dishDone(Party party, OrderedDish dish) {
+    tracks.remove(dish.getID());
+    if (--party.outstanding == 0) {
+      if (party.served > 0) {
+        record(Stage.TABLE, now - party.ordered);
+      }
+      schedule(party.served > 0 ? exponential(eatNanos) : 0, () -> askForBill(party));
+    }
+  }
+
+  /**
+   * A party asks for the bill
+   *
+   * @param party: the party
+   */
+  private void askForBill(Party party) {
+    party.billed = now;
+    party.waiter.submit(false, payNanos, () -> pay(party));
+  }
+
+  /**
+   * The server resolves the party's order, and the party leaves, freeing their table
+   *
+   * @param party: the party
+   */
+  private void pay(Party party) {
+    long start = System.nanoTime();
+    party.waiter.server.resolveOrder(party.orderNumber);
+    backend(Stage.RESOLVE, start);
+    record(Stage.RESOLVE, now - party.billed);
+    party.order.deleteObserver(observer);
+    present--;
+    if (party.served > 0) {
+      completed++;
+      record(Stage.VISIT, now - party.arrived);
+    } else {
+      turnedAway++;
+    }
+    Party next = lobby.poll();
+    if (next != null) {
+      seat(next, party.table);
+    } else {
+      freeTables.add(party.table);
+    }
+  }
+
+  /** Bring every ingredient back up to its starting amount, while parties may still come */
+  private void restock() {
+    if (now >= end && present == 0) {
+      return;
+    }
+    for (KitchenIngredient ing : restaurant.getKitchen().getKitchenIngredients()) {
+      double missing = startingAmounts.getOrDefault(ing.getName(), 0.0) - ing.getAmount();
+      if (missing > 0) {
+        receiver.receiveShipment(new Ingredient(ing.getName(), missing));
+      }
+    }
+    schedule(restockNanos, this::restock);
+  }
+
+  /** @return a menu item, chosen by the menu mix */
+  private Dish chooseDish() {
+    double x = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+    int i = 0;
+    while (i < mix.length - 1 && cumulativeWeights[i] <= x) {
+      i++;
+    }
+    return mix[i];
+  }
+
+  /**
+   * @param mean: the mean, in nanoseconds
+   * @return an exponentially distributed random duration with the given mean
+   */
+  private long exponential(long mean) {
+    return (long) (-mean * Math.log(1 - random.nextDouble()));
+  }
+
+  /**
+   * Run an action after a delay
+   *
+   * @param delay: the delay, in nanoseconds of simulated time
+   * @param action: the action
+   */
+  private void schedule(long delay, Runnable action) {
+    events.add(new Event(now + delay, sequence++, action));
+  }
+
+  private void record(Stage stage, long nanos) {
+    latencies.get(stage).add(nanos);
+  }
+
+  private void backend(Stage stage, long start) {
+    backendTimes.get(stage).add(System.nanoTime() - start);
+  }
+
+  private static long seconds(long seconds) {
+    return TimeUnit.SECONDS.toNanos(seconds);
+  }
+
+  /**
+   * Run a simulation of the restaurant described by the usual files, and print its report.
+   *
+   * <p>Settings are given as name=value arguments: employees, menu and inventory paths; servers,
+   * cooks and tables; stations, as grill,salad, given to hired cooks in turn; rate, in parties per
+   * hour; mix, as Name:weight,Name:weight; dishes, as min-max; seat, order, cook, serve, eat, pay
+   * and restock times, in milliseconds; prep, as Name:station:seconds,Name:station:seconds, adding
+   * to the kitchen's dish profiles; policy, the kitchen's scheduling policy; batch, the most
+   * identical dishes a cook makes at once, and batchextra, the time each dish after the first adds
+   * to a batch, as a fraction of the time to make one; duration, in minutes; clock, VIRTUAL or
+   * WALL; seed; and metrics, true to print the backend's metrics too.
+   *
+   * <p>The log, payments, ids and reorder requests of the simulated restaurant are written to a
+   * temporary directory, not the working directory.
+   *
+   * @param args: the settings
+   * @throws IOException if the log can't be opened
+   * @throws InterruptedException if interrupted while waiting for real time to pass
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    DataFiles.useTemporaryDirectory("restaurant-sim");
+    Map<String, String> settings = parseSettings(args);
+    Simulator sim = fromSettings(settings);
+    Clock clock = Clock.valueOf(settings.getOrDefault("clock", "VIRTUAL"));
+    long minutes = Long.parseLong(settings.getOrDefault("duration", "480"));
+
+    boolean metrics = Boolean.parseBoolean(settings.getOrDefault("metrics", "false"));
+    Metrics.setEnabled(metrics);
+
+    LogWriter.getInstance()
+        .startAsync(LOG_CAPACITY, LOG_FLUSH_INTERVAL_MILLIS, AsyncLogSink.Durability.NONE);
+    try {
+      System.out.print(sim.run(clock, TimeUnit.MINUTES.toMillis(minutes)));
+      if (metrics) {
+        System.out.print(Metrics.getInstance());
+      }
+    } finally {
+      LogWriter.getInstance().shutdown();
+    }
+  }
+
+  /**
+   * @param args: name=value arguments
+   * @return the settings, by name
+   */
+  static Map<String, String> parseSettings(String[] args) {
+    HashMap<String, String> settings = new HashMap<>();
+    for (String arg : args) {
+      int eq = arg.indexOf('=');
+      if (eq > 0) {
+        settings.put(arg.substring(0, eq), arg.substring(eq + 1));
+      }
+    }
+    return settings;
+  }
+
+  /**
+   * Load a new restaurant from the files named in the settings, and set up a simulation of it
+   *
+   * @param settings: the settings, as described for main; clock, duration and metrics are ignored
+   * @return the simulation
+   */
+  static Simulator fromSettings(Map<String, String> settings) {
+    Restaurant restaurant =
+        new Restaurant(
+            settings.getOrDefault("employees", "employees.txt"),
+            settings.getOrDefault("menu", "menu.txt"),
+            settings.getOrDefault("inventory", "inventory.txt"));
+    int cooks = Integer.parseInt(settings.getOrDefault("cooks", "4"));
+    if (settings.containsKey("stations")) {
+      String[] stations = settings.get("stations").split(",");
+      for (int i = restaurant.getCooks().size(); i < cooks; i++) {
+        restaurant.addCook("Cook " + (i + 1), stations[i % stations.length]);
+      }
+    }
+    DishScheduler scheduler = restaurant.getKitchen().getScheduler();
+    if (settings.containsKey("prep")) {
+      for (String item : settings.get("prep").split(",")) {
+        String[] profile = item.split(":");
+        scheduler
+            .getProfiles()
+            .put(profile[0], profile[1], TimeUnit.SECONDS.toMillis(Long.parseLong(profile[2])));
+      }
+    }
+    if (settings.containsKey("policy")) {
+      scheduler.setPolicy(DishScheduler.Policy.valueOf(settings.get("policy")));
+    }
+    Simulator sim =
+        new Simulator(
+            restaurant,
+            Integer.parseInt(settings.getOrDefault("servers", "4")),
+            cooks,
+            Long.parseLong(settings.getOrDefault("seed", "1")));
+    if (settings.containsKey("rate")) {
+      sim.setArrivalRate(Double.parseDouble(settings.get("rate")));
+    }
+    if (settings.containsKey("tables")) {
+      sim.setTables(Integer.parseInt(settings.get("tables")));
+    }
+    if (settings.containsKey("mix")) {
+      LinkedHashMap<String, Double> weights = new LinkedHashMap<>();
+      for (String item : settings.get("mix").split(",")) {
+        int colon = item.lastIndexOf(':');
+        weights.put(item.substring(0, colon), Double.parseDouble(item.substring(colon + 1)));
+      }
+      sim.setMenuMix(weights);
+    }
+    if (settings.containsKey("dishes")) {
+      String[] bounds = settings.get("dishes").split("-");
+      sim.setDishesPerParty(Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]));
+    }
+    sim.setServerTimes(
+        Long.parseLong(settings.getOrDefault("seat", "30000")),
+        Long.parseLong(settings.getOrDefault("order", "120000")),
+        Long.parseLong(settings.getOrDefault("serve", "30000")),
+        Long.parseLong(settings.getOrDefault("pay", "120000")));
+    sim.setBatching(
+        Integer.parseInt(settings.getOrDefault("batch", "1")),
+        Double.parseDouble(settings.getOrDefault("batchextra", "0.25")));
+    sim.setCookTime(Long.parseLong(settings.getOrDefault("cook", "300000")));
+    sim.setEatTime(Long.parseLong(settings.getOrDefault("eat", "1800000")));
+    sim.setRestockPeriod(Long.parseLong(settings.getOrDefault("restock", "900000")));
+    return sim;
+  }
+
+  /** An action to run at a given time; actions at the same time run in the order scheduled */
+  private static class Event implements Comparable<Event> {
+    final long time;
+    final long sequence;
+    final Runnable action;
+
+    Event(long time, long sequence, Runnable action) {
+      this.time = time;
+      this.sequence = sequence;
+      this.action = action;
+    }
+
+    @Override
+    public int compareTo(Event other) {
+      int c = Long.compare(time, other.time);
+      return c != 0 ? c : Long.compare(sequence, other.sequence);
+    }
+  }
+
+  /** A party of customers, from arriving to leaving */
+  private static class Party {
+    final long arrived;
+    int table;
+    Waiter waiter;
+    long orderNumber;
+    Order order;
+    long seated;
+    long ordered;
+    long billed;
+    // the number of dishes not yet served or removed, and the number served
+    int outstanding;
+    int served;
+
+    Party(long arrived) {
+      this.arrived = arrived;
+    }
+  }
+
+  /** The progress of a dish through the kitchen */
+  private static class Track {
+    final Party party;
+    final long sent;
+    long seen;
+    long ready;
+
+    Track(Party party, long sent) {
+      this.party = party;
+      this.sent = sent;
+    }
+  }
+
+  /**
+   * A server, doing one task at a time; urgent tasks, delivering and removing dishes, come before
+   * the rest
+   */
+  private class Waiter {
+    final Server server;
+    final ArrayDeque<Task> urgent = new ArrayDeque<>();
+    final ArrayDeque<Task> normal = new ArrayDeque<>();
+    boolean busy;
+
+    Waiter(Server server) {
+      this.server = server;
+    }
+
+    /**
+     * Add a task, and start it if this server is free
+     *
+     * @param isUrgent: true if the task comes before non-urgent ones
+     * @param duration: how long the task takes, in nanoseconds; it is done at the end
+     * @param action: what the task does
+     */
+    void submit(boolean isUrgent, long duration, Runnable action) {
+      (isUrgent ? urgent : normal).add(new Task(duration, action));
+      if (!busy) {
+        startNext();
+      }
+    }
+
+    /** Start the next task, if there is one */
+    void startNext() {
+      Task task = urgent.isEmpty() ? normal.poll() : urgent.poll();
+      busy = task != null;
+      if (task != null) {
+        schedule(
+            task.duration,
+            () -> {
+              task.action.run();
+              startNext();
+            });
+      }
+    }
+  }
+
+  /** A task for a server */
+  private static class Task {
+    final long duration;
+    final Runnable action;
+
+    Task(long duration, Runnable action) {
+      this.duration = duration;
+      this.action = action;
+    }
+  }
+
+  /** A growable array of samples */
+  private static class Samples {
+    private long[] values = new long[64];
+    private int size;
+
+    void add(long value) {
+      if (size == values.length) {
+        values = java.util.Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    long[] toArray() {
+      return java.util.Arrays.copyOf(values, size);
+    }
+  }
+}
@@ -0,0 +1,733 @@
+package RestaurantBackend;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The durable record of a restaurant's state.
+ *
+ * <p>Every change to the restaurant's tables, orders, dishes and inventory is appended to a
+ * write-ahead log as a compact binary record, and committed to disk, before the change is applied.
+ * Every so often the whole state is written to a snapshot, and the log starts over. On startup the
+ * snapshot is loaded and the records logged after it are replayed, by making the same changes again
+ * with logging, payments and reorder requests switched off.
+ *
+ * <p>Changes are made while holding a shared lock, and snapshots are taken while holding an
+ * exclusive one, so a snapshot reflects exactly the records logged before it. Both the snapshot
+ * and the log carry a generation number; a log from an older generation than the snapshot has
+ * already been folded into it, and is ignored.
+ *
+ * <p>If a record can't be committed, the change it records is abandoned: the call recording it
+ * throws an IllegalStateException before the change is made. Every change is abandoned from then
+ * until the next snapshot, which records the state as it is and starts the log over.
+ *
+ * <p>Until the journal is started, nothing is recorded.
+ */
+class StateJournal {
+
+  private static final int SNAPSHOT_MAGIC = 0x52534e50;
+  // version 2 added the dishes cooks are making in a batch; version 1 snapshots can still be read
+  private static final int SNAPSHOT_VERSION = 2;
+
+  // the kinds of record in the log
+  private static final byte ADD_TABLE = 1;
+  private static final byte ADD_ORDER = 2;
+  private static final byte ADD_DISH = 3;
+  private static final byte ADJUST_INGREDIENT = 4;
+  private static final byte REMOVE_TENTATIVE_DISH = 5;
+  private static final byte FINALIZE_TABLE = 6;
+  private static final byte SEE_DISH = 7;
+  private static final byte COMPLETE_DISH = 8;
+  private static final byte SERVE_DISH = 9;
+  private static final byte RETURN_DISH = 10;
+  private static final byte REMOVE_DISH = 11;
+  private static final byte RESOLVE_ORDER = 12;
+  private static final byte RECEIVE_SHIPMENT = 13;
+
+  // true on the thread replaying the log
+  private static final ThreadLocal<Boolean> REPLAYING = ThreadLocal.withInitial(() -> false);
+
+  private final Restaurant restaurant;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  // the number of records logged since the last snapshot
+  private final AtomicLong sinceSnapshot = new AtomicLong();
+  private String snapshotPath;
+  // the restaurant's employees by name, while the log is replayed
+  private HashMap<String, Server> servers;
+  private HashMap<String, Cook> cooks;
+  private volatile GroupCommitLog log;
+  private long generation;
+  private ScheduledExecutorService snapshots;
+
+  /** Writes the body of a record */
+  private interface RecordBody {
+    void writeTo(DataOutputStream out) throws IOException;
+  }
+
+  /**
+   * A new StateJournal, which records nothing until it is started
+   *
+   * @param restaurant: the restaurant whose state is recorded
+   */
+  StateJournal(Restaurant restaurant) {
+    this.restaurant = restaurant;
+  }
+
+  /** @return true if the calling thread is replaying changes from the log */
+  static boolean isReplaying() {
+    return REPLAYING.get();
+  }
+
+  /**
+   * Mark the calling thread as making changes again that were already made once, so that they are
+   * neither recorded nor logged, or no longer
+   *
+   * @param replaying: true while replaying changes
+   */
+  static void setReplaying(boolean replaying) {
+    REPLAYING.set(replaying);
+  }
+
+  /**
+   * Restore the restaurant to its recorded state, then start recording changes to it
+   *
+   * @param snapshotPath: path to the snapshot file
+   * @param logPath: path to the write-ahead log file
+   * @param snapshotPeriodMillis: how often to write a snapshot
+   * @throws IOException if the journal files can't be read or written
+   */
+  void start(String snapshotPath, String logPath, long snapshotPeriodMillis) throws IOException {
+    lock.writeLock().lock();
+    try {
+      if (log != null) {
+        return;
+      }
+      this.snapshotPath = snapshotPath;
+      servers = new HashMap<>();
+      for (Server server : restaurant.getServers()) {
+        servers.put(server.name, server);
+      }
+      cooks = new HashMap<>();
+      for (Cook cook : restaurant.getCooks()) {
+        cooks.put(cook.name, cook);
+      }
+      REPLAYING.set(true);
+      try {
+        long recorded = loadSnapshot();
+        GroupCommitLog.read(logPath, recorded, this::replay);
+        generation = recorded + 1;
+      } finally {
+        REPLAYING.set(false);
+        servers = null;
+        cooks = null;
+      }
+      // fold the replayed records into a new snapshot, so the log starts empty
+      writeSnapshot();
+      log = new GroupCommitLog(logPath, generation);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    snapshots =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "state-snapshots");
+              t.setDaemon(true);
+              return t;
+            });
+    snapshots.scheduleWithFixedDelay(
+        () -> {
+          GroupCommitLog current = log;
+          if (sinceSnapshot.get() > 0 || (current != null && current.hasFailed())) {
+            checkpoint();
+          }
+        },
+        snapshotPeriodMillis,
+        snapshotPeriodMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /** Write a final snapshot and stop recording changes */
+  void close() {
+    if (snapshots != null) {
+      snapshots.shutdown();
+    }
+    lock.writeLock().lock();
+    try {
+      if (log == null) {
+        return;
+      }
+      checkpoint();
+      log.close();
+      log = null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Write a snapshot of the restaurant's state, and start a new generation of the log */
+  void checkpoint() {
+    lock.writeLock().lock();
+    try {
+      if (log == null) {
+        return;
+      }
+      generation++;
+      writeSnapshot();
+      log.reset(generation);
+      sinceSnapshot.set(0);
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Start a change to the restaurant's state; every call must be paired with endChange.
+   *
+   * <p>Each change must be recorded before it is made, since recording it throws an
+   * IllegalStateException if the record can't be committed, and the change must then be abandoned.
+   */
+  void beginChange() {
+    lock.readLock().lock();
+  }
+
+  /** Finish a change to the restaurant's state */
+  void endChange() {
+    lock.readLock().unlock();
+  }
+
+  /** Record that a server added a table */
+  void tableAdded(Server server, int tableNumber) {
+    record(
+        ADD_TABLE,
+        out -> {
+          out.writeUTF(server.name);
+          out.writeInt(tableNumber);
+        });
+  }
+
+  /** Record that a server added an order to a table */
+  void orderAdded(Server server, int tableNumber, long orderNumber) {
+    record(ADD_ORDER, out -> writeOrderRef(out, server, tableNumber, orderNumber));
+  }
+
+  /** Record that a server added a dish to an order's tentative items */
+  void dishAdded(Server server, int tableNumber, long orderNumber, OrderedDish dish) {
+    record(
+        ADD_DISH,
+        out -> {
+          writeOrderRef(out, server, tableNumber, orderNumber);
+          writeDish(out, dish);
+        });
+  }
+
+  /** Record that the amount of an ingredient in an ordered dish was changed */
+  void ingredientAdjusted(OrderedDish dish, Ingredient ingredient, double change) {
+    record(
+        ADJUST_INGREDIENT,
+        out -> {
+          out.writeLong(dish.getID());
+          out.writeUTF(ingredient.getName());
+          out.writeDouble(change);
+        });
+  }
+
+  /** Record that a server removed a tentative dish from an order */
+  void tentativeDishRemoved(Server server, int tableNumber, long orderNumber, long dishId) {
+    record(
+        REMOVE_TENTATIVE_DISH, out -> writeDishRef(out, server, tableNumber, orderNumber, dishId));
+  }
+
+  /** Record that a server sent a table's tentative dishes to the kitchen */
+  void tableFinalized(Server server, int tableNumber) {
+    record(
+        FINALIZE_TABLE,
+        out -> {
+          out.writeUTF(server.name);
+          out.writeInt(tableNumber);
+        });
+  }
+
+  /** Record that a cook took a dish from the queue, and whether it was started or cancelled */
+  void dishSeen(Cook cook, OrderedDish dish, boolean accepted) {
+    record(
+        SEE_DISH,
+        out -> {
+          out.writeUTF(cook.name);
+          out.writeLong(dish.getID());
+          out.writeBoolean(accepted);
+        });
+  }
+
+  /** Record that a cook finished their current dish */
+  void dishCompleted(Cook cook) {
+    record(COMPLETE_DISH, out -> out.writeUTF(cook.name));
+  }
+
+  /** Record that a server served a dish */
+  void dishServed(Server server, int tableNumber, long orderNumber, long dishId) {
+    record(SERVE_DISH, out -> writeDishRef(out, server, tableNumber, orderNumber, dishId));
+  }
+
+  /** Record that a server sent a served dish back to the kitchen */
+  void dishReturned(Server server, int tableNumber, long orderNumber, long dishId) {
+    record(RETURN_DISH, out -> writeDishRef(out, server, tableNumber, orderNumber, dishId));
+  }
+
+  /** Record that a server removed a cancelled dish from an order */
+  void dishRemoved(Server server, int tableNumber, long orderNumber, long dishId) {
+    record(REMOVE_DISH, out -> writeDishRef(out, server, tableNumber, orderNumber, dishId));
+  }
+
+  /** Record that a server resolved an order */
+  void orderResolved(Server server, long orderNumber) {
+    record(
+        RESOLVE_ORDER,
+        out -> {
+          out.writeUTF(server.name);
+          out.writeLong(orderNumber);
+        });
+  }
+
+  /** Record that the kitchen received a shipment of an ingredient */
+  void shipmentReceived(Ingredient ingredient) {
+    record(
+        RECEIVE_SHIPMENT,
+        out -> {
+          out.writeUTF(ingredient.getName());
+          out.writeDouble(ingredient.getAmount());
+        });
+  }
+
+  /**
+   * Append a record to the log and wait for it to be committed, unless the journal hasn't been
+   * started or the change is being replayed
+   *
+   * @param type: the kind of record
+   * @param body: writes the body of the record
+   * @throws IllegalStateException if the record can't be committed, so the change must not be made
+   */
+  private void record(byte type, RecordBody body) {
+    GroupCommitLog current = log;
+    if (current == null || isReplaying()) {
+      return;
+    }
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(type);
+      body.writeTo(out);
+      current.append(bytes.toByteArray());
+      sinceSnapshot.incrementAndGet();
+    } catch (IOException e) {
+      throw new IllegalStateException("The change could not be recorded, so it was not made", e);
+    }
+  }
+
+  /**
+   * Make the change recorded in a record again
+   *
+   * @param record: the contents of the record
+   */
+  private void replay(byte[] record) {
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+      byte type = in.readByte();
+      if (type == SEE_DISH || type == COMPLETE_DISH) {
+        Cook cook = findCook(in.readUTF());
+        if (cook == null) {
+          return;
+        }
+        if (type == COMPLETE_DISH) {
+          cook.completeDish();
+          return;
+        }
+        OrderedDish dish = findDish(in.readLong());
+        boolean accepted = in.readBoolean();
+        if (dish != null) {
+          cook.replaySeen(dish, accepted);
+        }
+        return;
+      }
+      if (type == ADJUST_INGREDIENT) {
+        OrderedDish dish = findDish(in.readLong());
+        Ingredient ingredient = new Ingredient(in.readUTF(), 0);
+        double change = in.readDouble();
+        if (dish != null) {
+          dish.adjustIngredient(ingredient, change);
+        }
+        return;
+      }
+      if (type == RECEIVE_SHIPMENT) {
+        restaurant.getKitchen().receiveShipment(new Ingredient(in.readUTF(), in.readDouble()));
+        return;
+      }
+      Server server = findServer(in.readUTF());
+      if (server == null) {
+        return;
+      }
+      if (type == RESOLVE_ORDER) {
+        server.resolveOrder(in.readLong());
+        return;
+      }
+      int tableNumber = in.readInt();
+      switch (type) {
+        case ADD_TABLE:
+          server.addTable(tableNumber);
+          return;
+        case FINALIZE_TABLE:
+          server.finalizeOrdersForTable(tableNumber);
+          return;
+        default:
+          break;
+      }
+      long orderNumber = in.readLong();
+      switch (type) {
+        case ADD_ORDER:
+          server.addOrder(tableNumber, orderNumber);
+          return;
+        case ADD_DISH:
+          server.addToOrder(tableNumber, orderNumber, readDish(in));
+          return;
+        default:
+          break;
+      }
+      long dishId = in.readLong();
+      switch (type) {
+        case REMOVE_TENTATIVE_DISH:
+          server.removeTentativeDish(tableNumber, orderNumber, dishId);
+          break;
+        case SERVE_DISH:
+          server.confirmServed(dishId, tableNumber, orderNumber);
+          break;
+        case RETURN_DISH:
+          server.returnDish(tableNumber, orderNumber, dishId);
+          break;
+        case REMOVE_DISH:
+          server.removeOrderedDish(tableNumber, orderNumber, dishId);
+          break;
+        default:
+          break;
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Write the restaurant's state to a new snapshot, replacing the old one in a single step
+   *
+   * @throws IOException if the snapshot can't be written
+   */
+  private void writeSnapshot() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(SNAPSHOT_MAGIC);
+    out.writeInt(SNAPSHOT_VERSION);
+    out.writeLong(generation);
+
+    Kitchen kitchen = restaurant.getKitchen();
+    ArrayList<KitchenIngredient> inventory = kitchen.getKitchenIngredients();
+    out.writeInt(inventory.size());
+    for (KitchenIngredient ing : inventory) {
+      out.writeUTF(ing.getName());
+      out.writeDouble(ing.getAmount());
+      out.writeDouble(ing.getThreshold());
+    }
+    ArrayList<String> reordered = kitchen.getReorderEngine().outstanding();
+    out.writeInt(reordered.size());
+    for (String name : reordered) {
+      out.writeUTF(name);
+    }
+
+    ArrayList<Server> servers = restaurant.getServers();
+    out.writeInt(servers.size());
+    for (Server server : servers) {
+      out.writeUTF(server.name);
+      out.writeInt(server.getTables().size());
+      for (Table table : server.getTables()) {
+        out.writeInt(table.getTableNumber());
+        out.writeInt(table.getOrders().size());
+        for (Order order : table.getOrders()) {
+          out.writeLong(order.getOrderNumber());
+          writeDishes(out, order.getOrderItems());
+          writeDishes(out, order.getTentative());
+        }
+      }
+    }
+
+    ArrayList<OrderedDish> queued = kitchen.queuedDishes();
+    out.writeInt(queued.size());
+    for (OrderedDish dish : queued) {
+      out.writeLong(dish.getID());
+    }
+    ArrayList<Cook> cooks = restaurant.getCooks();
+    out.writeInt(cooks.size());
+    for (Cook cook : cooks) {
+      OrderedDish current = cook.getCurrentDish();
+      boolean cooking = current != null && current.canCook();
+      out.writeUTF(cook.name);
+      out.writeBoolean(cooking);
+      if (cooking) {
+        ArrayList<OrderedDish> batch = cook.getBatch();
+        out.writeLong(current.getID());
+        out.writeInt(batch.size() - 1);
+        for (OrderedDish dish : batch.subList(1, batch.size())) {
+          out.writeLong(dish.getID());
+        }
+      }
+    }
+    out.flush();
+
+    Path path = Paths.get(snapshotPath);
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel =
+        FileChannel.open(
+            tmp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+      while (buf.hasRemaining()) {
+        channel.write(buf);
+      }
+      channel.force(false);
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Restore the restaurant's state from the snapshot, if there is one
+   *
+   * @return the generation of the snapshot, or 0 if there is none
+   * @throws IOException if the snapshot can't be read
+   */
+  private long loadSnapshot() throws IOException {
+    Path path = Paths.get(snapshotPath);
+    if (!Files.exists(path)) {
+      return 0;
+    }
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)));
+    int version = in.readInt() == SNAPSHOT_MAGIC ? in.readInt() : -1;
+    if (version < 1 || version > SNAPSHOT_VERSION) {
+      throw new IOException(snapshotPath + " is not a snapshot this version can read");
+    }
+    long recorded = in.readLong();
+
+    Kitchen kitchen = restaurant.getKitchen();
+    int ingredients = in.readInt();
+    for (int i = 0; i < ingredients; i++) {
+      kitchen.restoreIngredient(in.readUTF(), in.readDouble(), in.readDouble());
+    }
+    int reordered = in.readInt();
+    ArrayList<String> outstanding = new ArrayList<>();
+    for (int i = 0; i < reordered; i++) {
+      outstanding.add(in.readUTF());
+    }
+    kitchen.getReorderEngine().restoreOutstanding(outstanding);
+
+    // every dish sent to the kitchen, by id, in the order they were sent
+    LinkedHashMap<Long, OrderedDish> sent = new LinkedHashMap<>();
+    int servers = in.readInt();
+    for (int s = 0; s < servers; s++) {
+      Server server = findServer(in.readUTF());
+      int tables = in.readInt();
+      for (int t = 0; t < tables; t++) {
+        Table table = new Table(in.readInt());
+        int orders = in.readInt();
+        for (int o = 0; o < orders; o++) {
+          Order order = new Order(table.getTableNumber(), in.readLong());
+          for (OrderedDish dish : readDishes(in)) {
+            order.restoreOrderedDish(dish);
+            sent.put(dish.getID(), dish);
+          }
+          for (OrderedDish dish : readDishes(in)) {
+            order.addTentativeOrderedDish(dish);
+          }
+          table.addOrder(order);
+        }
+        if (server != null) {
+          server.restoreTable(table);
+        }
+      }
+    }
+
+    LinkedHashMap<Long, OrderedDish> recordedQueue = new LinkedHashMap<>();
+    int queuedCount = in.readInt();
+    for (int i = 0; i < queuedCount; i++) {
+      long id = in.readLong();
+      OrderedDish dish = sent.get(id);
+      if (dish != null && dish.isOrdered()) {
+        recordedQueue.put(id, dish);
+      }
+    }
+    // a dish a cook had taken from the queue but not yet seen goes back to the head of the queue
+    ArrayList<OrderedDish> queued = new ArrayList<>();
+    ArrayList<OrderedDish> cooking = new ArrayList<>();
+    ArrayList<OrderedDish> cooked = new ArrayList<>();
+    for (OrderedDish dish : sent.values()) {
+      if (dish.isOrdered() && !recordedQueue.containsKey(dish.getID())) {
+        queued.add(dish);
+      } else if (dish.canCook()) {
+        cooking.add(dish);
+      } else if (dish.canDeliver()) {
+        cooked.add(dish);
+      }
+    }
+    queued.addAll(recordedQueue.values());
+    kitchen.restoreDishes(queued, cooking, cooked);
+
+    int cooks = in.readInt();
+    for (int c = 0; c < cooks; c++) {
+      Cook cook = findCook(in.readUTF());
+      if (in.readBoolean()) {
+        OrderedDish dish = sent.get(in.readLong());
+        boolean restored = cook != null && dish != null;
+        if (restored) {
+          cook.restoreCurrentDish(dish);
+        }
+        int batchmates = version >= 2 ? in.readInt() : 0;
+        for (int i = 0; i < batchmates; i++) {
+          OrderedDish batchmate = sent.get(in.readLong());
+          if (restored && batchmate != null) {
+            cook.restoreBatchmate(batchmate);
+          }
+        }
+      }
+    }
+    return recorded;
+  }
+
+  /** Write the server, table number and order number identifying an order */
+  private static void writeOrderRef(
+      DataOutputStream out, Server server, int tableNumber, long orderNumber) throws IOException {
+    out.writeUTF(server.name);
+    out.writeInt(tableNumber);
+    out.writeLong(orderNumber);
+  }
+
+  /** Write the server, table number, order number and id identifying an ordered dish */
+  private static void writeDishRef(
+      DataOutputStream out, Server server, int tableNumber, long orderNumber, long dishId)
+      throws IOException {
+    writeOrderRef(out, server, tableNumber, orderNumber);
+    out.writeLong(dishId);
+  }
+
+  /** Write a list of ordered dishes, preceded by its length */
+  private static void writeDishes(DataOutputStream out, ArrayList<OrderedDish> dishes)
+      throws IOException {
+    out.writeInt(dishes.size());
+    for (OrderedDish dish : dishes) {
+      writeDish(out, dish);
+    }
+  }
+
+  /** Read a list of ordered dishes written by writeDishes */
+  private static ArrayList<OrderedDish> readDishes(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    ArrayList<OrderedDish> dishes = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      dishes.add(readDish(in));
+    }
+    return dishes;
+  }
+
+  /**
+   * Write an ordered dish: its id, status, the dish it was ordered from, and the changes made to it
+   *
+   * @param out: the stream to write to
+   * @param dish: the ordered dish
+   * @throws IOException if the stream can't be written
+   */
+  private static void writeDish(DataOutputStream out, OrderedDish dish) throws IOException {
+    IngredientRegistry registry = IngredientRegistry.getInstance();
+    out.writeLong(dish.getID());
+    out.writeByte(dish.getStatusCode());
+    out.writeUTF(dish.getName());
+    out.writeLong(dish.getCostCents());
+    Recipe base = dish.getBaseRecipe();
+    out.writeShort(base.size());
+    for (int i = 0; i < base.size(); i++) {
+      out.writeUTF(registry.nameOf(base.idAt(i)));
+      out.writeDouble(base.amountAt(i));
+    }
+    out.writeShort(dish.getChangeCount());
+    for (int i = 0; i < dish.getChangeCount(); i++) {
+      out.writeUTF(registry.nameOf(dish.changedIdAt(i)));
+      out.writeDouble(dish.changeAt(i));
+    }
+  }
+
+  /**
+   * Read an ordered dish written by writeDish
+   *
+   * @param in: the stream to read from
+   * @return the ordered dish, with its recorded id, status and changes
+   * @throws IOException if the stream can't be read
+   */
+  private static OrderedDish readDish(DataInputStream in) throws IOException {
+    long id = in.readLong();
+    int status = in.readByte();
+    String name = in.readUTF();
+    long costCents = in.readLong();
+    int baseCount = in.readShort();
+    ArrayList<Ingredient> ingredients = new ArrayList<>(baseCount);
+    for (int i = 0; i < baseCount; i++) {
+      ingredients.add(new Ingredient(in.readUTF(), in.readDouble()));
+    }
+    OrderedDish dish = new OrderedDish(id, new Dish(name, costCents / 100.0, ingredients));
+    int changeCount = in.readShort();
+    for (int i = 0; i < changeCount; i++) {
+      dish.adjustIngredient(new Ingredient(in.readUTF(), 0), in.readDouble());
+    }
+    dish.restoreStatus(status);
+    return dish;
+  }
+
+  /**
+   * @param name: the name of a server
+   * @return the server, or null if the restaurant no longer employs one by that name
+   */
+  private Server findServer(String name) {
+    return servers.get(name);
+  }
+
+  /**
+   * @param name: the name of a cook
+   * @return the cook, or null if the restaurant no longer employs one by that name
+   */
+  private Cook findCook(String name) {
+    return cooks.get(name);
+  }
+
+  /**
+   * @param dishId: the id of a dish in an open order
+   * @return the dish, or null if it isn't in an open order
+   */
+  private OrderedDish findDish(long dishId) {
+    Order order = restaurant.getOrderIndex().getOrderOfDish(dishId);
+    return order != null ? order.findOrderedDish(dishId) : null;
+  }
+}
@@ -1,25 +1,35 @@
 package RestaurantBackend;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 
 /**
  * A table at a restaurant *
  *
  * <p>Contains the table number this table corresponds to, and any orders pertaining to this table
+ *
+ * <p>Keeps a running total of the cost of the items served at the table, in cents, which its orders
+ * update as their items are served, so a bill's totals never have to be added up.
  */
 public class Table {
 
   private int tableNumber;
-  private ArrayList<Order> orders;
+  // orders at this table, by order number, in the order they were added
+  private LinkedHashMap<Long, Order> orders;
+  // the total cost of all items served at this table, in cents
+  private long subtotalCents;
 
   private static final int BILL_WIDTH = 30;
-  private static final double TAX = 0.13;
-  private static final double GRATUITY = 0.15;
+  private static final int TAX_PERCENT = 13;
+  private static final int GRATUITY_PERCENT = 15;
   private static final int GRATUITY_THRESHOLD = 8;
 
+  private static final LatencyHistogram BILL_TIME =
+      Metrics.getInstance().histogram("table.bill.nanos");
+
   public Table(int tableNumber) {
     this.tableNumber = tableNumber;
-    orders = new ArrayList<>();
+    orders = new LinkedHashMap<>();
   }
 
   public int getTableNumber() {
@@ -32,12 +42,19 @@ public class Table {
    * @param r the order to be added
    */
   void addOrder(Order r) {
-    orders.add(r);
+    orders.put(r.getOrderNumber(), r);
+    r.setTable(this);
+    subtotalCents += r.getSubtotalCents();
   }
 
   /** @return a deep copy of the orders pertaining to this Table */
   public ArrayList<Order> getOrders() {
-    return new ArrayList<>(orders);
+    return new ArrayList<>(orders.values());
+  }
+
+  /** @return true if this table has no orders */
+  boolean isEmpty() {
+    return orders.isEmpty();
   }
 
   /**
@@ -46,21 +63,24 @@ public class Table {
    * @param orderNumber the order number to search for
    * @return the order, or null if it doesn't exist
    */
-  Order getOrder(int orderNumber) {
-    for (Order r : orders) {
-      if (r.getOrderNumber() == orderNumber) return r;
-    }
-    return null;
+  Order getOrder(long orderNumber) {
+    return orders.get(orderNumber);
   }
 
   /** @return A formatted bill for all orders at this table */
   String getBill() {
+    long start = Metrics.startTimer();
     StringBuilder sb = new StringBuilder();
-    for (int i = 0; i < BILL_WIDTH; i++) sb.append(".");
+    appendRule(sb);
     sb.append("\n");
-    sb.append(getBillHelper(0, orders.size() - 1, 0, new StringBuilder()));
-    for (int i = 0; i < BILL_WIDTH; i++) sb.append(".");
-    return sb.toString();
+    for (Order r : orders.values()) {
+      appendServedItems(r, sb);
+    }
+    appendTotals(subtotalCents, sb);
+    appendRule(sb);
+    String bill = sb.toString();
+    BILL_TIME.recordSince(start);
+    return bill;
   }
 
   /**
@@ -69,65 +89,114 @@ public class Table {
    * @param orderNumber: the order number pertaining to the order in question
    * @return a formatted bill given an order number
    */
-  String getBill(int orderNumber) {
+  String getBill(long orderNumber) {
+    long start = Metrics.startTimer();
     StringBuilder sb = new StringBuilder();
-    for (int i = 0; i < BILL_WIDTH; i++) sb.append(".");
+    appendRule(sb);
     sb.append("\n");
-    for (int i = 0; i < orders.size(); i++) {
-      Order r = orders.get(i);
-      if (r.getOrderNumber() == orderNumber) {
-        sb.append(getBillHelper(i, i, 0, new StringBuilder()));
-      }
+    Order r = orders.get(orderNumber);
+    if (r != null) {
+      appendServedItems(r, sb);
+      appendTotals(r.getSubtotalCents(), sb);
+    } else {
+      appendTotals(0, sb);
     }
-    for (int i = 0; i < BILL_WIDTH; i++) sb.append(".");
-    return sb.toString();
+    appendRule(sb);
+    String bill = sb.toString();
+    BILL_TIME.recordSince(start);
+    return bill;
+  }
+
+  /** @return the total cost of all items served at this table, in cents */
+  long getSubtotalCents() {
+    return subtotalCents;
   }
 
   /**
-   * Recursive helper method for getting the bill
+   * Add to the running total of the items served at this table
    *
-   * @param start: starting index
-   * @param end: end index
-   * @param currentTotal: the current total
-   * @param sb: a StringBuilder used to memoize the contents of the bill
-   * @return the bill containing all the items ordered at this table, excluding the header
+   * @param cents: the amount to add, in cents; negative to subtract
    */
-  private String getBillHelper(int start, int end, double currentTotal, StringBuilder sb) {
-    if (start <= end && start >= 0) {
-      double total = currentTotal;
-      for (OrderedDish dish : orders.get(start).getOrderItems()) {
-        if (dish.served()) {
-          sb.append(billLineFormat(dish.getName(), dish.getCost())).append("\n");
-          total += dish.getCost();
-        }
-      }
-      return getBillHelper(start + 1, end, total, sb);
-    } else {
-      double tax = currentTotal * TAX;
-      double gratuity = 0;
-      sb.append(billLineFormat("SUBTOTAL:", currentTotal)).append("\n");
-      sb.append(billLineFormat("TAX:", tax));
-      if (orders.size() >= GRATUITY_THRESHOLD) {
-        gratuity = currentTotal * GRATUITY;
-        sb.append(billLineFormat("GRATUITY:", gratuity)).append("\n");
+  void addToSubtotal(long cents) {
+    subtotalCents += cents;
+  }
+
+  /**
+   * Append a line of the bill for each item served in the given order
+   *
+   * @param r: the order
+   * @param sb: the bill
+   */
+  private void appendServedItems(Order r, StringBuilder sb) {
+    for (OrderedDish dish : r.orderItems()) {
+      if (dish.served()) {
+        sb.append(billLineFormat(dish.getName(), dish.getCostCents())).append("\n");
       }
-      double total = currentTotal + tax + gratuity;
-      sb.append(billLineFormat("TOTAL:", total)).append("\n");
-      return sb.toString();
     }
   }
 
+  /**
+   * Append the subtotal, tax, gratuity if any, and total to the bill
+   *
+   * @param subtotal: the subtotal, in cents
+   * @param sb: the bill
+   */
+  private void appendTotals(long subtotal, StringBuilder sb) {
+    long tax = taxOn(subtotal);
+    long gratuity = gratuityOn(subtotal);
+    sb.append(billLineFormat("SUBTOTAL:", subtotal)).append("\n");
+    sb.append(billLineFormat("TAX:", tax));
+    if (gratuity > 0) {
+      sb.append(billLineFormat("GRATUITY:", gratuity)).append("\n");
+    }
+    sb.append(billLineFormat("TOTAL:", subtotal + tax + gratuity)).append("\n");
+  }
+
+  /**
+   * Append a rule across the width of the bill
+   *
+   * @param sb: the bill
+   */
+  static void appendRule(StringBuilder sb) {
+    for (int i = 0; i < BILL_WIDTH; i++) sb.append(".");
+  }
+
+  /**
+   * @param subtotal: a subtotal, in cents
+   * @return the tax on the subtotal, in cents
+   */
+  private static long taxOn(long subtotal) {
+    return percentOf(subtotal, TAX_PERCENT);
+  }
+
+  /**
+   * @param subtotal: a subtotal, in cents
+   * @return the gratuity on the subtotal, in cents, or 0 if this table is too small for one
+   */
+  private long gratuityOn(long subtotal) {
+    return orders.size() >= GRATUITY_THRESHOLD ? percentOf(subtotal, GRATUITY_PERCENT) : 0;
+  }
+
+  /**
+   * @param cents: an amount, in cents
+   * @param percent: a percentage
+   * @return the given percentage of the amount, rounded to the nearest cent
+   */
+  private static long percentOf(long cents, int percent) {
+    return (cents * percent + 50) / 100;
+  }
+
   /**
    * Format a line of the bill
    *
    * @param label the label associated with the value; e.g. TAX, SUBTOTAL etc
-   * @param value the value associated with the label
+   * @param cents the value associated with the label, in cents
    * @return a formatted line of the bill, formatted as follows: label ......... value
    */
-  private String billLineFormat(String label, double value) {
+  static String billLineFormat(String label, long cents) {
     StringBuilder sb = new StringBuilder();
     sb.append(label);
-    String valueText = String.format("$%.2f%n", value);
+    String valueText = String.format("$%d.%02d%n", cents / 100, cents % 100);
     for (int i = 0; i < BILL_WIDTH - label.length() - valueText.length(); i++) {
       sb.append(".");
     }
@@ -139,20 +208,41 @@ public class Table {
    * Resolve the given order and remove it from the list of orders if all of it's dishes have been
    * served
    *
-   * <p>Write the bill to payment records
+   * <p>Record the payment in the payment ledger
    *
    * @param orderNumber the order number to be resolved
    * @return true if an order was removed; false otherwise
    */
-  boolean resolveOrder(int orderNumber) {
-    for (int i = 0; i < orders.size(); i++) {
-      Order r = orders.get(i);
-      if (r.getOrderNumber() == orderNumber
-          && r.getOrderItems().size() == r.getDeliveredItems().size()) {
-        LogWriter.getInstance().writeToPaymentRecords(getBill(orderNumber));
-        orders.remove(i);
-        return true;
+  boolean resolveOrder(long orderNumber) {
+    Order r = orders.get(orderNumber);
+    if (r != null && r.allServed()) {
+      long subtotal = r.getSubtotalCents();
+      // a replayed payment was recorded the first time
+      if (!StateJournal.isReplaying()) {
+        // the items as billed by getBill(orderNumber)
+        ArrayList<String> itemNames = new ArrayList<>();
+        long[] itemCents = new long[r.orderItems().size()];
+        for (OrderedDish dish : r.orderItems()) {
+          if (dish.served()) {
+            itemCents[itemNames.size()] = dish.getCostCents();
+            itemNames.add(dish.getName());
+          }
+        }
+        PaymentLedger.getInstance()
+            .append(
+                new PaymentRecord(
+                    orderNumber,
+                    tableNumber,
+                    itemNames,
+                    itemCents,
+                    subtotal,
+                    taxOn(subtotal),
+                    gratuityOn(subtotal),
+                    System.currentTimeMillis()));
       }
+      orders.remove(orderNumber);
+      subtotalCents -= r.getSubtotalCents();
+      return true;
     }
     return false;
   }
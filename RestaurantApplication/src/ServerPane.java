@@ -22,7 +22,7 @@ public class ServerPane extends SplitPane implements Observer {
   @FXML private TextField addTableInput;
   @FXML private Button addTableButton;
 
-  @FXML private ListView<Integer> orderList;
+  @FXML private ListView<Long> orderList;
   @FXML private Button addOrderButton;
   @FXML private Button resolve;
 
@@ -52,6 +52,9 @@ public class ServerPane extends SplitPane implements Observer {
 
   private Menu menu;
 
+  // the dish whose ingredients are shown in ingredientListView
+  private OrderedDish ingredientsDish;
+
   private static final double INGREDIENT_STEP = 0.5;
 
   /**
@@ -92,7 +95,7 @@ public class ServerPane extends SplitPane implements Observer {
           OrderedDish dish = deliveredDishView.getSelectionModel().getSelectedItem();
           if (dish != null) {
             int tableNumber = tableList.getSelectionModel().getSelectedItem();
-            int orderNumber = orderList.getSelectionModel().getSelectedItem();
+            long orderNumber = orderList.getSelectionModel().getSelectedItem();
             server.returnDish(tableNumber, orderNumber, dish.getID());
             Order r = server.getOrder(tableNumber, orderNumber);
             refreshDeliveredDishView(r);
@@ -108,7 +111,7 @@ public class ServerPane extends SplitPane implements Observer {
         event -> {
           Integer tableNumber = tableList.getSelectionModel().getSelectedItem();
           if (tableNumber != null) {
-            Integer orderNumber = orderList.getSelectionModel().getSelectedItem();
+            Long orderNumber = orderList.getSelectionModel().getSelectedItem();
             if (orderNumber != null) {
               billArea.setText(server.getIndividualBill(tableNumber, orderNumber));
             }
@@ -146,7 +149,7 @@ public class ServerPane extends SplitPane implements Observer {
           OrderedDish selected = pendingDeliveries.getSelectionModel().getSelectedItem();
           if (selected != null) {
             int tableNumber = tableList.getSelectionModel().getSelectedItem();
-            int orderNumber = orderList.getSelectionModel().getSelectedItem();
+            long orderNumber = orderList.getSelectionModel().getSelectedItem();
             Order r = server.getOrder(tableNumber, orderNumber);
             server.confirmServed(selected.getID(), tableNumber, orderNumber);
             refreshPendingDeliveries(r);
@@ -158,22 +161,23 @@ public class ServerPane extends SplitPane implements Observer {
 
   /** initialize the ingredient controls */
   private void initIngredientControls() {
-    incrementIngredient.setOnAction(
-        event -> {
-          Ingredient ing = ingredientListView.getSelectionModel().getSelectedItem();
-          if (ing != null) {
-            ing.increment(INGREDIENT_STEP);
-            ingredientListView.refresh();
-          }
-        });
-    decrementIngredient.setOnAction(
-        event -> {
-          Ingredient ing = ingredientListView.getSelectionModel().getSelectedItem();
-          if (ing != null) {
-            ing.decrement(INGREDIENT_STEP);
-            ingredientListView.refresh();
-          }
-        });
+    incrementIngredient.setOnAction(event -> adjustSelectedIngredient(INGREDIENT_STEP));
+    decrementIngredient.setOnAction(event -> adjustSelectedIngredient(-INGREDIENT_STEP));
+  }
+
+  /**
+   * Change the amount of the selected ingredient in the dish whose ingredients are shown
+   *
+   * @param change: the amount to add; negative to remove some
+   */
+  private void adjustSelectedIngredient(double change) {
+    Ingredient ing = ingredientListView.getSelectionModel().getSelectedItem();
+    if (ing != null && ingredientsDish != null) {
+      int selected = ingredientListView.getSelectionModel().getSelectedIndex();
+      server.adjustIngredient(ingredientsDish, ing, change);
+      ingredientListView.getItems().setAll(ingredientsDish.getIngredients());
+      ingredientListView.getSelectionModel().select(selected);
+    }
   }
 
   /** initialize the order controls */
@@ -196,7 +200,7 @@ public class ServerPane extends SplitPane implements Observer {
         });
     resolve.setOnAction(
         event -> {
-          Integer orderNumber = orderList.getSelectionModel().getSelectedItem();
+          Long orderNumber = orderList.getSelectionModel().getSelectedItem();
           if (orderNumber != null)
             if (server.resolveOrder(orderNumber)) {
               orderList.getItems().remove(orderNumber);
@@ -248,7 +252,7 @@ public class ServerPane extends SplitPane implements Observer {
         });
     addNewDish.setOnAction(
         event -> {
-          Integer orderNumber = orderList.getSelectionModel().getSelectedItem();
+          Long orderNumber = orderList.getSelectionModel().getSelectedItem();
           if (orderNumber != null) {
             server.addToOrder(
                 tableList.getSelectionModel().getSelectedItem(),
@@ -264,7 +268,7 @@ public class ServerPane extends SplitPane implements Observer {
    *
    * @param orderNumber: the passed order number
    */
-  private void handleSelectedOrder(Integer orderNumber) {
+  private void handleSelectedOrder(Long orderNumber) {
     if (orderNumber != null) {
       Order working = server.getOrder(tableList.getSelectionModel().getSelectedItem(), orderNumber);
       refreshTentativeDishes(working);
@@ -353,6 +357,7 @@ public class ServerPane extends SplitPane implements Observer {
    */
   private void refreshIngredientsList(OrderedDish dish) {
     clearSelections(ingredientListView);
+    ingredientsDish = dish;
     if (dish != null) {
       ingredientListView.getItems().setAll(dish.getIngredients());
     } else ingredientListView.getItems().clear();